@@ -0,0 +1,262 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.analytics;
+
+import java.io.Flushable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.nexus.common.concurrent.RingBuffer;
+import org.sonatype.sisu.goodies.lifecycle.LifecycleSupport;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * {@link EventRecorder} which only enqueues events on the calling thread.
+ *
+ * Events are published into a preallocated lock-free ring buffer; anonymization and storage happen on a background
+ * flusher thread in batches. When the buffer is full events are dropped rather than blocking the caller.
+ *
+ * Recorded {@link EventData} is handed over to the flusher, and must not be modified by the caller afterwards.
+ *
+ * Metrics are published under {@code org.sonatype.nexus.analytics.BufferedEventRecorder.<name>}, so the name must be
+ * unique among recorders sharing a registry.
+ *
+ * @since 3.0
+ */
+public class BufferedEventRecorder
+    extends LifecycleSupport
+    implements EventRecorder
+{
+  public static final int DEFAULT_CAPACITY = 16384;
+
+  public static final int DEFAULT_BATCH_SIZE = 512;
+
+  public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 250;
+
+  private final String name;
+
+  private final EventStore store;
+
+  private final Anonymizer anonymizer;
+
+  private final RingBuffer<EventData> buffer;
+
+  private final int batchSize;
+
+  private final long flushIntervalNanos;
+
+  private final MetricRegistry metricRegistry;
+
+  private final String metricPrefix;
+
+  private final Counter recorded;
+
+  private final Counter dropped;
+
+  private final Counter flushed;
+
+  private final Counter failed;
+
+  private volatile boolean enabled;
+
+  private volatile Flusher flusher;
+
+  public BufferedEventRecorder(final String name,
+                               final EventStore store,
+                               final @Nullable Anonymizer anonymizer,
+                               final MetricRegistry metricRegistry)
+  {
+    this(name, store, anonymizer, metricRegistry, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE,
+        DEFAULT_FLUSH_INTERVAL_MILLIS);
+  }
+
+  /**
+   * @param name identifies this recorder in metrics and flusher thread name
+   */
+  public BufferedEventRecorder(final String name,
+                               final EventStore store,
+                               final @Nullable Anonymizer anonymizer,
+                               final MetricRegistry metricRegistry,
+                               final int capacity,
+                               final int batchSize,
+                               final long flushIntervalMillis)
+  {
+    this.name = checkNotNull(name);
+    this.store = checkNotNull(store);
+    this.anonymizer = anonymizer;
+    this.metricRegistry = checkNotNull(metricRegistry);
+    checkArgument(batchSize > 0);
+    checkArgument(flushIntervalMillis > 0);
+    this.buffer = new RingBuffer<>(capacity);
+    this.batchSize = batchSize;
+    this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+
+    this.metricPrefix = name(BufferedEventRecorder.class, name);
+    this.recorded = metricRegistry.counter(name(metricPrefix, "recorded"));
+    this.dropped = metricRegistry.counter(name(metricPrefix, "dropped"));
+    this.flushed = metricRegistry.counter(name(metricPrefix, "flushed"));
+    this.failed = metricRegistry.counter(name(metricPrefix, "failed"));
+    metricRegistry.remove(name(metricPrefix, "depth"));
+    metricRegistry.register(name(metricPrefix, "depth"), new Gauge<Integer>()
+    {
+      @Override
+      public Integer getValue() {
+        return buffer.size();
+      }
+    });
+  }
+
+  public void setEnabled(final boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @Override
+  public void record(final EventData data) {
+    checkNotNull(data);
+    if (!enabled || flusher == null) {
+      return;
+    }
+    if (buffer.offer(data)) {
+      recorded.inc();
+    }
+    else {
+      dropped.inc();
+    }
+  }
+
+  /**
+   * Returns the number of events dropped because the buffer was full.
+   */
+  public long getDroppedCount() {
+    return dropped.getCount();
+  }
+
+  @Override
+  protected void doStart() throws Exception {
+    flusher = new Flusher();
+    flusher.start();
+  }
+
+  @Override
+  protected void doStop() throws Exception {
+    Flusher current = flusher;
+    flusher = null;
+    current.shutdown();
+    current.join();
+
+    metricRegistry.removeMatching(new MetricFilter()
+    {
+      @Override
+      public boolean matches(final String metricName, final Metric metric) {
+        return metricName.startsWith(metricPrefix + ".");
+      }
+    });
+  }
+
+  /**
+   * Drain up to one batch of events into the store, returning the number of events drained.
+   */
+  private int flushBatch(final List<EventData> batch) {
+    EventData data;
+    while (batch.size() < batchSize && (data = buffer.poll()) != null) {
+      batch.add(data);
+    }
+    if (batch.isEmpty()) {
+      return 0;
+    }
+
+    int count = batch.size();
+    try {
+      for (EventData event : batch) {
+        store.add(anonymize(event));
+      }
+      if (store instanceof Flushable) {
+        ((Flushable) store).flush();
+      }
+      flushed.inc(count);
+    }
+    catch (Exception e) {
+      log.warn("Failed to store {} events", count, e);
+      failed.inc(count);
+    }
+    finally {
+      batch.clear();
+    }
+    return count;
+  }
+
+  private EventData anonymize(final EventData data) {
+    if (anonymizer != null) {
+      if (data.getUserId() != null) {
+        data.setUserId(anonymizer.anonymize(data.getUserId()));
+      }
+      if (data.getSessionId() != null) {
+        data.setSessionId(anonymizer.anonymize(data.getSessionId()));
+      }
+    }
+    return data;
+  }
+
+  /**
+   * Background thread draining the ring buffer into the store.
+   */
+  private class Flusher
+      extends Thread
+  {
+    private volatile boolean running = true;
+
+    private Flusher() {
+      super(BufferedEventRecorder.class.getSimpleName() + "-flusher-" + name);
+      setDaemon(true);
+    }
+
+    private void shutdown() {
+      running = false;
+      LockSupport.unpark(this);
+    }
+
+    @Override
+    public void run() {
+      List<EventData> batch = new ArrayList<>(batchSize);
+      while (running) {
+        // keep draining while full batches are available, otherwise wait for more to accumulate
+        if (flushBatch(batch) < batchSize) {
+          LockSupport.parkNanos(this, flushIntervalNanos);
+        }
+      }
+      // drain whatever was recorded before stopping
+      while (flushBatch(batch) > 0) {
+        // continue
+      }
+      log.debug("Stopped");
+    }
+  }
+}
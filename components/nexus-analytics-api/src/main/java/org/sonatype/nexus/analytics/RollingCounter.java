@@ -33,12 +33,8 @@ class RollingCounter
   }
 
   public long next() {
-    long current, next;
-    do {
-      current = value.get();
-      next = (current + 1) % max;
-    }
-    while (!value.compareAndSet(current, next));
-    return next;
+    // single atomic increment rather than a compare-and-set retry loop, which degrades under contention
+    long next = value.incrementAndGet() % max;
+    return next < 0 ? next + max : next;
   }
 }
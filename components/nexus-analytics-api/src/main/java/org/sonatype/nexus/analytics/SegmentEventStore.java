@@ -0,0 +1,309 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.analytics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.sisu.goodies.lifecycle.LifecycleSupport;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.io.Closeables;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * {@link EventStore} which appends events to compressed segment files.
+ *
+ * Events are added to the current segment, which is rolled once it holds the configured number of events or when
+ * the store is iterated. Segments are named by sequence so iteration returns events in the order they were added.
+ *
+ * Not intended for concurrent writers; see {@link BufferedEventRecorder}.
+ *
+ * @since 3.0
+ */
+public class SegmentEventStore
+    extends LifecycleSupport
+    implements EventStore, Flushable
+{
+  public static final int DEFAULT_SEGMENT_SIZE = 10000;
+
+  private static final String PREFIX = "events-";
+
+  private static final String SUFFIX = ".ser.gz";
+
+  private final File directory;
+
+  private final int segmentSize;
+
+  private long nextSegment;
+
+  private ObjectOutputStream segment;
+
+  private int segmentCount;
+
+  private long size;
+
+  public SegmentEventStore(final File directory) {
+    this(directory, DEFAULT_SEGMENT_SIZE);
+  }
+
+  public SegmentEventStore(final File directory, final int segmentSize) {
+    this.directory = checkNotNull(directory);
+    checkArgument(segmentSize > 0);
+    this.segmentSize = segmentSize;
+  }
+
+  @Override
+  protected synchronized void doStart() throws Exception {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("Unable to create directory: " + directory);
+    }
+
+    // resume after the existing segments, counting their events
+    size = 0;
+    for (File file : segments()) {
+      nextSegment = Math.max(nextSegment, sequence(file) + 1);
+      try (ObjectInputStream input = openSegment(file)) {
+        while (readEvent(input, file) != null) {
+          size++;
+        }
+      }
+    }
+    log.debug("Found {} events in: {}", size, directory);
+  }
+
+  @Override
+  protected synchronized void doStop() throws Exception {
+    roll();
+  }
+
+  @Override
+  public synchronized void add(final EventData data) throws Exception {
+    checkNotNull(data);
+    ensureStarted();
+
+    if (segment == null) {
+      File file = new File(directory, String.format("%s%019d%s", PREFIX, nextSegment++, SUFFIX));
+      log.debug("Opening segment: {}", file);
+      segment = new ObjectOutputStream(new GZIPOutputStream(new BufferedOutputStream(new FileOutputStream(file)), true));
+      segmentCount = 0;
+    }
+
+    segment.writeObject(data);
+    size++;
+
+    if (++segmentCount >= segmentSize) {
+      roll();
+    }
+  }
+
+  /**
+   * Flush added events to the current segment, and forget references so the serialization handle table stays small.
+   */
+  @Override
+  public synchronized void flush() throws IOException {
+    if (segment != null) {
+      segment.reset();
+      segment.flush();
+    }
+  }
+
+  /**
+   * Finish the current segment, if any.
+   */
+  private void roll() throws IOException {
+    if (segment != null) {
+      log.debug("Closing segment with {} events", segmentCount);
+      segment.close();
+      segment = null;
+    }
+  }
+
+  @Override
+  public synchronized void clear() throws Exception {
+    ensureStarted();
+    roll();
+    for (File file : segments()) {
+      if (!file.delete()) {
+        log.warn("Unable to delete segment: {}", file);
+      }
+    }
+    size = 0;
+  }
+
+  @Override
+  public synchronized long approximateSize() throws Exception {
+    ensureStarted();
+    return size;
+  }
+
+  @Override
+  public synchronized EventDataIterable iterator(final long offset, final @Nullable Long limit) throws Exception {
+    checkArgument(offset >= 0);
+    checkArgument(limit == null || limit >= 0);
+    ensureStarted();
+
+    // only completed segments can be read
+    roll();
+    final List<File> files = segments();
+
+    return new EventDataIterable()
+    {
+      private final SegmentIterator iterator = new SegmentIterator(files, offset, limit);
+
+      @Override
+      public Iterator<EventData> iterator() {
+        return iterator;
+      }
+
+      @Override
+      public void close() throws Exception {
+        iterator.close();
+      }
+    };
+  }
+
+  /**
+   * Returns existing segment files in sequence order.
+   */
+  private List<File> segments() {
+    File[] files = directory.listFiles(new FilenameFilter()
+    {
+      @Override
+      public boolean accept(final File dir, final String name) {
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+      }
+    });
+    if (files == null) {
+      return new ArrayList<>();
+    }
+    // names are zero-padded, so natural order is sequence order
+    Arrays.sort(files);
+    return new ArrayList<>(Arrays.asList(files));
+  }
+
+  private static long sequence(final File file) {
+    String name = file.getName();
+    return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+  }
+
+  private static ObjectInputStream openSegment(final File file) throws IOException {
+    return new ObjectInputStream(new GZIPInputStream(new BufferedInputStream(new FileInputStream(file))));
+  }
+
+  /**
+   * Read next event from segment, or {@code null} when the segment is exhausted or was left incomplete.
+   */
+  @Nullable
+  private EventData readEvent(final ObjectInputStream input, final File file) throws IOException {
+    try {
+      return (EventData) input.readObject();
+    }
+    catch (EOFException e) {
+      return null;
+    }
+    catch (ClassNotFoundException | IOException e) {
+      // segment was not closed properly, ie. crash before roll
+      log.debug("Incomplete segment: {}", file, e);
+      return null;
+    }
+  }
+
+  /**
+   * Lazily reads events across segments.
+   */
+  private class SegmentIterator
+      extends AbstractIterator<EventData>
+  {
+    private final Iterator<File> files;
+
+    private final Long limit;
+
+    private long skip;
+
+    private long returned;
+
+    private File file;
+
+    private ObjectInputStream input;
+
+    private SegmentIterator(final List<File> files, final long offset, final @Nullable Long limit) {
+      this.files = files.iterator();
+      this.skip = offset;
+      this.limit = limit;
+    }
+
+    @Override
+    protected EventData computeNext() {
+      if (limit != null && returned >= limit) {
+        close();
+        return endOfData();
+      }
+      try {
+        while (true) {
+          if (input == null) {
+            if (!files.hasNext()) {
+              return endOfData();
+            }
+            file = files.next();
+            if (!file.exists()) {
+              // cleared while iterating
+              continue;
+            }
+            input = openSegment(file);
+          }
+
+          EventData data = readEvent(input, file);
+          if (data == null) {
+            close();
+          }
+          else if (skip > 0) {
+            skip--;
+          }
+          else {
+            returned++;
+            return data;
+          }
+        }
+      }
+      catch (IOException e) {
+        close();
+        throw new RuntimeException("Failed to read segment: " + file, e);
+      }
+    }
+
+    private void close() {
+      Closeables.closeQuietly(input);
+      input = null;
+    }
+  }
+}
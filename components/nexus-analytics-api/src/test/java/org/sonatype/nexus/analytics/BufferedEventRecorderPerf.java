@@ -0,0 +1,111 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.analytics;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.sisu.goodies.lifecycle.LifecycleSupport;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+import org.sonatype.sisu.litmus.testsupport.group.Perf;
+
+import com.codahale.metrics.MetricRegistry;
+import org.databene.contiperf.PerfTest;
+import org.databene.contiperf.Required;
+import org.databene.contiperf.junit.ContiPerfRule;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Performance tests for {@link BufferedEventRecorder}.
+ *
+ * Each invocation records {@link #BATCH} events, so the required average keeps recording under a microsecond per call.
+ * The store discards events, and the buffer is large and flushed often, so the flusher keeps up and the cost measured
+ * is that of recording rather than of dropping.
+ */
+@Category(Perf.class)
+public class BufferedEventRecorderPerf
+  extends TestSupport
+{
+  private static final int BATCH = 10000;
+
+  @Rule
+  public ContiPerfRule perfRule = new ContiPerfRule();
+
+  private BufferedEventRecorder underTest;
+
+  private EventData data;
+
+  @Before
+  public void setUp() throws Exception {
+    underTest = new BufferedEventRecorder("perf", new DiscardingEventStore(), null, new MetricRegistry(), 1 << 20,
+        BufferedEventRecorder.DEFAULT_BATCH_SIZE, 1);
+    underTest.setEnabled(true);
+    underTest.start();
+
+    data = new EventData();
+    data.setType("perf");
+
+    // prime jvm byte code optimization (maybe, we hope)
+    for (int i = 0; i < 10; i++) {
+      record();
+    }
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    underTest.stop();
+    log("Dropped: " + underTest.getDroppedCount());
+  }
+
+  /**
+   * Store which only counts events, so storing costs next to nothing.
+   */
+  private static class DiscardingEventStore
+      extends LifecycleSupport
+      implements EventStore
+  {
+    private long size;
+
+    @Override
+    public void add(final EventData data) {
+      size++;
+    }
+
+    @Override
+    public void clear() {
+      size = 0;
+    }
+
+    @Override
+    public long approximateSize() {
+      return size;
+    }
+
+    @Override
+    public EventDataIterable iterator(final long offset, @Nullable final Long limit) {
+      return EMPTY_ITERABLE;
+    }
+  }
+
+  @Test
+  @PerfTest(invocations = 100, threads = 4)
+  @Required(average = 10)
+  public void record() {
+    for (int i = 0; i < BATCH; i++) {
+      underTest.record(data);
+    }
+  }
+}
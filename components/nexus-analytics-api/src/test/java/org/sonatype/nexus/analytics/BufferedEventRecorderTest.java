@@ -0,0 +1,155 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.analytics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link BufferedEventRecorder}.
+ */
+public class BufferedEventRecorderTest
+  extends TestSupport
+{
+  @Mock
+  private EventStore store;
+
+  @Mock
+  private Anonymizer anonymizer;
+
+  private final List<EventData> stored = new CopyOnWriteArrayList<>();
+
+  private BufferedEventRecorder underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    doAnswer(new Answer<Void>()
+    {
+      @Override
+      public Void answer(final InvocationOnMock invocation) throws Throwable {
+        stored.add((EventData) invocation.getArguments()[0]);
+        return null;
+      }
+    }).when(store).add(any(EventData.class));
+
+    when(anonymizer.anonymize(any(String.class))).thenReturn("anonymous");
+  }
+
+  private EventData event(final String type) {
+    EventData data = new EventData();
+    data.setType(type);
+    data.setUserId("user");
+    return data;
+  }
+
+  @Test
+  public void recordsAreStoredAnonymized() throws Exception {
+    underTest = new BufferedEventRecorder("test", store, anonymizer, new MetricRegistry(), 16, 4, 10);
+    underTest.setEnabled(true);
+    underTest.start();
+
+    underTest.record(event("a"));
+    underTest.record(event("b"));
+    underTest.stop();
+
+    assertThat(stored.size(), is(2));
+    assertThat(stored.get(0).getType(), is("a"));
+    assertThat(stored.get(1).getType(), is("b"));
+    assertThat(stored.get(0).getUserId(), is("anonymous"));
+  }
+
+  @Test
+  public void disabledRecordsNothing() throws Exception {
+    underTest = new BufferedEventRecorder("test", store, null, new MetricRegistry(), 16, 4, 10);
+    underTest.start();
+
+    underTest.record(event("a"));
+    underTest.stop();
+
+    assertThat(stored.isEmpty(), is(true));
+  }
+
+  @Test
+  public void metricsOfRecordersDoNotCollide() throws Exception {
+    MetricRegistry registry = new MetricRegistry();
+    BufferedEventRecorder first = new BufferedEventRecorder("first", store, null, registry, 16, 4, 10);
+    BufferedEventRecorder second = new BufferedEventRecorder("second", store, null, registry, 16, 4, 10);
+    first.setEnabled(true);
+    second.setEnabled(true);
+    first.start();
+    second.start();
+
+    first.record(event("a"));
+    first.stop();
+    second.record(event("b"));
+    second.record(event("c"));
+
+    String prefix = BufferedEventRecorder.class.getName();
+    assertThat(registry.getCounters().containsKey(prefix + ".first.recorded"), is(false));
+    assertThat(registry.counter(prefix + ".second.recorded").getCount(), is(2L));
+    assertThat(registry.getGauges().containsKey(prefix + ".second.depth"), is(true));
+
+    second.stop();
+    assertThat(registry.getMetrics().isEmpty(), is(true));
+  }
+
+  @Test
+  public void dropsWhenFull() throws Exception {
+    // block the flusher so the buffer fills up
+    final CountDownLatch blocked = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    doAnswer(new Answer<Void>()
+    {
+      @Override
+      public Void answer(final InvocationOnMock invocation) throws Throwable {
+        blocked.countDown();
+        release.await();
+        stored.add((EventData) invocation.getArguments()[0]);
+        return null;
+      }
+    }).when(store).add(any(EventData.class));
+
+    underTest = new BufferedEventRecorder("test", store, null, new MetricRegistry(), 4, 1, 10);
+    underTest.setEnabled(true);
+    underTest.start();
+
+    underTest.record(event("first"));
+    assertThat(blocked.await(5, TimeUnit.SECONDS), is(true));
+
+    for (int i = 0; i < 10; i++) {
+      underTest.record(event("more"));
+    }
+    assertThat(underTest.getDroppedCount(), is(6L));
+
+    release.countDown();
+    underTest.stop();
+    assertThat(stored.size(), is(5));
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.analytics;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.sonatype.nexus.analytics.EventStore.EventDataIterable;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for {@link SegmentEventStore}.
+ */
+public class SegmentEventStoreTest
+  extends TestSupport
+{
+  private File directory;
+
+  private SegmentEventStore underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    directory = util.createTempDir("events");
+    underTest = new SegmentEventStore(directory, 3);
+    underTest.start();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (underTest != null) {
+      underTest.stop();
+    }
+  }
+
+  private void add(final int count) throws Exception {
+    for (int i = 0; i < count; i++) {
+      EventData data = new EventData();
+      data.setType("event-" + i);
+      underTest.add(data);
+    }
+  }
+
+  private List<String> types(final long offset, final Long limit) throws Exception {
+    List<String> types = new ArrayList<>();
+    try (EventDataIterable events = underTest.iterator(offset, limit)) {
+      for (EventData data : events) {
+        types.add(data.getType());
+      }
+    }
+    return types;
+  }
+
+  @Test
+  public void iterateAcrossSegments() throws Exception {
+    add(7);
+
+    assertThat(underTest.approximateSize(), is(7L));
+    assertThat(types(0, null), contains("event-0", "event-1", "event-2", "event-3", "event-4", "event-5", "event-6"));
+    assertThat(types(2, 3L), contains("event-2", "event-3", "event-4"));
+  }
+
+  @Test
+  public void addAfterIterate() throws Exception {
+    add(2);
+    assertThat(types(0, null), contains("event-0", "event-1"));
+
+    add(1);
+    assertThat(types(0, null), contains("event-0", "event-1", "event-0"));
+  }
+
+  @Test
+  public void reopen() throws Exception {
+    add(4);
+    underTest.stop();
+
+    underTest = new SegmentEventStore(directory, 3);
+    underTest.start();
+    assertThat(underTest.approximateSize(), is(4L));
+
+    add(1);
+    assertThat(types(3, null), contains("event-3", "event-0"));
+  }
+
+  @Test
+  public void clear() throws Exception {
+    add(5);
+    underTest.clear();
+
+    assertThat(underTest.approximateSize(), is(0L));
+    assertThat(types(0, null).isEmpty(), is(true));
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.cache;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.sisu.goodies.common.Time;
+
+import com.google.common.cache.Weigher;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * {@link CacheService} cache configuration.
+ *
+ * @since 3.0
+ */
+public class CacheConfig<K, V>
+{
+  /**
+   * Estimated heap weight in bytes of a single entry, used when no {@link Weigher} is configured.
+   */
+  public static final int DEFAULT_ENTRY_WEIGHT = 256;
+
+  private long maximumWeight = 1000L * DEFAULT_ENTRY_WEIGHT;
+
+  private Weigher<? super K, ? super V> weigher;
+
+  private Time expireAfterWrite;
+
+  private Time expireAfterAccess;
+
+  private boolean admission = true;
+
+  /**
+   * Maximum total weight in bytes of the cache entries.
+   */
+  public CacheConfig<K, V> maximumWeight(final long maximumWeight) {
+    checkArgument(maximumWeight >= 0, "Maximum weight must not be negative");
+    this.maximumWeight = maximumWeight;
+    return this;
+  }
+
+  /**
+   * Maximum total weight expressed as number of entries of {@link #DEFAULT_ENTRY_WEIGHT}.
+   */
+  public CacheConfig<K, V> maximumEntries(final long maximumEntries) {
+    return maximumWeight(maximumEntries * DEFAULT_ENTRY_WEIGHT);
+  }
+
+  /**
+   * Estimates the heap weight in bytes of an entry.
+   */
+  public CacheConfig<K, V> weigher(final Weigher<? super K, ? super V> weigher) {
+    this.weigher = checkNotNull(weigher);
+    return this;
+  }
+
+  public CacheConfig<K, V> expireAfterWrite(final Time expireAfterWrite) {
+    this.expireAfterWrite = checkNotNull(expireAfterWrite);
+    return this;
+  }
+
+  public CacheConfig<K, V> expireAfterAccess(final Time expireAfterAccess) {
+    this.expireAfterAccess = checkNotNull(expireAfterAccess);
+    return this;
+  }
+
+  /**
+   * Whether a full cache should only admit new entries that are accessed at least as frequently as the entries they
+   * would evict. Enabled by default.
+   */
+  public CacheConfig<K, V> admission(final boolean admission) {
+    this.admission = admission;
+    return this;
+  }
+
+  public long getMaximumWeight() {
+    return maximumWeight;
+  }
+
+  @Nullable
+  public Weigher<? super K, ? super V> getWeigher() {
+    return weigher;
+  }
+
+  @Nullable
+  public Time getExpireAfterWrite() {
+    return expireAfterWrite;
+  }
+
+  @Nullable
+  public Time getExpireAfterAccess() {
+    return expireAfterAccess;
+  }
+
+  public boolean isAdmission() {
+    return admission;
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "{" +
+        "maximumWeight=" + maximumWeight +
+        ", weigher=" + weigher +
+        ", expireAfterWrite=" + expireAfterWrite +
+        ", expireAfterAccess=" + expireAfterAccess +
+        ", admission=" + admission +
+        '}';
+  }
+}
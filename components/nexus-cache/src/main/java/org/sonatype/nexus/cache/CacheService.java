@@ -0,0 +1,53 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.cache;
+
+import java.util.Set;
+
+import com.google.common.cache.Cache;
+
+/**
+ * Shared cache service.
+ *
+ * All caches created through this service share a global heap budget, are bounded by weight, apply frequency based
+ * admission once full and report hit, miss and eviction metrics.
+ *
+ * @since 3.0
+ */
+public interface CacheService
+{
+  /**
+   * Returns the named cache, creating it with the given configuration if it does not exist yet.
+   *
+   * The maximum weight of a new cache is reduced to whatever is left of the global heap budget, but not below a small
+   * minimum share of the budget.
+   */
+  <K, V> Cache<K, V> getOrCreateCache(String name, CacheConfig<K, V> config);
+
+  /**
+   * Invalidates and removes the named cache, releasing its share of the global heap budget.
+   * Does nothing if the cache does not exist.
+   */
+  void removeCache(String name);
+
+  /**
+   * Returns the names of all existing caches.
+   */
+  Set<String> getCacheNames();
+
+  /**
+   * Invalidates all entries of the named caches whenever an event of the given type (or any sub-type) is posted on
+   * the event bus. Caches do not have to exist yet when registering.
+   */
+  void invalidateOn(Class<?> eventType, String... cacheNames);
+}
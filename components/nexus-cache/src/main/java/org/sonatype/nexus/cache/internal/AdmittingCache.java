@@ -0,0 +1,316 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.cache.internal;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.sonatype.nexus.cache.CacheConfig;
+
+import com.codahale.metrics.Counter;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.ForwardingCache;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Weight bounded cache applying TinyLFU style admission once it is full.
+ *
+ * The underlying Guava cache picks its eviction victim in LRU order. When storing a candidate entry evicts a victim the
+ * {@link FrequencySketch} estimates to be accessed more often than the candidate, the candidate is dropped and the
+ * victim reinstated instead, which keeps one-hit wonders from flushing popular entries. Entries written through
+ * {@link #asMap()} bypass admission and access tracking.
+ *
+ * Guava restarts the expiry of every entry it stores, including reinstated victims, so caches with expiry and admission
+ * also track when each entry was written and last read, and treat entries as absent once these times say they expired.
+ *
+ * @since 3.0
+ */
+class AdmittingCache<K, V>
+    extends ForwardingCache<K, V>
+{
+  private final Weigher<? super K, ? super V> weigher;
+
+  private final long maximumWeight;
+
+  private final Cache<K, V> delegate;
+
+  private final FrequencySketch sketch;
+
+  private final Ticker ticker;
+
+  private final long expireAfterWriteNanos;
+
+  private final long expireAfterAccessNanos;
+
+  /**
+   * Times of stored entries by key, only tracked when both admission and expiry apply.
+   */
+  private final ConcurrentMap<Object, EntryTimes> times;
+
+  private final AtomicLong weight = new AtomicLong();
+
+  private final Counter hits;
+
+  private final Counter misses;
+
+  private final Counter evictions;
+
+  private final Counter rejections;
+
+  /**
+   * Key of the entry currently being stored by this thread, evaluated against eviction victims.
+   */
+  private final ThreadLocal<Object> candidate = new ThreadLocal<>();
+
+  AdmittingCache(final CacheConfig<K, V> config,
+                 final long maximumWeight,
+                 final Counter hits,
+                 final Counter misses,
+                 final Counter evictions,
+                 final Counter rejections,
+                 final Ticker ticker)
+  {
+    this.weigher = config.getWeigher() != null ? config.getWeigher() : new Weigher<Object, Object>()
+    {
+      @Override
+      public int weigh(final Object key, final Object value) {
+        return CacheConfig.DEFAULT_ENTRY_WEIGHT;
+      }
+    };
+    this.maximumWeight = maximumWeight;
+    this.hits = checkNotNull(hits);
+    this.misses = checkNotNull(misses);
+    this.evictions = checkNotNull(evictions);
+    this.rejections = checkNotNull(rejections);
+    this.ticker = checkNotNull(ticker);
+    this.sketch = config.isAdmission() ? new FrequencySketch(maximumWeight / CacheConfig.DEFAULT_ENTRY_WEIGHT) : null;
+    this.expireAfterWriteNanos = config.getExpireAfterWrite() != null
+        ? TimeUnit.MILLISECONDS.toNanos(config.getExpireAfterWrite().toMillis())
+        : Long.MAX_VALUE;
+    this.expireAfterAccessNanos = config.getExpireAfterAccess() != null
+        ? TimeUnit.MILLISECONDS.toNanos(config.getExpireAfterAccess().toMillis())
+        : Long.MAX_VALUE;
+    boolean expiring = config.getExpireAfterWrite() != null || config.getExpireAfterAccess() != null;
+    this.times = sketch != null && expiring ? Maps.<Object, EntryTimes>newConcurrentMap() : null;
+
+    CacheBuilder<K, V> builder = CacheBuilder.newBuilder()
+        .ticker(ticker)
+        .maximumWeight(maximumWeight)
+        .weigher(new Weigher<K, V>()
+        {
+          @Override
+          public int weigh(final K key, final V value) {
+            // invoked exactly once per stored entry, either put or loaded
+            int entryWeight = weigher.weigh(key, value);
+            weight.addAndGet(entryWeight);
+            if (times != null) {
+              times.put(key, new EntryTimes(ticker.read()));
+            }
+            return entryWeight;
+          }
+        })
+        .removalListener(new RemovalListener<K, V>()
+        {
+          @Override
+          public void onRemoval(final RemovalNotification<K, V> notification) {
+            removed(notification);
+          }
+        });
+    if (config.getExpireAfterWrite() != null) {
+      builder.expireAfterWrite(config.getExpireAfterWrite().toMillis(), TimeUnit.MILLISECONDS);
+    }
+    if (config.getExpireAfterAccess() != null) {
+      builder.expireAfterAccess(config.getExpireAfterAccess().toMillis(), TimeUnit.MILLISECONDS);
+    }
+    this.delegate = builder.build();
+  }
+
+  @Override
+  protected Cache<K, V> delegate() {
+    return delegate;
+  }
+
+  long getMaximumWeight() {
+    return maximumWeight;
+  }
+
+  long getWeight() {
+    return weight.get();
+  }
+
+  @Override
+  public V getIfPresent(final Object key) {
+    V value = present(key);
+    accessed(key, value != null);
+    return value;
+  }
+
+  @Override
+  public V get(final K key, final Callable<? extends V> valueLoader) throws ExecutionException {
+    V value = present(key);
+    accessed(key, value != null);
+    if (value != null) {
+      return value;
+    }
+    Object previous = candidate.get();
+    candidate.set(key);
+    try {
+      return delegate.get(key, valueLoader);
+    }
+    finally {
+      candidate.set(previous);
+    }
+  }
+
+  @Override
+  public ImmutableMap<K, V> getAllPresent(final Iterable<?> keys) {
+    ImmutableMap.Builder<K, V> result = ImmutableMap.builder();
+    for (Object key : keys) {
+      V value = getIfPresent(key);
+      if (value != null) {
+        @SuppressWarnings("unchecked")
+        K present = (K) key;
+        result.put(present, value);
+      }
+    }
+    return result.build();
+  }
+
+  @Override
+  public void put(final K key, final V value) {
+    Object previous = candidate.get();
+    candidate.set(key);
+    try {
+      delegate.put(key, value);
+    }
+    finally {
+      candidate.set(previous);
+    }
+  }
+
+  @Override
+  public void putAll(final Map<? extends K, ? extends V> entries) {
+    for (Entry<? extends K, ? extends V> entry : entries.entrySet()) {
+      put(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Returns statistics as tracked by the cache metrics; load statistics are not tracked.
+   */
+  @Override
+  public CacheStats stats() {
+    return new CacheStats(hits.getCount(), misses.getCount(), 0, 0, 0, evictions.getCount());
+  }
+
+  /**
+   * Returns the stored value of the key, unless its tracked times say it expired, in which case it is invalidated.
+   */
+  private V present(final Object key) {
+    V value = delegate.getIfPresent(key);
+    if (value == null || times == null) {
+      return value;
+    }
+    EntryTimes entryTimes = times.get(key);
+    if (entryTimes == null) {
+      return value;
+    }
+    long now = ticker.read();
+    if (now - entryTimes.written >= expireAfterWriteNanos || now - entryTimes.accessed >= expireAfterAccessNanos) {
+      delegate.invalidate(key);
+      return null;
+    }
+    entryTimes.accessed = now;
+    return value;
+  }
+
+  private void accessed(final Object key, final boolean hit) {
+    if (hit) {
+      hits.inc();
+    }
+    else {
+      misses.inc();
+    }
+    if (sketch != null) {
+      sketch.increment(key);
+    }
+  }
+
+  /**
+   * Invoked by the delegate in the thread that caused the removal, after the entry has been removed.
+   */
+  private void removed(final RemovalNotification<K, V> notification) {
+    K key = notification.getKey();
+    V value = notification.getValue();
+    if (key != null && value != null) {
+      weight.addAndGet(-weigher.weigh(key, value));
+    }
+    if (notification.getCause() == RemovalCause.SIZE && key != null && value != null && reject(key)) {
+      // victim is more popular, drop the candidate and reinstate the victim, keeping its expiry
+      EntryTimes entryTimes = times != null ? times.get(key) : null;
+      delegate.put(key, value);
+      if (entryTimes != null) {
+        times.put(key, entryTimes);
+      }
+      rejections.inc();
+      return;
+    }
+    if (times != null && key != null && notification.getCause() != RemovalCause.REPLACED) {
+      times.remove(key);
+    }
+    if (notification.wasEvicted()) {
+      evictions.inc();
+    }
+  }
+
+  /**
+   * Drops the candidate being stored by this thread if it is accessed less often than the given victim.
+   */
+  private boolean reject(final K victim) {
+    Object key = candidate.get();
+    if (sketch == null || key == null || key.equals(victim) || sketch.frequency(victim) <= sketch.frequency(key)) {
+      return false;
+    }
+    // clear first, so evictions caused by reinstating the victim are not evaluated against the same candidate
+    candidate.remove();
+    delegate.invalidate(key);
+    return true;
+  }
+
+  private static class EntryTimes
+  {
+    private final long written;
+
+    private volatile long accessed;
+
+    private EntryTimes(final long written) {
+      this.written = written;
+      this.accessed = written;
+    }
+  }
+}
@@ -0,0 +1,289 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.cache.internal;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.nexus.cache.CacheConfig;
+import org.sonatype.nexus.cache.CacheService;
+import org.sonatype.sisu.goodies.common.ComponentSupport;
+import org.sonatype.sisu.goodies.eventbus.EventBus;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Default {@link CacheService} implementation.
+ *
+ * The global heap budget is a percentage of the maximum heap; each new cache gets the weight it asks for as long as
+ * the budget allows. Caches created once the budget is used up still get a minimum share of {@value #MINIMUM_SHARE}
+ * of the budget, so the budget may be exceeded by a few late caches rather than leaving them without any capacity.
+ * Metrics of a cache are registered under {@code org.sonatype.nexus.cache.CacheService.<name>}.
+ *
+ * Invalidations are kept by event type. Guava dispatches events by the declared parameter type of a subscriber method,
+ * which cannot be a type only known at runtime, so the service only subscribes to the event bus once an invalidation
+ * is registered, and then resolves the caches of each event class once.
+ *
+ * @since 3.0
+ */
+@Named
+@Singleton
+public class CacheServiceImpl
+    extends ComponentSupport
+    implements CacheService
+{
+  /**
+   * Divisor of the budget giving the weight every cache is granted at least, unless it asks for less.
+   */
+  static final int MINIMUM_SHARE = 100;
+
+  private final EventBus eventBus;
+
+  private final MetricRegistry registry;
+
+  private final Ticker ticker;
+
+  private final long budget;
+
+  private final ConcurrentMap<String, AdmittingCache<?, ?>> caches = new ConcurrentHashMap<>();
+
+  /**
+   * Names of the caches to invalidate, by registered event type.
+   */
+  private final Map<Class<?>, Set<String>> invalidations = Maps.newHashMap();
+
+  /**
+   * Names of the caches to invalidate, by posted event class, resolved from {@link #invalidations}.
+   */
+  private final ConcurrentMap<Class<?>, Set<String>> invalidated = new ConcurrentHashMap<>();
+
+  private final Invalidator invalidator = new Invalidator();
+
+  private boolean subscribed;
+
+  private long allocated;
+
+  @Inject
+  public CacheServiceImpl(final EventBus eventBus,
+                          @Named("${nexus.cache.heapPercentage:-10}") final int heapPercentage)
+  {
+    this(eventBus, heapBudget(heapPercentage), SharedMetricRegistries.getOrCreate("nexus"), Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  CacheServiceImpl(final EventBus eventBus, final long budget, final MetricRegistry registry, final Ticker ticker) {
+    checkArgument(budget >= 0, "Budget must not be negative");
+    this.eventBus = checkNotNull(eventBus);
+    this.budget = budget;
+    this.registry = checkNotNull(registry);
+    this.ticker = checkNotNull(ticker);
+
+    register(name(CacheService.class, "budget"), new Gauge<Long>()
+    {
+      @Override
+      public Long getValue() {
+        return CacheServiceImpl.this.budget;
+      }
+    });
+    register(name(CacheService.class, "allocated"), new Gauge<Long>()
+    {
+      @Override
+      public Long getValue() {
+        return getAllocated();
+      }
+    });
+    register(name(CacheService.class, "weight"), new Gauge<Long>()
+    {
+      @Override
+      public Long getValue() {
+        long weight = 0;
+        for (AdmittingCache<?, ?> cache : caches.values()) {
+          weight += cache.getWeight();
+        }
+        return weight;
+      }
+    });
+
+    log.info("Heap budget: {} bytes", budget);
+  }
+
+  private static long heapBudget(final int heapPercentage) {
+    checkArgument(heapPercentage > 0 && heapPercentage <= 100, "Heap percentage must be between 1 and 100");
+    return Runtime.getRuntime().maxMemory() / 100 * heapPercentage;
+  }
+
+  @VisibleForTesting
+  long getBudget() {
+    return budget;
+  }
+
+  @VisibleForTesting
+  synchronized long getAllocated() {
+    return allocated;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public synchronized <K, V> Cache<K, V> getOrCreateCache(final String name, final CacheConfig<K, V> config) {
+    checkNotNull(name);
+    checkNotNull(config);
+
+    AdmittingCache<?, ?> cache = caches.get(name);
+    if (cache == null) {
+      long weight = Math.min(config.getMaximumWeight(), Math.max(budget - allocated, budget / MINIMUM_SHARE));
+      if (weight < config.getMaximumWeight()) {
+        log.warn("Cache {} limited to {} of requested {} bytes by heap budget of {} bytes",
+            name, weight, config.getMaximumWeight(), budget);
+      }
+      log.debug("Creating cache {} with maximum weight {}: {}", name, weight, config);
+
+      final AdmittingCache<K, V> created = new AdmittingCache<>(config, weight,
+          registry.counter(name(CacheService.class, name, "hits")),
+          registry.counter(name(CacheService.class, name, "misses")),
+          registry.counter(name(CacheService.class, name, "evictions")),
+          registry.counter(name(CacheService.class, name, "rejections")),
+          ticker);
+      register(name(CacheService.class, name, "size"), new Gauge<Long>()
+      {
+        @Override
+        public Long getValue() {
+          return created.size();
+        }
+      });
+      register(name(CacheService.class, name, "weight"), new Gauge<Long>()
+      {
+        @Override
+        public Long getValue() {
+          return created.getWeight();
+        }
+      });
+
+      allocated += weight;
+      caches.put(name, created);
+      cache = created;
+    }
+    return (Cache<K, V>) cache;
+  }
+
+  @Override
+  public synchronized void removeCache(final String name) {
+    checkNotNull(name);
+
+    AdmittingCache<?, ?> cache = caches.remove(name);
+    if (cache != null) {
+      log.debug("Removing cache {}", name);
+      cache.invalidateAll();
+      allocated -= cache.getMaximumWeight();
+
+      final String prefix = name(CacheService.class, name) + '.';
+      registry.removeMatching(new MetricFilter()
+      {
+        @Override
+        public boolean matches(final String metricName, final Metric metric) {
+          return metricName.startsWith(prefix);
+        }
+      });
+    }
+  }
+
+  @Override
+  public Set<String> getCacheNames() {
+    return ImmutableSet.copyOf(caches.keySet());
+  }
+
+  @Override
+  public synchronized void invalidateOn(final Class<?> eventType, final String... cacheNames) {
+    checkNotNull(eventType);
+    Set<String> names = invalidations.get(eventType);
+    ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+    if (names != null) {
+      builder.addAll(names);
+    }
+    for (String cacheName : cacheNames) {
+      builder.add(checkNotNull(cacheName));
+    }
+    invalidations.put(eventType, builder.build());
+    invalidated.clear();
+
+    if (!subscribed) {
+      eventBus.register(invalidator);
+      subscribed = true;
+    }
+  }
+
+  /**
+   * Returns the names of the caches to invalidate on events of given class.
+   */
+  private Set<String> invalidatedBy(final Class<?> eventClass) {
+    Set<String> names = invalidated.get(eventClass);
+    if (names == null) {
+      ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+      synchronized (this) {
+        for (Entry<Class<?>, Set<String>> entry : invalidations.entrySet()) {
+          if (entry.getKey().isAssignableFrom(eventClass)) {
+            builder.addAll(entry.getValue());
+          }
+        }
+        names = builder.build();
+        invalidated.put(eventClass, names);
+      }
+    }
+    return names;
+  }
+
+  private void register(final String name, final Metric metric) {
+    registry.remove(name);
+    registry.register(name, metric);
+  }
+
+  /**
+   * Event bus subscriber invalidating caches registered through {@link #invalidateOn(Class, String...)}.
+   */
+  @VisibleForTesting
+  class Invalidator
+  {
+    @Subscribe
+    @AllowConcurrentEvents
+    public void on(final Object event) {
+      for (String cacheName : invalidatedBy(event.getClass())) {
+        Cache<?, ?> cache = caches.get(cacheName);
+        if (cache != null) {
+          log.debug("Invalidating cache {} on {}", cacheName, event);
+          cache.invalidateAll();
+        }
+      }
+    }
+  }
+}
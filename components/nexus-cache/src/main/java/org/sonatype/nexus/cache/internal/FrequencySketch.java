@@ -0,0 +1,127 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.cache.internal;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-min sketch of 4-bit counters estimating how often keys have been accessed recently.
+ *
+ * Counters are halved once the number of recorded accesses reaches ten times the table size, so that the estimate
+ * favours recent popularity over historic one (the TinyLFU aging scheme).
+ *
+ * @since 3.0
+ */
+class FrequencySketch
+{
+  private static final long[] SEEDS = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+  };
+
+  private static final long RESET_MASK = 0x7777777777777777L;
+
+  private static final int MAXIMUM_CAPACITY = 1 << 24;
+
+  private final AtomicLongArray table;
+
+  private final int tableMask;
+
+  private final int sampleSize;
+
+  private final AtomicInteger size = new AtomicInteger();
+
+  FrequencySketch(final long expectedEntries) {
+    int capacity = (int) Math.min(Math.max(expectedEntries, 16), MAXIMUM_CAPACITY);
+    int length = Integer.highestOneBit(capacity - 1) << 1;
+    this.table = new AtomicLongArray(length);
+    this.tableMask = length - 1;
+    this.sampleSize = 10 * length;
+  }
+
+  /**
+   * Returns the estimated number of recent accesses of the key, at most 15.
+   */
+  int frequency(final Object key) {
+    int hash = spread(key.hashCode());
+    int start = (hash & 3) << 2;
+    int frequency = Integer.MAX_VALUE;
+    for (int i = 0; i < 4; i++) {
+      int offset = (start + i) << 2;
+      int count = (int) ((table.get(indexOf(hash, i)) >>> offset) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  /**
+   * Records an access of the key.
+   */
+  void increment(final Object key) {
+    int hash = spread(key.hashCode());
+    int start = (hash & 3) << 2;
+    boolean added = false;
+    for (int i = 0; i < 4; i++) {
+      added |= incrementAt(indexOf(hash, i), start + i);
+    }
+    if (added && size.incrementAndGet() >= sampleSize) {
+      reset();
+    }
+  }
+
+  /**
+   * Increments the given counter of the table element unless it already reached its maximum.
+   */
+  private boolean incrementAt(final int index, final int counter) {
+    int offset = counter << 2;
+    long mask = 0xfL << offset;
+    while (true) {
+      long current = table.get(index);
+      if ((current & mask) == mask) {
+        return false;
+      }
+      if (table.compareAndSet(index, current, current + (1L << offset))) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Halves all counters.
+   */
+  private synchronized void reset() {
+    if (size.get() < sampleSize) {
+      return; // already aged by another thread
+    }
+    for (int i = 0; i < table.length(); i++) {
+      long current;
+      do {
+        current = table.get(i);
+      }
+      while (!table.compareAndSet(i, current, (current >>> 1) & RESET_MASK));
+    }
+    size.set(sampleSize / 2);
+  }
+
+  private int indexOf(final int item, final int i) {
+    long hash = (item + SEEDS[i]) * SEEDS[i];
+    hash += hash >>> 32;
+    return ((int) hash) & tableMask;
+  }
+
+  private static int spread(final int hashCode) {
+    int x = ((hashCode >>> 16) ^ hashCode) * 0x45d9f3b;
+    x = ((x >>> 16) ^ x) * 0x45d9f3b;
+    return (x >>> 16) ^ x;
+  }
+}
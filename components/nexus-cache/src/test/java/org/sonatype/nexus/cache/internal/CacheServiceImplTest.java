@@ -0,0 +1,224 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.cache.internal;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.sonatype.nexus.cache.CacheConfig;
+import org.sonatype.nexus.cache.CacheService;
+import org.sonatype.sisu.goodies.common.Time;
+import org.sonatype.sisu.goodies.eventbus.EventBus;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link CacheServiceImpl}.
+ */
+public class CacheServiceImplTest
+    extends TestSupport
+{
+  private static final long BUDGET = 1000L * CacheConfig.DEFAULT_ENTRY_WEIGHT;
+
+  @Mock
+  private EventBus eventBus;
+
+  private MetricRegistry registry;
+
+  private final AtomicLong nanos = new AtomicLong();
+
+  private final Ticker ticker = new Ticker()
+  {
+    @Override
+    public long read() {
+      return nanos.get();
+    }
+  };
+
+  private CacheServiceImpl underTest;
+
+  @Before
+  public void setUp() {
+    registry = new MetricRegistry();
+    underTest = new CacheServiceImpl(eventBus, BUDGET, registry, ticker);
+  }
+
+  private static Callable<String> value(final String value) {
+    return new Callable<String>()
+    {
+      @Override
+      public String call() {
+        return value;
+      }
+    };
+  }
+
+  @Test
+  public void cachesAreCreatedOnce() {
+    Cache<String, String> cache = underTest.getOrCreateCache("test", new CacheConfig<String, String>());
+    assertThat(underTest.getOrCreateCache("test", new CacheConfig<String, String>()), sameInstance(cache));
+    assertThat(underTest.getCacheNames(), contains("test"));
+  }
+
+  @Test
+  public void cachesShareHeapBudget() {
+    underTest.getOrCreateCache("a", new CacheConfig<String, String>().maximumEntries(800));
+    AdmittingCache<?, ?> b = (AdmittingCache<?, ?>) underTest
+        .getOrCreateCache("b", new CacheConfig<String, String>().maximumEntries(800));
+
+    assertThat(b.getMaximumWeight(), is(200L * CacheConfig.DEFAULT_ENTRY_WEIGHT));
+    assertThat(underTest.getAllocated(), is(BUDGET));
+
+    underTest.removeCache("a");
+    assertThat(underTest.getAllocated(), is(200L * CacheConfig.DEFAULT_ENTRY_WEIGHT));
+    assertThat(underTest.getCacheNames(), contains("b"));
+  }
+
+  @Test
+  public void cachesGetMinimumShareOnceBudgetIsUsedUp() {
+    underTest.getOrCreateCache("a", new CacheConfig<String, String>().maximumWeight(BUDGET));
+    AdmittingCache<?, ?> b = (AdmittingCache<?, ?>) underTest
+        .getOrCreateCache("b", new CacheConfig<String, String>().maximumEntries(800));
+    AdmittingCache<?, ?> c = (AdmittingCache<?, ?>) underTest
+        .getOrCreateCache("c", new CacheConfig<String, String>().maximumWeight(1));
+
+    assertThat(b.getMaximumWeight(), is(BUDGET / CacheServiceImpl.MINIMUM_SHARE));
+    assertThat(c.getMaximumWeight(), is(1L));
+    assertThat(underTest.getAllocated(), is(BUDGET + BUDGET / CacheServiceImpl.MINIMUM_SHARE + 1));
+  }
+
+  @Test
+  public void removedCacheIsInvalidatedAndMetricsUnregistered() {
+    Cache<String, String> cache = underTest.getOrCreateCache("test", new CacheConfig<String, String>());
+    cache.put("key", "value");
+    assertThat(registry.getGauges(), hasKey(name(CacheService.class, "test", "weight")));
+
+    underTest.removeCache("test");
+    underTest.removeCache("test");
+
+    assertThat(cache.getIfPresent("key"), nullValue());
+    assertThat(underTest.getCacheNames(), empty());
+    assertThat(registry.getGauges(), not(hasKey(name(CacheService.class, "test", "weight"))));
+    assertThat(registry.getCounters(), not(hasKey(name(CacheService.class, "test", "hits"))));
+  }
+
+  @Test
+  public void hitsAndMissesAreCounted() throws Exception {
+    Cache<String, String> cache = underTest.getOrCreateCache("test", new CacheConfig<String, String>());
+    assertThat(cache.getIfPresent("key"), nullValue());
+    assertThat(cache.get("key", value("value")), is("value"));
+    assertThat(cache.get("key", value("other")), is("value"));
+    assertThat(cache.getIfPresent("key"), is("value"));
+
+    assertThat(cache.stats().hitCount(), is(2L));
+    assertThat(cache.stats().missCount(), is(2L));
+    assertThat(registry.counter(name(CacheService.class, "test", "hits")).getCount(), is(2L));
+    assertThat(registry.counter(name(CacheService.class, "test", "misses")).getCount(), is(2L));
+    assertThat(((AdmittingCache<?, ?>) cache).getWeight(), is((long) CacheConfig.DEFAULT_ENTRY_WEIGHT));
+  }
+
+  @Test
+  public void popularEntriesSurviveScans() throws Exception {
+    Cache<Integer, String> admitting = underTest.getOrCreateCache("admitting",
+        new CacheConfig<Integer, String>().maximumEntries(100));
+    Cache<Integer, String> plain = underTest.getOrCreateCache("plain",
+        new CacheConfig<Integer, String>().maximumEntries(100).admission(false));
+
+    // 50 popular entries interleaved with scans of 80 entries that are never read again
+    int scan = 1000;
+    for (int round = 0; round < 100; round++) {
+      for (int i = 0; i < 50; i++) {
+        admitting.get(i, value("popular"));
+        plain.get(i, value("popular"));
+      }
+      for (int i = 0; i < 80; i++, scan++) {
+        admitting.put(scan, "scan");
+        plain.put(scan, "scan");
+      }
+    }
+
+    assertThat(admitting.stats().hitRate(), greaterThan(0.9));
+    assertThat(admitting.stats().hitRate(), greaterThan(plain.stats().hitRate()));
+    assertThat(registry.counter(name(CacheService.class, "admitting", "rejections")).getCount(), greaterThan(0L));
+  }
+
+  @Test
+  public void reinstatedVictimsKeepTheirExpiry() throws Exception {
+    Cache<Integer, String> cache = underTest.getOrCreateCache("expiring",
+        new CacheConfig<Integer, String>().maximumEntries(100).expireAfterWrite(Time.minutes(1)));
+
+    for (int round = 0; round < 10; round++) {
+      for (int i = 0; i < 20; i++) {
+        cache.get(i, value("popular"));
+      }
+    }
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(50));
+    for (int i = 1000; i < 1200; i++) {
+      cache.put(i, "scan");
+    }
+
+    // popular entries survive the scan, but still expire a minute after they were written
+    assertThat(registry.counter(name(CacheService.class, "expiring", "rejections")).getCount(), greaterThan(0L));
+    for (int i = 0; i < 20; i++) {
+      assertThat(cache.getIfPresent(i), is("popular"));
+    }
+    nanos.addAndGet(TimeUnit.SECONDS.toNanos(10));
+    for (int i = 0; i < 20; i++) {
+      assertThat(cache.getIfPresent(i), nullValue());
+    }
+  }
+
+  @Test
+  public void eventsInvalidateRegisteredCaches() {
+    Cache<String, String> invalidated = underTest.getOrCreateCache("invalidated", new CacheConfig<String, String>());
+    Cache<String, String> retained = underTest.getOrCreateCache("retained", new CacheConfig<String, String>());
+    underTest.invalidateOn(Number.class, "invalidated", "missing");
+    underTest.invalidateOn(Integer.class, "invalidated");
+    invalidated.put("key", "value");
+    retained.put("key", "value");
+
+    // subscribed once, on first registration
+    ArgumentCaptor<Object> subscriber = ArgumentCaptor.forClass(Object.class);
+    verify(eventBus, times(1)).register(subscriber.capture());
+    CacheServiceImpl.Invalidator invalidator = (CacheServiceImpl.Invalidator) subscriber.getValue();
+
+    invalidator.on("unrelated");
+    assertThat(invalidated.getIfPresent("key"), is("value"));
+
+    invalidator.on(42);
+    assertThat(invalidated.getIfPresent("key"), nullValue());
+    assertThat(retained.getIfPresent("key"), is("value"));
+    assertThat(((AdmittingCache<?, ?>) invalidated).getWeight(), is(0L));
+  }
+}
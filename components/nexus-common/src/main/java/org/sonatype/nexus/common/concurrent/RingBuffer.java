@@ -0,0 +1,116 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.common.concurrent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free ring buffer for many producers and a single consumer.
+ *
+ * Each slot carries a sequence number telling whether it is free for the producer claiming that position or holds an
+ * element published for the consumer, so producers only contend on a single compare-and-set of the tail.
+ *
+ * Depends on the JDK only, so bundles which cannot import this package, like the logging fragment, may inline it.
+ *
+ * @since 3.0
+ */
+public final class RingBuffer<E>
+{
+  private final int capacity;
+
+  private final int mask;
+
+  private final AtomicReferenceArray<E> elements;
+
+  private final AtomicLongArray sequences;
+
+  private final AtomicLong head = new AtomicLong();
+
+  private final AtomicLong tail = new AtomicLong();
+
+  /**
+   * @param capacity rounded up to the next power of two
+   */
+  public RingBuffer(final int capacity) {
+    if (capacity < 1 || capacity > 1 << 30) {
+      throw new IllegalArgumentException("Invalid capacity: " + capacity);
+    }
+    this.capacity = nextPowerOfTwo(capacity);
+    this.mask = this.capacity - 1;
+    this.elements = new AtomicReferenceArray<>(this.capacity);
+    this.sequences = new AtomicLongArray(this.capacity);
+    for (int i = 0; i < this.capacity; i++) {
+      sequences.set(i, i);
+    }
+  }
+
+  private static int nextPowerOfTwo(final int value) {
+    int highest = Integer.highestOneBit(value);
+    return highest == value ? value : highest << 1;
+  }
+
+  /**
+   * Adds element unless the buffer is full, safe to call from any thread.
+   */
+  public boolean offer(final E element) {
+    long position = tail.get();
+    while (true) {
+      int index = (int) position & mask;
+      long diff = sequences.get(index) - position;
+      if (diff == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          elements.lazySet(index, element);
+          // publish to consumer
+          sequences.set(index, position + 1);
+          return true;
+        }
+      }
+      else if (diff < 0) {
+        // slot not yet consumed a lap ago
+        return false;
+      }
+      position = tail.get();
+    }
+  }
+
+  /**
+   * Removes the oldest element, or returns {@code null} when empty. Only to be called from the consumer thread.
+   */
+  public E poll() {
+    long position = head.get();
+    int index = (int) position & mask;
+    if (sequences.get(index) != position + 1) {
+      return null;
+    }
+    E element = elements.get(index);
+    elements.lazySet(index, null);
+    // release slot to producers of the next lap
+    sequences.set(index, position + capacity);
+    head.lazySet(position + 1);
+    return element;
+  }
+
+  /**
+   * Approximate number of buffered elements.
+   */
+  public int size() {
+    long size = tail.get() - head.get();
+    return (int) Math.max(0, Math.min(size, capacity));
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+}
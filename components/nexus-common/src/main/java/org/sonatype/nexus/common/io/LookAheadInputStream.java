@@ -0,0 +1,87 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.common.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+
+import com.google.common.io.ByteStreams;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Buffers a bounded prefix of an {@link InputStream} in memory, so the head of the content can be inspected any
+ * number of times (ie. for MIME type detection) while the stream itself still delivers the complete content once.
+ * Replaces spooling the whole content to a temporary file when only the first few KB are needed twice.
+ *
+ * @since 3.0
+ */
+public class LookAheadInputStream
+    extends SequenceInputStream
+{
+  /**
+   * Default size of the buffered prefix, large enough for MIME magic detection.
+   */
+  public static final int DEFAULT_PREFIX_SIZE = 8 * 1024;
+
+  private final byte[] prefix;
+
+  private final int prefixLength;
+
+  public LookAheadInputStream(final InputStream inputStream) throws IOException {
+    this(inputStream, new byte[DEFAULT_PREFIX_SIZE]);
+  }
+
+  public LookAheadInputStream(final InputStream inputStream, final int prefixSize) throws IOException {
+    this(inputStream, new byte[checkPrefixSize(prefixSize)]);
+  }
+
+  private LookAheadInputStream(final InputStream inputStream, final byte[] buffer) throws IOException {
+    this(inputStream, buffer, ByteStreams.read(checkNotNull(inputStream), buffer, 0, buffer.length));
+  }
+
+  private LookAheadInputStream(final InputStream inputStream, final byte[] buffer, final int read) {
+    super(new ByteArrayInputStream(buffer, 0, read), inputStream);
+    this.prefix = buffer;
+    this.prefixLength = read;
+  }
+
+  private static int checkPrefixSize(final int prefixSize) {
+    checkArgument(prefixSize > 0, "Prefix size must be positive: %s", prefixSize);
+    return prefixSize;
+  }
+
+  /**
+   * Returns a fresh stream over the buffered prefix, independent of the position of this stream.
+   */
+  public InputStream getPrefix() {
+    return new ByteArrayInputStream(prefix, 0, prefixLength);
+  }
+
+  /**
+   * Returns the number of bytes buffered, which is less than the prefix size only when the content is shorter.
+   */
+  public int getPrefixLength() {
+    return prefixLength;
+  }
+
+  /**
+   * Returns {@code true} if the whole content fit into the buffered prefix.
+   */
+  public boolean isFullyBuffered() {
+    return prefixLength < prefix.length;
+  }
+}
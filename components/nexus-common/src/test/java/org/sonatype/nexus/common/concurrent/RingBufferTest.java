@@ -0,0 +1,119 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.common.concurrent;
+
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Tests for {@link RingBuffer}.
+ */
+public class RingBufferTest
+    extends TestSupport
+{
+  @Test
+  public void capacityRoundedToPowerOfTwo() {
+    assertThat(new RingBuffer<String>(1).capacity(), is(1));
+    assertThat(new RingBuffer<String>(1000).capacity(), is(1024));
+    assertThat(new RingBuffer<String>(1024).capacity(), is(1024));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void capacityMustBePositive() {
+    new RingBuffer<String>(0);
+  }
+
+  @Test
+  public void sizeTracksBufferedElementsAcrossLaps() {
+    RingBuffer<Integer> underTest = new RingBuffer<>(2);
+    for (int lap = 0; lap < 3; lap++) {
+      assertThat(underTest.offer(lap), is(true));
+      assertThat(underTest.size(), is(1));
+      assertThat(underTest.offer(lap), is(true));
+      assertThat(underTest.size(), is(2));
+      assertThat(underTest.poll(), is(lap));
+      assertThat(underTest.poll(), is(lap));
+      assertThat(underTest.size(), is(0));
+    }
+  }
+
+  @Test
+  public void offerUntilFullThenPollInOrder() {
+    RingBuffer<Integer> underTest = new RingBuffer<>(4);
+    for (int i = 0; i < 4; i++) {
+      assertThat(underTest.offer(i), is(true));
+    }
+    assertThat(underTest.offer(4), is(false));
+    assertThat(underTest.size(), is(4));
+
+    for (int i = 0; i < 4; i++) {
+      assertThat(underTest.poll(), is(i));
+    }
+    assertThat(underTest.poll(), is(nullValue()));
+    assertThat(underTest.size(), is(0));
+
+    // next lap reuses slots
+    assertThat(underTest.offer(5), is(true));
+    assertThat(underTest.poll(), is(5));
+  }
+
+  @Test
+  public void concurrentProducersKeepPerProducerOrder() throws Exception {
+    final RingBuffer<Long> underTest = new RingBuffer<>(64);
+    final int producers = 4;
+    final long perProducer = 100000;
+
+    Thread[] threads = new Thread[producers];
+    for (int p = 0; p < producers; p++) {
+      final long base = p * perProducer;
+      threads[p] = new Thread()
+      {
+        @Override
+        public void run() {
+          for (long i = 0; i < perProducer; i++) {
+            while (!underTest.offer(base + i)) {
+              Thread.yield();
+            }
+          }
+        }
+      };
+      threads[p].start();
+    }
+
+    long[] last = new long[producers];
+    for (int p = 0; p < producers; p++) {
+      last[p] = -1;
+    }
+    long received = 0;
+    while (received < producers * perProducer) {
+      Long value = underTest.poll();
+      if (value == null) {
+        continue;
+      }
+      int producer = (int) (value / perProducer);
+      assertThat(value % perProducer, is(last[producer] + 1));
+      last[producer] = value % perProducer;
+      received++;
+    }
+
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertThat(underTest.poll(), is(nullValue()));
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.common.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class LookAheadInputStreamTest
+    extends TestSupport
+{
+  private final byte[] content = "0123456789".getBytes();
+
+  @Test
+  public void prefixIsReplayable() throws Exception {
+    try (LookAheadInputStream underTest = new LookAheadInputStream(content(), 4)) {
+      assertThat(asString(underTest.getPrefix()), is("0123"));
+      assertThat(asString(underTest.getPrefix()), is("0123"));
+      assertThat(underTest.getPrefixLength(), is(4));
+      assertThat(underTest.isFullyBuffered(), is(false));
+    }
+  }
+
+  @Test
+  public void streamDeliversCompleteContent() throws Exception {
+    try (LookAheadInputStream underTest = new LookAheadInputStream(content(), 4)) {
+      underTest.getPrefix().read();
+      assertThat(asString(underTest), is("0123456789"));
+    }
+  }
+
+  @Test
+  public void shortContentIsFullyBuffered() throws Exception {
+    try (LookAheadInputStream underTest = new LookAheadInputStream(content())) {
+      assertThat(underTest.getPrefixLength(), is(content.length));
+      assertThat(underTest.isFullyBuffered(), is(true));
+      assertThat(asString(underTest.getPrefix()), is("0123456789"));
+      assertThat(asString(underTest), is("0123456789"));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void prefixSizeMustBePositive() throws Exception {
+    new LookAheadInputStream(content(), 0);
+  }
+
+  private InputStream content() {
+    return new ByteArrayInputStream(content);
+  }
+
+  private String asString(final InputStream in) throws IOException {
+    return new String(ByteStreams.toByteArray(in));
+  }
+}
@@ -13,9 +13,10 @@
 package org.sonatype.nexus.events;
 
 import java.util.List;
-import java.util.concurrent.SynchronousQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.ThreadPoolExecutor.CallerRunsPolicy;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
@@ -24,12 +25,14 @@ import javax.inject.Provider;
 import javax.inject.Singleton;
 
 import org.sonatype.nexus.common.property.SystemPropertiesHelper;
-import org.sonatype.nexus.threads.NexusExecutorService;
 import org.sonatype.nexus.threads.NexusThreadFactory;
 import org.sonatype.sisu.goodies.eventbus.EventBus;
 import org.sonatype.sisu.goodies.lifecycle.LifecycleSupport;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.common.eventbus.AllowConcurrentEvents;
 import com.google.common.eventbus.Subscribe;
 
@@ -38,6 +41,9 @@ import static com.google.common.base.Preconditions.checkNotNull;
 /**
  * A default host for {@link EventSubscriber}. This is an internal Nexus component and should not be used in
  * any plugin code, and hence, is subject of change without prior notice.
+ * <p/>
+ * {@link Asynchronous} subscribers each get a bounded {@link SubscriberQueue}, drained by a fixed pool of threads
+ * sized to the number of cores.
  *
  * @since 2.7.0
  */
@@ -47,27 +53,36 @@ public class EventSubscriberHost
     extends LifecycleSupport
 {
   private final int HOST_THREAD_POOL_SIZE = SystemPropertiesHelper.getInteger(
-      EventSubscriberHost.class.getName() + ".poolSize", 500);
+      EventSubscriberHost.class.getName() + ".poolSize", Runtime.getRuntime().availableProcessors());
+
+  private final int SUBSCRIBER_QUEUE_CAPACITY = SystemPropertiesHelper.getInteger(
+      EventSubscriberHost.class.getName() + ".queueCapacity", 10000);
 
   private final EventBus eventBus;
 
   private final List<Provider<EventSubscriber>> eventSubscriberProviders;
 
-  private final NexusExecutorService hostThreadPool;
+  private final MetricRegistry metricRegistry;
+
+  private final ExecutorService hostThreadPool;
 
-  private final com.google.common.eventbus.AsyncEventBus asyncBus;
+  /**
+   * Queues of the registered {@link Asynchronous} subscribers, keyed by subscriber instance.
+   */
+  private final ConcurrentMap<Object, SubscriberQueue> subscriberQueues = Maps.newConcurrentMap();
 
   @Inject
-  public EventSubscriberHost(final EventBus eventBus, final List<Provider<EventSubscriber>> eventSubscriberProviders) {
+  public EventSubscriberHost(final EventBus eventBus,
+                             final List<Provider<EventSubscriber>> eventSubscriberProviders,
+                             final MetricRegistry metricRegistry)
+  {
     this.eventBus = checkNotNull(eventBus);
     this.eventSubscriberProviders = checkNotNull(eventSubscriberProviders);
+    this.metricRegistry = checkNotNull(metricRegistry);
 
-    // direct hand-off used! Host pool will use caller thread to execute async inspectors when pool full!
-    final ThreadPoolExecutor target =
-        new ThreadPoolExecutor(0, HOST_THREAD_POOL_SIZE, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
-            new NexusThreadFactory("esh", "Event Subscriber Host"), new CallerRunsPolicy());
-    this.hostThreadPool = NexusExecutorService.forCurrentSubject(target);
-    this.asyncBus = new com.google.common.eventbus.AsyncEventBus("esh-async", hostThreadPool);
+    // fixed pool, each async subscriber has its own bounded queue and is drained by at most one thread at a time
+    this.hostThreadPool = Executors.newFixedThreadPool(HOST_THREAD_POOL_SIZE,
+        new NexusThreadFactory("esh", "Event Subscriber Host"));
 
     eventBus.register(this);
     log.info("Initialized");
@@ -91,6 +106,9 @@ public class EventSubscriberHost
   protected void doStop() throws Exception {
     eventBus.unregister(this);
 
+    // we need clean shutdown, let subscribers work off their queued events to have consistent state
+    awaitCalmPeriod(5L, TimeUnit.SECONDS);
+
     for (Provider<EventSubscriber> eventSubscriberProvider : eventSubscriberProviders) {
       EventSubscriber es = null;
       try {
@@ -102,7 +120,6 @@ public class EventSubscriberHost
       }
     }
 
-    // we need clean shutdown, wait all background event inspectors to finish to have consistent state
     hostThreadPool.shutdown();
     try {
       hostThreadPool.awaitTermination(5L, TimeUnit.SECONDS);
@@ -112,9 +129,28 @@ public class EventSubscriberHost
     }
   }
 
-  public void register(final Object object) {
+  private void awaitCalmPeriod(final long timeout, final TimeUnit unit) {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    try {
+      while (!isCalmPeriod() && System.nanoTime() < deadline) {
+        Thread.sleep(10L);
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      log.debug("Interrupted while waiting for calm period", e);
+    }
+  }
+
+  public synchronized void register(final Object object) {
     if (object instanceof Asynchronous) {
-      asyncBus.register(object);
+      // close any previous queue first, as the new queue takes over its name and metrics
+      SubscriberQueue previous = subscriberQueues.remove(object);
+      if (previous != null) {
+        previous.close();
+      }
+      subscriberQueues.put(object, new SubscriberQueue(object, queueName(object), hostThreadPool, metricRegistry,
+          SUBSCRIBER_QUEUE_CAPACITY));
     }
     else {
       eventBus.register(object);
@@ -122,9 +158,29 @@ public class EventSubscriberHost
     log.trace("Registered {}", object);
   }
 
-  public void unregister(final Object object) {
+  /**
+   * Names the queue of a subscriber after its class, so its metrics keep their names across restarts. Only further
+   * instances of an already registered class get a numeric suffix, in order of registration.
+   */
+  private String queueName(final Object object) {
+    Set<String> names = Sets.newHashSet();
+    for (SubscriberQueue queue : subscriberQueues.values()) {
+      names.add(queue.getName());
+    }
+    String className = object.getClass().getName();
+    String name = className;
+    for (int i = 2; names.contains(name); i++) {
+      name = className + "-" + i;
+    }
+    return name;
+  }
+
+  public synchronized void unregister(final Object object) {
     if (object instanceof Asynchronous) {
-      asyncBus.unregister(object);
+      SubscriberQueue queue = subscriberQueues.remove(object);
+      if (queue != null) {
+        queue.close();
+      }
     }
     else {
       eventBus.unregister(object);
@@ -137,14 +193,20 @@ public class EventSubscriberHost
    */
   @VisibleForTesting
   public boolean isCalmPeriod() {
-    // "calm period" is when we have no queued nor active threads
-    return ((ThreadPoolExecutor) hostThreadPool.getTargetExecutorService()).getQueue().isEmpty()
-        && ((ThreadPoolExecutor) hostThreadPool.getTargetExecutorService()).getActiveCount() == 0;
+    // "calm period" is when no subscriber has queued events nor events being delivered
+    for (SubscriberQueue queue : subscriberQueues.values()) {
+      if (!queue.isIdle()) {
+        return false;
+      }
+    }
+    return true;
   }
 
   @Subscribe
   @AllowConcurrentEvents
   public void onEvent(final Object evt) {
-    asyncBus.post(evt);
+    for (SubscriberQueue queue : subscriberQueues.values()) {
+      queue.post(evt);
+    }
   }
 }
@@ -0,0 +1,269 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.events;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.sonatype.nexus.security.subject.CurrentSubjectSupplier;
+import org.sonatype.nexus.threads.MDCAwareRunnable;
+import org.sonatype.sisu.goodies.common.ComponentSupport;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.reflect.TypeToken;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Bounded queue of events pending delivery to a single {@link Asynchronous} subscriber. Events are delivered in
+ * order, by at most one worker at a time, each with the subject and MDC of the thread that posted it.
+ * <p/>
+ * Posting never blocks: an event that does not fit into the full queue is rejected, so a slow subscriber cannot stall
+ * the posting thread, nor deadlock when it posts events to itself. Subscribers annotated with {@link DeliverWhenFull}
+ * instead get such events delivered on the posting thread. Queue depth, delivery latency, rejections and events
+ * delivered on the posting thread are published to the {@link MetricRegistry} under the name of the queue.
+ *
+ * @since 3.0
+ */
+class SubscriberQueue
+    extends ComponentSupport
+{
+  /**
+   * Maximum number of events delivered by a worker before it yields to other subscribers.
+   */
+  private static final int DRAIN_BATCH_SIZE = 64;
+
+  private final Object subscriber;
+
+  private final String name;
+
+  private final Executor workers;
+
+  private final MetricRegistry metricRegistry;
+
+  private final EventBus delivery;
+
+  private final Set<Class<?>> eventTypes;
+
+  private final BlockingQueue<Envelope> queue;
+
+  private final boolean deliverWhenFull;
+
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+
+  private final String metricPrefix;
+
+  private final Timer latency;
+
+  private final Meter rejected;
+
+  private final Meter deliveredWhenFull;
+
+  private final CurrentSubjectSupplier subjectSupplier = new CurrentSubjectSupplier();
+
+  SubscriberQueue(final Object subscriber,
+                  final String name,
+                  final Executor workers,
+                  final MetricRegistry metricRegistry,
+                  final int capacity)
+  {
+    checkArgument(capacity > 0, "Capacity must be positive");
+    this.subscriber = checkNotNull(subscriber);
+    this.name = checkNotNull(name);
+    this.workers = checkNotNull(workers);
+    this.metricRegistry = checkNotNull(metricRegistry);
+    this.eventTypes = eventTypes(subscriber.getClass());
+    this.queue = new ArrayBlockingQueue<>(capacity);
+    this.deliverWhenFull = subscriber.getClass().isAnnotationPresent(DeliverWhenFull.class);
+    this.delivery = new EventBus(name);
+    delivery.register(subscriber);
+
+    this.metricPrefix = MetricRegistry.name(EventSubscriberHost.class, name);
+    this.latency = metricRegistry.timer(MetricRegistry.name(metricPrefix, "latency"));
+    this.rejected = metricRegistry.meter(MetricRegistry.name(metricPrefix, "rejected"));
+    this.deliveredWhenFull = metricRegistry.meter(MetricRegistry.name(metricPrefix, "delivered-when-full"));
+    String queueDepth = MetricRegistry.name(metricPrefix, "queue-depth");
+    metricRegistry.remove(queueDepth);
+    metricRegistry.register(queueDepth, new Gauge<Integer>()
+    {
+      @Override
+      public Integer getValue() {
+        return queue.size();
+      }
+    });
+  }
+
+  public Object getSubscriber() {
+    return subscriber;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  @VisibleForTesting
+  String getMetricPrefix() {
+    return metricPrefix;
+  }
+
+  /**
+   * Queues the event for delivery if the subscriber handles its type.
+   */
+  public void post(final Object event) {
+    if (!handles(event)) {
+      return;
+    }
+
+    if (queue.offer(new Envelope(event))) {
+      schedule();
+    }
+    else if (deliverWhenFull) {
+      // ahead of the queued events, but not lost; the posting thread already has the subject and MDC
+      deliveredWhenFull.mark();
+      log.debug("Delivering event {} to {} on posting thread: queue full", event, subscriber);
+      Timer.Context context = latency.time();
+      try {
+        delivery.post(event);
+      }
+      finally {
+        context.stop();
+      }
+    }
+    else {
+      rejected.mark();
+      log.warn("Rejected event {} for {}: queue full", event, subscriber);
+    }
+  }
+
+  /**
+   * Returns {@code true} if no events are queued or being delivered.
+   */
+  public boolean isIdle() {
+    return queue.isEmpty() && !scheduled.get();
+  }
+
+  /**
+   * Discards pending events and removes the metrics of this queue.
+   */
+  public void close() {
+    delivery.unregister(subscriber);
+    queue.clear();
+    metricRegistry.removeMatching(new MetricFilter()
+    {
+      @Override
+      public boolean matches(final String name, final Metric metric) {
+        return name.startsWith(metricPrefix + '.');
+      }
+    });
+  }
+
+  private boolean handles(final Object event) {
+    for (Class<?> type : eventTypes) {
+      if (type.isInstance(event)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void schedule() {
+    if (scheduled.compareAndSet(false, true)) {
+      try {
+        workers.execute(new Runnable()
+        {
+          @Override
+          public void run() {
+            drain();
+          }
+        });
+      }
+      catch (RejectedExecutionException e) {
+        scheduled.set(false);
+        log.debug("Not delivering events to {}, workers are shut down", subscriber);
+      }
+    }
+  }
+
+  private void drain() {
+    try {
+      for (int i = 0; i < DRAIN_BATCH_SIZE; i++) {
+        Envelope envelope = queue.poll();
+        if (envelope == null) {
+          break;
+        }
+        Timer.Context context = latency.time();
+        try {
+          envelope.task.run();
+        }
+        finally {
+          context.stop();
+        }
+      }
+    }
+    finally {
+      scheduled.set(false);
+    }
+    // events may have been queued after the last poll, or the batch limit was reached
+    if (!queue.isEmpty()) {
+      schedule();
+    }
+  }
+
+  /**
+   * Determines the event types the subscriber has {@link Subscribe} methods for.
+   */
+  private static Set<Class<?>> eventTypes(final Class<?> subscriberType) {
+    ImmutableSet.Builder<Class<?>> types = ImmutableSet.builder();
+    for (Class<?> type : TypeToken.of(subscriberType).getTypes().rawTypes()) {
+      for (Method method : type.getDeclaredMethods()) {
+        if (method.isAnnotationPresent(Subscribe.class) && method.getParameterTypes().length == 1) {
+          types.add(method.getParameterTypes()[0]);
+        }
+      }
+    }
+    return types.build();
+  }
+
+  /**
+   * Queued event, bound to the subject and MDC of the posting thread.
+   */
+  private class Envelope
+  {
+    private final Runnable task;
+
+    private Envelope(final Object event) {
+      this.task = subjectSupplier.get().associateWith(new MDCAwareRunnable(new Runnable()
+      {
+        @Override
+        public void run() {
+          delivery.post(event);
+        }
+      }));
+    }
+  }
+}
@@ -31,6 +31,7 @@ import org.sonatype.nexus.httpclient.HttpClientConfigurationStore;
 import org.sonatype.nexus.httpclient.HttpClientManager;
 import org.sonatype.nexus.httpclient.HttpClientPlan;
 import org.sonatype.nexus.httpclient.config.ConfigurationCustomizer;
+import org.sonatype.nexus.httpclient.config.ConnectionPoolConfiguration;
 import org.sonatype.nexus.httpclient.config.HttpClientConfiguration;
 import org.sonatype.sisu.goodies.common.Mutex;
 import org.sonatype.sisu.goodies.eventbus.EventBus;
@@ -39,6 +40,7 @@ import com.google.common.eventbus.Subscribe;
 import org.apache.http.HttpException;
 import org.apache.http.HttpRequest;
 import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.conn.HttpClientConnectionManager;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.protocol.HttpContext;
@@ -238,4 +240,16 @@ public class HttpClientManagerImpl
     // create with defaults only
     return create(null);
   }
+
+  @Override
+  @Guarded(by = STARTED)
+  public HttpClientConnectionManager createConnectionManager(final String name,
+                                                             final ConnectionPoolConfiguration configuration)
+  {
+    checkNotNull(name);
+    checkNotNull(configuration);
+    Integer maximumConnections = configuration.getMaximumConnections();
+    return sharedConnectionManager.createDedicated(name,
+        maximumConnections != null ? maximumConnections : sharedConnectionManager.getDefaultMaxPerRoute());
+  }
 }
@@ -0,0 +1,188 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.internal.httpclient;
+
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.sonatype.nexus.httpclient.HttpClientManager;
+import org.sonatype.sisu.goodies.common.Time;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.Maps;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.config.Registry;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * {@link PoolingHttpClientConnectionManager} publishing pool metrics and evicting idle connections.
+ * <p/>
+ * Published under {@code org.sonatype.nexus.httpclient.HttpClientManager.pool.<name>}: the time spent waiting to
+ * lease a connection, gauges of leased, pending, available and maximum connections, and the leased connections
+ * per route. Each pool registers metrics of its own, replacing those of an earlier pool of the same name, and only
+ * removes the metrics it registered when it shuts down; so a pool replaced by a reconfigured one does not remove the
+ * metrics of its successor.
+ *
+ * @since 3.0
+ */
+@SuppressWarnings("PackageAccessibility") // FIXME: httpclient usage is producing lots of OSGI warnings in IDEA
+class InstrumentedHttpClientConnectionManager
+    extends PoolingHttpClientConnectionManager
+{
+  private static final Logger log = LoggerFactory.getLogger(InstrumentedHttpClientConnectionManager.class);
+
+  private final MetricRegistry metricRegistry;
+
+  private final String metricPrefix;
+
+  private final Time connectionPoolIdleTime;
+
+  private final Timer leaseTime;
+
+  /**
+   * Metrics registered by this pool, by name.
+   */
+  private final Map<String, Metric> metrics = Maps.newHashMap();
+
+  private ConnectionEvictionThread evictionThread;
+
+  InstrumentedHttpClientConnectionManager(final Registry<ConnectionSocketFactory> socketFactoryRegistry,
+                                          final MetricRegistry metricRegistry,
+                                          final String name,
+                                          final Time connectionPoolIdleTime)
+  {
+    super(socketFactoryRegistry);
+    this.metricRegistry = checkNotNull(metricRegistry);
+    this.metricPrefix = MetricRegistry.name(HttpClientManager.class, "pool", name);
+    this.connectionPoolIdleTime = checkNotNull(connectionPoolIdleTime);
+    this.leaseTime = register("lease-time", new Timer());
+    registerGauges();
+  }
+
+  private void registerGauges() {
+    register("leased", new Gauge<Integer>()
+    {
+      @Override
+      public Integer getValue() {
+        return getTotalStats().getLeased();
+      }
+    });
+    register("pending", new Gauge<Integer>()
+    {
+      @Override
+      public Integer getValue() {
+        return getTotalStats().getPending();
+      }
+    });
+    register("available", new Gauge<Integer>()
+    {
+      @Override
+      public Integer getValue() {
+        return getTotalStats().getAvailable();
+      }
+    });
+    register("max", new Gauge<Integer>()
+    {
+      @Override
+      public Integer getValue() {
+        return getTotalStats().getMax();
+      }
+    });
+    register("routes", new Gauge<Map<String, Integer>>()
+    {
+      @Override
+      public Map<String, Integer> getValue() {
+        Map<String, Integer> leased = Maps.newTreeMap();
+        for (HttpRoute route : getRoutes()) {
+          PoolStats stats = getStats(route);
+          leased.put(route.getTargetHost().toHostString(), stats.getLeased());
+        }
+        return leased;
+      }
+    });
+  }
+
+  private <T extends Metric> T register(final String name, final T metric) {
+    String metricName = MetricRegistry.name(metricPrefix, name);
+    metricRegistry.remove(metricName);
+    metricRegistry.register(metricName, metric);
+    metrics.put(metricName, metric);
+    return metric;
+  }
+
+  @Override
+  public ConnectionRequest requestConnection(final HttpRoute route, final Object state) {
+    final ConnectionRequest request = super.requestConnection(route, state);
+    return new ConnectionRequest()
+    {
+      @Override
+      public HttpClientConnection get(final long timeout, final TimeUnit unit)
+          throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException
+      {
+        Timer.Context context = leaseTime.time();
+        try {
+          return request.get(timeout, unit);
+        }
+        finally {
+          context.stop();
+        }
+      }
+
+      @Override
+      public boolean cancel() {
+        return request.cancel();
+      }
+    };
+  }
+
+  /**
+   * Starts evicting idle and expired connections.
+   */
+  void startEviction() {
+    evictionThread = new ConnectionEvictionThread(this, connectionPoolIdleTime);
+    evictionThread.start();
+  }
+
+  /**
+   * Stops evicting connections, shuts down the pool and removes its metrics.
+   */
+  void shutdownPool() {
+    if (evictionThread != null) {
+      evictionThread.interrupt();
+      evictionThread = null;
+    }
+    super.shutdown();
+    metricRegistry.removeMatching(new MetricFilter()
+    {
+      @Override
+      public boolean matches(final String name, final Metric metric) {
+        return metrics.get(name) == metric;
+      }
+    });
+    log.debug("Shut down connection pool: {}", metricPrefix);
+  }
+}
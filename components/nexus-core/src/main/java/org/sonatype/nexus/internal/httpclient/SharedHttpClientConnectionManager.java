@@ -22,6 +22,7 @@ import org.sonatype.nexus.httpclient.SSLContextSelector;
 import org.sonatype.sisu.goodies.common.Time;
 import org.sonatype.sisu.goodies.lifecycle.Lifecycle;
 
+import com.codahale.metrics.MetricRegistry;
 import org.apache.http.config.Registry;
 import org.apache.http.config.RegistryBuilder;
 import org.apache.http.conn.socket.ConnectionSocketFactory;
@@ -34,8 +35,6 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static org.sonatype.nexus.httpclient.HttpSchemes.HTTP;
 import static org.sonatype.nexus.httpclient.HttpSchemes.HTTPS;
 
-// TODO: Restore JMX support for httpclient bits
-
 /**
  * Shared {@link PoolingHttpClientConnectionManager}.
  *
@@ -45,23 +44,28 @@ import static org.sonatype.nexus.httpclient.HttpSchemes.HTTPS;
 @Singleton
 @SuppressWarnings("PackageAccessibility") // FIXME: httpclient usage is producing lots of OSGI warnings in IDEA
 public class SharedHttpClientConnectionManager
-    extends PoolingHttpClientConnectionManager
+    extends InstrumentedHttpClientConnectionManager
     implements Lifecycle
 {
   private static final Logger log = LoggerFactory.getLogger(SharedHttpClientConnectionManager.class);
 
-  private final Time connectionPoolIdleTime;
+  private final List<SSLContextSelector> sslContextSelectors;
+
+  private final MetricRegistry metricRegistry;
 
-  private ConnectionEvictionThread evictionThread;
+  private final Time connectionPoolIdleTime;
 
   @Inject
   public SharedHttpClientConnectionManager(
       final List<SSLContextSelector> sslContextSelectors,
+      final MetricRegistry metricRegistry,
       @Named("${nexus.httpclient.connectionpool.size:-20}") final int connectionPoolSize,
       @Named("${nexus.httpclient.connectionpool.maxSize:-200}") final int connectionPoolMaxSize,
       @Named("${nexus.httpclient.connectionpool.idleTime:-30s}") final Time connectionPoolIdleTime)
   {
-    super(createRegistry(sslContextSelectors));
+    super(createRegistry(sslContextSelectors), metricRegistry, "shared", connectionPoolIdleTime);
+    this.sslContextSelectors = sslContextSelectors;
+    this.metricRegistry = metricRegistry;
 
     setMaxTotal(connectionPoolMaxSize);
     log.debug("Connection pool max-size: {}", connectionPoolMaxSize);
@@ -80,6 +84,22 @@ public class SharedHttpClientConnectionManager
     return builder.build();
   }
 
+  /**
+   * Creates a connection pool isolated from this shared pool, with the same socket factories and idle-time. The
+   * dedicated pool is shut down once the client using it is closed. Its metrics are published under
+   * {@code dedicated.<name>}, apart from those of the shared pool.
+   */
+  PoolingHttpClientConnectionManager createDedicated(final String name, final int maximumConnections) {
+    DedicatedHttpClientConnectionManager dedicated = new DedicatedHttpClientConnectionManager(
+        createRegistry(sslContextSelectors), metricRegistry, MetricRegistry.name("dedicated", name),
+        connectionPoolIdleTime);
+    dedicated.setMaxTotal(maximumConnections);
+    dedicated.setDefaultMaxPerRoute(maximumConnections);
+    dedicated.startEviction();
+    log.debug("Created dedicated connection pool: {}, size: {}", name, maximumConnections);
+    return dedicated;
+  }
+
   /**
    * Do nothing in order to avoid unwanted shutdown of shared connection manager.
    *
@@ -103,15 +123,31 @@ public class SharedHttpClientConnectionManager
 
   @Override
   public void start() throws Exception {
-    evictionThread = new ConnectionEvictionThread(this, connectionPoolIdleTime);
-    evictionThread.start();
+    startEviction();
   }
 
   @Override
   public void stop() throws Exception {
-    evictionThread.interrupt();
-    evictionThread = null;
+    shutdownPool();
+  }
 
-    super.shutdown();
+  /**
+   * Connection pool dedicated to a single client, shut down along with it.
+   */
+  private static class DedicatedHttpClientConnectionManager
+      extends InstrumentedHttpClientConnectionManager
+  {
+    private DedicatedHttpClientConnectionManager(final Registry<ConnectionSocketFactory> socketFactoryRegistry,
+                                                 final MetricRegistry metricRegistry,
+                                                 final String name,
+                                                 final Time connectionPoolIdleTime)
+    {
+      super(socketFactoryRegistry, metricRegistry, name, connectionPoolIdleTime);
+    }
+
+    @Override
+    public void shutdown() {
+      shutdownPool();
+    }
   }
 }
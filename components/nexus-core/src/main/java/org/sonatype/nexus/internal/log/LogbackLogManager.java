@@ -61,6 +61,7 @@ import ch.qos.logback.core.Appender;
 import ch.qos.logback.core.FileAppender;
 import ch.qos.logback.core.helpers.NOPAppender;
 import ch.qos.logback.core.joran.spi.JoranException;
+import ch.qos.logback.core.spi.AppenderAttachable;
 import ch.qos.logback.core.util.StatusPrinter;
 import com.google.common.base.Throwables;
 import com.google.common.eventbus.Subscribe;
@@ -622,17 +623,27 @@ public class LogbackLogManager
   }
 
   /**
-   * Returns all configured appenders.
+   * Returns all configured appenders, including those attached to other appenders such as async appenders.
    */
   private static Collection<Appender> appenders() {
     List<Appender> result = new ArrayList<>();
     for (Logger l : loggerContext().getLoggerList()) {
       ch.qos.logback.classic.Logger log = (ch.qos.logback.classic.Logger) l;
-      Iterator<Appender<ILoggingEvent>> iter = log.iteratorForAppenders();
-      while (iter.hasNext()) {
-        result.add(iter.next());
-      }
+      addAppenders(log.iteratorForAppenders(), result);
     }
     return result;
   }
+
+  @SuppressWarnings("unchecked")
+  private static void addAppenders(final Iterator<Appender<ILoggingEvent>> iter, final List<Appender> result) {
+    while (iter.hasNext()) {
+      Appender<ILoggingEvent> appender = iter.next();
+      if (!result.contains(appender)) {
+        result.add(appender);
+        if (appender instanceof AppenderAttachable) {
+          addAppenders(((AppenderAttachable<ILoggingEvent>) appender).iteratorForAppenders(), result);
+        }
+      }
+    }
+  }
 }
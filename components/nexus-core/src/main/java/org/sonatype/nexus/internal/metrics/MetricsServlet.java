@@ -14,13 +14,24 @@ package org.sonatype.nexus.internal.metrics;
 
 import java.io.IOException;
 import java.lang.management.ManagementFactory;
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import javax.management.ObjectName;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.sonatype.nexus.jmx.MBean;
+import org.sonatype.nexus.jmx.MBeanAttribute;
+import org.sonatype.nexus.jmx.ManagedObjectRegistry;
+
 import com.codahale.metrics.JvmAttributeGaugeSet;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.jvm.BufferPoolMetricSet;
@@ -28,22 +39,44 @@ import com.codahale.metrics.jvm.FileDescriptorRatioGauge;
 import com.codahale.metrics.jvm.GarbageCollectorMetricSet;
 import com.codahale.metrics.jvm.MemoryUsageGaugeSet;
 import com.codahale.metrics.jvm.ThreadStatesGaugeSet;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.net.HttpHeaders.CACHE_CONTROL;
 import static com.google.common.net.HttpHeaders.CONTENT_DISPOSITION;
 
 /**
  * Customized {@link com.codahale.metrics.servlets.MetricsServlet} to support injection and download.
  *
+ * When requested with {@code snapshot=true} renders all metrics and all {@link ManagedObjectRegistry managed object}
+ * attributes in a single response, which is much cheaper to scrape than polling individual attributes over JMX.
+ *
  * @since 3.0
  */
 @Singleton
 public class MetricsServlet
   extends com.codahale.metrics.servlets.MetricsServlet
 {
+  private static final Logger log = LoggerFactory.getLogger(MetricsServlet.class);
+
+  private final MetricRegistry registry;
+
+  private final ManagedObjectRegistry managedObjectRegistry;
+
+  private final ObjectMapper mapper;
+
   @Inject
-  public MetricsServlet(final MetricRegistry registry) {
+  public MetricsServlet(final MetricRegistry registry, final ManagedObjectRegistry managedObjectRegistry) {
     super(registry);
+    this.registry = registry;
+    this.managedObjectRegistry = checkNotNull(managedObjectRegistry);
+    this.mapper = new ObjectMapper().registerModule(
+        new com.codahale.metrics.json.MetricsModule(TimeUnit.SECONDS, TimeUnit.SECONDS, false)
+    );
 
     // JVM metrics are no longer automatically added in codahale-metrics
     registry.register(name("jvm", "vm"), new JvmAttributeGaugeSet());
@@ -63,6 +96,92 @@ public class MetricsServlet
       resp.addHeader(CONTENT_DISPOSITION, "attachment; filename='metrics.json'");
     }
 
-    super.doGet(req, resp);
+    boolean snapshot = Boolean.parseBoolean(req.getParameter("snapshot"));
+    if (snapshot) {
+      writeSnapshot(req, resp);
+    }
+    else {
+      super.doGet(req, resp);
+    }
+  }
+
+  /**
+   * Render metrics and managed object attributes in one pass.
+   */
+  private void writeSnapshot(final HttpServletRequest req, final HttpServletResponse resp) throws IOException {
+    resp.setContentType("application/json");
+    resp.setHeader(CACHE_CONTROL, "must-revalidate,no-cache,no-store");
+    resp.setStatus(HttpServletResponse.SC_OK);
+
+    try (JsonGenerator generator = mapper.getFactory().createGenerator(resp.getOutputStream())) {
+      if (Boolean.parseBoolean(req.getParameter("pretty"))) {
+        generator.useDefaultPrettyPrinter();
+      }
+
+      generator.writeStartObject();
+      generator.writeNumberField("timestamp", System.currentTimeMillis());
+      generator.writeObjectField("metrics", registry);
+
+      generator.writeObjectFieldStart("managed");
+      for (Entry<ObjectName, MBean> entry : managedObjectRegistry.getManagedObjects().entrySet()) {
+        generator.writeObjectFieldStart(entry.getKey().getCanonicalName());
+        for (MBeanAttribute attribute : entry.getValue().getAttributes()) {
+          if (!attribute.getInfo().isReadable()) {
+            continue;
+          }
+          Object value;
+          try {
+            value = attribute.getValue();
+          }
+          catch (Exception e) {
+            log.debug("Failed to get attribute: {} {}", entry.getKey(), attribute.getName(), e);
+            continue;
+          }
+          generator.writeFieldName(attribute.getName());
+          writeValue(generator, value);
+        }
+        generator.writeEndObject();
+      }
+      generator.writeEndObject();
+
+      generator.writeEndObject();
+    }
+  }
+
+  /**
+   * Write attribute value; scalars and containers are rendered structurally, anything else as its string form.
+   */
+  private void writeValue(final JsonGenerator generator, final @Nullable Object value) throws IOException {
+    if (value == null) {
+      generator.writeNull();
+    }
+    else if (value instanceof Number || value instanceof Boolean || value instanceof String) {
+      generator.writeObject(value);
+    }
+    else if (value instanceof Map) {
+      generator.writeStartObject();
+      for (Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        generator.writeFieldName(String.valueOf(entry.getKey()));
+        writeValue(generator, entry.getValue());
+      }
+      generator.writeEndObject();
+    }
+    else if (value instanceof Collection) {
+      generator.writeStartArray();
+      for (Object element : (Collection<?>) value) {
+        writeValue(generator, element);
+      }
+      generator.writeEndArray();
+    }
+    else if (value.getClass().isArray()) {
+      generator.writeStartArray();
+      for (int i = 0, length = Array.getLength(value); i < length; i++) {
+        writeValue(generator, Array.get(value, i));
+      }
+      generator.writeEndArray();
+    }
+    else {
+      generator.writeString(value.toString());
+    }
   }
 }
@@ -0,0 +1,84 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.internal.orient;
+
+import java.io.File;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.sonatype.nexus.common.dirs.ApplicationDirectories;
+import org.sonatype.nexus.orient.DatabaseManager;
+import org.sonatype.nexus.scheduling.TaskSupport;
+
+import com.google.common.base.Strings;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Incremental database backup task.
+ *
+ * @since 3.0
+ */
+@Named
+public class DatabaseBackupTask
+    extends TaskSupport
+{
+  public static final String WORK_PATH = "backup";
+
+  public static final int DEFAULT_COMPRESSION_LEVEL = 6;
+
+  public static final int DEFAULT_THREADS = 4;
+
+  private final DatabaseManager databaseManager;
+
+  private final ApplicationDirectories applicationDirectories;
+
+  @Inject
+  public DatabaseBackupTask(final DatabaseManager databaseManager,
+                            final ApplicationDirectories applicationDirectories)
+  {
+    this.databaseManager = checkNotNull(databaseManager);
+    this.applicationDirectories = checkNotNull(applicationDirectories);
+  }
+
+  public String getDatabase() {
+    return getConfiguration().getString(DatabaseBackupTaskDescriptor.DATABASE_FIELD_ID);
+  }
+
+  public File getLocation() {
+    String location = getConfiguration().getString(DatabaseBackupTaskDescriptor.LOCATION_FIELD_ID);
+    if (Strings.isNullOrEmpty(location)) {
+      return new File(applicationDirectories.getWorkDirectory(WORK_PATH), getDatabase());
+    }
+    return new File(location);
+  }
+
+  @Override
+  protected Void execute() throws Exception {
+    File backup = databaseManager.externalizer(getDatabase()).backup(
+        getLocation(),
+        getConfiguration().getInteger(DatabaseBackupTaskDescriptor.COMPRESSION_LEVEL_FIELD_ID,
+            DEFAULT_COMPRESSION_LEVEL),
+        getConfiguration().getInteger(DatabaseBackupTaskDescriptor.THREADS_FIELD_ID, DEFAULT_THREADS),
+        getConfiguration().getBoolean(DatabaseBackupTaskDescriptor.FULL_FIELD_ID, false)
+    );
+    log.info("Database {} backed up to: {}", getDatabase(), backup);
+    return null;
+  }
+
+  @Override
+  public String getMessage() {
+    return "Backing up database " + getDatabase();
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.internal.orient;
+
+import java.util.List;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.nexus.formfields.CheckboxFormField;
+import org.sonatype.nexus.formfields.FormField;
+import org.sonatype.nexus.formfields.NumberTextFormField;
+import org.sonatype.nexus.formfields.StringTextFormField;
+import org.sonatype.nexus.scheduling.TaskConfiguration;
+import org.sonatype.nexus.scheduling.TaskDescriptorSupport;
+import org.sonatype.nexus.scheduling.TaskLock;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Task descriptor for {@link DatabaseBackupTask}.
+ *
+ * @since 3.0
+ */
+@Named
+@Singleton
+public class DatabaseBackupTaskDescriptor
+    extends TaskDescriptorSupport<DatabaseBackupTask>
+{
+  public static final String DATABASE_FIELD_ID = "database";
+
+  public static final String LOCATION_FIELD_ID = "location";
+
+  public static final String COMPRESSION_LEVEL_FIELD_ID = "compressionLevel";
+
+  public static final String THREADS_FIELD_ID = "threads";
+
+  public static final String FULL_FIELD_ID = "full";
+
+  public DatabaseBackupTaskDescriptor() {
+    super(DatabaseBackupTask.class, "Backup Database",
+        new StringTextFormField(
+            DATABASE_FIELD_ID,
+            "Database",
+            "Name of the database to backup",
+            FormField.MANDATORY),
+        new StringTextFormField(
+            LOCATION_FIELD_ID,
+            "Backup location",
+            "Directory holding the chain of backups, defaults to the 'backup' directory of the work directory",
+            FormField.OPTIONAL),
+        new NumberTextFormField(
+            COMPRESSION_LEVEL_FIELD_ID,
+            "Compression level",
+            "Compression level from 0 (none) to 9 (best), defaults to " + DatabaseBackupTask.DEFAULT_COMPRESSION_LEVEL,
+            FormField.OPTIONAL),
+        new NumberTextFormField(
+            THREADS_FIELD_ID,
+            "Threads",
+            "Number of clusters backed up in parallel, defaults to " + DatabaseBackupTask.DEFAULT_THREADS,
+            FormField.OPTIONAL),
+        new CheckboxFormField(
+            FULL_FIELD_ID,
+            "Full backup",
+            "Start a new backup chain with a full backup, rather than only backing up changes",
+            FormField.OPTIONAL)
+    );
+  }
+
+  /**
+   * Backups of the same database extend the same chain, no two should overlap.
+   */
+  @Override
+  public List<TaskLock> locks(final TaskConfiguration configuration) {
+    return ImmutableList.of(TaskLock.exclusive("database-backup-" + configuration.getString(DATABASE_FIELD_ID)));
+  }
+}
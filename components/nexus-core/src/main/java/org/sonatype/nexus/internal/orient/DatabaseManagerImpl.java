@@ -14,6 +14,7 @@ package org.sonatype.nexus.internal.orient;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Map;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -27,9 +28,11 @@ import org.sonatype.nexus.orient.DatabaseExternalizer;
 import org.sonatype.nexus.orient.DatabaseExternalizerImpl;
 import org.sonatype.nexus.orient.DatabaseManager;
 import org.sonatype.nexus.orient.DatabaseManagerSupport;
+import org.sonatype.nexus.orient.DatabasePoolImpl;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Throwables;
+import com.google.common.collect.Maps;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -67,6 +70,16 @@ public class DatabaseManagerImpl
     return databasesDirectory;
   }
 
+  @ManagedAttribute(description = "Connections currently acquired per database pool")
+  public Map<String, Integer> getActiveConnections() {
+    Map<String, Integer> result = Maps.newTreeMap();
+    for (DatabasePoolImpl pool : allPools()) {
+      Integer active = result.get(pool.getName());
+      result.put(pool.getName(), pool.getActiveConnections() + (active != null ? active : 0));
+    }
+    return result;
+  }
+
   /**
    * Returns the directory for the given named database.  Directory may or may not exist.
    */
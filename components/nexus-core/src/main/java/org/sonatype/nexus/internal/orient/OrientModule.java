@@ -12,9 +12,11 @@
  */
 package org.sonatype.nexus.internal.orient;
 
+import org.sonatype.nexus.common.property.SystemPropertiesHelper;
 import org.sonatype.nexus.orient.DatabaseManager;
 import org.sonatype.nexus.orient.DatabaseServer;
 import org.sonatype.nexus.orient.EncryptedRecordIdObfuscator;
+import org.sonatype.nexus.orient.PermutationRecordIdObfuscator;
 import org.sonatype.nexus.orient.RecordIdObfuscator;
 
 import com.google.inject.AbstractModule;
@@ -32,6 +34,13 @@ public class OrientModule
     // configure default implementations
     bind(DatabaseServer.class).to(DatabaseServerImpl.class);
     bind(DatabaseManager.class).to(DatabaseManagerImpl.class);
-    bind(RecordIdObfuscator.class).to(EncryptedRecordIdObfuscator.class);
+
+    // permutation is cheaper, but changes all identifiers handed out so far
+    if ("permutation".equals(SystemPropertiesHelper.getString("nexus.orient.recordIdObfuscator", "encrypted"))) {
+      bind(RecordIdObfuscator.class).to(PermutationRecordIdObfuscator.class);
+    }
+    else {
+      bind(RecordIdObfuscator.class).to(EncryptedRecordIdObfuscator.class);
+    }
   }
 }
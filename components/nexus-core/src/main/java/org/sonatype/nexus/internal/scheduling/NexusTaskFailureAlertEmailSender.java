@@ -22,6 +22,7 @@ import javax.inject.Singleton;
 
 import org.sonatype.nexus.email.EmailManager;
 import org.sonatype.nexus.events.Asynchronous;
+import org.sonatype.nexus.events.DeliverWhenFull;
 import org.sonatype.nexus.events.EventSubscriber;
 import org.sonatype.nexus.scheduling.Task;
 import org.sonatype.nexus.scheduling.TaskInfo;
@@ -40,6 +41,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
  */
 @Singleton
 @Named
+@DeliverWhenFull
 public class NexusTaskFailureAlertEmailSender
     extends ComponentSupport
     implements EventSubscriber, Asynchronous
@@ -0,0 +1,68 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.events;
+
+import java.util.Collections;
+
+import javax.inject.Provider;
+
+import org.sonatype.nexus.events.SubscriberQueueTest.Subscriber;
+import org.sonatype.sisu.goodies.eventbus.EventBus;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for {@link EventSubscriberHost}.
+ */
+public class EventSubscriberHostTest
+    extends TestSupport
+{
+  private static final String PREFIX = MetricRegistry.name(EventSubscriberHost.class, Subscriber.class.getName());
+
+  private final MetricRegistry metricRegistry = new MetricRegistry();
+
+  private EventSubscriberHost underTest;
+
+  @Before
+  public void setUp() {
+    underTest = new EventSubscriberHost(mock(EventBus.class), Collections.<Provider<EventSubscriber>>emptyList(),
+        metricRegistry);
+  }
+
+  @Test
+  public void queuesNamedAfterSubscriberClass() {
+    Subscriber first = new Subscriber();
+    Subscriber second = new Subscriber();
+    underTest.register(first);
+    underTest.register(second);
+
+    assertThat(metricRegistry.getNames(), hasItem(PREFIX + ".rejected"));
+    assertThat(metricRegistry.getNames(), hasItem(PREFIX + "-2.rejected"));
+
+    // re-registration keeps the name
+    underTest.register(first);
+    assertThat(metricRegistry.getNames(), hasItem(PREFIX + ".rejected"));
+
+    underTest.unregister(second);
+    assertThat(metricRegistry.getNames(), not(hasItem(PREFIX + "-2.rejected")));
+    assertThat(metricRegistry.getNames(), hasItem(PREFIX + ".rejected"));
+  }
+}
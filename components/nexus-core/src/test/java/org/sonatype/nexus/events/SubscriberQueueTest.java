@@ -0,0 +1,182 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.events;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.Lists;
+import com.google.common.eventbus.Subscribe;
+import org.apache.shiro.mgt.DefaultSecurityManager;
+import org.apache.shiro.util.ThreadContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link SubscriberQueue}.
+ */
+public class SubscriberQueueTest
+    extends TestSupport
+{
+  private final MetricRegistry metricRegistry = new MetricRegistry();
+
+  private final List<Runnable> scheduled = Lists.newArrayList();
+
+  private final Executor deferred = new Executor()
+  {
+    @Override
+    public void execute(final Runnable command) {
+      scheduled.add(command);
+    }
+  };
+
+  public static class Subscriber
+      implements Asynchronous
+  {
+    final List<String> received = Lists.newArrayList();
+
+    @Subscribe
+    public void on(final String event) {
+      received.add(event);
+    }
+  }
+
+  @DeliverWhenFull
+  public static class RecordingSubscriber
+      extends Subscriber
+  {
+  }
+
+  public static class RepostingSubscriber
+      extends Subscriber
+  {
+    SubscriberQueue queue;
+
+    @Override
+    public void on(final String event) {
+      super.on(event);
+      if ("a".equals(event)) {
+        queue.post("b");
+        queue.post("c");
+      }
+    }
+  }
+
+  @Before
+  public void bindSecurityManager() {
+    ThreadContext.bind(new DefaultSecurityManager());
+  }
+
+  @After
+  public void unbindSecurityManager() {
+    ThreadContext.unbindSecurityManager();
+  }
+
+  @Test
+  public void deliversHandledEventsInOrder() {
+    Subscriber subscriber = new Subscriber();
+    SubscriberQueue underTest = queue(subscriber, 10);
+
+    underTest.post("a");
+    underTest.post(1);
+    underTest.post("b");
+    assertThat(underTest.isIdle(), is(false));
+    assertThat(scheduled.size(), is(1));
+
+    runScheduled();
+    assertThat(subscriber.received, contains("a", "b"));
+    assertThat(underTest.isIdle(), is(true));
+  }
+
+  @Test
+  public void rejectsWhenFull() {
+    Subscriber subscriber = new Subscriber();
+    SubscriberQueue underTest = queue(subscriber, 1);
+
+    underTest.post("a");
+    underTest.post("b");
+
+    runScheduled();
+    assertThat(subscriber.received, contains("a"));
+    assertThat(rejected(underTest).getCount(), is(1L));
+  }
+
+  @Test
+  public void repostingToFullQueueDoesNotBlock() {
+    RepostingSubscriber subscriber = new RepostingSubscriber();
+    SubscriberQueue underTest = queue(subscriber, 1);
+    subscriber.queue = underTest;
+
+    underTest.post("a");
+    runScheduled();
+
+    assertThat(subscriber.received, contains("a", "b"));
+    assertThat(rejected(underTest).getCount(), is(1L));
+  }
+
+  @Test
+  public void metricsNamedAfterQueue() {
+    SubscriberQueue underTest = queue(new Subscriber(), 1);
+
+    assertThat(underTest.getMetricPrefix(),
+        is(MetricRegistry.name(EventSubscriberHost.class, Subscriber.class.getName())));
+  }
+
+  @Test
+  public void deliversOnPostingThreadWhenFull() {
+    Subscriber subscriber = new RecordingSubscriber();
+    SubscriberQueue underTest = queue(subscriber, 1);
+
+    underTest.post("a");
+    underTest.post("b");
+    assertThat(subscriber.received, contains("b"));
+
+    runScheduled();
+    assertThat(subscriber.received, contains("b", "a"));
+    assertThat(rejected(underTest).getCount(), is(0L));
+    assertThat(metricRegistry.meter(MetricRegistry.name(underTest.getMetricPrefix(), "delivered-when-full"))
+        .getCount(), is(1L));
+  }
+
+  @Test
+  public void closeRemovesMetrics() {
+    SubscriberQueue underTest = queue(new Subscriber(), 10);
+    underTest.close();
+
+    assertThat(metricRegistry.getMetrics().keySet(), empty());
+  }
+
+  private SubscriberQueue queue(final Subscriber subscriber, final int capacity) {
+    return new SubscriberQueue(subscriber, subscriber.getClass().getName(), deferred, metricRegistry, capacity);
+  }
+
+  private void runScheduled() {
+    while (!scheduled.isEmpty()) {
+      scheduled.remove(0).run();
+    }
+  }
+
+  private Meter rejected(final SubscriberQueue queue) {
+    return metricRegistry.meter(MetricRegistry.name(queue.getMetricPrefix(), "rejected"));
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.internal.httpclient;
+
+import java.util.Collections;
+
+import org.sonatype.nexus.httpclient.HttpClientManager;
+import org.sonatype.nexus.httpclient.SSLContextSelector;
+import org.sonatype.sisu.goodies.common.Time;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.codahale.metrics.MetricRegistry;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for {@link SharedHttpClientConnectionManager}.
+ */
+public class SharedHttpClientConnectionManagerTest
+    extends TestSupport
+{
+  private final MetricRegistry metricRegistry = new MetricRegistry();
+
+  private SharedHttpClientConnectionManager underTest;
+
+  @Before
+  public void setUp() {
+    underTest = new SharedHttpClientConnectionManager(Collections.<SSLContextSelector>emptyList(), metricRegistry,
+        20, 200, Time.seconds(30));
+  }
+
+  @Test
+  public void dedicatedPoolMetricsDoNotCollideWithSharedPool() {
+    PoolingHttpClientConnectionManager dedicated = underTest.createDedicated("shared", 5);
+    dedicated.shutdown();
+
+    assertThat(metricRegistry.getMetrics(), hasKey(metric("shared", "leased")));
+    assertThat(metricRegistry.getMetrics(), not(hasKey(metric("dedicated.shared", "leased"))));
+  }
+
+  @Test
+  public void shutdownRemovesOnlyOwnMetrics() {
+    PoolingHttpClientConnectionManager first = underTest.createDedicated("repo", 5);
+    PoolingHttpClientConnectionManager second = underTest.createDedicated("repo.snapshots", 5);
+    first.shutdown();
+
+    assertThat(metricRegistry.getMetrics(), not(hasKey(metric("dedicated.repo", "leased"))));
+    assertThat(metricRegistry.getMetrics(), hasKey(metric("dedicated.repo.snapshots", "leased")));
+    second.shutdown();
+  }
+
+  @Test
+  public void replacedPoolKeepsMetricsOfSuccessor() {
+    PoolingHttpClientConnectionManager replaced = underTest.createDedicated("repo", 5);
+    PoolingHttpClientConnectionManager successor = underTest.createDedicated("repo", 10);
+    replaced.shutdown();
+
+    assertThat(metricRegistry.getMetrics(), hasKey(metric("dedicated.repo", "leased")));
+    assertThat(metricRegistry.getMetrics(), hasKey(metric("dedicated.repo", "lease-time")));
+    assertThat(metricRegistry.getGauges().get(metric("dedicated.repo", "max")).getValue(), is((Object) 10));
+    successor.shutdown();
+  }
+
+  private static String metric(final String pool, final String name) {
+    return MetricRegistry.name(HttpClientManager.class, "pool", pool, name);
+  }
+}
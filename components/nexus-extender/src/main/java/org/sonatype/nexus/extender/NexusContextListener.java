@@ -28,6 +28,7 @@ import javax.servlet.ServletContextListener;
 import org.sonatype.nexus.log.LogManager;
 import org.sonatype.sisu.goodies.lifecycle.Lifecycle;
 
+import com.codahale.metrics.JmxReporter;
 import com.codahale.metrics.SharedMetricRegistries;
 import com.google.common.base.Splitter;
 import com.google.common.base.Throwables;
@@ -101,13 +102,18 @@ public class NexusContextListener
 
   private ServiceRegistration<Filter> registration;
 
+  private JmxReporter jmxReporter;
+
   public NexusContextListener(final NexusBundleExtender extender) {
     this.extender = extender;
   }
 
   @Override
   public void contextInitialized(final ServletContextEvent event) {
-    SharedMetricRegistries.getOrCreate("nexus");
+    jmxReporter = JmxReporter.forRegistry(SharedMetricRegistries.getOrCreate("nexus"))
+        .inDomain("org.sonatype.nexus.metrics")
+        .build();
+    jmxReporter.start();
 
     bundleContext = extender.getBundleContext();
 
@@ -213,6 +219,11 @@ public class NexusContextListener
 
     injector = null;
 
+    if (jmxReporter != null) {
+      jmxReporter.stop();
+      jmxReporter = null;
+    }
+
     SharedMetricRegistries.remove("nexus");
   }
 
@@ -12,8 +12,10 @@
  */
 package org.sonatype.nexus.httpclient;
 
+import org.sonatype.nexus.httpclient.config.ConnectionPoolConfiguration;
 import org.sonatype.nexus.httpclient.config.HttpClientConfiguration;
 
+import org.apache.http.conn.HttpClientConnectionManager;
 import org.apache.http.impl.client.CloseableHttpClient;
 
 /**
@@ -45,4 +47,12 @@ public interface HttpClientManager
    * Consider using {@code Provider<HttpClient>} instead.
    */
   CloseableHttpClient create();
+
+  /**
+   * Create connection-manager isolated from the shared connection pool, so that a slow upstream can not exhaust
+   * connections needed by other clients.
+   *
+   * The returned manager is shut down when the client using it is closed.
+   */
+  HttpClientConnectionManager createConnectionManager(String name, ConnectionPoolConfiguration configuration);
 }
@@ -0,0 +1,77 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.httpclient.config;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.Min;
+
+import com.google.common.base.Throwables;
+
+/**
+ * Connection pool configuration, for clients that need a pool isolated from the shared connection pool.
+ *
+ * @since 3.0
+ */
+public class ConnectionPoolConfiguration
+    implements Cloneable
+{
+  /**
+   * Maximum number of pooled connections, also the maximum per route.
+   */
+  @Nullable
+  @Min(1)
+  private Integer maximumConnections;
+
+  /**
+   * Maximum time in milliseconds to wait for a pooled connection before failing.
+   */
+  @Nullable
+  @Min(0)
+  private Integer leaseTimeout;
+
+  @Nullable
+  public Integer getMaximumConnections() {
+    return maximumConnections;
+  }
+
+  public void setMaximumConnections(@Nullable final Integer maximumConnections) {
+    this.maximumConnections = maximumConnections;
+  }
+
+  @Nullable
+  public Integer getLeaseTimeout() {
+    return leaseTimeout;
+  }
+
+  public void setLeaseTimeout(@Nullable final Integer leaseTimeout) {
+    this.leaseTimeout = leaseTimeout;
+  }
+
+  @Override
+  public ConnectionPoolConfiguration clone() {
+    try {
+      return (ConnectionPoolConfiguration) super.clone();
+    }
+    catch (CloneNotSupportedException e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "{" +
+        "maximumConnections=" + maximumConnections +
+        ", leaseTimeout=" + leaseTimeout +
+        '}';
+  }
+}
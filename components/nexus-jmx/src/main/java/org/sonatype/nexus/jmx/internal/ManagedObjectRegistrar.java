@@ -14,7 +14,11 @@
 package org.sonatype.nexus.jmx.internal;
 
 import java.lang.annotation.Annotation;
+import java.util.Collections;
 import java.util.Hashtable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
@@ -23,6 +27,7 @@ import javax.management.MBeanServer;
 import javax.management.ObjectName;
 
 import org.sonatype.nexus.jmx.MBean;
+import org.sonatype.nexus.jmx.ManagedObjectRegistry;
 import org.sonatype.nexus.jmx.ObjectNameEntry;
 import org.sonatype.nexus.jmx.SuppliedMBeanAttribute;
 import org.sonatype.nexus.jmx.reflect.ManagedObject;
@@ -48,7 +53,10 @@ import static com.google.common.base.Preconditions.checkNotNull;
 @EagerSingleton
 public class ManagedObjectRegistrar
     extends ComponentSupport
+    implements ManagedObjectRegistry
 {
+  private final ConcurrentMap<ObjectName, MBean> managedObjects = new ConcurrentSkipListMap<>();
+
   @Inject
   public ManagedObjectRegistrar(final BeanLocator beanLocator,
                                 final MBeanServer server)
@@ -59,6 +67,11 @@ public class ManagedObjectRegistrar
     beanLocator.watch(Key.get(Object.class), new ManageObjectMediator(), server);
   }
 
+  @Override
+  public Map<ObjectName, MBean> getManagedObjects() {
+    return Collections.unmodifiableMap(managedObjects);
+  }
+
   private class ManageObjectMediator
       implements Mediator<Annotation, Object, MBeanServer>
   {
@@ -74,6 +87,7 @@ public class ManagedObjectRegistrar
         log.debug("Registering: {} -> {}", name, entry);
         MBean mbean = mbean(descriptor, entry);
         server.registerMBean(mbean, name);
+        managedObjects.put(name, mbean);
       }
       catch (Exception e) {
         log.warn("Failed to export: {}; ignoring", entry, e);
@@ -90,6 +104,7 @@ public class ManagedObjectRegistrar
       try {
         ObjectName name = objectName(descriptor, entry);
         log.debug("Un-registering: {} -> {}", name, entry);
+        managedObjects.remove(name);
         server.unregisterMBean(name);
       }
       catch (Exception e) {
@@ -12,6 +12,9 @@
  */
 package org.sonatype.nexus.jmx.reflect;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 
 import javax.annotation.Nullable;
@@ -23,6 +26,7 @@ import org.sonatype.nexus.jmx.MBeanAttribute;
 import org.sonatype.sisu.goodies.common.ComponentSupport;
 
 import com.google.common.base.Supplier;
+import com.google.common.base.Throwables;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -30,6 +34,9 @@ import static com.google.common.base.Preconditions.checkState;
 /**
  * Reflection {@link MBeanAttribute}.
  *
+ * Accessors are invoked through {@link MethodHandle}s adapted once at construction, falling back to
+ * {@link Method#invoke} only when a handle can not be created.
+ *
  * @since 3.0
  */
 public class ReflectionMBeanAttribute
@@ -46,6 +53,10 @@ public class ReflectionMBeanAttribute
 
   private final Method setter;
 
+  private final MethodHandle getterHandle;
+
+  private final MethodHandle setterHandle;
+
   public ReflectionMBeanAttribute(final MBeanAttributeInfo info,
                                   final Supplier target,
                                   final @Nullable Method getter,
@@ -56,6 +67,25 @@ public class ReflectionMBeanAttribute
     this.target = checkNotNull(target);
     this.getter = getter;
     this.setter = setter;
+    this.getterHandle = handle(getter, MethodType.methodType(Object.class, Object.class));
+    this.setterHandle = handle(setter, MethodType.methodType(void.class, Object.class, Object.class));
+  }
+
+  /**
+   * Adapt method to a handle of the given erased type, or {@code null} if the method is missing or not accessible.
+   */
+  @Nullable
+  private MethodHandle handle(final @Nullable Method method, final MethodType type) {
+    if (method == null) {
+      return null;
+    }
+    try {
+      return MethodHandles.publicLookup().unreflect(method).asType(type);
+    }
+    catch (IllegalAccessException e) {
+      log.debug("Unable to create method-handle for: {}; using reflection", method, e);
+      return null;
+    }
   }
 
   @Override
@@ -95,16 +125,41 @@ public class ReflectionMBeanAttribute
   public Object getValue() throws Exception {
     checkState(getter != null);
     log.trace("Get value: {}", getter);
-    //noinspection ConstantConditions
-    return getter.invoke(target());
+    if (getterHandle == null) {
+      //noinspection ConstantConditions
+      return getter.invoke(target());
+    }
+    try {
+      return (Object) getterHandle.invokeExact(target());
+    }
+    catch (Throwable t) {
+      throw propagate(t);
+    }
   }
 
   @Override
   public void setValue(final @Nullable Object value) throws Exception {
     checkState(setter != null);
     log.trace("Set value: {} -> {}", value, setter);
-    //noinspection ConstantConditions
-    setter.invoke(target(), value);
+    if (setterHandle == null) {
+      //noinspection ConstantConditions
+      setter.invoke(target(), value);
+      return;
+    }
+    try {
+      setterHandle.invokeExact(target(), value);
+    }
+    catch (Throwable t) {
+      throw propagate(t);
+    }
+  }
+
+  /**
+   * Rethrow accessor failures as-is; unlike reflection, handles do not wrap them.
+   */
+  private static Exception propagate(final Throwable t) throws Exception {
+    Throwables.propagateIfPossible(t, Exception.class);
+    throw new RuntimeException(t);
   }
 
   @Override
@@ -0,0 +1,99 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.jmx.reflect
+
+import com.google.common.base.Suppliers
+import org.junit.Test
+import org.sonatype.sisu.litmus.testsupport.TestSupport
+
+import static org.junit.Assert.fail
+
+/**
+ * Tests for {@link ReflectionMBeanAttribute}
+ */
+class ReflectionMBeanAttributeTest
+    extends TestSupport
+{
+  static class Counter
+  {
+    int count
+
+    int getCount() {
+      return count
+    }
+
+    void setCount(final int count) {
+      this.count = count
+    }
+
+    String getBroken() {
+      throw new IllegalStateException('broken')
+    }
+  }
+
+  private ReflectionMBeanAttribute attribute(final Object target, final String name, final boolean writable = false) {
+    def type = target.getClass()
+    def builder = new ReflectionMBeanAttribute.Builder()
+        .name(name)
+        .target(Suppliers.ofInstance(target))
+        .getter(type.getMethod("get${name.capitalize()}"))
+    if (writable) {
+      builder.setter(type.getMethod("set${name.capitalize()}", int.class))
+    }
+    return builder.build()
+  }
+
+  @Test
+  void 'get and set primitive value'() {
+    def counter = new Counter(count: 1)
+    def attribute = attribute(counter, 'count', true)
+
+    assert attribute.info.type == 'int'
+    assert attribute.value == 1
+
+    attribute.value = 42
+    assert counter.count == 42
+    assert attribute.value == 42
+  }
+
+  @Test
+  void 'get and set reference value'() {
+    def example = new ExampleManagedObject(name: 'foo')
+    def attribute = new ReflectionMBeanAttribute.Builder()
+        .name('name')
+        .target(Suppliers.ofInstance(example))
+        .getter(ExampleManagedObject.getMethod('getName'))
+        .setter(ExampleManagedObject.getMethod('setName', String))
+        .build()
+
+    assert attribute.value == 'foo'
+
+    attribute.value = 'bar'
+    assert example.name == 'bar'
+
+    attribute.value = null
+    assert attribute.value == null
+  }
+
+  @Test
+  void 'accessor failure is not wrapped'() {
+    def attribute = attribute(new Counter(), 'broken')
+    try {
+      attribute.value
+      fail()
+    }
+    catch (IllegalStateException e) {
+      assert e.message == 'broken'
+    }
+  }
+}
@@ -59,6 +59,9 @@ public interface MimeSupport
   List<String> guessMimeTypesListFromPath(final String path);
 
   /**
+   * Detects the MIME types of the content. Detection only inspects the head of the content, hence passing in just a
+   * buffered prefix of it (ie. {@code LookAheadInputStream#getPrefix()}) is sufficient.
+   *
    * @since 3.0
    */
   List<String> detectMimeTypes(InputStream input, @Nullable String fileName) throws IOException;
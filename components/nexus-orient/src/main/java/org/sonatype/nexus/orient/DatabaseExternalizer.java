@@ -12,6 +12,7 @@
  */
 package org.sonatype.nexus.orient;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -43,6 +44,32 @@ public interface DatabaseExternalizer
    */
   void restore(InputStream input) throws IOException;
 
+  //
+  // Incremental Backup and Restore
+  //
+
+  /**
+   * Backup database into a chain of backups in the given directory.
+   *
+   * The first backup of a chain holds the database structure and all records; later backups only contain records
+   * changed since the previous backup.  A new chain is started when {@code full} is requested or the schema changed.
+   * Clusters are scanned and compressed in parallel with the given number of threads, without freezing the database.
+   *
+   * @return The directory of the backup written.
+   *
+   * @see #restore(File)
+   * @since 3.0
+   */
+  File backup(File directory, int compressionLevel, int threads, boolean full) throws IOException;
+
+  /**
+   * Restore database from the latest full backup in the given directory, followed by all later incremental backups.
+   *
+   * @see #backup(File, int, int, boolean)
+   * @since 3.0
+   */
+  void restore(File directory) throws IOException;
+
   //
   // Export and Import
   //
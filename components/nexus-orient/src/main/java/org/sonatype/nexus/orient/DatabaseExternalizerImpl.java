@@ -110,6 +110,22 @@ public class DatabaseExternalizerImpl
     }
   }
 
+  @Override
+  public File backup(final File directory, final int compressionLevel, final int threads, final boolean full)
+      throws IOException
+  {
+    checkNotNull(directory);
+
+    return new IncrementalBackup(databaseManager, this, name, directory, compressionLevel, threads).backup(full);
+  }
+
+  @Override
+  public void restore(final File directory) throws IOException {
+    checkNotNull(directory);
+
+    new IncrementalBackup(databaseManager, this, name, directory, BACKUP_COMPRESSION_LEVEL, 1).restore();
+  }
+
   @Override
   public void export(final OutputStream output) throws IOException {
     checkNotNull(output);
@@ -126,6 +142,25 @@ public class DatabaseExternalizerImpl
     }
   }
 
+  /**
+   * Export schema, index and cluster definitions without any records, which {@link #import_(InputStream)} accepts.
+   *
+   * @since 3.0
+   */
+  void exportStructure(final OutputStream output) throws IOException {
+    checkNotNull(output);
+
+    log.debug("Exporting structure of database: {}", name);
+
+    try (ODatabaseDocumentTx db = openDb()) {
+      checkState(db.exists(), "Database does not exist: %s", name);
+
+      ODatabaseExport exporter = new ODatabaseExport(db, output, new LoggingCommandOutputListener("EXPORT"));
+      exporter.setIncludeRecords(false);
+      exporter.exportDatabase();
+    }
+  }
+
   @Override
   public void import_(final InputStream input) throws IOException {
     checkNotNull(input);
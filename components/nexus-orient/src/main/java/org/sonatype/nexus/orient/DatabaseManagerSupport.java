@@ -13,13 +13,24 @@
 package org.sonatype.nexus.orient;
 
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.sonatype.nexus.common.property.SystemPropertiesHelper;
 import org.sonatype.sisu.goodies.lifecycle.LifecycleSupport;
 import org.sonatype.sisu.goodies.lifecycle.Lifecycles;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
 import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.orientechnologies.orient.core.db.OPartitionedDatabasePool;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
 
@@ -29,6 +40,10 @@ import static com.google.common.base.Preconditions.checkState;
 /**
  * Support for {@link DatabaseManager} implementations.
  *
+ * Pool sizing may be configured globally with system property {@code org.sonatype.nexus.orient.DatabasePool
+ * .maxConnections}, or per-database with {@code org.sonatype.nexus.orient.DatabasePool.<name>.maxConnections}.
+ * Likewise {@code leakThresholdSeconds} enables reporting connections held longer than the threshold.
+ *
  * @since 3.0
  */
 public abstract class DatabaseManagerSupport
@@ -39,20 +54,73 @@ public abstract class DatabaseManagerSupport
 
   public static final String SYSTEM_PASSWORD = "admin";
 
+  private static final String POOL_PROPERTY_PREFIX = DatabasePool.class.getName() + ".";
+
+  private static final int DEFAULT_MAX_CONNECTIONS = 25;
+
+  private static final long LEAK_CHECK_INTERVAL_SECONDS = 10;
+
   private final Map<String,DatabasePoolImpl> pools = Maps.newHashMap();
 
+  private final List<DatabasePoolImpl> unsharedPools = Lists.newCopyOnWriteArrayList();
+
+  private final AtomicInteger unsharedPoolCounter = new AtomicInteger();
+
   private final Map<String,DatabaseInstanceImpl> instances = Maps.newHashMap();
 
+  private final MetricRegistry metricRegistry = SharedMetricRegistries.getOrCreate("nexus");
+
+  private ScheduledExecutorService leakChecker;
+
   @Override
   protected void doStart() throws Exception {
     checkState(pools.isEmpty());
     checkState(instances.isEmpty());
+
+    leakChecker = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("database-pool-leak-checker").setDaemon(true).build());
+    leakChecker.scheduleWithFixedDelay(new Runnable()
+    {
+      @Override
+      public void run() {
+        for (DatabasePoolImpl pool : allPools()) {
+          try {
+            pool.checkLeaks();
+          }
+          catch (Exception e) {
+            log.warn("Failed to check leaks of pool: {}", pool.getName(), e);
+          }
+        }
+      }
+    }, LEAK_CHECK_INTERVAL_SECONDS, LEAK_CHECK_INTERVAL_SECONDS, TimeUnit.SECONDS);
   }
 
   @Override
   protected void doStop() throws Exception {
+    leakChecker.shutdownNow();
+    leakChecker = null;
     stopAllInstances();
     stopAllPools();
+    unsharedPools.clear();
+  }
+
+  /**
+   * Returns all started pools, shared and unshared.
+   */
+  protected List<DatabasePoolImpl> allPools() {
+    ImmutableList.Builder<DatabasePoolImpl> result = ImmutableList.builder();
+    synchronized (pools) {
+      result.addAll(pools.values());
+    }
+    for (DatabasePoolImpl pool : unsharedPools) {
+      if (pool.isStarted()) {
+        result.add(pool);
+      }
+      else {
+        unsharedPools.remove(pool);
+      }
+    }
+    return result.build();
   }
 
   /**
@@ -185,7 +253,7 @@ public abstract class DatabaseManagerSupport
     synchronized (pools) {
       DatabasePoolImpl pool = pools.get(name);
       if (pool == null) {
-        pool = createPool(name);
+        pool = createPool(name, name);
         log.debug("Created database pool: {}", pool);
         pools.put(name, pool);
       }
@@ -200,21 +268,34 @@ public abstract class DatabaseManagerSupport
 
     // TODO: Track non-shared pools so that we can attempt to shut them down if users didn't properly do this?
     // TODO: ... or at the very least complain if this happens?
-    return createPool(name);
+    DatabasePoolImpl pool = createPool(name, name + "-" + unsharedPoolCounter.incrementAndGet());
+    unsharedPools.add(pool);
+    return pool;
   }
 
-  private DatabasePoolImpl createPool(final String name) {
-    // TODO: refine more control over how pool settings are configured per-database or globally
+  private DatabasePoolImpl createPool(final String name, final String metricName) {
+    int maxConnections = poolProperty(name, "maxConnections", DEFAULT_MAX_CONNECTIONS);
+    long leakThresholdSeconds = poolProperty(name, "leakThresholdSeconds", 0);
 
     String uri = connectionUri(name);
-    OPartitionedDatabasePool underlying = new OPartitionedDatabasePool(uri, SYSTEM_USER, SYSTEM_PASSWORD, 25);
+    OPartitionedDatabasePool underlying =
+        new OPartitionedDatabasePool(uri, SYSTEM_USER, SYSTEM_PASSWORD, maxConnections);
 
     // TODO: Do not allow shared pool() to be closed by users, only by ourselves
-    DatabasePoolImpl pool = new DatabasePoolImpl(underlying, name);
+    DatabasePoolImpl pool = new DatabasePoolImpl(underlying, name, metricName, maxConnections,
+        TimeUnit.SECONDS.toMillis(leakThresholdSeconds), metricRegistry);
     Lifecycles.start(pool);
     return pool;
   }
 
+  /**
+   * Returns per-database pool property, falling back to global one.
+   */
+  private static int poolProperty(final String name, final String property, final int defaultValue) {
+    return SystemPropertiesHelper.getInteger(POOL_PROPERTY_PREFIX + name + "." + property,
+        SystemPropertiesHelper.getInteger(POOL_PROPERTY_PREFIX + property, defaultValue));
+  }
+
   @Override
   public DatabaseInstance instance(final String name) {
     checkNotNull(name);
@@ -12,17 +12,38 @@
  */
 package org.sonatype.nexus.orient;
 
+import java.lang.ref.WeakReference;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Nullable;
+
 import org.sonatype.sisu.goodies.lifecycle.LifecycleSupport;
 import org.sonatype.sisu.goodies.lifecycle.Lifecycles;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.MapMaker;
 import com.orientechnologies.orient.core.db.OPartitionedDatabasePool;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 
 /**
  * Default {@link DatabasePool} implementation.
  *
+ * Publishes under {@code org.sonatype.nexus.orient.DatabasePool.<metricName>} the time spent acquiring connections, the
+ * number of connections currently acquired and the configured maximum. Connections are tracked from acquisition
+ * until closed; when a leak threshold is set the acquiring stack is captured and logged for connections held longer,
+ * see {@link #checkLeaks()}. Nested acquires on one thread are handed the connection the thread already holds, so they
+ * are tracked as part of the outermost acquisition, which lasts until the connection is released to the pool.
+ *
  * @since 3.0
  */
 public class DatabasePoolImpl
@@ -33,9 +54,79 @@ public class DatabasePoolImpl
 
   private final OPartitionedDatabasePool delegate;
 
+  private final int maxConnections;
+
+  private final long leakThresholdMillis;
+
+  private final MetricRegistry metricRegistry;
+
+  private final String metricPrefix;
+
+  private final Timer acquireTimer;
+
+  private final Meter leakMeter;
+
+  /**
+   * Connections handed out and not yet seen closed, by identity.
+   */
+  private final ConcurrentMap<ODatabaseDocumentTx, Acquisition> acquired = new MapMaker().weakKeys().makeMap();
+
+  /**
+   * Connection last acquired by the current thread, to tell nested acquires apart from reuse of a released connection.
+   */
+  private final ThreadLocal<WeakReference<ODatabaseDocumentTx>> lastAcquired = new ThreadLocal<>();
+
+  /**
+   * Checked on acquire instead of the lifecycle lock, which is too expensive for the hot path.
+   */
+  private volatile boolean available;
+
+  private static class Acquisition
+  {
+    private final long timestamp = System.currentTimeMillis();
+
+    private final String threadName = Thread.currentThread().getName();
+
+    @Nullable
+    private final Throwable stack;
+
+    /**
+     * Number of times the connection was acquired, including nested acquires.
+     */
+    private volatile int count = 1;
+
+    private boolean reported;
+
+    private Acquisition(final boolean captureStack) {
+      this.stack = captureStack ? new Throwable("Connection acquired") : null;
+    }
+  }
+
   public DatabasePoolImpl(final OPartitionedDatabasePool pool, final String name) {
+    this(pool, name, name, 0, 0, new MetricRegistry());
+  }
+
+  /**
+   * @param metricName          name to publish metrics under, unique among pools sharing the registry
+   * @param maxConnections      configured maximum connections, for reporting
+   * @param leakThresholdMillis connections held longer are reported as leaked, 0 to disable leak detection
+   * @param metricRegistry      registry to publish pool metrics into
+   */
+  public DatabasePoolImpl(final OPartitionedDatabasePool pool,
+                          final String name,
+                          final String metricName,
+                          final int maxConnections,
+                          final long leakThresholdMillis,
+                          final MetricRegistry metricRegistry)
+  {
     this.delegate = checkNotNull(pool);
     this.name = checkNotNull(name);
+    this.maxConnections = maxConnections;
+    this.leakThresholdMillis = leakThresholdMillis;
+    this.metricRegistry = checkNotNull(metricRegistry);
+    this.metricPrefix = MetricRegistry.name(DatabasePool.class, checkNotNull(metricName));
+    this.acquireTimer = metricRegistry.timer(MetricRegistry.name(metricPrefix, "acquire"));
+    this.leakMeter = metricRegistry.meter(MetricRegistry.name(metricPrefix, "leaks"));
   }
 
   @Override
@@ -49,16 +140,118 @@ public class DatabasePoolImpl
     return super.isStarted();
   }
 
+  @Override
+  protected void doStart() throws Exception {
+    register("active", new Gauge<Integer>()
+    {
+      @Override
+      public Integer getValue() {
+        return getActiveConnections();
+      }
+    });
+    register("max", new Gauge<Integer>()
+    {
+      @Override
+      public Integer getValue() {
+        return maxConnections;
+      }
+    });
+    available = true;
+  }
+
+  private void register(final String metric, final Gauge<?> gauge) {
+    String metricName = MetricRegistry.name(metricPrefix, metric);
+    metricRegistry.remove(metricName);
+    metricRegistry.register(metricName, gauge);
+  }
+
   @Override
   protected void doStop() throws Exception {
+    available = false;
+    checkLeaks();
+    acquired.clear();
     delegate.close();
+    metricRegistry.removeMatching(new MetricFilter()
+    {
+      @Override
+      public boolean matches(final String metricName, final Metric metric) {
+        return metricName.startsWith(metricPrefix + '.');
+      }
+    });
   }
 
   @Override
   public ODatabaseDocumentTx acquire() {
-    ensureStarted();
+    checkState(available, "Database pool not started: %s", name);
+
+    WeakReference<ODatabaseDocumentTx> last = lastAcquired.get();
+    ODatabaseDocumentTx held = last != null ? last.get() : null;
+    if (held != null && held.isClosed()) {
+      held = null;
+    }
+
+    Timer.Context context = acquireTimer.time();
+    ODatabaseDocumentTx db;
+    try {
+      db = delegate.acquire();
+    }
+    finally {
+      context.stop();
+    }
+
+    Acquisition acquisition = db == held ? acquired.get(db) : null;
+    if (acquisition != null) {
+      // only the owning thread acquires a connection it holds
+      acquisition.count++;
+    }
+    else {
+      acquired.put(db, new Acquisition(leakThresholdMillis > 0));
+      lastAcquired.set(new WeakReference<>(db));
+    }
+    return db;
+  }
+
+  /**
+   * Returns the number of connections acquired and not yet released to the pool. Nested acquires do not count, as they
+   * share the connection of the outermost acquire.
+   */
+  public int getActiveConnections() {
+    int active = 0;
+    for (ODatabaseDocumentTx db : acquired.keySet()) {
+      if (db.isClosed()) {
+        acquired.remove(db);
+      }
+      else {
+        active++;
+      }
+    }
+    return active;
+  }
+
+  public int getMaxConnections() {
+    return maxConnections;
+  }
 
-    return delegate.acquire();
+  /**
+   * Forgets connections closed since last check, and reports each connection held longer than the leak threshold
+   * once, with the stack that acquired it.
+   */
+  public void checkLeaks() {
+    final long now = System.currentTimeMillis();
+    for (Entry<ODatabaseDocumentTx, Acquisition> entry : acquired.entrySet()) {
+      if (entry.getKey().isClosed()) {
+        acquired.remove(entry.getKey(), entry.getValue());
+        continue;
+      }
+      Acquisition acquisition = entry.getValue();
+      if (leakThresholdMillis > 0 && !acquisition.reported && now - acquisition.timestamp > leakThresholdMillis) {
+        acquisition.reported = true;
+        leakMeter.mark();
+        log.warn("Connection of database pool {} held by thread {} for {} seconds, acquired {} times, possible leak",
+            name, acquisition.threadName, TimeUnit.MILLISECONDS.toSeconds(now - acquisition.timestamp),
+            acquisition.count, acquisition.stack);
+      }
+    }
   }
 
   @Override
@@ -70,6 +263,7 @@ public class DatabasePoolImpl
   public String toString() {
     return getClass().getSimpleName() + "{" +
         "name='" + name + '\'' +
+        ", maxConnections=" + maxConnections +
         '}';
   }
 }
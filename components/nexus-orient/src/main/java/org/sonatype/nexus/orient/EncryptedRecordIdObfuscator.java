@@ -28,6 +28,7 @@ import javax.inject.Singleton;
 
 import org.sonatype.sisu.goodies.crypto.CryptoHelper;
 
+import com.google.common.base.Throwables;
 import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
@@ -54,6 +55,26 @@ public class EncryptedRecordIdObfuscator
 
   private final SecretKey secretKey;
 
+  /**
+   * Cipher creation and initialization is costly, keep an initialized cipher per thread. {@link Cipher#doFinal}
+   * resets it to the initialized state, ready for reuse.
+   */
+  private final ThreadLocal<Cipher> encryptCipher = new ThreadLocal<Cipher>()
+  {
+    @Override
+    protected Cipher initialValue() {
+      return createCipher(Cipher.ENCRYPT_MODE);
+    }
+  };
+
+  private final ThreadLocal<Cipher> decryptCipher = new ThreadLocal<Cipher>()
+  {
+    @Override
+    protected Cipher initialValue() {
+      return createCipher(Cipher.DECRYPT_MODE);
+    }
+  };
+
   @Inject
   public EncryptedRecordIdObfuscator(final CryptoHelper crypto,
                                      final @Named(CPREFIX + ".password:-changeme}") String password,
@@ -75,22 +96,37 @@ public class EncryptedRecordIdObfuscator
     this.secretKey = new SecretKeySpec(tmp.getEncoded(), "DES");
   }
 
+  private Cipher createCipher(final int mode) {
+    try {
+      Cipher cipher = crypto.createCipher(TRANSFORMATION);
+      cipher.init(mode, secretKey, paramSpec);
+      return cipher;
+    }
+    catch (Exception e) {
+      throw Throwables.propagate(e);
+    }
+  }
+
   @Override
   protected String doEncode(final OClass type, final ORID rid) throws Exception {
-    Cipher cipher = crypto.createCipher(TRANSFORMATION);
     // rid is 10 byte long, need to be in multiples of 8 for cipher
     byte[] plain = ByteBuffer.allocate(16).put(rid.toStream()).array();
-    cipher.init(Cipher.ENCRYPT_MODE, secretKey, paramSpec);
-    byte[] encrypted = cipher.doFinal(plain);
+    byte[] encrypted = encryptCipher.get().doFinal(plain);
     return Hex.encode(encrypted);
   }
 
   @Override
   protected ORID doDecode(final OClass type, final String encoded) throws Exception {
-    Cipher cipher = crypto.createCipher(TRANSFORMATION);
     byte[] encrypted = Hex.decode(encoded);
-    cipher.init(Cipher.DECRYPT_MODE, secretKey, paramSpec);
-    byte[] plain = cipher.doFinal(encrypted);
+    byte[] plain;
+    try {
+      plain = decryptCipher.get().doFinal(encrypted);
+    }
+    catch (Exception e) {
+      // cipher state is undefined after a failure, start over with a fresh one
+      decryptCipher.remove();
+      throw e;
+    }
     return new ORecordId().fromStream(plain);
   }
 }
@@ -0,0 +1,695 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.orient;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.nexus.common.io.DirSupport;
+import org.sonatype.sisu.goodies.common.ComponentSupport;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Incremental, per-cluster backup of a database into a chain of backups in a directory.
+ *
+ * The first backup of a chain is a full backup, holding the schema and index definitions plus every record.  Later
+ * backups are deltas holding only the records created, updated or deleted since the previous backup, detected by
+ * comparing record versions against a manifest kept alongside the chain.  A new chain is started whenever the schema,
+ * indexes or set of clusters changed, or when requested.
+ *
+ * Full and delta backups are written by the same scan which builds the manifest, so the manifest describes exactly the
+ * records written.  Clusters are scanned and compressed in parallel, each on its own connection, without freezing the
+ * database; so a backup is consistent per record rather than a point-in-time snapshot.  Applying a backup is
+ * idempotent, and restore preserves record ids so links between records remain valid.
+ *
+ * @since 3.0
+ */
+class IncrementalBackup
+    extends ComponentSupport
+{
+  private static final String MANIFEST_FILE = "manifest.gz";
+
+  private static final String PROPERTIES_FILE = "backup.properties";
+
+  private static final String STRUCTURE_FILE = "structure.json.gz";
+
+  private static final String CLUSTER_SUFFIX = ".gz";
+
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  private static final Pattern BACKUP_NAME = Pattern.compile("(\\d+)-(full|delta)");
+
+  private static final int MANIFEST_FORMAT = 1;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * Records between clearing the local cache while scanning, so large clusters are not retained in memory.
+   */
+  private static final int CACHE_CLEAR_INTERVAL = 10000;
+
+  /**
+   * Clusters which are maintained by OrientDB itself and are only captured by full backups.
+   */
+  private static final Collection<String> INTERNAL_CLUSTERS = ImmutableSet.of("internal", "index", "manindex");
+
+  private static final byte OP_UPSERT = 'U';
+
+  private static final byte OP_DELETE = 'D';
+
+  private static final byte OP_END = 'E';
+
+  private final DatabaseManager databaseManager;
+
+  private final DatabaseExternalizerImpl externalizer;
+
+  private final String name;
+
+  private final File directory;
+
+  private final int compressionLevel;
+
+  private final int threads;
+
+  private final Meter scanned;
+
+  private final Meter written;
+
+  private final Meter bytes;
+
+  private final Timer duration;
+
+  IncrementalBackup(final DatabaseManager databaseManager,
+                    final DatabaseExternalizerImpl externalizer,
+                    final String name,
+                    final File directory,
+                    final int compressionLevel,
+                    final int threads)
+  {
+    this.databaseManager = checkNotNull(databaseManager);
+    this.externalizer = checkNotNull(externalizer);
+    this.name = checkNotNull(name);
+    this.directory = checkNotNull(directory);
+    checkArgument(compressionLevel >= 0 && compressionLevel <= 9, "Invalid compression level: %s", compressionLevel);
+    this.compressionLevel = compressionLevel;
+    checkArgument(threads > 0);
+    this.threads = threads;
+
+    MetricRegistry registry = SharedMetricRegistries.getOrCreate("nexus");
+    String prefix = name(DatabaseExternalizer.class, name, "backup");
+    this.scanned = registry.meter(name(prefix, "scanned"));
+    this.written = registry.meter(name(prefix, "written"));
+    this.bytes = registry.meter(name(prefix, "bytes"));
+    this.duration = registry.timer(name(prefix, "duration"));
+  }
+
+  //
+  // Backup
+  //
+
+  /**
+   * Backup into the chain, returning the directory of the backup written.
+   */
+  File backup(final boolean forceFull) throws IOException {
+    DirSupport.mkdir(directory);
+
+    Timer.Context timing = duration.time();
+    try {
+      Manifest previous = forceFull ? null : readManifest();
+      Manifest current;
+      try (ODatabaseDocumentTx db = databaseManager.connect(name, false)) {
+        checkState(db.exists(), "Database does not exist: %s", name);
+        current = new Manifest(nextSequence(), metadataVersion(db, true), metadataVersion(db, false));
+        for (String cluster : db.getClusterNames()) {
+          if (!INTERNAL_CLUSTERS.contains(cluster)) {
+            current.clusters.put(cluster, null);
+          }
+        }
+      }
+
+      boolean full = previous == null
+          || previous.schemaVersion != current.schemaVersion
+          || previous.indexVersion != current.indexVersion
+          || !previous.clusters.keySet().equals(current.clusters.keySet());
+
+      File target = new File(directory, String.format("%010d-%s", current.sequence, full ? "full" : "delta"));
+      File temp = new File(target.getPath() + TEMP_SUFFIX);
+      DirSupport.deleteIfExists(temp.toPath());
+      DirSupport.mkdir(temp);
+
+      log.info("Starting {} backup of database {} into: {}", full ? "full" : "incremental", name, target);
+      try {
+        if (full) {
+          // definitions only; records are written by the scan below, which also builds the manifest
+          try (OutputStream output = openFile(new File(temp, STRUCTURE_FILE))) {
+            externalizer.exportStructure(output);
+          }
+        }
+        Properties properties = scan(current, full ? null : previous, temp);
+
+        properties.setProperty("database", name);
+        properties.setProperty("type", full ? "full" : "delta");
+        properties.setProperty("sequence", String.valueOf(current.sequence));
+        if (previous != null && !full) {
+          properties.setProperty("previous", String.valueOf(previous.sequence));
+        }
+        try (OutputStream output = new FileOutputStream(new File(temp, PROPERTIES_FILE))) {
+          properties.store(output, null);
+        }
+
+        DirSupport.move(temp.toPath(), target.toPath());
+      }
+      catch (Exception e) {
+        DirSupport.deleteIfExists(temp.toPath());
+        Throwables.propagateIfPossible(e, IOException.class);
+        throw Throwables.propagate(e);
+      }
+
+      // a stale manifest only causes records to be included again, so it is written last
+      writeManifest(current);
+
+      log.info("Completed backup of database {} into: {}", name, target);
+      return target;
+    }
+    finally {
+      timing.stop();
+    }
+  }
+
+  /**
+   * Version of the schema or index-manager record, which changes with any schema or index definition change.
+   */
+  private int metadataVersion(final ODatabaseDocumentTx db, final boolean schema) {
+    String rid = schema
+        ? db.getStorage().getConfiguration().schemaRecordId
+        : db.getStorage().getConfiguration().indexMgrRecordId;
+    ODocument record = db.load(new ORecordId(rid));
+    return record != null ? record.getVersion() : -1;
+  }
+
+  /**
+   * Scan all clusters in parallel, recording positions and versions into the current manifest and writing changes
+   * since the previous manifest, or all records when there is none, into the output directory.
+   */
+  private Properties scan(final Manifest current,
+                          final @Nullable Manifest previous,
+                          final File output) throws Exception
+  {
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, current.clusters.size() + 1),
+        new ThreadFactoryBuilder().setNameFormat("database-backup-" + name + "-%d").setDaemon(true).build());
+    try {
+      Map<String, Future<ClusterScan>> scans = new TreeMap<>();
+      for (String cluster : current.clusters.keySet()) {
+        ClusterState before = previous != null ? previous.clusters.get(cluster) : null;
+        File file = new File(output, cluster + CLUSTER_SUFFIX);
+        scans.put(cluster, executor.submit(new ClusterScan(cluster, before, file)));
+      }
+
+      long records = 0, changed = 0, deleted = 0, size = 0;
+      for (Entry<String, Future<ClusterScan>> entry : scans.entrySet()) {
+        ClusterScan scan;
+        try {
+          scan = entry.getValue().get();
+        }
+        catch (ExecutionException e) {
+          Throwables.propagateIfPossible(e.getCause(), Exception.class);
+          throw Throwables.propagate(e.getCause());
+        }
+        current.clusters.put(entry.getKey(), scan.state.build());
+        records += scan.state.size;
+        changed += scan.changed;
+        deleted += scan.deleted;
+        size += scan.bytes;
+      }
+
+      Properties properties = new Properties();
+      properties.setProperty("created", String.valueOf(new Date().getTime()));
+      properties.setProperty("clusters", String.valueOf(current.clusters.size()));
+      properties.setProperty("records", String.valueOf(records));
+      properties.setProperty("changed", String.valueOf(changed));
+      properties.setProperty("deleted", String.valueOf(deleted));
+      properties.setProperty("bytes", String.valueOf(size));
+      return properties;
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Scans a single cluster on its own connection.
+   */
+  private class ClusterScan
+      implements Callable<ClusterScan>
+  {
+    private final String cluster;
+
+    private final ClusterState previous;
+
+    private final File output;
+
+    private final ClusterState.Builder state = new ClusterState.Builder();
+
+    private long changed;
+
+    private long deleted;
+
+    private long bytes;
+
+    private ClusterScan(final String cluster, final @Nullable ClusterState previous, final File output) {
+      this.cluster = cluster;
+      this.previous = previous;
+      this.output = output;
+    }
+
+    @Override
+    public ClusterScan call() throws Exception {
+      log.debug("Scanning cluster: {}", cluster);
+      try (ODatabaseDocumentTx db = databaseManager.connect(name, false);
+           DataOutputStream out = new DataOutputStream(openFile(output))) {
+        int index = 0;
+        for (ODocument record : db.browseCluster(cluster)) {
+          long position = record.getIdentity().getClusterPosition();
+          int version = record.getVersion();
+
+          // records before this position which are no longer present were deleted
+          while (previous != null && index < previous.size && previous.positions[index] < position) {
+            delete(out, previous.positions[index++]);
+          }
+
+          boolean modified = true;
+          if (previous != null && index < previous.size && previous.positions[index] == position) {
+            modified = previous.versions[index++] != version;
+          }
+          if (modified) {
+            byte[] content = record.toStream();
+            out.writeByte(OP_UPSERT);
+            out.writeLong(position);
+            out.writeInt(version);
+            out.writeInt(content.length);
+            out.write(content);
+            changed++;
+            bytes += content.length;
+          }
+          state.add(position, version);
+
+          if (state.size % CACHE_CLEAR_INTERVAL == 0) {
+            db.getLocalCache().clear();
+          }
+        }
+        while (previous != null && index < previous.size) {
+          delete(out, previous.positions[index++]);
+        }
+
+        out.writeByte(OP_END);
+      }
+
+      scanned.mark(state.size);
+      written.mark(changed);
+      IncrementalBackup.this.bytes.mark(bytes);
+      log.debug("Scanned cluster: {}, {} records, {} changed, {} deleted", cluster, state.size, changed, deleted);
+      return this;
+    }
+
+    private void delete(final DataOutputStream out, final long position) throws IOException {
+      out.writeByte(OP_DELETE);
+      out.writeLong(position);
+      deleted++;
+    }
+  }
+
+  private OutputStream openFile(final File file) throws IOException {
+    return new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(file), BUFFER_SIZE)
+    {
+      {
+        def.setLevel(compressionLevel);
+      }
+    }, BUFFER_SIZE);
+  }
+
+  private InputStream readFile(final File file) throws IOException {
+    return new BufferedInputStream(new GZIPInputStream(new FileInputStream(file), BUFFER_SIZE), BUFFER_SIZE);
+  }
+
+  //
+  // Restore
+  //
+
+  /**
+   * Restore the latest full backup of the chain followed by all later deltas.  The next backup is a full backup.
+   */
+  void restore() throws IOException {
+    List<File> chain = chain();
+    checkState(!chain.isEmpty(), "No full backup found in: %s", directory);
+
+    // restored records do not keep their versions, so the manifest no longer describes the database; the next
+    // backup must start a new chain
+    DirSupport.deleteIfExists(new File(directory, MANIFEST_FILE).toPath());
+
+    File full = chain.get(0);
+    log.info("Restoring database {} from: {}", name, full);
+    try (InputStream input = readFile(new File(full, STRUCTURE_FILE))) {
+      externalizer.import_(input);
+    }
+
+    try (ODatabaseDocumentTx db = databaseManager.connect(name, false)) {
+      for (File backup : chain) {
+        log.info("Applying backup: {}", backup);
+        File[] files = backup.listFiles();
+        checkState(files != null, "Unable to list: %s", backup);
+        Arrays.sort(files);
+        for (File file : files) {
+          String fileName = file.getName();
+          if (fileName.endsWith(CLUSTER_SUFFIX)) {
+            String cluster = fileName.substring(0, fileName.length() - CLUSTER_SUFFIX.length());
+            applyCluster(db, cluster, file, backup == full);
+          }
+        }
+      }
+    }
+    log.info("Restored database {} from {} backups", name, chain.size());
+  }
+
+  /**
+   * Apply changes of a single cluster, creating records at their original positions.  Applying a full backup also
+   * removes records created along with the database, such as default users, which were not part of the backup.
+   */
+  private void applyCluster(final ODatabaseDocumentTx db, final String cluster, final File file, final boolean full)
+      throws IOException
+  {
+    int clusterId = db.getClusterIdByName(cluster);
+    checkState(clusterId != -1, "Missing cluster %s; restore requires a full backup after schema changes", cluster);
+
+    List<ORID> fillers = new ArrayList<>();
+    ClusterState.Builder applied = new ClusterState.Builder();
+    Long next = null;
+    try (DataInputStream in = new DataInputStream(readFile(file))) {
+      for (byte op = in.readByte(); op != OP_END; op = in.readByte()) {
+        ORecordId rid = new ORecordId(clusterId, in.readLong());
+        if (op == OP_DELETE) {
+          if (db.load(rid) != null) {
+            db.delete(rid);
+          }
+        }
+        else if (op == OP_UPSERT) {
+          applied.add(rid.getClusterPosition(), in.readInt());
+          byte[] content = new byte[in.readInt()];
+          in.readFully(content);
+          ODocument record = new ODocument();
+          record.fromStream(content);
+
+          ODocument existing = db.load(rid);
+          if (existing != null) {
+            existing.merge(record, false, false);
+            existing.save();
+          }
+          else {
+            next = create(db, cluster, rid, record, next, fillers);
+          }
+        }
+        else {
+          throw new IOException("Corrupt backup: " + file);
+        }
+      }
+    }
+
+    for (ORID filler : fillers) {
+      db.delete(filler);
+    }
+
+    if (full) {
+      // records are written in position order, so anything else present was not part of the backup
+      ClusterState state = applied.build();
+      List<ORID> extra = new ArrayList<>();
+      int index = 0;
+      for (ODocument record : db.browseCluster(cluster)) {
+        long position = record.getIdentity().getClusterPosition();
+        while (index < state.size && state.positions[index] < position) {
+          index++;
+        }
+        if (index == state.size || state.positions[index] != position) {
+          extra.add(record.getIdentity());
+        }
+      }
+      for (ORID rid : extra) {
+        db.delete(rid);
+      }
+    }
+  }
+
+  /**
+   * Create record at the given position; positions are allocated in order, so holes left by records which were
+   * created and deleted between backups are filled with temporary records.
+   *
+   * @return the next position the cluster will allocate
+   */
+  private long create(final ODatabaseDocumentTx db,
+                      final String cluster,
+                      final ORecordId rid,
+                      final ODocument record,
+                      final @Nullable Long next,
+                      final List<ORID> fillers)
+  {
+    long position = rid.getClusterPosition();
+    Long allocated = next;
+    while (allocated == null || allocated < position) {
+      ODocument filler = new ODocument();
+      db.save(filler, cluster);
+      long filled = filler.getIdentity().getClusterPosition();
+      checkState(filled <= position, "Unable to restore %s; position already allocated", rid);
+      if (filled == position) {
+        // cluster was already at the position, use the temporary record
+        filler.setClassName(record.getClassName());
+        filler.merge(record, false, false);
+        filler.save();
+        return position + 1;
+      }
+      fillers.add(filler.getIdentity());
+      allocated = filled + 1;
+    }
+    checkState(allocated == position, "Unable to restore %s; position already allocated", rid);
+
+    ODocument created = record.getClassName() != null ? new ODocument(record.getClassName()) : new ODocument();
+    created.merge(record, false, false);
+    db.save(created, cluster);
+    checkState(created.getIdentity().getClusterPosition() == position, "Restored %s as %s", rid,
+        created.getIdentity());
+    return position + 1;
+  }
+
+  //
+  // Chain
+  //
+
+  /**
+   * Returns the latest full backup and all following deltas, in order.
+   */
+  private List<File> chain() {
+    List<File> chain = new ArrayList<>();
+    for (File backup : backups()) {
+      if (backup.getName().endsWith("-full")) {
+        chain.clear();
+      }
+      if (!chain.isEmpty() || backup.getName().endsWith("-full")) {
+        chain.add(backup);
+      }
+    }
+    return chain;
+  }
+
+  /**
+   * Returns all completed backups, in sequence order.
+   */
+  private List<File> backups() {
+    List<File> backups = new ArrayList<>();
+    File[] files = directory.listFiles();
+    if (files != null) {
+      // names are zero-padded, so natural order is sequence order
+      Arrays.sort(files);
+      for (File file : files) {
+        if (file.isDirectory() && BACKUP_NAME.matcher(file.getName()).matches()) {
+          backups.add(file);
+        }
+      }
+    }
+    return backups;
+  }
+
+  private long nextSequence() {
+    long sequence = 0;
+    for (File backup : backups()) {
+      Matcher matcher = BACKUP_NAME.matcher(backup.getName());
+      checkState(matcher.matches());
+      sequence = Math.max(sequence, Long.parseLong(matcher.group(1)) + 1);
+    }
+    return sequence;
+  }
+
+  //
+  // Manifest
+  //
+
+  /**
+   * Positions and versions of all records of each cluster as of a backup.
+   */
+  private static class Manifest
+  {
+    private final long sequence;
+
+    private final int schemaVersion;
+
+    private final int indexVersion;
+
+    private final Map<String, ClusterState> clusters = new TreeMap<>();
+
+    private Manifest(final long sequence, final int schemaVersion, final int indexVersion) {
+      this.sequence = sequence;
+      this.schemaVersion = schemaVersion;
+      this.indexVersion = indexVersion;
+    }
+  }
+
+  /**
+   * Record positions, in ascending order, and their versions.
+   */
+  private static class ClusterState
+  {
+    private final long[] positions;
+
+    private final int[] versions;
+
+    private final int size;
+
+    private ClusterState(final long[] positions, final int[] versions, final int size) {
+      this.positions = positions;
+      this.versions = versions;
+      this.size = size;
+    }
+
+    private static class Builder
+    {
+      private long[] positions = new long[1024];
+
+      private int[] versions = new int[1024];
+
+      private int size;
+
+      private void add(final long position, final int version) {
+        if (size == positions.length) {
+          positions = Arrays.copyOf(positions, size * 2);
+          versions = Arrays.copyOf(versions, size * 2);
+        }
+        positions[size] = position;
+        versions[size] = version;
+        size++;
+      }
+
+      private ClusterState build() {
+        return new ClusterState(positions, versions, size);
+      }
+    }
+  }
+
+  @Nullable
+  private Manifest readManifest() throws IOException {
+    File file = new File(directory, MANIFEST_FILE);
+    if (!file.exists() || chain().isEmpty()) {
+      return null;
+    }
+    try (DataInputStream in = new DataInputStream(readFile(file))) {
+      if (in.readInt() != MANIFEST_FORMAT) {
+        log.warn("Ignoring manifest of unknown format: {}", file);
+        return null;
+      }
+      Manifest manifest = new Manifest(in.readLong(), in.readInt(), in.readInt());
+      for (int clusters = in.readInt(); clusters > 0; clusters--) {
+        String cluster = in.readUTF();
+        int size = in.readInt();
+        long[] positions = new long[size];
+        int[] versions = new int[size];
+        for (int i = 0; i < size; i++) {
+          positions[i] = in.readLong();
+          versions[i] = in.readInt();
+        }
+        manifest.clusters.put(cluster, new ClusterState(positions, versions, size));
+      }
+      return manifest;
+    }
+  }
+
+  private void writeManifest(final Manifest manifest) throws IOException {
+    File file = new File(directory, MANIFEST_FILE);
+    File temp = new File(directory, MANIFEST_FILE + TEMP_SUFFIX);
+    try (DataOutputStream out = new DataOutputStream(openFile(temp))) {
+      out.writeInt(MANIFEST_FORMAT);
+      out.writeLong(manifest.sequence);
+      out.writeInt(manifest.schemaVersion);
+      out.writeInt(manifest.indexVersion);
+      out.writeInt(manifest.clusters.size());
+      for (Entry<String, ClusterState> entry : manifest.clusters.entrySet()) {
+        ClusterState state = entry.getValue();
+        out.writeUTF(entry.getKey());
+        out.writeInt(state.size);
+        for (int i = 0; i < state.size; i++) {
+          out.writeLong(state.positions[i]);
+          out.writeInt(state.versions[i]);
+        }
+      }
+    }
+    DirSupport.move(temp.toPath(), file.toPath());
+  }
+}
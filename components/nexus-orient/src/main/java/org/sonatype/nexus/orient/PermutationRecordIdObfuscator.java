@@ -0,0 +1,145 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.orient;
+
+import java.nio.ByteBuffer;
+import java.security.spec.KeySpec;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.sisu.goodies.crypto.CryptoHelper;
+
+import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Keyed permutation {@link RecordIdObfuscator}.
+ *
+ * The 80 bits of a record id (16 bit cluster id and 64 bit cluster position) are shuffled by a balanced Feistel
+ * network with keys derived from the configured password and salt, and rendered as 20 hex characters. This only needs
+ * a few arithmetic operations per record id, and is considerably cheaper than {@link EncryptedRecordIdObfuscator},
+ * but is meant to obfuscate ids and not as a substitute for encryption.
+ *
+ * @since 3.0
+ */
+@Named("permutation")
+@Singleton
+public class PermutationRecordIdObfuscator
+  extends RecordIdObfuscatorSupport
+{
+  private static final String CPREFIX = "${nexus.orient.permutationRecordIdObfuscator";
+
+  private static final int ROUNDS = 6;
+
+  private static final int HALF_BITS = 40;
+
+  private static final long HALF_MASK = (1L << HALF_BITS) - 1;
+
+  private static final int ENCODED_LENGTH = 20;
+
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  private final long[] roundKeys;
+
+  @Inject
+  public PermutationRecordIdObfuscator(final CryptoHelper crypto,
+                                       final @Named(CPREFIX + ".password:-changeme}") String password,
+                                       final @Named(CPREFIX + ".salt:-changeme}") String salt)
+      throws Exception
+  {
+    checkNotNull(crypto);
+    checkNotNull(password);
+    checkNotNull(salt);
+
+    SecretKeyFactory factory = crypto.createSecretKeyFactory("PBKDF2WithHmacSHA1");
+    KeySpec spec = new PBEKeySpec(password.toCharArray(), salt.getBytes(), 1024, ROUNDS * 64);
+    ByteBuffer keys = ByteBuffer.wrap(factory.generateSecret(spec).getEncoded());
+
+    this.roundKeys = new long[ROUNDS];
+    for (int i = 0; i < ROUNDS; i++) {
+      roundKeys[i] = keys.getLong();
+    }
+  }
+
+  @Override
+  protected String doEncode(final OClass type, final ORID rid) throws Exception {
+    long position = rid.getClusterPosition();
+    long left = ((rid.getClusterId() & 0xFFFFL) << 24) | (position >>> HALF_BITS);
+    long right = position & HALF_MASK;
+
+    for (int i = 0; i < ROUNDS; i++) {
+      long next = left ^ round(right, roundKeys[i]);
+      left = right;
+      right = next;
+    }
+
+    char[] encoded = new char[ENCODED_LENGTH];
+    toHex(left, encoded, 0);
+    toHex(right, encoded, ENCODED_LENGTH / 2);
+    return new String(encoded);
+  }
+
+  @Override
+  protected ORID doDecode(final OClass type, final String encoded) throws Exception {
+    checkArgument(encoded.length() == ENCODED_LENGTH, "Invalid encoded RID: %s", encoded);
+    long left = fromHex(encoded, 0);
+    long right = fromHex(encoded, ENCODED_LENGTH / 2);
+
+    for (int i = ROUNDS - 1; i >= 0; i--) {
+      long previous = right ^ round(left, roundKeys[i]);
+      right = left;
+      left = previous;
+    }
+
+    int clusterId = (short) (left >>> 24);
+    long position = (left << HALF_BITS) | right;
+    return new ORecordId(clusterId, position);
+  }
+
+  /**
+   * Feistel round function, 64 bit finalizer of MurmurHash3 over the keyed half block.
+   */
+  private static long round(final long half, final long key) {
+    long h = half ^ key;
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h & HALF_MASK;
+  }
+
+  private static void toHex(final long half, final char[] buff, final int offset) {
+    for (int i = 0; i < ENCODED_LENGTH / 2; i++) {
+      buff[offset + i] = HEX_DIGITS[(int) (half >>> (HALF_BITS - 4 * (i + 1))) & 0xF];
+    }
+  }
+
+  private static long fromHex(final String encoded, final int offset) {
+    long half = 0;
+    for (int i = offset; i < offset + ENCODED_LENGTH / 2; i++) {
+      int digit = Character.digit(encoded.charAt(i), 16);
+      checkArgument(digit >= 0, "Invalid encoded RID: %s", encoded);
+      half = (half << 4) | digit;
+    }
+    return half;
+  }
+}
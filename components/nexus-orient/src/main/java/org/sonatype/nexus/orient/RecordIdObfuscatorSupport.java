@@ -13,8 +13,11 @@
 package org.sonatype.nexus.orient;
 
 import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.primitives.Ints;
 import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.id.ORecordId;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -23,11 +26,34 @@ import static com.google.common.base.Preconditions.checkNotNull;
 /**
  * Support for {@link RecordIdObfuscator} implementations.
  *
+ * Recent encodings of persistent record ids are kept in a bounded cache in both directions, so listing the same
+ * records repeatedly does not have to encode or decode them again. Because of this the encoding must only depend on
+ * the record id, not on the type.
+ *
  * @since 3.0
  */
 public abstract class RecordIdObfuscatorSupport
     implements RecordIdObfuscator
 {
+  public static final int DEFAULT_CACHE_SIZE = 10000;
+
+  private final Cache<ORID, String> encodings;
+
+  private final Cache<String, ORID> decodings;
+
+  protected RecordIdObfuscatorSupport() {
+    this(DEFAULT_CACHE_SIZE);
+  }
+
+  /**
+   * @param cacheSize maximum number of encodings to remember, 0 to disable caching
+   */
+  protected RecordIdObfuscatorSupport(final int cacheSize) {
+    checkArgument(cacheSize >= 0, "Cache size must be >= 0");
+    this.encodings = CacheBuilder.newBuilder().maximumSize(cacheSize).build();
+    this.decodings = CacheBuilder.newBuilder().maximumSize(cacheSize).build();
+  }
+
   /**
    * @see #doEncode(OClass, ORID)
    */
@@ -36,12 +62,22 @@ public abstract class RecordIdObfuscatorSupport
     checkNotNull(type);
     checkNotNull(rid);
 
-    try {
-      return doEncode(type, rid);
-    }
-    catch (Exception e) {
-      throw Throwables.propagate(e);
+    // rids are mutable, cache a private copy
+    ORID key = copy(rid);
+    String encoded = encodings.getIfPresent(key);
+    if (encoded == null) {
+      try {
+        encoded = doEncode(type, rid);
+      }
+      catch (Exception e) {
+        throw Throwables.propagate(e);
+      }
+      if (key.isPersistent()) {
+        encodings.put(key, encoded);
+        decodings.put(encoded, key);
+      }
     }
+    return encoded;
   }
 
   /**
@@ -57,12 +93,22 @@ public abstract class RecordIdObfuscatorSupport
     checkNotNull(type);
     checkNotNull(encoded);
 
-    ORID rid;
-    try {
-      rid = doDecode(type, encoded);
+    ORID rid = decodings.getIfPresent(encoded);
+    if (rid == null) {
+      try {
+        rid = doDecode(type, encoded);
+      }
+      catch (Exception e) {
+        throw Throwables.propagate(e);
+      }
+      if (rid.isPersistent()) {
+        ORID key = copy(rid);
+        decodings.put(encoded, key);
+        encodings.put(key, encoded);
+      }
     }
-    catch (Exception e) {
-      throw Throwables.propagate(e);
+    else {
+      rid = copy(rid);
     }
 
     // ensure rid points to the right type
@@ -76,4 +122,8 @@ public abstract class RecordIdObfuscatorSupport
    * @see #decode(OClass, String)
    */
   protected abstract ORID doDecode(final OClass type, final String encoded) throws Exception;
+
+  private static ORID copy(final ORID rid) {
+    return new ORecordId(rid.getClusterId(), rid.getClusterPosition());
+  }
 }
@@ -12,6 +12,8 @@
  */
 package org.sonatype.nexus.orient.entity;
 
+import java.lang.ref.WeakReference;
+
 import javax.annotation.Nonnull;
 import javax.inject.Inject;
 
@@ -28,6 +30,7 @@ import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
 import com.orientechnologies.orient.core.metadata.schema.OSchema;
 import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.storage.OStorage;
 import com.orientechnologies.orient.core.version.ORecordVersion;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -47,7 +50,13 @@ public abstract class EntityAdapter<T extends Entity>
 
   private RecordIdObfuscator recordIdObfuscator;
 
-  private OClass type;
+  private volatile OClass type;
+
+  /**
+   * Storage of the database the type was registered with, which is replaced when the database is dropped and
+   * created again, as on restore.
+   */
+  private volatile WeakReference<OStorage> registeredStorage;
 
   public EntityAdapter(final String typeName) {
     this.typeName = checkNotNull(typeName);
@@ -78,7 +87,7 @@ public abstract class EntityAdapter<T extends Entity>
   // Schema
   //
 
-  public void register(final ODatabaseDocumentTx db) {
+  public synchronized void register(final ODatabaseDocumentTx db) {
     checkNotNull(db);
 
     OSchema schema = db.getMetadata().getSchema();
@@ -94,6 +103,16 @@ public abstract class EntityAdapter<T extends Entity>
       );
     }
     this.type = type;
+    this.registeredStorage = new WeakReference<>(db.getStorage());
+  }
+
+  /**
+   * Returns {@code true} if the type has already been registered with the storage of the given database.
+   */
+  public boolean isRegistered(final ODatabaseDocumentTx db) {
+    checkNotNull(db);
+    WeakReference<OStorage> storage = registeredStorage;
+    return type != null && storage != null && storage.get() == db.getStorage();
   }
 
   protected void defineType(final ODatabaseDocumentTx db, final OClass type) {
@@ -0,0 +1,125 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.orient;
+
+import java.util.concurrent.CountDownLatch;
+
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.codahale.metrics.MetricRegistry;
+import com.orientechnologies.orient.core.db.OPartitionedDatabasePool;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * Tests for {@link DatabasePoolImpl}.
+ */
+public class DatabasePoolImplTest
+  extends TestSupport
+{
+  @Rule
+  public DatabaseInstanceRule database = new DatabaseInstanceRule("test");
+
+  @Test
+  public void activeConnectionsTrackedUntilClosed() throws Exception {
+    final DatabasePoolImpl underTest = (DatabasePoolImpl) database.getManager().newPool("test");
+    try {
+      assertThat(underTest.getActiveConnections(), is(0));
+
+      ODatabaseDocumentTx db1 = underTest.acquire();
+      // nested acquires on one thread share the connection, so the second one is held by another thread
+      final CountDownLatch acquired = new CountDownLatch(1);
+      final CountDownLatch release = new CountDownLatch(1);
+      Thread holder = new Thread(new Runnable()
+      {
+        @Override
+        public void run() {
+          ODatabaseDocumentTx db2 = underTest.acquire();
+          acquired.countDown();
+          try {
+            release.await();
+          }
+          catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          finally {
+            db2.close();
+          }
+        }
+      });
+      holder.start();
+      acquired.await();
+      assertThat(underTest.getActiveConnections(), is(2));
+
+      db1.close();
+      assertThat(underTest.getActiveConnections(), is(1));
+
+      release.countDown();
+      holder.join();
+      assertThat(underTest.getActiveConnections(), is(0));
+    }
+    finally {
+      underTest.close();
+    }
+  }
+
+  @Test
+  public void nestedAcquiresTrackedAsOneConnection() throws Exception {
+    DatabasePoolImpl underTest = (DatabasePoolImpl) database.getManager().newPool("test");
+    try {
+      ODatabaseDocumentTx outer = underTest.acquire();
+      ODatabaseDocumentTx nested = underTest.acquire();
+      assertThat(nested, is(sameInstance(outer)));
+      assertThat(underTest.getActiveConnections(), is(1));
+
+      nested.close();
+      assertThat(underTest.getActiveConnections(), is(1));
+
+      outer.close();
+      assertThat(underTest.getActiveConnections(), is(0));
+
+      underTest.acquire().close();
+      assertThat(underTest.getActiveConnections(), is(0));
+    }
+    finally {
+      underTest.close();
+    }
+  }
+
+  @Test
+  public void metricsRemovedOnClose() throws Exception {
+    MetricRegistry registry = new MetricRegistry();
+    DatabasePoolImpl underTest = new DatabasePoolImpl(
+        new OPartitionedDatabasePool(database.getManager().connectionUri("test"),
+            DatabaseManagerSupport.SYSTEM_USER, DatabaseManagerSupport.SYSTEM_PASSWORD, 10),
+        "test", "test-metrics", 10, 1000, registry);
+    underTest.start();
+
+    String prefix = DatabasePool.class.getName() + ".test-metrics.";
+    assertThat(registry.getGauges(), hasKey(prefix + "active"));
+    assertThat(registry.getGauges(), hasKey(prefix + "max"));
+
+    underTest.acquire().close();
+    assertThat(registry.timer(prefix + "acquire").getCount(), is(1L));
+
+    underTest.close();
+    assertThat(registry.getGauges(), not(hasKey(prefix + "active")));
+  }
+}
@@ -0,0 +1,211 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.orient;
+
+import java.io.File;
+import java.util.Map;
+
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.Maps;
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.id.ORecordId;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Tests for incremental {@link DatabaseExternalizer#backup(File, int, int, boolean)} and
+ * {@link DatabaseExternalizer#restore(File)}.
+ */
+public class IncrementalBackupTest
+  extends TestSupport
+{
+  @Rule
+  public PersistentDatabaseInstanceRule database = new PersistentDatabaseInstanceRule("test");
+
+  private File directory;
+
+  @Before
+  public void setUp() throws Exception {
+    directory = util.createTempDir("backup");
+  }
+
+  private ODatabaseDocumentTx connect(final String name) {
+    return database.getManager().connect(name, true);
+  }
+
+  private ODocument person(final ODatabaseDocumentTx db, final String name) {
+    ODocument doc = db.newInstance("Person");
+    doc.field("name", name);
+    doc.save();
+    return doc;
+  }
+
+  private File backup(final boolean full) throws Exception {
+    return backup("test", full);
+  }
+
+  private File backup(final String name, final boolean full) throws Exception {
+    return database.getManager().externalizer(name).backup(directory, 1, 2, full);
+  }
+
+  /**
+   * Returns names of all people by record id.
+   */
+  private Map<String, String> people(final ODatabaseDocumentTx db) {
+    Map<String, String> people = Maps.newTreeMap();
+    for (ODocument doc : db.browseClass("Person")) {
+      people.put(doc.getIdentity().toString(), doc.<String>field("name"));
+    }
+    return people;
+  }
+
+  @Test
+  public void restoreChain() throws Exception {
+    ODocument updated, deleted;
+    try (ODatabaseDocumentTx db = connect("test")) {
+      db.getMetadata().getSchema().createClass("Person");
+      person(db, "alpha");
+      updated = person(db, "beta");
+      deleted = person(db, "gamma");
+    }
+    assertThat(backup(false).getName(), endsWith("-full"));
+
+    try (ODatabaseDocumentTx db = connect("test")) {
+      ODocument doc = db.load(updated.getIdentity());
+      doc.field("name", "beta2");
+      doc.save();
+      db.delete(deleted.getIdentity());
+      person(db, "delta");
+    }
+    assertThat(backup(false).getName(), endsWith("-delta"));
+
+    Map<String, String> expected;
+    try (ODatabaseDocumentTx db = connect("test")) {
+      // leave a hole which restore must preserve
+      db.delete(person(db, "transient").getIdentity());
+      person(db, "epsilon");
+      expected = people(db);
+    }
+    assertThat(backup(false).getName(), endsWith("-delta"));
+
+    database.getManager().externalizer("restored").restore(directory);
+
+    try (ODatabaseDocumentTx db = connect("restored")) {
+      assertThat(people(db), is(expected));
+      assertThat(db.load(new ORecordId(deleted.getIdentity().toString())), nullValue());
+    }
+  }
+
+  @Test
+  public void restoreFull() throws Exception {
+    Map<String, String> expected;
+    try (ODatabaseDocumentTx db = connect("test")) {
+      db.getMetadata().getSchema().createClass("Person");
+      person(db, "alpha");
+      db.delete(person(db, "transient").getIdentity());
+      person(db, "beta");
+      expected = people(db);
+    }
+    File full = backup(false);
+    assertThat(full.getName(), endsWith("-full"));
+    // records are written by the scan rather than by a freezing storage backup
+    assertThat(new File(full, "database.zip").exists(), is(false));
+    assertThat(new File(full, "structure.json.gz").exists(), is(true));
+
+    database.getManager().externalizer("restored").restore(directory);
+
+    try (ODatabaseDocumentTx db = connect("restored")) {
+      assertThat(people(db), is(expected));
+    }
+  }
+
+  @Test
+  public void schemaChangeStartsNewChain() throws Exception {
+    try (ODatabaseDocumentTx db = connect("test")) {
+      db.getMetadata().getSchema().createClass("Person");
+      person(db, "alpha");
+    }
+    assertThat(backup(false).getName(), endsWith("-full"));
+
+    try (ODatabaseDocumentTx db = connect("test")) {
+      db.getMetadata().getSchema().createClass("Place");
+    }
+    assertThat(backup(false).getName(), endsWith("-full"));
+    assertThat(backup(false).getName(), endsWith("-delta"));
+    assertThat(backup(true).getName(), endsWith("-full"));
+  }
+
+  @Test
+  public void restoreStartsNewChain() throws Exception {
+    try (ODatabaseDocumentTx db = connect("test")) {
+      db.getMetadata().getSchema().createClass("Person");
+      person(db, "alpha");
+    }
+    assertThat(backup(false).getName(), endsWith("-full"));
+    try (ODatabaseDocumentTx db = connect("test")) {
+      person(db, "beta");
+    }
+    assertThat(backup(false).getName(), endsWith("-delta"));
+
+    database.getManager().externalizer("restored").restore(directory);
+    assertThat(new File(directory, "manifest.gz").exists(), is(false));
+
+    Map<String, String> expected;
+    try (ODatabaseDocumentTx db = connect("restored")) {
+      person(db, "gamma");
+      expected = people(db);
+    }
+    assertThat(backup("restored", false).getName(), endsWith("-full"));
+    assertThat(backup("restored", false).getName(), endsWith("-delta"));
+
+    database.getManager().externalizer("copy").restore(directory);
+
+    try (ODatabaseDocumentTx db = connect("copy")) {
+      assertThat(people(db), is(expected));
+    }
+  }
+
+  @Test
+  public void metricsRecorded() throws Exception {
+    // registry is shared, so compare against counts before this test
+    String prefix = DatabaseExternalizer.class.getName() + ".test.backup.";
+    Meter written = SharedMetricRegistries.getOrCreate("nexus").meter(prefix + "written");
+    Timer duration = SharedMetricRegistries.getOrCreate("nexus").timer(prefix + "duration");
+    long writtenBefore = written.getCount();
+    long durationBefore = duration.getCount();
+
+    try (ODatabaseDocumentTx db = connect("test")) {
+      db.getMetadata().getSchema().createClass("Person");
+      person(db, "alpha");
+    }
+    backup(false);
+    try (ODatabaseDocumentTx db = connect("test")) {
+      person(db, "beta");
+    }
+    backup(false);
+
+    assertThat(written.getCount(), is(writtenBefore + 1));
+    assertThat(duration.getCount(), is(durationBefore + 2));
+  }
+}
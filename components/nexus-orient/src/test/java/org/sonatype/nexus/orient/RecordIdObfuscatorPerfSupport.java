@@ -12,6 +12,8 @@
  */
 package org.sonatype.nexus.orient;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.sonatype.sisu.litmus.testsupport.TestSupport;
 
 import com.orientechnologies.orient.core.id.ORID;
@@ -41,6 +43,8 @@ public abstract class RecordIdObfuscatorPerfSupport
 
   private OClass type;
 
+  private final AtomicLong position = new AtomicLong();
+
   @Before
   public void setUp() throws Exception {
     this.underTest = createTestSubject();
@@ -58,9 +62,23 @@ public abstract class RecordIdObfuscatorPerfSupport
 
   protected abstract RecordIdObfuscator createTestSubject() throws Exception;
 
+  /**
+   * Distinct record ids, so encoding is never served from the cache.
+   */
   @Test
   @PerfTest(invocations = 100000)
   public void encodeAndDecode() throws Exception {
+    ORID distinct = new ORecordId(rid.getClusterId(), position.incrementAndGet());
+    String encoded = underTest.encode(type, distinct);
+    ORID decoded = underTest.decode(type, encoded);
+  }
+
+  /**
+   * Same record id, as when listing the same records repeatedly.
+   */
+  @Test
+  @PerfTest(invocations = 100000)
+  public void encodeAndDecodeCached() throws Exception {
     String encoded = underTest.encode(type, rid);
     ORID decoded = underTest.decode(type, encoded);
   }
@@ -70,4 +70,31 @@ public abstract class RecordIdObfuscatorTestSupport
       // expected
     }
   }
+
+  @Test
+  public void encodeAndDecodeRange() {
+    OClass type = mock(OClass.class);
+    when(type.getClusterIds()).thenReturn(new int[] { 9 });
+    for (long position : new long[] { 0, 1, 255, 256, 65536, Integer.MAX_VALUE, Long.MAX_VALUE }) {
+      ORID rid = new ORecordId(9, position);
+      ORID decoded = underTest.decode(type, underTest.encode(type, rid));
+      assertThat(decoded, is(rid));
+    }
+  }
+
+  @Test
+  public void cachedDecodeIsNotShared() {
+    ORID rid = new ORecordId("#9:1");
+    OClass type = mock(OClass.class);
+    when(type.getClusterIds()).thenReturn(new int[] { rid.getClusterId() });
+    String encoded = underTest.encode(type, rid);
+
+    // mutating rids given or returned must not corrupt cached encodings
+    ((ORecordId) rid).clusterPosition = 2;
+    ORecordId decoded = (ORecordId) underTest.decode(type, encoded);
+    assertThat(decoded.toString(), is("#9:1"));
+    decoded.clusterPosition = 3;
+    assertThat(underTest.decode(type, encoded).toString(), is("#9:1"));
+    assertThat(underTest.encode(type, new ORecordId("#9:1")), is(encoded));
+  }
 }
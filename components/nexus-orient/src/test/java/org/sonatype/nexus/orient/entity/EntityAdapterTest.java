@@ -0,0 +1,92 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.orient.entity;
+
+import org.sonatype.nexus.common.entity.Entity;
+import org.sonatype.nexus.orient.DatabaseInstanceRule;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.metadata.schema.OClass;
+import com.orientechnologies.orient.core.record.impl.ODocument;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for {@link EntityAdapter}.
+ */
+public class EntityAdapterTest
+    extends TestSupport
+{
+  @Rule
+  public DatabaseInstanceRule database = new DatabaseInstanceRule("test");
+
+  private static class TestEntity
+      extends Entity
+  {
+  }
+
+  private static class TestEntityAdapter
+      extends EntityAdapter<TestEntity>
+  {
+    private TestEntityAdapter() {
+      super("test_entity");
+    }
+
+    @Override
+    protected void defineType(final OClass type) {
+      // no properties
+    }
+
+    @Override
+    protected TestEntity newEntity() {
+      return new TestEntity();
+    }
+
+    @Override
+    protected void readFields(final ODocument document, final TestEntity entity) {
+      // no fields
+    }
+
+    @Override
+    protected void writeFields(final ODocument document, final TestEntity entity) {
+      // no fields
+    }
+  }
+
+  @Test
+  public void registrationIsLostWhenDatabaseIsRecreated() {
+    TestEntityAdapter underTest = new TestEntityAdapter();
+
+    try (ODatabaseDocumentTx db = database.getInstance().connect()) {
+      assertThat(underTest.isRegistered(db), is(false));
+      underTest.register(db);
+      assertThat(underTest.isRegistered(db), is(true));
+    }
+    try (ODatabaseDocumentTx db = database.getInstance().acquire()) {
+      assertThat(underTest.isRegistered(db), is(true));
+    }
+
+    try (ODatabaseDocumentTx db = database.getInstance().connect()) {
+      db.drop();
+    }
+    try (ODatabaseDocumentTx db = database.getManager().connect("test", true)) {
+      assertThat(underTest.isRegistered(db), is(false));
+      underTest.register(db);
+      assertThat(db.getMetadata().getSchema().existsClass("test_entity"), is(true));
+    }
+  }
+}
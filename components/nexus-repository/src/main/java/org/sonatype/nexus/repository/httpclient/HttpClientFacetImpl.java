@@ -20,10 +20,12 @@ import javax.validation.Valid;
 
 import org.sonatype.nexus.common.stateguard.Guarded;
 import org.sonatype.nexus.httpclient.HttpClientManager;
+import org.sonatype.nexus.httpclient.HttpClientPlan;
 import org.sonatype.nexus.httpclient.config.AuthenticationConfiguration;
 import org.sonatype.nexus.httpclient.config.AuthenticationConfigurationDeserializer;
 import org.sonatype.nexus.httpclient.config.ConfigurationCustomizer;
 import org.sonatype.nexus.httpclient.config.ConnectionConfiguration;
+import org.sonatype.nexus.httpclient.config.ConnectionPoolConfiguration;
 import org.sonatype.nexus.httpclient.config.HttpClientConfiguration;
 import org.sonatype.nexus.repository.FacetSupport;
 import org.sonatype.nexus.repository.config.Configuration;
@@ -64,6 +66,13 @@ public class HttpClientFacetImpl
     @JsonDeserialize(using=AuthenticationConfigurationDeserializer.class)
     public AuthenticationConfiguration authentication;
 
+    /**
+     * When set the repository uses a connection pool isolated from the shared pool.
+     */
+    @Valid
+    @Nullable
+    public ConnectionPoolConfiguration pool;
+
     @Nullable
     public Boolean blocked;
 
@@ -94,13 +103,42 @@ public class HttpClientFacetImpl
     HttpClientConfiguration delegateConfig = new HttpClientConfiguration();
     delegateConfig.setConnection(config.connection);
     delegateConfig.setAuthentication(config.authentication);
-    HttpClient delegate = httpClientManager.create(new ConfigurationCustomizer(delegateConfig));
+    HttpClient delegate = httpClientManager.create(new PoolCustomizer(delegateConfig, config.pool));
 
     // wrap delegate with auto-block aware client
     httpClient = new FilteredHttpClient(delegate, config);
     log.debug("Created HTTP client: {}", httpClient);
   }
 
+  /**
+   * Applies repository configuration, attaching a dedicated connection pool when configured.
+   */
+  private class PoolCustomizer
+      extends ConfigurationCustomizer
+  {
+    @Nullable
+    private final ConnectionPoolConfiguration pool;
+
+    private PoolCustomizer(final HttpClientConfiguration configuration,
+                           @Nullable final ConnectionPoolConfiguration pool)
+    {
+      super(configuration);
+      this.pool = pool != null ? pool.clone() : null;
+    }
+
+    @Override
+    public void customize(final HttpClientPlan plan) {
+      super.customize(plan);
+      if (pool != null) {
+        String name = getRepository().getName();
+        plan.getClient().setConnectionManager(httpClientManager.createConnectionManager(name, pool));
+        if (pool.getLeaseTimeout() != null) {
+          plan.getRequest().setConnectionRequestTimeout(pool.getLeaseTimeout());
+        }
+      }
+    }
+  }
+
   @Override
   protected void doDestroy() throws Exception {
     config = null;
@@ -60,6 +60,9 @@ public class RepositoryManagerImpl
   private static final boolean SKIP_DEFAULT_REPOSITORIES =
       SystemPropertiesHelper.getBoolean(RepositoryManagerImpl.class + ".skipDefaultRepositories", false);
 
+  private static final int STARTUP_POOL_SIZE = SystemPropertiesHelper.getInteger(
+      RepositoryManagerImpl.class.getName() + ".startupPoolSize", Runtime.getRuntime().availableProcessors());
+
   private final EventBus eventBus;
 
   private final ConfigurationStore store;
@@ -199,12 +202,13 @@ public class RepositoryManagerImpl
     }
 
     log.debug("Starting {} repositories", repositories.size());
-    for (Repository repository : repositories.values()) {
-      log.debug("Starting repository: {}", repository);
-      repository.start();
-
-      eventBus.post(new RepositoryRestoredEvent(repository));
-    }
+    new RepositoryStarter(STARTUP_POOL_SIZE).start(repositories.values(), new RepositoryStarter.Listener()
+    {
+      @Override
+      public void started(final Repository repository) {
+        eventBus.post(new RepositoryRestoredEvent(repository));
+      }
+    });
   }
 
   @Override
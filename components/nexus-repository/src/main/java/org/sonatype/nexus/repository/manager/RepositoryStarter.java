@@ -0,0 +1,198 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.manager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.config.Configuration;
+import org.sonatype.sisu.goodies.common.ComponentSupport;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.collect.TreeMultimap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Starts repositories concurrently on a bounded pool. Repositories are started in waves, where every group repository
+ * is started in a later wave than all of its members.
+ *
+ * @since 3.0
+ */
+class RepositoryStarter
+    extends ComponentSupport
+{
+  /**
+   * Callback invoked on the starting thread once a repository has been started.
+   */
+  interface Listener
+  {
+    void started(Repository repository);
+  }
+
+  private static final String GROUP_CONFIG_KEY = "group";
+
+  private static final String GROUP_MEMBER_NAMES = "memberNames";
+
+  private final int poolSize;
+
+  RepositoryStarter(final int poolSize) {
+    checkArgument(poolSize > 0, "Pool size must be positive");
+    this.poolSize = poolSize;
+  }
+
+  /**
+   * Starts all given repositories, blocking until all have been started. The first failure is rethrown once all
+   * repositories of the failing wave have been attempted, in which case later waves are not started.
+   */
+  public void start(final Collection<Repository> repositories, final Listener listener) throws Exception {
+    checkNotNull(repositories);
+    checkNotNull(listener);
+    if (repositories.isEmpty()) {
+      return;
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(poolSize, repositories.size()),
+        new ThreadFactoryBuilder().setNameFormat("repository-starter-%d").setDaemon(true).build());
+    try {
+      TreeMultimap<Integer, String> waves = waves(repositories);
+      Map<String, Repository> byName = byName(repositories);
+      for (Integer wave : waves.keySet()) {
+        Set<String> names = waves.get(wave);
+        log.debug("Starting wave {} of {} repositories", wave, names.size());
+        List<Future<Void>> futures = new ArrayList<>(names.size());
+        for (String name : names) {
+          futures.add(executor.submit(startTask(byName.get(name), listener)));
+        }
+        awaitAll(futures);
+      }
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private Callable<Void> startTask(final Repository repository, final Listener listener) {
+    return new Callable<Void>()
+    {
+      @Override
+      public Void call() throws Exception {
+        log.debug("Starting repository: {}", repository);
+        repository.start();
+        listener.started(repository);
+        return null;
+      }
+    };
+  }
+
+  private void awaitAll(final List<Future<Void>> futures) throws Exception {
+    Exception failure = null;
+    for (Future<Void> future : futures) {
+      try {
+        future.get();
+      }
+      catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        Throwables.propagateIfInstanceOf(cause, Error.class);
+        if (failure == null) {
+          failure = (Exception) cause;
+        }
+        else {
+          log.warn("Failed to start repository", cause);
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * Assigns each repository to a wave, where a group is placed one wave after its deepest member. Members which are
+   * not part of the given repositories are ignored, cycles are broken arbitrarily.
+   */
+  @VisibleForTesting
+  static TreeMultimap<Integer, String> waves(final Collection<Repository> repositories) {
+    Map<String, Collection<String>> members = Maps.newHashMap();
+    for (Repository repository : repositories) {
+      members.put(repository.getName(), memberNames(repository.getConfiguration()));
+    }
+
+    Map<String, Integer> depths = Maps.newHashMap();
+    TreeMultimap<Integer, String> waves = TreeMultimap.create();
+    for (String name : members.keySet()) {
+      waves.put(depth(name, members, depths, Sets.<String>newHashSet()), name);
+    }
+    return waves;
+  }
+
+  private static int depth(final String name,
+                           final Map<String, Collection<String>> members,
+                           final Map<String, Integer> depths,
+                           final Set<String> visiting)
+  {
+    Integer depth = depths.get(name);
+    if (depth != null) {
+      return depth;
+    }
+    if (!visiting.add(name)) {
+      return 0;
+    }
+    int result = 0;
+    for (String member : members.get(name)) {
+      if (members.containsKey(member)) {
+        result = Math.max(result, depth(member, members, depths, visiting) + 1);
+      }
+    }
+    visiting.remove(name);
+    depths.put(name, result);
+    return result;
+  }
+
+  private static Collection<String> memberNames(final Configuration configuration) {
+    Map<String, Map<String, Object>> attributes = configuration.getAttributes();
+    if (attributes != null) {
+      Map<String, Object> group = attributes.get(GROUP_CONFIG_KEY);
+      if (group != null && group.get(GROUP_MEMBER_NAMES) instanceof Collection) {
+        List<String> names = new ArrayList<>();
+        for (Object name : (Collection<?>) group.get(GROUP_MEMBER_NAMES)) {
+          names.add(String.valueOf(name));
+        }
+        return names;
+      }
+    }
+    return new ArrayList<>();
+  }
+
+  private static Map<String, Repository> byName(final Collection<Repository> repositories) {
+    Map<String, Repository> byName = Maps.newHashMap();
+    for (Repository repository : repositories) {
+      byName.put(repository.getName(), repository);
+    }
+    return byName;
+  }
+}
@@ -16,6 +16,8 @@ package org.sonatype.nexus.repository.negativecache;
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import org.sonatype.nexus.cache.CacheConfig;
+import org.sonatype.nexus.cache.CacheService;
 import org.sonatype.nexus.common.stateguard.Guarded;
 import org.sonatype.nexus.repository.FacetSupport;
 import org.sonatype.nexus.repository.config.Configuration;
@@ -25,17 +27,13 @@ import org.sonatype.nexus.repository.view.Status;
 import org.sonatype.sisu.goodies.common.Time;
 
 import com.google.common.annotations.VisibleForTesting;
-import net.sf.ehcache.Cache;
-import net.sf.ehcache.CacheManager;
-import net.sf.ehcache.Ehcache;
-import net.sf.ehcache.Element;
+import com.google.common.cache.Cache;
 
 import static com.google.common.base.Preconditions.checkNotNull;
-import static net.sf.ehcache.Status.STATUS_ALIVE;
 import static org.sonatype.nexus.repository.FacetSupport.State.STARTED;
 
 /**
- * EHCache based {@link NegativeCacheFacet} implementation.
+ * {@link CacheService} based {@link NegativeCacheFacet} implementation.
  *
  * @since 3.0
  */
@@ -44,7 +42,7 @@ public class NegativeCacheFacetImpl
     extends FacetSupport
     implements NegativeCacheFacet
 {
-  private final CacheManager cacheManager;
+  private final CacheService cacheService;
 
   @VisibleForTesting
   static final String CONFIG_KEY = "negativeCache";
@@ -70,11 +68,13 @@ public class NegativeCacheFacetImpl
 
   private Config config;
 
-  private Ehcache cache;
+  private String cacheName;
+
+  private Cache<NegativeCacheKey, Status> cache;
 
   @Inject
-  public NegativeCacheFacetImpl(final CacheManager cacheManager) {
-    this.cacheManager = checkNotNull(cacheManager);
+  public NegativeCacheFacetImpl(final CacheService cacheService) {
+    this.cacheService = checkNotNull(cacheService);
   }
 
   @Override
@@ -125,30 +125,24 @@ public class NegativeCacheFacetImpl
   private void maybeCreateCache() {
     if (cache == null) {
       log.debug("Creating negative-cache for: {}", getRepository());
-      cache = newCache("negative-cache-" + getRepository().getName(), config.timeToLive);
-      cacheManager.addCache(cache);
+      cacheName = "negative-cache-" + getRepository().getName();
+      cache = cacheService.getOrCreateCache(cacheName, newCacheConfig(config.timeToLive));
     }
   }
 
   @VisibleForTesting
-  Ehcache newCache(final String name, final int timeToLiveSeconds) {
-    return new Cache(
-        name,
-        10000, // maxElementsInMemory
-        false, // overflowToDisk
-        false, // eternal
-        timeToLiveSeconds,
-        0 // timeToIdleSeconds
-    );
+  CacheConfig<NegativeCacheKey, Status> newCacheConfig(final int timeToLiveSeconds) {
+    return new CacheConfig<NegativeCacheKey, Status>()
+        .maximumEntries(10000)
+        .expireAfterWrite(Time.seconds(timeToLiveSeconds));
   }
 
   private void maybeDestroyCache() {
     if (cache != null) {
       log.debug("Destroying negative-cache for: {}", getRepository());
-      if (STATUS_ALIVE.equals(cacheManager.getStatus())) {
-        cacheManager.removeCache(cache.getName());
-      }
+      cacheService.removeCache(cacheName);
       cache = null;
+      cacheName = null;
     }
   }
 
@@ -157,8 +151,7 @@ public class NegativeCacheFacetImpl
   public Status get(final NegativeCacheKey key) {
     checkNotNull(key);
     if (cache != null) {
-      Element element = cache.get(key);
-      return element == null || element.isExpired() ? null : (Status) element.getObjectValue();
+      return cache.getIfPresent(key);
     }
     return null;
   }
@@ -170,7 +163,7 @@ public class NegativeCacheFacetImpl
     checkNotNull(status);
     if (cache != null) {
       log.debug("Adding {}={} to negative-cache of {}", key, status, getRepository());
-      cache.put(new Element(key, status));
+      cache.put(key, status);
     }
   }
 
@@ -180,16 +173,18 @@ public class NegativeCacheFacetImpl
     checkNotNull(key);
     if (cache != null) {
       log.debug("Removing {} from negative-cache of {}", key, getRepository());
-      cache.remove(key);
+      cache.invalidate(key);
     }
   }
 
   @Override
   public void invalidateSubset(final NegativeCacheKey key) {
     invalidate(key);
-    for (Object entry : cache.getKeys()) {
-      if (!key.equals(entry) && key.isParentOf((NegativeCacheKey) entry)) {
-        invalidate((NegativeCacheKey) entry);
+    if (cache != null) {
+      for (NegativeCacheKey entry : cache.asMap().keySet()) {
+        if (!key.equals(entry) && key.isParentOf(entry)) {
+          invalidate(entry);
+        }
       }
     }
   }
@@ -199,7 +194,7 @@ public class NegativeCacheFacetImpl
   public void invalidate() {
     if (cache != null) {
       log.debug("Removing all from negative-cache of {}", getRepository());
-      cache.removeAll();
+      cache.invalidateAll();
     }
   }
 
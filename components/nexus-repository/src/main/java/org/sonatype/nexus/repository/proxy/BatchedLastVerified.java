@@ -0,0 +1,42 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.proxy;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.sonatype.nexus.repository.view.Context;
+
+import org.joda.time.DateTime;
+
+/**
+ * Opt-in of {@link ProxyFacetSupport} subclasses to batched last verified bookkeeping: the dates cached content is
+ * deemed up to date at are kept in memory, consulted first when checking staleness, and persisted periodically in
+ * batches by {@link LastVerifiedFlusher}, so revalidation does not turn a read into a write transaction.
+ *
+ * @since 3.0
+ */
+public interface BatchedLastVerified
+{
+  /**
+   * For whatever component/asset is implied by the Context, return the key its last verified date is tracked by in
+   * memory.
+   */
+  String getLastVerifiedKey(Context context);
+
+  /**
+   * For all components/assets keyed by {@link #getLastVerifiedKey(Context)}, record the date they were last deemed up
+   * to date, preferably in single transaction. Missing components/assets should be skipped.
+   */
+  void indicateUpToDate(Map<String, DateTime> lastVerified) throws IOException;
+}
@@ -0,0 +1,58 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.proxy;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Single scheduler shared by all proxy repositories opting in to {@link BatchedLastVerified}, periodically flushing
+ * their last verified dates tracked in memory, so repositories do not hold a thread each.
+ *
+ * @since 3.0
+ */
+@Named
+@Singleton
+public class LastVerifiedFlusher
+{
+  private final int flushSeconds;
+
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder().setNameFormat("proxy-last-verified").setDaemon(true).build());
+
+  @Inject
+  public LastVerifiedFlusher(@Named("${nexus.proxy.lastVerified.flushSeconds:-10}") final int flushSeconds) {
+    checkArgument(flushSeconds > 0, "Invalid last verified flush seconds: %s", flushSeconds);
+    this.flushSeconds = flushSeconds;
+  }
+
+  /**
+   * Runs passed in flush periodically, until returned future is cancelled. Flushes of all repositories run on the
+   * same thread, one after another.
+   */
+  public ScheduledFuture<?> schedule(final Runnable flush) {
+    checkNotNull(flush);
+    return scheduler.scheduleWithFixedDelay(flush, flushSeconds, flushSeconds, TimeUnit.SECONDS);
+  }
+}
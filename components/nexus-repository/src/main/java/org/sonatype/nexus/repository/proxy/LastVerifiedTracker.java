@@ -0,0 +1,93 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.proxy;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import org.joda.time.DateTime;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * In-memory record of last verified dates of cached content, keyed by format specific keys, that are not persisted
+ * yet. Dates are recorded as content is verified, and are persisted in batches later. Number of dates held is bounded,
+ * so the tracker does not grow without limit while persisting keeps failing.
+ *
+ * @since 3.0
+ */
+class LastVerifiedTracker
+{
+  private final ConcurrentMap<String, DateTime> pending = Maps.newConcurrentMap();
+
+  private final int maximumSize;
+
+  public LastVerifiedTracker(final int maximumSize) {
+    checkArgument(maximumSize > 0, "Invalid maximum size: %s", maximumSize);
+    this.maximumSize = maximumSize;
+  }
+
+  /**
+   * Records the content of key as verified at given date, unless it was recorded verified later already. Returns
+   * {@code false} if the date of a key not tracked yet could not be recorded as the tracker is full, in which case the
+   * caller should persist it right away.
+   */
+  public boolean record(final String key, final DateTime verified) {
+    checkNotNull(key);
+    checkNotNull(verified);
+    if (!pending.containsKey(key) && pending.size() >= maximumSize) {
+      return false;
+    }
+    DateTime previous = pending.putIfAbsent(key, verified);
+    while (previous != null && previous.isBefore(verified)) {
+      if (pending.replace(key, previous, verified)) {
+        return true;
+      }
+      previous = pending.putIfAbsent(key, verified);
+    }
+    return true;
+  }
+
+  /**
+   * Returns last verified date of the content of key, if it was not persisted yet, or {@code null}.
+   */
+  @Nullable
+  public DateTime get(final String key) {
+    return pending.get(key);
+  }
+
+  /**
+   * Returns snapshot of all dates not persisted yet.
+   */
+  public Map<String, DateTime> snapshot() {
+    return ImmutableMap.copyOf(pending);
+  }
+
+  /**
+   * Forgets dates of passed in snapshot, as they are persisted now. Dates recorded meanwhile are kept.
+   */
+  public void persisted(final Map<String, DateTime> snapshot) {
+    for (Map.Entry<String, DateTime> entry : snapshot.entrySet()) {
+      pending.remove(entry.getKey(), entry.getValue());
+    }
+  }
+
+  public int size() {
+    return pending.size();
+  }
+}
@@ -14,9 +14,14 @@ package org.sonatype.nexus.repository.proxy;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ScheduledFuture;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import javax.inject.Inject;
 import javax.validation.constraints.NotNull;
 
 import org.sonatype.nexus.repository.FacetSupport;
@@ -31,8 +36,13 @@ import org.sonatype.nexus.repository.view.Context;
 import org.sonatype.nexus.repository.view.Payload;
 import org.sonatype.nexus.repository.view.payloads.HttpEntityPayload;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterables;
 import com.google.common.net.HttpHeaders;
 import org.apache.http.Header;
 import org.apache.http.HttpEntity;
@@ -50,6 +60,10 @@ import static com.google.common.base.Preconditions.checkNotNull;
 /**
  * A support class which implements basic payload logic; subclasses provide format-specific operations.
  *
+ * Subclasses may opt in to batched last verified bookkeeping by implementing {@link BatchedLastVerified}. Dates are
+ * then persisted by the shared {@link LastVerifiedFlusher}, falling back to {@link #indicateUpToDate(Context)} when too
+ * many of them are pending.
+ *
  * @since 3.0
  */
 public abstract class ProxyFacetSupport
@@ -59,6 +73,16 @@ public abstract class ProxyFacetSupport
   @VisibleForTesting
   static final String CONFIG_KEY = "proxy";
 
+  /**
+   * Maximum number of last verified dates persisted in single batch.
+   */
+  private static final int LAST_VERIFIED_BATCH_SIZE = 500;
+
+  /**
+   * Maximum number of last verified dates pending in memory.
+   */
+  private static final int LAST_VERIFIED_MAXIMUM_PENDING = 100000;
+
   @VisibleForTesting
   static class Config
   {
@@ -86,6 +110,29 @@ public abstract class ProxyFacetSupport
 
   private boolean remoteUrlChanged;
 
+  private MetricRegistry metricRegistry;
+
+  private Timer upstreamLatency;
+
+  private Meter upstreamBytes;
+
+  @VisibleForTesting
+  final LastVerifiedTracker lastVerified = new LastVerifiedTracker(LAST_VERIFIED_MAXIMUM_PENDING);
+
+  private LastVerifiedFlusher lastVerifiedFlusher;
+
+  private ScheduledFuture<?> lastVerifiedFlush;
+
+  @Inject
+  public void installMetricRegistry(final MetricRegistry metricRegistry) {
+    this.metricRegistry = checkNotNull(metricRegistry);
+  }
+
+  @Inject
+  public void installLastVerifiedFlusher(final LastVerifiedFlusher lastVerifiedFlusher) {
+    this.lastVerifiedFlusher = checkNotNull(lastVerifiedFlusher);
+  }
+
   @Override
   protected void doValidate(final Configuration configuration) throws Exception {
     facet(ConfigurationFacet.class).validateSection(configuration, CONFIG_KEY, Config.class);
@@ -111,15 +158,28 @@ public abstract class ProxyFacetSupport
     remoteUrlChanged = !config.remoteUrl.equals(previousUrl);
   }
 
+  @Override
+  protected void doDelete() throws Exception {
+    metricRegistry.remove(upstreamMetricName("upstream"));
+    metricRegistry.remove(upstreamMetricName("upstream-bytes"));
+  }
+
   @Override
   protected void doDestroy() throws Exception {
     config = null;
   }
 
+  private String upstreamMetricName(final String name) {
+    return MetricRegistry.name(ProxyFacetSupport.class, "repository", getRepository().getName(), name);
+  }
+
   @Override
   protected void doStart() throws Exception {
     httpClient = facet(HttpClientFacet.class);
 
+    upstreamLatency = metricRegistry.timer(upstreamMetricName("upstream"));
+    upstreamBytes = metricRegistry.meter(upstreamMetricName("upstream-bytes"));
+
     if (remoteUrlChanged) {
       remoteUrlChanged = false;
 
@@ -130,10 +190,25 @@ public abstract class ProxyFacetSupport
         // NCF is optional
       }
     }
+
+    if (this instanceof BatchedLastVerified) {
+      lastVerifiedFlush = lastVerifiedFlusher.schedule(new Runnable()
+      {
+        @Override
+        public void run() {
+          flushLastVerified();
+        }
+      });
+    }
   }
 
   @Override
   protected void doStop() throws Exception {
+    if (lastVerifiedFlush != null) {
+      lastVerifiedFlush.cancel(false);
+      lastVerifiedFlush = null;
+      flushLastVerified();
+    }
     httpClient = null;
   }
 
@@ -155,6 +230,10 @@ public abstract class ProxyFacetSupport
           // TODO: Introduce content validation.. perhaps content's type not matching path's implied type.
 
           store(context, remote);
+          final String lastVerifiedKey = getLastVerifiedKey(context);
+          if (lastVerifiedKey != null && !lastVerified.record(lastVerifiedKey, new DateTime())) {
+            indicateUpToDate(context);
+          }
 
           content = getCachedPayload(context);
         }
@@ -200,7 +279,14 @@ public abstract class ProxyFacetSupport
     }
     log.debug("Fetching: {}", request);
 
-    HttpResponse response = client.execute(request);
+    HttpResponse response;
+    Timer.Context timing = upstreamLatency.time();
+    try {
+      response = client.execute(request);
+    }
+    finally {
+      timing.stop();
+    }
     log.debug("Response: {}", response);
 
     StatusLine status = response.getStatusLine();
@@ -209,6 +295,9 @@ public abstract class ProxyFacetSupport
     if (status.getStatusCode() == HttpStatus.SC_OK) {
       HttpEntity entity = response.getEntity();
       log.debug("Entity: {}", entity);
+      if (entity.getContentLength() > 0) {
+        upstreamBytes.mark(entity.getContentLength());
+      }
 
       Payload payload = new HttpEntityPayload(response, entity);
       final Content result = new Content(payload);
@@ -217,7 +306,10 @@ public abstract class ProxyFacetSupport
       return result;
     }
     if (status.getStatusCode() == HttpStatus.SC_NOT_MODIFIED) {
-      indicateUpToDate(context);
+      final String lastVerifiedKey = getLastVerifiedKey(context);
+      if (lastVerifiedKey == null || !lastVerified.record(lastVerifiedKey, new DateTime())) {
+        indicateUpToDate(context);
+      }
     }
     HttpClientUtils.closeQuietly(response);
 
@@ -271,6 +363,38 @@ public abstract class ProxyFacetSupport
    */
   protected abstract void indicateUpToDate(final Context context) throws IOException;
 
+  /**
+   * Returns the key last verified date of content implied by the Context is tracked by in memory, or {@code null} if
+   * {@link #indicateUpToDate(Context)} should record it right away as subclass does not opt in to batching.
+   */
+  @Nullable
+  private String getLastVerifiedKey(final Context context) {
+    return this instanceof BatchedLastVerified ? ((BatchedLastVerified) this).getLastVerifiedKey(context) : null;
+  }
+
+  /**
+   * Persists last verified dates tracked in memory, in batches. Failed batches are kept, to be retried on next flush.
+   */
+  @VisibleForTesting
+  void flushLastVerified() {
+    for (List<Entry<String, DateTime>> entries : Iterables.partition(lastVerified.snapshot().entrySet(),
+        LAST_VERIFIED_BATCH_SIZE)) {
+      final ImmutableMap.Builder<String, DateTime> builder = ImmutableMap.builder();
+      for (Entry<String, DateTime> entry : entries) {
+        builder.put(entry);
+      }
+      final Map<String, DateTime> batch = builder.build();
+      try {
+        ((BatchedLastVerified) this).indicateUpToDate(batch);
+        lastVerified.persisted(batch);
+        log.debug("Persisted {} last verified dates", batch.size());
+      }
+      catch (Exception e) {
+        log.warn("Failed to persist {} last verified dates", batch.size(), e);
+      }
+    }
+  }
+
   /**
    * Provide the relative URL to the
    */
@@ -282,7 +406,11 @@ public abstract class ProxyFacetSupport
       return false;
     }
 
-    final DateTime lastUpdated = getCachedPayloadLastUpdatedDate(context);
+    final String lastVerifiedKey = getLastVerifiedKey(context);
+    DateTime lastUpdated = lastVerifiedKey != null ? lastVerified.get(lastVerifiedKey) : null;
+    if (lastUpdated == null) {
+      lastUpdated = getCachedPayloadLastUpdatedDate(context);
+    }
 
     if (lastUpdated == null) {
       log.debug("Artifact last modified date unknown");
@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
@@ -46,6 +47,7 @@ import com.google.common.base.Charsets;
 import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.common.io.Resources;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.ShardSearchFailure;
@@ -89,6 +91,10 @@ public class SearchServiceImpl
 
   private final Map<String, ComponentMetadataProducer> componentMetadataProducers;
 
+  private final Set<String> knownIndexes = Sets.newConcurrentHashSet();
+
+  private volatile boolean knownIndexesLoaded;
+
   @Inject
   public SearchServiceImpl(final Provider<Client> client,
                            final RepositoryManager repositoryManager,
@@ -108,7 +114,8 @@ public class SearchServiceImpl
     checkNotNull(repository);
     // TODO we should calculate the checksum of index settings and compare it with a value stored in index _meta tags
     // in case that they not match (settings changed) we should drop the index, recreate it and re-index all components
-    if (!client.get().admin().indices().prepareExists(repository.getName()).execute().actionGet().isExists()) {
+    final String indexName = safeIndexName(repository);
+    if (!indexExists(indexName)) {
       // determine list of mapping configuration urls
       List<URL> urls = Lists.newArrayListWithExpectedSize(indexSettingsContributors.size() + 1);
       urls.add(Resources.getResource(getClass(), MAPPING_JSON)); // core mapping
@@ -131,10 +138,11 @@ public class SearchServiceImpl
         // update runtime configuration
         log.trace("ElasticSearch mapping: {}", source);
         log.debug("Creating index for {}", repository);
-        client.get().admin().indices().prepareCreate(safeIndexName(repository))
+        client.get().admin().indices().prepareCreate(indexName)
             .setSource(source)
             .execute()
             .actionGet();
+        knownIndexes.add(indexName);
       }
       catch (IOException e) {
         throw Throwables.propagate(e);
@@ -145,9 +153,32 @@ public class SearchServiceImpl
   @Override
   public void deleteIndex(final Repository repository) {
     checkNotNull(repository);
-    if (client.get().admin().indices().prepareExists(repository.getName()).execute().actionGet().isExists()) {
+    final String indexName = safeIndexName(repository);
+    if (indexExists(indexName)) {
       log.debug("Removing index of {}", repository);
-      client.get().admin().indices().prepareDelete(safeIndexName(repository)).execute().actionGet();
+      client.get().admin().indices().prepareDelete(indexName).execute().actionGet();
+      knownIndexes.remove(indexName);
+    }
+  }
+
+  /**
+   * Checks index existence against the names of all indexes, which are fetched in a single round-trip on first use
+   * and then tracked locally, so starting many repositories does not cost one exists request each.
+   */
+  private boolean indexExists(final String indexName) {
+    if (!knownIndexesLoaded) {
+      loadKnownIndexes();
+    }
+    return knownIndexes.contains(indexName);
+  }
+
+  private synchronized void loadKnownIndexes() {
+    if (!knownIndexesLoaded) {
+      String[] indexes = client.get().admin().cluster().prepareState().clear().setMetaData(true)
+          .execute().actionGet().getState().getMetaData().concreteAllIndices();
+      log.debug("Loaded {} existing indexes", indexes.length);
+      knownIndexes.addAll(Arrays.asList(indexes));
+      knownIndexesLoaded = true;
     }
   }
 
@@ -13,8 +13,12 @@
 
 package org.sonatype.nexus.repository.storage;
 
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
 import java.util.Map;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -24,7 +28,9 @@ import org.sonatype.nexus.common.entity.EntityId;
 import org.sonatype.nexus.orient.OClassNameBuilder;
 import org.sonatype.nexus.orient.OIndexNameBuilder;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
 import com.orientechnologies.orient.core.id.ORID;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
@@ -32,6 +38,7 @@ import com.orientechnologies.orient.core.metadata.schema.OClass.INDEX_TYPE;
 import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.OCommandSQL;
+import org.joda.time.DateTime;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -39,6 +46,7 @@ import static org.sonatype.nexus.repository.storage.StorageFacet.P_BLOB_REF;
 import static org.sonatype.nexus.repository.storage.StorageFacet.P_BUCKET;
 import static org.sonatype.nexus.repository.storage.StorageFacet.P_COMPONENT;
 import static org.sonatype.nexus.repository.storage.StorageFacet.P_CONTENT_TYPE;
+import static org.sonatype.nexus.repository.storage.StorageFacet.P_LAST_UPDATED;
 import static org.sonatype.nexus.repository.storage.StorageFacet.P_NAME;
 import static org.sonatype.nexus.repository.storage.StorageFacet.P_SIZE;
 
@@ -63,11 +71,19 @@ public class AssetEntityAdapter
       .property(P_NAME)
       .build();
 
+  private static final String I_BUCKET_LAST_UPDATED = new OIndexNameBuilder()
+      .type(DB_CLASS)
+      .property(P_BUCKET)
+      .property(P_LAST_UPDATED)
+      .build();
+
   private static final String I_COMPONENT = new OIndexNameBuilder()
       .type(DB_CLASS)
       .property(P_COMPONENT)
       .build();
 
+  private final BucketEntityAdapter bucketEntityAdapter;
+
   private final ComponentEntityAdapter componentEntityAdapter;
 
   @Inject
@@ -75,6 +91,7 @@ public class AssetEntityAdapter
                             final ComponentEntityAdapter componentEntityAdapter)
   {
     super(DB_CLASS, bucketEntityAdapter);
+    this.bucketEntityAdapter = bucketEntityAdapter;
     this.componentEntityAdapter = componentEntityAdapter;
   }
 
@@ -82,7 +99,6 @@ public class AssetEntityAdapter
   protected void defineType(final ODatabaseDocumentTx db, final OClass type) {
     super.defineType(type);
     type.createProperty(P_COMPONENT, OType.LINK, componentEntityAdapter.getType());
-    type.createProperty(P_NAME, OType.STRING).setMandatory(true).setNotNull(true);
     type.createProperty(P_SIZE, OType.LONG);
     type.createProperty(P_CONTENT_TYPE, OType.STRING);
     type.createProperty(P_BLOB_REF, OType.STRING);
@@ -94,6 +110,7 @@ public class AssetEntityAdapter
         new String[]{P_BUCKET, P_COMPONENT, P_NAME}
     );
     type.createIndex(I_COMPONENT, INDEX_TYPE.NOTUNIQUE, P_COMPONENT);
+    type.createIndex(I_BUCKET_LAST_UPDATED, INDEX_TYPE.NOTUNIQUE, P_BUCKET, P_LAST_UPDATED);
   }
 
   @Override
@@ -146,4 +163,56 @@ public class AssetEntityAdapter
     Iterable<ODocument> docs = db.command(new OCommandSQL(query)).execute(parameters);
     return readEntities(docs);
   }
+
+  /**
+   * Browses one page of assets of component in name order, read off the unique bucket-component-name index.
+   */
+  BrowsePage<Asset> browseByComponent(final ODatabaseDocumentTx db,
+                                      final Bucket bucket,
+                                      final Component component,
+                                      final @Nullable String after,
+                                      final int limit)
+  {
+    checkNotNull(bucket);
+    checkNotNull(component);
+    checkState(component.isPersisted(), "component must be persisted");
+
+    List<Object> prefix = ImmutableList.<Object>of(bucketEntityAdapter.recordIdentity(bucket),
+        componentEntityAdapter.recordIdentity(component));
+    return browseByIndex(db, I_BUCKET_COMPONENT_NAME, prefix, null, null, after, limit);
+  }
+
+  /**
+   * Browses assets of bucket last updated after passed in date, read off the bucket-last-updated index, so only the
+   * updated assets are visited however large the bucket is.
+   */
+  Iterable<Asset> browseUpdatedSince(final ODatabaseDocumentTx db, final Bucket bucket, final DateTime since) {
+    checkNotNull(bucket);
+    checkNotNull(since);
+    checkState(bucket.isPersisted());
+
+    ORID bucketId = bucketEntityAdapter.recordIdentity(bucket);
+    // key range is inclusive, so start a millisecond later to leave out assets updated at the very date
+    String query = String.format("select expand(rid) from index:%s where key between [?, ?] and [?]",
+        I_BUCKET_LAST_UPDATED);
+    Iterable<ODocument> docs = db.command(new OCommandSQL(query))
+        .execute(bucketId, new Date(since.getMillis() + 1), bucketId);
+    return readEntities(docs);
+  }
+
+  /**
+   * Browses assets of all passed in components in single query, served by the component index.
+   */
+  Iterable<Asset> browseByComponents(final ODatabaseDocumentTx db, final Collection<EntityId> componentIds) {
+    checkNotNull(componentIds, "componentIds");
+
+    List<ORID> components = Lists.newArrayListWithCapacity(componentIds.size());
+    for (EntityId componentId : componentIds) {
+      components.add(componentEntityAdapter.recordIdentity(componentId));
+    }
+    Map<String, Object> parameters = ImmutableMap.<String, Object>of("components", components);
+    String query = String.format("select from %s where component in :components", DB_CLASS);
+    Iterable<ODocument> docs = db.command(new OCommandSQL(query)).execute(parameters);
+    return readEntities(docs);
+  }
 }
@@ -0,0 +1,71 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.storage;
+
+import java.util.Iterator;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableList;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * One page of a cursor based browse, see {@link StorageTx#browseAssets(Bucket, String, java.util.Map, String, int)}.
+ * The next page is requested by passing {@link #getNext()} as cursor, pages are stable while records are added or
+ * removed between requests as the cursor encodes the index key of the last record returned, not an offset.
+ *
+ * @since 3.0
+ */
+public class BrowsePage<T>
+    implements Iterable<T>
+{
+  private final List<T> items;
+
+  private final String next;
+
+  public BrowsePage(final List<T> items, @Nullable final String next) {
+    this.items = ImmutableList.copyOf(checkNotNull(items));
+    this.next = next;
+  }
+
+  public List<T> getItems() {
+    return items;
+  }
+
+  /**
+   * Returns the cursor of next page, or {@code null} if this is the last page.
+   */
+  @Nullable
+  public String getNext() {
+    return next;
+  }
+
+  public boolean hasNext() {
+    return next != null;
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    return items.iterator();
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "{" +
+        "items=" + items.size() +
+        ", next=" + next +
+        '}';
+  }
+}
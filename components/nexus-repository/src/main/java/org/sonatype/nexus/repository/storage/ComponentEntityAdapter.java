@@ -13,6 +13,10 @@
 
 package org.sonatype.nexus.repository.storage;
 
+import java.util.Iterator;
+import java.util.List;
+
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -20,12 +24,21 @@ import javax.inject.Singleton;
 import org.sonatype.nexus.orient.OClassNameBuilder;
 import org.sonatype.nexus.orient.OIndexNameBuilder;
 
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Lists;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
+import com.orientechnologies.orient.core.index.OCompositeKey;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
 import com.orientechnologies.orient.core.metadata.schema.OClass.INDEX_TYPE;
 import com.orientechnologies.orient.core.metadata.schema.OType;
 import com.orientechnologies.orient.core.record.impl.ODocument;
+import com.orientechnologies.orient.core.sql.OCommandSQL;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 import static org.sonatype.nexus.repository.storage.StorageFacet.P_BUCKET;
 import static org.sonatype.nexus.repository.storage.StorageFacet.P_GROUP;
 import static org.sonatype.nexus.repository.storage.StorageFacet.P_NAME;
@@ -53,16 +66,23 @@ public class ComponentEntityAdapter
       .property(P_VERSION)
       .build();
 
+  /**
+   * Number of components fetched per query when browsing components in coordinates order.
+   */
+  private static final int BROWSE_PAGE_SIZE = 1000;
+
+  private final BucketEntityAdapter bucketEntityAdapter;
+
   @Inject
   public ComponentEntityAdapter(final BucketEntityAdapter bucketEntityAdapter) {
     super(DB_CLASS, bucketEntityAdapter);
+    this.bucketEntityAdapter = bucketEntityAdapter;
   }
 
   @Override
   protected void defineType(final ODatabaseDocumentTx db, final OClass type) {
     super.defineType(type);
     type.createProperty(P_GROUP, OType.STRING);
-    type.createProperty(P_NAME, OType.STRING).setMandatory(true).setNotNull(true);
     type.createProperty(P_VERSION, OType.STRING);
 
     ODocument metadata = db.newInstance()
@@ -99,4 +119,85 @@ public class ComponentEntityAdapter
     document.field(P_VERSION, entity.version());
   }
 
+  /**
+   * Browses components of bucket having group and version, optionally only those of given group and name, ordered by
+   * group, name and version, fetching them in pages of {@link #BROWSE_PAGE_SIZE} components as iteration proceeds.
+   * Pages are read straight off the unique bucket-group-name-version index: each page is a range of index keys
+   * starting at the last key seen, so fetching a page is an index seek however big the bucket is, and all components
+   * of same group and name are returned consecutively.
+   */
+  Iterable<Component> browseByCoordinates(final ODatabaseDocumentTx db,
+                                          final Bucket bucket,
+                                          final @Nullable String group,
+                                          final @Nullable String name)
+  {
+    checkNotNull(bucket);
+    checkState(bucket.isPersisted());
+    checkArgument((group == null) == (name == null), "Group and name must be both given or both omitted");
+
+    final List<Object> prefix = Lists.newArrayList();
+    prefix.add(bucketEntityAdapter.recordIdentity(bucket));
+    if (group != null) {
+      prefix.add(group);
+      prefix.add(name);
+    }
+    return new Iterable<Component>()
+    {
+      @Override
+      public Iterator<Component> iterator() {
+        return new AbstractIterator<Component>()
+        {
+          private Iterator<ODocument> page = Iterators.emptyIterator();
+
+          private List<Object> lastKey;
+
+          private boolean exhausted;
+
+          @Override
+          protected Component computeNext() {
+            while (!page.hasNext()) {
+              if (exhausted) {
+                return endOfData();
+              }
+              List<ODocument> entries = browseCoordinatesPage(db, prefix, lastKey);
+              exhausted = entries.size() < BROWSE_PAGE_SIZE;
+              List<ODocument> docs = Lists.newArrayListWithCapacity(entries.size());
+              for (ODocument entry : entries) {
+                List<Object> key = entry.<OCompositeKey>field("key").getKeys();
+                if (key.equals(lastKey)) {
+                  // range starts at the last key of the previous page, inclusive
+                  continue;
+                }
+                lastKey = key;
+                ODocument doc = entry.<OIdentifiable>field("rid").getRecord();
+                if (doc != null && doc.field(P_GROUP) != null && doc.field(P_VERSION) != null) {
+                  docs.add(doc);
+                }
+              }
+              page = docs.iterator();
+            }
+            return readEntity(page.next());
+          }
+        };
+      }
+    };
+  }
+
+  /**
+   * Reads the index entries of a page: those having passed in key prefix, starting at passed in key if given.
+   */
+  private List<ODocument> browseCoordinatesPage(final ODatabaseDocumentTx db,
+                                                final List<Object> prefix,
+                                                final @Nullable List<Object> from)
+  {
+    List<Object> start = from != null ? from : prefix;
+    List<Object> parameters = Lists.newArrayList(start);
+    parameters.addAll(prefix);
+
+    String query = String.format("select from index:%s where key between [%s] and [%s] limit %d",
+        I_BUCKET_GROUP_NAME_VERSION, placeholders(start.size()), placeholders(prefix.size()), BROWSE_PAGE_SIZE);
+
+    log.trace("Browsing components with query: {}, parameters: {}", query, parameters);
+    return db.command(new OCommandSQL(query)).execute(parameters.toArray());
+  }
 }
@@ -13,9 +13,13 @@
 
 package org.sonatype.nexus.repository.storage;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import javax.annotation.Nullable;
 
@@ -24,13 +28,21 @@ import org.sonatype.nexus.orient.OIndexNameBuilder;
 import org.sonatype.nexus.orient.entity.CollectionEntityAdapter;
 import org.sonatype.nexus.repository.Repository;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.BaseEncoding;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import com.orientechnologies.orient.core.db.record.OIdentifiable;
 import com.orientechnologies.orient.core.id.ORID;
+import com.orientechnologies.orient.core.index.OCompositeKey;
 import com.orientechnologies.orient.core.metadata.schema.OClass;
 import com.orientechnologies.orient.core.metadata.schema.OClass.INDEX_TYPE;
 import com.orientechnologies.orient.core.metadata.schema.OType;
@@ -38,12 +50,14 @@ import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.OCommandSQL;
 import org.joda.time.DateTime;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static org.sonatype.nexus.repository.storage.StorageFacet.P_ATTRIBUTES;
 import static org.sonatype.nexus.repository.storage.StorageFacet.P_BUCKET;
 import static org.sonatype.nexus.repository.storage.StorageFacet.P_FORMAT;
 import static org.sonatype.nexus.repository.storage.StorageFacet.P_LAST_UPDATED;
+import static org.sonatype.nexus.repository.storage.StorageFacet.P_NAME;
 import static org.sonatype.nexus.repository.storage.StorageFacet.P_REPOSITORY_NAME;
 
 /**
@@ -54,12 +68,19 @@ import static org.sonatype.nexus.repository.storage.StorageFacet.P_REPOSITORY_NA
 public abstract class MetadataNodeEntityAdapter<T extends MetadataNode>
     extends CollectionEntityAdapter<T>
 {
+  /**
+   * Number of index entries read per query when browsing records.
+   */
+  private static final int BROWSE_PAGE_SIZE = 1000;
 
   private final BucketEntityAdapter bucketEntityAdapter;
 
+  private final String bucketNameIndex;
+
   public MetadataNodeEntityAdapter(final String typeName, final BucketEntityAdapter bucketEntityAdapter) {
     super(typeName);
     this.bucketEntityAdapter = bucketEntityAdapter;
+    this.bucketNameIndex = new OIndexNameBuilder().type(typeName).property(P_BUCKET).property(P_NAME).build();
   }
 
   @Override
@@ -68,9 +89,11 @@ public abstract class MetadataNodeEntityAdapter<T extends MetadataNode>
     type.createProperty(P_FORMAT, OType.STRING).setMandatory(true).setNotNull(true);
     type.createProperty(P_LAST_UPDATED, OType.DATETIME);
     type.createProperty(P_ATTRIBUTES, OType.EMBEDDEDMAP);
+    type.createProperty(P_NAME, OType.STRING).setMandatory(true).setNotNull(true);
 
     String indexName = new OIndexNameBuilder().type(getTypeName()).property(P_BUCKET).build();
     type.createIndex(indexName, INDEX_TYPE.NOTUNIQUE, P_BUCKET);
+    type.createIndex(bucketNameIndex, INDEX_TYPE.NOTUNIQUE, P_BUCKET, P_NAME);
   }
 
   @Override
@@ -95,16 +118,227 @@ public abstract class MetadataNodeEntityAdapter<T extends MetadataNode>
     document.field(P_ATTRIBUTES, entity.attributes().backing());
   }
 
+  /**
+   * Browses all records of bucket in name order, fetching them in pages of {@link #BROWSE_PAGE_SIZE} records as
+   * iteration proceeds so memory use does not grow with bucket size.
+   */
   Iterable<T> browseByBucket(final ODatabaseDocumentTx db, final Bucket bucket) {
     checkNotNull(bucket);
     checkState(bucket.isPersisted());
 
-    Map<String, Object> parameters = ImmutableMap.<String, Object>of(
-        "bucket", bucketEntityAdapter.recordIdentity(bucket)
-    );
-    String query = String.format("select from %s where bucket = :bucket", getTypeName());
-    Iterable<ODocument> docs = db.command(new OCommandSQL(query)).execute(parameters);
-    return readEntities(docs);
+    final List<Object> prefix = ImmutableList.<Object>of(bucketEntityAdapter.recordIdentity(bucket));
+    return new Iterable<T>()
+    {
+      @Override
+      public Iterator<T> iterator() {
+        return new AbstractIterator<T>()
+        {
+          private Iterator<T> page = Iterators.emptyIterator();
+
+          private String next;
+
+          private boolean exhausted;
+
+          @Override
+          protected T computeNext() {
+            while (!page.hasNext()) {
+              if (exhausted) {
+                return endOfData();
+              }
+              BrowsePage<T> browsed = browseByIndex(db, bucketNameIndex, prefix, null, null, next, BROWSE_PAGE_SIZE);
+              next = browsed.getNext();
+              exhausted = next == null;
+              page = browsed.iterator();
+            }
+            return page.next();
+          }
+        };
+      }
+    };
+  }
+
+  /**
+   * Browses one page of bucket records matching optional where clause, in name order, starting after the name
+   * encoded in the cursor.
+   */
+  BrowsePage<T> browseByBucket(final ODatabaseDocumentTx db,
+                               final Bucket bucket,
+                               final @Nullable String whereClause,
+                               final @Nullable Map<String, Object> parameters,
+                               final @Nullable String after,
+                               final int limit)
+  {
+    checkNotNull(bucket);
+    checkState(bucket.isPersisted());
+    return browseByIndex(db, bucketNameIndex, ImmutableList.<Object>of(bucketEntityAdapter.recordIdentity(bucket)),
+        whereClause, parameters, after, limit);
+  }
+
+  /**
+   * Browses one page of records having passed in key prefix in given index, whose key must end with the record name,
+   * matching optional where clause, in name order, starting after the name encoded in the cursor. Pages are read off
+   * the index like {@link ComponentEntityAdapter#browseByCoordinates}: each index read is a range of keys starting
+   * past the last name seen, so fetching a page is an index seek however deep the page is. Records of same name are
+   * always returned on same page, so the name is a stable cursor also for a non-unique index, and a page may exceed
+   * the limit by the records sharing the name of its last record.
+   */
+  protected BrowsePage<T> browseByIndex(final ODatabaseDocumentTx db,
+                                        final String indexName,
+                                        final List<Object> prefix,
+                                        final @Nullable String whereClause,
+                                        final @Nullable Map<String, Object> parameters,
+                                        final @Nullable String after,
+                                        final int limit)
+  {
+    checkArgument(limit > 0, "Limit must be greater than zero");
+
+    String lastName = after != null ? decodeCursor(after) : null;
+    List<T> items = Lists.newArrayList();
+    boolean hasNext = true;
+    while (hasNext && items.size() < limit) {
+      List<ODocument> entries = browseIndexPage(db, indexName, prefix, lastName, BROWSE_PAGE_SIZE);
+      boolean exhausted = entries.size() < BROWSE_PAGE_SIZE;
+
+      // record ids grouped by name, in index order
+      Map<String, List<ORID>> names = Maps.newLinkedHashMap();
+      for (ODocument entry : entries) {
+        String name = (String) entry.<OCompositeKey>field("key").getKeys().get(prefix.size());
+        List<ORID> rids = names.get(name);
+        if (rids == null) {
+          rids = Lists.newArrayList();
+          names.put(name, rids);
+        }
+        rids.add(entry.<OIdentifiable>field("rid").getIdentity());
+      }
+      if (!exhausted) {
+        // records of the last name may continue past this index read
+        String partial = Iterables.getLast(names.keySet());
+        if (names.size() > 1) {
+          names.remove(partial);
+        }
+        else {
+          names.put(partial, browseIndexKey(db, indexName, prefix, partial));
+        }
+      }
+
+      List<Entry<String, List<ORID>>> groups = Lists.newArrayList(names.entrySet());
+      int i = 0;
+      while (i < groups.size() && items.size() < limit) {
+        // unfiltered, load just enough whole name groups to fill the page, filtered, load all groups read at once
+        int end = i;
+        List<ORID> batch = Lists.newArrayList();
+        while (end < groups.size() && (whereClause != null || items.size() + batch.size() < limit)) {
+          batch.addAll(groups.get(end++).getValue());
+        }
+        Map<ORID, ODocument> docs = load(db, batch, whereClause, parameters);
+        for (; i < end && items.size() < limit; i++) {
+          for (ORID rid : groups.get(i).getValue()) {
+            ODocument doc = docs.get(rid);
+            if (doc != null) {
+              items.add(readEntity(doc));
+            }
+          }
+          lastName = groups.get(i).getKey();
+        }
+      }
+      hasNext = i < groups.size() || !exhausted;
+    }
+    return new BrowsePage<>(items, hasNext ? encodeCursor(lastName) : null);
+  }
+
+  /**
+   * Reads index entries having passed in key prefix, starting past passed in name if given.
+   */
+  private List<ODocument> browseIndexPage(final ODatabaseDocumentTx db,
+                                          final String indexName,
+                                          final List<Object> prefix,
+                                          final @Nullable String after,
+                                          final int limit)
+  {
+    List<Object> start = Lists.newArrayList(prefix);
+    if (after != null) {
+      // smallest name greater than the last name seen, so the range skips all records of that name
+      start.add(after + '\u0000');
+    }
+    List<Object> parameters = Lists.newArrayList(start);
+    parameters.addAll(prefix);
+
+    String query = String.format("select from index:%s where key between [%s] and [%s] limit %d",
+        indexName, placeholders(start.size()), placeholders(prefix.size()), limit);
+
+    log.trace("Browsing {}s with query: {}, parameters: {}", getTypeName(), query, parameters);
+    return db.command(new OCommandSQL(query)).execute(parameters.toArray());
+  }
+
+  /**
+   * Reads the identities of all records having passed in key prefix and name.
+   */
+  private List<ORID> browseIndexKey(final ODatabaseDocumentTx db,
+                                    final String indexName,
+                                    final List<Object> prefix,
+                                    final String name)
+  {
+    List<Object> parameters = Lists.newArrayList(prefix);
+    parameters.add(name);
+
+    String query = String.format("select from index:%s where key = [%s]", indexName, placeholders(parameters.size()));
+
+    log.trace("Browsing {}s with query: {}, parameters: {}", getTypeName(), query, parameters);
+    List<ODocument> entries = db.command(new OCommandSQL(query)).execute(parameters.toArray());
+    List<ORID> rids = Lists.newArrayListWithCapacity(entries.size());
+    for (ODocument entry : entries) {
+      rids.add(entry.<OIdentifiable>field("rid").getIdentity());
+    }
+    return rids;
+  }
+
+  /**
+   * Loads passed in records matching optional where clause, keyed by identity.
+   */
+  private Map<ORID, ODocument> load(final ODatabaseDocumentTx db,
+                                    final List<ORID> rids,
+                                    final @Nullable String whereClause,
+                                    final @Nullable Map<String, Object> parameters)
+  {
+    Map<ORID, ODocument> docs = Maps.newHashMap();
+    if (whereClause == null) {
+      for (ORID rid : rids) {
+        ODocument doc = db.load(rid);
+        if (doc != null) {
+          docs.put(rid, doc);
+        }
+      }
+      return docs;
+    }
+
+    String query = String.format("select from [%s] where %s", Joiner.on(", ").join(rids), whereClause);
+    log.trace("Browsing {}s with query: {}, parameters: {}", getTypeName(), query, parameters);
+    List<ODocument> matching = db.command(new OCommandSQL(query)).execute(
+        parameters != null ? parameters : Collections.emptyMap());
+    for (ODocument doc : matching) {
+      docs.put(doc.getIdentity(), doc);
+    }
+    return docs;
+  }
+
+  private static String encodeCursor(final String name) {
+    return BaseEncoding.base64Url().omitPadding().encode(name.getBytes(Charsets.UTF_8));
+  }
+
+  /**
+   * Decodes a browse cursor, failing with {@link IllegalArgumentException} if it was not issued by storage.
+   */
+  private static String decodeCursor(final String cursor) {
+    try {
+      return new String(BaseEncoding.base64Url().omitPadding().decode(cursor), Charsets.UTF_8);
+    }
+    catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+    }
+  }
+
+  static String placeholders(final int count) {
+    return Joiner.on(", ").join(Collections.nCopies(count, "?"));
   }
 
   T findByProperty(final ODatabaseDocumentTx db,
@@ -125,6 +359,27 @@ public abstract class MetadataNodeEntityAdapter<T extends MetadataNode>
     return first != null ? readEntity(first) : null;
   }
 
+  /**
+   * Finds all bucket records having the property equal to any of passed in values, in single query.
+   */
+  Iterable<T> findByPropertyValues(final ODatabaseDocumentTx db,
+                                   final String propName, final Collection<?> propValues,
+                                   final Bucket bucket)
+  {
+    checkNotNull(propName);
+    checkNotNull(propValues);
+    checkNotNull(bucket);
+
+    Map<String, Object> parameters = ImmutableMap.of(
+        "propValues", propValues,
+        "bucket", bucketEntityAdapter.recordIdentity(bucket)
+    );
+    String query = String.format("select from %s where %s in :propValues and bucket = :bucket", getTypeName(),
+        propName);
+    Iterable<ODocument> docs = db.command(new OCommandSQL(query)).execute(parameters);
+    return readEntities(docs);
+  }
+
   Iterable<T> browseByQuery(final ODatabaseDocumentTx db,
                             final @Nullable String whereClause,
                             final @Nullable Map<String, Object> parameters,
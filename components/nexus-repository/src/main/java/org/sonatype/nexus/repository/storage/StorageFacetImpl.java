@@ -116,10 +116,19 @@ public class StorageFacetImpl
   }
 
   private void initSchema() {
-    try (ODatabaseDocumentTx db = databaseInstanceProvider.get().connect()) {
-      bucketEntityAdapter.register(db);
-      componentEntityAdapter.register(db);
-      assetEntityAdapter.register(db);
+    // adapters are shared by all repositories, so only the first repository to initialize registers the schema
+    DatabaseInstance databaseInstance = databaseInstanceProvider.get();
+    synchronized (assetEntityAdapter) {
+      try (ODatabaseDocumentTx db = databaseInstance.acquire()) {
+        if (assetEntityAdapter.isRegistered(db)) {
+          return;
+        }
+      }
+      try (ODatabaseDocumentTx db = databaseInstance.connect()) {
+        bucketEntityAdapter.register(db);
+        componentEntityAdapter.register(db);
+        assetEntityAdapter.register(db);
+      }
     }
   }
 
@@ -13,6 +13,7 @@
 package org.sonatype.nexus.repository.storage;
 
 import java.io.InputStream;
+import java.util.Collection;
 import java.util.Map;
 
 import javax.annotation.Nullable;
@@ -25,6 +26,7 @@ import org.sonatype.nexus.repository.Format;
 import org.sonatype.nexus.repository.Repository;
 
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
+import org.joda.time.DateTime;
 
 /**
  * A storage transaction.
@@ -72,11 +74,47 @@ public interface StorageTx
    */
   Iterable<Asset> browseAssets(Bucket bucket);
 
+  /**
+   * Gets one page of assets owned by the specified bucket, in name order.
+   *
+   * @param whereClause an optional filter, an OrientDB where clause with :labeled values, see
+   *                    {@link #findAssets(String, Map, Iterable, String)}.
+   * @param parameters  the name-value pairs specifying the values for any :labeled portions of the where clause.
+   * @param after       the cursor of the page, as returned by {@link BrowsePage#getNext()}, or {@code null} for the
+   *                    first page.
+   * @param limit       the maximum number of assets returned, only exceeded to return all assets sharing the name of
+   *                    the last asset on the same page.
+   * @throws IllegalArgumentException if {@code after} is not a valid cursor.
+   */
+  BrowsePage<Asset> browseAssets(Bucket bucket,
+                                 @Nullable String whereClause,
+                                 @Nullable Map<String, Object> parameters,
+                                 @Nullable String after,
+                                 int limit);
+
   /**
    * Gets all assets owned by the specified component.
    */
   Iterable<Asset> browseAssets(Component component);
 
+  /**
+   * Gets one page of assets owned by the specified component, in name order.
+   *
+   * @see #browseAssets(Bucket, String, Map, String, int)
+   */
+  BrowsePage<Asset> browseAssets(Component component, @Nullable String after, int limit);
+
+  /**
+   * Gets all assets owned by the specified bucket that were updated after the specified date, in single query served
+   * by an index, without visiting any other asset of the bucket.
+   */
+  Iterable<Asset> browseAssetsUpdatedSince(Bucket bucket, DateTime since);
+
+  /**
+   * Gets all assets owned by the specified components, in single query.
+   */
+  Iterable<Asset> browseAssets(Collection<EntityId> componentIds);
+
   /**
    * Gets first asset owned by the specified component.
    */
@@ -87,6 +125,29 @@ public interface StorageTx
    */
   Iterable<Component> browseComponents(Bucket bucket);
 
+  /**
+   * Gets all components owned by the specified bucket that have group and version, ordered by group, name and
+   * version, so components of same group and name are consecutive.
+   */
+  Iterable<Component> browseComponentsByCoordinates(Bucket bucket);
+
+  /**
+   * Gets all components owned by the specified bucket that have passed in group and name, and a version, ordered by
+   * version.
+   */
+  Iterable<Component> browseComponentsByCoordinates(Bucket bucket, String group, String name);
+
+  /**
+   * Gets one page of components owned by the specified bucket, in name order.
+   *
+   * @see #browseAssets(Bucket, String, Map, String, int)
+   */
+  BrowsePage<Component> browseComponents(Bucket bucket,
+                                         @Nullable String whereClause,
+                                         @Nullable Map<String, Object> parameters,
+                                         @Nullable String after,
+                                         int limit);
+
   /**
    * Gets an asset by id, owned by the specified bucket, or {@code null} if not found.
    */
@@ -99,6 +160,12 @@ public interface StorageTx
   @Nullable
   Asset findAssetWithProperty(String propName, Object propValue, Bucket bucket);
 
+  /**
+   * Gets all assets owned by the specified bucket having the property equal to any of passed in values, in single
+   * query.
+   */
+  Iterable<Asset> findAssetsWithProperty(String propName, Collection<?> propValues, Bucket bucket);
+
   /**
    * Gets all assets in the specified repositories that match the given where clause.
    *
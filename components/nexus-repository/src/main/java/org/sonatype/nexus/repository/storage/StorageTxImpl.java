@@ -13,6 +13,7 @@
 package org.sonatype.nexus.repository.storage;
 
 import java.io.InputStream;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
@@ -40,7 +41,9 @@ import com.google.common.collect.Iterables;
 import com.google.common.hash.HashCode;
 import com.orientechnologies.orient.core.db.document.ODatabaseDocumentTx;
 import com.orientechnologies.orient.core.tx.OTransaction.TXTYPE;
+import org.joda.time.DateTime;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static org.sonatype.nexus.common.entity.EntityHelper.id;
@@ -162,12 +165,43 @@ public class StorageTxImpl
     return assetEntityAdapter.browseByBucket(db, bucket);
   }
 
+  @Override
+  @Guarded(by = OPEN)
+  public BrowsePage<Asset> browseAssets(final Bucket bucket,
+                                        @Nullable final String whereClause,
+                                        @Nullable final Map<String, Object> parameters,
+                                        @Nullable final String after,
+                                        final int limit)
+  {
+    return assetEntityAdapter.browseByBucket(db, bucket, whereClause, parameters, after, limit);
+  }
+
   @Override
   @Guarded(by = OPEN)
   public Iterable<Asset> browseAssets(final Component component) {
     return assetEntityAdapter.browseByComponent(db, component);
   }
 
+  @Override
+  @Guarded(by = OPEN)
+  public BrowsePage<Asset> browseAssets(final Component component, @Nullable final String after, final int limit) {
+    checkNotNull(component);
+    checkArgument(bucketOwns(bucket, component), "Component is not owned by bucket %s", bucket.repositoryName());
+    return assetEntityAdapter.browseByComponent(db, bucket, component, after, limit);
+  }
+
+  @Override
+  @Guarded(by = OPEN)
+  public Iterable<Asset> browseAssetsUpdatedSince(final Bucket bucket, final DateTime since) {
+    return assetEntityAdapter.browseUpdatedSince(db, bucket, since);
+  }
+
+  @Override
+  @Guarded(by = OPEN)
+  public Iterable<Asset> browseAssets(final Collection<EntityId> componentIds) {
+    return assetEntityAdapter.browseByComponents(db, componentIds);
+  }
+
   @Override
   public Asset firstAsset(final Component component) {
     return Iterables.getFirst(browseAssets(component), null);
@@ -179,6 +213,34 @@ public class StorageTxImpl
     return componentEntityAdapter.browseByBucket(db, bucket);
   }
 
+  @Override
+  @Guarded(by = OPEN)
+  public Iterable<Component> browseComponentsByCoordinates(final Bucket bucket) {
+    return componentEntityAdapter.browseByCoordinates(db, bucket, null, null);
+  }
+
+  @Override
+  @Guarded(by = OPEN)
+  public Iterable<Component> browseComponentsByCoordinates(final Bucket bucket,
+                                                           final String group,
+                                                           final String name)
+  {
+    checkNotNull(group);
+    checkNotNull(name);
+    return componentEntityAdapter.browseByCoordinates(db, bucket, group, name);
+  }
+
+  @Override
+  @Guarded(by = OPEN)
+  public BrowsePage<Component> browseComponents(final Bucket bucket,
+                                                @Nullable final String whereClause,
+                                                @Nullable final Map<String, Object> parameters,
+                                                @Nullable final String after,
+                                                final int limit)
+  {
+    return componentEntityAdapter.browseByBucket(db, bucket, whereClause, parameters, after, limit);
+  }
+
   @Nullable
   @Override
   @Guarded(by = OPEN)
@@ -200,6 +262,15 @@ public class StorageTxImpl
     return assetEntityAdapter.findByProperty(db, propName, propValue, bucket);
   }
 
+  @Override
+  @Guarded(by = OPEN)
+  public Iterable<Asset> findAssetsWithProperty(final String propName,
+                                                final Collection<?> propValues,
+                                                final Bucket bucket)
+  {
+    return assetEntityAdapter.findByPropertyValues(db, propName, propValues, bucket);
+  }
+
 
   @Override
   @Guarded(by = OPEN)
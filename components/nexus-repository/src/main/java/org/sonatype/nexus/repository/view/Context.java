@@ -15,6 +15,7 @@ package org.sonatype.nexus.repository.view;
 import java.util.ListIterator;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import org.sonatype.nexus.common.collect.AttributesMap;
 import org.sonatype.nexus.repository.Repository;
@@ -52,6 +53,10 @@ public class Context
 
   private ListIterator<Handler> handlers;
 
+  private Route route;
+
+  private String routeName;
+
   public Context(final Repository repository,
                  final Request request)
   {
@@ -71,6 +76,23 @@ public class Context
     return request;
   }
 
+  /**
+   * Returns the route this context was started on, or {@code null} if not started.
+   */
+  @Nullable
+  public Route getRoute() {
+    return route;
+  }
+
+  /**
+   * Returns the name of the route this context was started on, unique within its router, or {@code null} if not
+   * started.
+   */
+  @Nullable
+  public String getRouteName() {
+    return routeName;
+  }
+
   /**
    * Invokes the next handler in the handler chain.
    *
@@ -104,10 +126,13 @@ public class Context
    * Start route.
    */
   @Nonnull
-  Response start(final Route route) throws Exception {
+  Response start(final Route route, final String routeName) throws Exception {
     checkNotNull(route);
+    checkNotNull(routeName);
     checkState(handlers == null, "Already started");
-    log.debug("Starting: {}", route);
+    log.debug("Starting: {} -> {}", routeName, route);
+    this.route = route;
+    this.routeName = routeName;
     handlers = route.getHandlers().listIterator();
     return proceed();
   }
@@ -15,6 +15,7 @@ package org.sonatype.nexus.repository.view;
 import java.util.List;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 import com.google.common.collect.Lists;
 
@@ -29,17 +30,32 @@ import static com.google.common.base.Preconditions.checkState;
  */
 public class Route
 {
+  private final String name;
+
   private final Matcher matcher;
 
   private final List<Handler> handlers;
 
   public Route(final Matcher matcher, final List<Handler> handlers) {
+    this(null, matcher, handlers);
+  }
+
+  public Route(@Nullable final String name, final Matcher matcher, final List<Handler> handlers) {
+    this.name = name;
     this.matcher = checkNotNull(matcher, "Missing matcher");
     checkNotNull(handlers, "Missing handlers");
     checkArgument(!handlers.isEmpty(), "At least one handler is required");
     this.handlers = handlers;
   }
 
+  /**
+   * Optional name of the route, used to label route metrics.
+   */
+  @Nullable
+  public String getName() {
+    return name;
+  }
+
   @Nonnull
   public Matcher getMatcher() {
     return matcher;
@@ -53,7 +69,8 @@ public class Route
   @Override
   public String toString() {
     return getClass().getSimpleName() + "{" +
-        "matcher=" + matcher +
+        "name='" + name + '\'' +
+        ", matcher=" + matcher +
         ", handlers=" + handlers +
         '}';
   }
@@ -67,8 +84,16 @@ public class Route
    */
   public static class Builder
   {
+    private String name;
+
     private Matcher matcher;
 
+    public Builder name(final String name) {
+      checkState(this.name == null, "Only one name allowed");
+      this.name = checkNotNull(name);
+      return this;
+    }
+
     private List<Handler> handlers = Lists.newArrayList();
 
     public Builder matcher(final Matcher matcher) {
@@ -84,7 +109,7 @@ public class Route
     }
 
     public Route create() {
-      return new Route(matcher, handlers);
+      return new Route(name, matcher, handlers);
     }
   }
 }
@@ -20,6 +20,7 @@ import org.sonatype.nexus.repository.Repository;
 import org.sonatype.sisu.goodies.common.ComponentSupport;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -34,11 +35,22 @@ public class Router
 {
   private final List<Route> routes;
 
+  private static final String DEFAULT_ROUTE_NAME = "default";
+
   private final DefaultRoute defaultRoute;
 
+  private final Map<Route, String> routeNames = Maps.newIdentityHashMap();
+
   public Router(final List<Route> routes, final DefaultRoute defaultRoute) {
     this.routes = checkNotNull(routes, "Missing routes");
     this.defaultRoute = checkNotNull(defaultRoute, "Missing default route");
+
+    // name routes once here, so dispatching does not need to build names per request
+    for (int i = 0; i < routes.size(); i++) {
+      Route route = routes.get(i);
+      routeNames.put(route, route.getName() != null ? route.getName() : "route" + i);
+    }
+    routeNames.put(defaultRoute, DEFAULT_ROUTE_NAME);
   }
 
   /**
@@ -55,7 +67,7 @@ public class Router
     // Find route and start context
     Context context = new Context(repository, request);
     Route route = findRoute(context);
-    Response response = context.start(route);
+    Response response = context.start(route, routeNames.get(route));
     logResponse(response);
     return response;
   }
@@ -12,20 +12,53 @@
  */
 package org.sonatype.nexus.repository.view.handlers;
 
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.sonatype.nexus.common.collect.AttributeKey;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.manager.RepositoryDeletedEvent;
 import org.sonatype.nexus.repository.view.Context;
 import org.sonatype.nexus.repository.view.Handler;
+import org.sonatype.nexus.repository.view.Payload;
+import org.sonatype.nexus.repository.view.PayloadResponse;
 import org.sonatype.nexus.repository.view.Response;
+import org.sonatype.nexus.repository.view.Route;
 import org.sonatype.sisu.goodies.common.ComponentSupport;
+import org.sonatype.sisu.goodies.eventbus.EventBus;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.Subscribe;
 
-import com.google.common.base.Stopwatch;
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
- * Simple timing handler.
+ * Timing handler, recording request metrics per route, per repository and per format.
+ * <p/>
+ * For each of these a request timer, meters per status class ({@code 1xx} to {@code 5xx}) and meters of request and
+ * response payload bytes are registered in the {@link MetricRegistry}. Metric lookups are resolved once per route,
+ * so recording a request does not build metric names. Route and repository metrics are removed from the registry
+ * once their repository is deleted.
  *
  * @since 3.0
  */
@@ -35,20 +68,184 @@ public class TimingHandler
   extends ComponentSupport
   implements Handler
 {
+  /**
+   * Elapsed time of the request in nanoseconds.
+   */
   public static final String ELAPSED_KEY = AttributeKey.get(TimingHandler.class, "elapsed");
 
+  private static final String[] STATUS_CLASSES = {"1xx", "2xx", "3xx", "4xx", "5xx"};
+
+  private final MetricRegistry metricRegistry;
+
+  /**
+   * Routes are created per repository, weak keys let the routes of deleted repositories be collected.
+   */
+  private final Cache<Route, RouteMetrics> routeMetrics = CacheBuilder.newBuilder().weakKeys().build();
+
+  /**
+   * Names of the registered route and repository metrics, per repository name.
+   */
+  private final ConcurrentMap<String, Set<String>> repositoryMetricNames = new ConcurrentHashMap<>();
+
+  @Inject
+  public TimingHandler(final MetricRegistry metricRegistry, final EventBus eventBus) {
+    this.metricRegistry = checkNotNull(metricRegistry);
+    eventBus.register(this);
+  }
+
+  @Subscribe
+  @AllowConcurrentEvents
+  public void on(final RepositoryDeletedEvent event) {
+    String repositoryName = event.getRepository().getName();
+    for (Iterator<RouteMetrics> i = routeMetrics.asMap().values().iterator(); i.hasNext(); ) {
+      if (repositoryName.equals(i.next().repositoryName)) {
+        i.remove();
+      }
+    }
+    Set<String> names = repositoryMetricNames.remove(repositoryName);
+    if (names != null) {
+      for (String name : names) {
+        metricRegistry.remove(name);
+      }
+      log.debug("Removed metrics of deleted repository: {}", repositoryName);
+    }
+  }
+
   @Nonnull
   @Override
   public Response handle(final @Nonnull Context context) throws Exception {
-    Stopwatch watch = Stopwatch.createStarted();
-
+    final long start = System.nanoTime();
+    Response response = null;
     try {
-      return context.proceed();
+      response = context.proceed();
+      return response;
     }
     finally {
-      String elapsed = watch.toString();
+      final long elapsed = System.nanoTime() - start;
       context.getAttributes().set(ELAPSED_KEY, elapsed);
-      log.trace("Timing: {}", elapsed);
+      if (log.isTraceEnabled()) {
+        log.trace("Timing: {} ms", TimeUnit.NANOSECONDS.toMillis(elapsed));
+      }
+      record(context, response, elapsed);
+    }
+  }
+
+  private void record(final Context context, @Nullable final Response response, final long elapsed) {
+    final Route route = context.getRoute();
+    if (route == null) {
+      return;
+    }
+    // a missing response means the request failed
+    final int statusClass = response == null ? 4 : statusClass(response.getStatus().getCode());
+    final long bytesIn = size(context.getRequest().getPayload());
+    final long bytesOut = response instanceof PayloadResponse ? size(((PayloadResponse) response).getPayload()) : 0;
+
+    RouteMetrics metrics = routeMetrics.getIfPresent(route);
+    if (metrics == null) {
+      metrics = routeMetrics(context, route);
+    }
+    metrics.route.update(elapsed, statusClass, bytesIn, bytesOut);
+    metrics.repository.update(elapsed, statusClass, bytesIn, bytesOut);
+    metrics.format.update(elapsed, statusClass, bytesIn, bytesOut);
+  }
+
+  private RouteMetrics routeMetrics(final Context context, final Route route) {
+    try {
+      return routeMetrics.get(route, new Callable<RouteMetrics>()
+      {
+        @Override
+        public RouteMetrics call() {
+          RouteMetrics metrics = new RouteMetrics(metricRegistry, context.getRepository(), context.getRouteName());
+          Set<String> names = repositoryMetricNames.get(metrics.repositoryName);
+          if (names == null) {
+            Set<String> created = Sets.newConcurrentHashSet();
+            names = repositoryMetricNames.putIfAbsent(metrics.repositoryName, created);
+            if (names == null) {
+              names = created;
+            }
+          }
+          names.addAll(metrics.route.names);
+          names.addAll(metrics.repository.names);
+          return metrics;
+        }
+      });
+    }
+    catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  private static int statusClass(final int code) {
+    return Math.min(Math.max(code / 100, 1), STATUS_CLASSES.length) - 1;
+  }
+
+  private static long size(@Nullable final Payload payload) {
+    return payload == null ? 0 : Math.max(payload.getSize(), 0);
+  }
+
+  /**
+   * Metrics of one route, of its repository and of its format.
+   */
+  private static class RouteMetrics
+  {
+    private final String repositoryName;
+
+    private final RequestMetrics route;
+
+    private final RequestMetrics repository;
+
+    private final RequestMetrics format;
+
+    private RouteMetrics(final MetricRegistry registry, final Repository repository, final String routeName) {
+      this.repositoryName = repository.getName();
+      String repositoryPrefix = MetricRegistry.name(TimingHandler.class, "repository", repositoryName);
+      this.route = new RequestMetrics(registry, MetricRegistry.name(repositoryPrefix, "route", routeName));
+      this.repository = new RequestMetrics(registry, repositoryPrefix);
+      this.format = new RequestMetrics(registry,
+          MetricRegistry.name(TimingHandler.class, "format", repository.getFormat().getValue()));
+    }
+  }
+
+  /**
+   * Request metrics registered under a common prefix. The registry hands out existing metrics when already
+   * registered, so routes of the same repository or format share their repository and format metrics.
+   */
+  private static class RequestMetrics
+  {
+    private final List<String> names = Lists.newArrayList();
+
+    private final Timer requests;
+
+    private final Meter[] statusClasses = new Meter[STATUS_CLASSES.length];
+
+    private final Meter bytesIn;
+
+    private final Meter bytesOut;
+
+    private RequestMetrics(final MetricRegistry registry, final String prefix) {
+      this.requests = registry.timer(name(prefix, "requests"));
+      for (int i = 0; i < STATUS_CLASSES.length; i++) {
+        statusClasses[i] = registry.meter(name(prefix, STATUS_CLASSES[i]));
+      }
+      this.bytesIn = registry.meter(name(prefix, "bytes-in"));
+      this.bytesOut = registry.meter(name(prefix, "bytes-out"));
+    }
+
+    private String name(final String prefix, final String metric) {
+      String name = MetricRegistry.name(prefix, metric);
+      names.add(name);
+      return name;
+    }
+
+    private void update(final long elapsed, final int statusClass, final long in, final long out) {
+      requests.update(elapsed, TimeUnit.NANOSECONDS);
+      statusClasses[statusClass].mark();
+      if (in > 0) {
+        bytesIn.mark(in);
+      }
+      if (out > 0) {
+        bytesOut.mark(out);
+      }
     }
   }
 }
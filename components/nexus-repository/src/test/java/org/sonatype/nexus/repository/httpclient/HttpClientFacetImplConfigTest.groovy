@@ -15,6 +15,7 @@ package org.sonatype.nexus.repository.httpclient
 import javax.validation.Validation
 import javax.validation.Validator
 
+import org.sonatype.nexus.httpclient.config.ConnectionPoolConfiguration
 import org.sonatype.nexus.httpclient.config.UsernameAuthenticationConfiguration
 import org.sonatype.sisu.litmus.testsupport.TestSupport
 
@@ -71,4 +72,16 @@ class HttpClientFacetImplConfigTest
     assert violations.size() == 2
     assert violations.collect { it.propertyPath.toString() }.sort() == ['authentication.password', 'authentication.username']  
   }
+
+  @Test
+  void 'pool requires at least one connection and non-negative lease timeout'() {
+    def violations = validator.validate(new HttpClientFacetImpl.Config(
+        pool: new ConnectionPoolConfiguration(
+            maximumConnections: 0,
+            leaseTimeout: -1
+        )
+    ))
+    assert violations.size() == 2
+    assert violations.collect { it.propertyPath.toString() }.sort() == ['pool.leaseTimeout', 'pool.maximumConnections']
+  }
 }
@@ -0,0 +1,80 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.manager
+
+import java.util.concurrent.CopyOnWriteArrayList
+
+import org.junit.Test
+import org.sonatype.nexus.repository.Repository
+import org.sonatype.nexus.repository.config.Configuration
+import org.sonatype.sisu.litmus.testsupport.TestSupport
+
+import static org.mockito.Mockito.mock
+import static org.mockito.Mockito.when
+
+/**
+ * Tests for {@link RepositoryStarter}.
+ */
+class RepositoryStarterTest
+    extends TestSupport
+{
+  private Repository repository(final String name, final String... members) {
+    Configuration configuration = new Configuration()
+    configuration.repositoryName = name
+    if (members) {
+      configuration.attributes('group').set('memberNames', members as List)
+    }
+    Repository repository = mock(Repository)
+    when(repository.name).thenReturn(name)
+    when(repository.configuration).thenReturn(configuration)
+    return repository
+  }
+
+  @Test
+  void 'groups are placed after their members'() {
+    def waves = RepositoryStarter.waves([
+        repository('outer', 'inner', 'hosted'),
+        repository('inner', 'proxy'),
+        repository('hosted'),
+        repository('proxy')
+    ])
+
+    assert waves.get(0) == ['hosted', 'proxy'] as SortedSet
+    assert waves.get(1) == ['inner'] as SortedSet
+    assert waves.get(2) == ['outer'] as SortedSet
+  }
+
+  @Test
+  void 'missing members and cycles are tolerated'() {
+    def waves = RepositoryStarter.waves([
+        repository('a', 'b', 'missing'),
+        repository('b', 'a')
+    ])
+
+    assert waves.size() == 2
+    assert waves.values() as Set == ['a', 'b'] as Set
+  }
+
+  @Test
+  void 'all repositories are started'() {
+    def repositories = [repository('group', 'member'), repository('member'), repository('other')]
+    def started = new CopyOnWriteArrayList<String>()
+
+    new RepositoryStarter(2).start(repositories, { Repository repository ->
+      started << repository.name
+    } as RepositoryStarter.Listener)
+
+    assert started.size() == 3
+    assert started.indexOf('member') < started.indexOf('group')
+  }
+}
@@ -13,6 +13,10 @@
 
 package org.sonatype.nexus.repository.negativecache
 
+import java.util.concurrent.ConcurrentHashMap
+
+import org.sonatype.nexus.cache.CacheConfig
+import org.sonatype.nexus.cache.CacheService
 import org.sonatype.nexus.repository.Repository
 import org.sonatype.nexus.repository.config.Configuration
 import org.sonatype.nexus.repository.config.ConfigurationFacet
@@ -22,17 +26,10 @@ import org.sonatype.sisu.goodies.common.Time
 import org.sonatype.sisu.goodies.eventbus.EventBus
 import org.sonatype.sisu.litmus.testsupport.TestSupport
 
-import com.google.common.collect.Lists
-import net.sf.ehcache.Cache
-import net.sf.ehcache.CacheManager
-import net.sf.ehcache.Ehcache
-import net.sf.ehcache.Element
+import com.google.common.cache.Cache
 import org.junit.Before
 import org.junit.Test
-import org.mockito.ArgumentCaptor
 
-import static net.sf.ehcache.Status.STATUS_ALIVE
-import static net.sf.ehcache.Status.STATUS_SHUTDOWN
 import static org.mockito.Matchers.any
 import static org.mockito.Mockito.eq
 import static org.mockito.Mockito.mock
@@ -52,9 +49,11 @@ class NegativeCacheFacetImplTest
 
   private Status status
 
-  private CacheManager cacheManager
+  private CacheService cacheService
+
+  private Cache<NegativeCacheKey, Status> cache
 
-  private Ehcache cache
+  private List<Integer> timeToLives = []
 
   private Repository repository
 
@@ -62,16 +61,14 @@ class NegativeCacheFacetImplTest
 
   @Before
   void setUp() {
-    cacheManager = mock(CacheManager)
-    when(cacheManager.status).thenReturn(STATUS_ALIVE)
-    cache = mock(Ehcache)
-    underTest = new NegativeCacheFacetImpl(cacheManager) {
+    cacheService = mock(CacheService)
+    cache = mock(Cache)
+    when(cacheService.getOrCreateCache(eq('negative-cache-test'), any(CacheConfig))).thenReturn(cache)
+    underTest = new NegativeCacheFacetImpl(cacheService) {
       @Override
-      Ehcache newCache(final String name, final int timeToLiveSeconds) {
-        assert name == 'negative-cache-test'
-        assert timeToLiveSeconds.equals(Time.hours(24).toSecondsI())
-        when(cache.name).thenReturn(name)
-        return cache
+      CacheConfig<NegativeCacheKey, Status> newCacheConfig(final int timeToLiveSeconds) {
+        timeToLives << timeToLiveSeconds
+        return super.newCacheConfig(timeToLiveSeconds)
       }
     }
     underTest.installDependencies(mock(EventBus))
@@ -104,14 +101,14 @@ class NegativeCacheFacetImplTest
     underTest.attach(repository)
     underTest.init()
     underTest.start()
-    verify(cacheManager, never()).addCache(any(Cache))
+    verify(cacheService, never()).getOrCreateCache(any(String), any(CacheConfig))
     assert underTest.get(key) == null
     underTest.put(key, Status.failure(HttpStatus.NOT_FOUND, '404'))
     underTest.invalidate(key)
     underTest.invalidate()
     underTest.stop()
     underTest.destroy()
-    verify(cacheManager, never()).removeCache(any(String))
+    verify(cacheService, never()).removeCache(any(String))
   }
 
   /**
@@ -130,14 +127,14 @@ class NegativeCacheFacetImplTest
     underTest.attach(repository)
     underTest.init()
     underTest.start()
-    verify(cacheManager, never()).addCache(any(Cache))
+    verify(cacheService, never()).getOrCreateCache(any(String), any(CacheConfig))
     assert underTest.get(key) == null
     underTest.put(key, Status.failure(HttpStatus.NOT_FOUND, '404'))
     underTest.invalidate(key)
     underTest.invalidate()
     underTest.stop()
     underTest.destroy()
-    verify(cacheManager, never()).removeCache(any(String))
+    verify(cacheService, never()).removeCache(any(String))
   }
 
   /**
@@ -154,30 +151,37 @@ class NegativeCacheFacetImplTest
     underTest.attach(repository)
     underTest.init()
     underTest.start()
-    verify(cacheManager).addCache(cache)
+    verify(cacheService).getOrCreateCache(eq('negative-cache-test'), any(CacheConfig))
+    assert timeToLives == [Time.hours(24).toSecondsI()]
     underTest.stop()
     underTest.destroy()
-    verify(cacheManager).removeCache(cache.name)
+    verify(cacheService).removeCache('negative-cache-test')
   }
 
   /**
    * Given:
    * - configuration present
    * - enabled = true
-   * - cache manager is not active (already being shutdown)
+   * - time-to-live changed on update
    * Then:
-   * - cache is not removed
+   * - cache is removed and re-created with new time-to-live
    */
   @Test
-  void 'cache is not removed when manager is not active'() {
+  void 'cache is re-created when time-to-live changes'() {
     config.enabled = true
     underTest.attach(repository)
     underTest.init()
     underTest.start()
-    when(cacheManager.status).thenReturn(STATUS_SHUTDOWN)
     underTest.stop()
-    underTest.destroy()
-    verify(cacheManager, never()).removeCache(any(String))
+    def updated = new NegativeCacheFacetImpl.Config(enabled: true, timeToLive: Time.hours(1).toSecondsI())
+    when(repository.facet(ConfigurationFacet.class).readSection(
+        any(Configuration.class),
+        eq(NegativeCacheFacetImpl.CONFIG_KEY),
+        eq(NegativeCacheFacetImpl.Config.class)))
+        .thenReturn(updated)
+    underTest.update()
+    verify(cacheService).removeCache('negative-cache-test')
+    assert timeToLives == [Time.hours(24).toSecondsI(), Time.hours(1).toSecondsI()]
   }
 
   /**
@@ -194,10 +198,7 @@ class NegativeCacheFacetImplTest
     underTest.init()
     underTest.start()
     underTest.put(key, status)
-    ArgumentCaptor<Element> elementCaptor = ArgumentCaptor.forClass(Element);
-    verify(cache).put(elementCaptor.capture())
-    assert key == elementCaptor.value.objectKey
-    assert status == elementCaptor.value.objectValue
+    verify(cache).put(key, status)
   }
 
   /**
@@ -214,7 +215,7 @@ class NegativeCacheFacetImplTest
     underTest.attach(repository)
     underTest.init()
     underTest.start()
-    when(cache.get(key)).thenReturn(new Element(key, status))
+    when(cache.getIfPresent(key)).thenReturn(status)
     Status actualStatus = underTest.get(key)
     assert actualStatus == status
   }
@@ -233,7 +234,7 @@ class NegativeCacheFacetImplTest
     underTest.attach(repository)
     underTest.init()
     underTest.start()
-    when(cache.get(key)).thenReturn(null)
+    when(cache.getIfPresent(key)).thenReturn(null)
     Status actualStatus = underTest.get(key)
     assert actualStatus == null
   }
@@ -252,7 +253,7 @@ class NegativeCacheFacetImplTest
     underTest.init()
     underTest.start()
     underTest.invalidate(key)
-    verify(cache).remove(key)
+    verify(cache).invalidate(key)
   }
 
   /**
@@ -269,7 +270,7 @@ class NegativeCacheFacetImplTest
     underTest.init()
     underTest.start()
     underTest.invalidate()
-    verify(cache).removeAll()
+    verify(cache).invalidateAll()
   }
 
   /**
@@ -284,7 +285,7 @@ class NegativeCacheFacetImplTest
   void 'invalidate subset removes key and all child keys'() {
     NegativeCacheKey key1 = mock(NegativeCacheKey)
     NegativeCacheKey key2 = mock(NegativeCacheKey)
-    when(cache.getKeys()).thenReturn(Lists.newArrayList(key1, key2))
+    when(cache.asMap()).thenReturn(new ConcurrentHashMap<NegativeCacheKey, Status>([(key1): status, (key2): status]))
     when(key.isParentOf(key1)).thenReturn(false)
     when(key.isParentOf(key2)).thenReturn(true)
     config.enabled = true
@@ -292,8 +293,8 @@ class NegativeCacheFacetImplTest
     underTest.init()
     underTest.start()
     underTest.invalidateSubset(key)
-    verify(cache).remove(key)
-    verify(cache, never()).remove(key1)
-    verify(cache).remove(key2)
+    verify(cache).invalidate(key)
+    verify(cache, never()).invalidate(key1)
+    verify(cache).invalidate(key2)
   }
 }
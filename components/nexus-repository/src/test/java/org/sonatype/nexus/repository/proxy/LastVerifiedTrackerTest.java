@@ -0,0 +1,86 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.proxy;
+
+import java.util.Map;
+
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Tests for {@link LastVerifiedTracker}.
+ */
+public class LastVerifiedTrackerTest
+    extends TestSupport
+{
+  private final DateTime now = new DateTime();
+
+  private final LastVerifiedTracker underTest = new LastVerifiedTracker(3);
+
+  @Test
+  public void laterDateWins() {
+    underTest.record("a", now);
+    underTest.record("a", now.minusMinutes(1));
+    assertThat(underTest.get("a"), equalTo(now));
+
+    underTest.record("a", now.plusMinutes(1));
+    assertThat(underTest.get("a"), equalTo(now.plusMinutes(1)));
+    assertThat(underTest.get("b"), nullValue());
+  }
+
+  @Test
+  public void persistedAreForgotten() {
+    underTest.record("a", now);
+    underTest.record("b", now);
+    final Map<String, DateTime> snapshot = underTest.snapshot();
+    underTest.persisted(snapshot);
+    assertThat(underTest.size(), equalTo(0));
+    assertThat(underTest.get("a"), nullValue());
+  }
+
+  @Test
+  public void recordedMeanwhileAreKept() {
+    underTest.record("a", now);
+    underTest.record("b", now);
+    final Map<String, DateTime> snapshot = underTest.snapshot();
+    underTest.record("a", now.plusSeconds(1));
+    underTest.record("c", now);
+    underTest.persisted(snapshot);
+    assertThat(underTest.size(), equalTo(2));
+    assertThat(underTest.get("a"), equalTo(now.plusSeconds(1)));
+    assertThat(underTest.get("b"), nullValue());
+    assertThat(underTest.get("c"), equalTo(now));
+  }
+
+  @Test
+  public void fullTrackerRejectsNewKeysOnly() {
+    assertThat(underTest.record("a", now), is(true));
+    assertThat(underTest.record("b", now), is(true));
+    assertThat(underTest.record("c", now), is(true));
+    assertThat(underTest.record("d", now), is(false));
+    assertThat(underTest.get("d"), nullValue());
+
+    assertThat(underTest.record("a", now.plusSeconds(1)), is(true));
+    assertThat(underTest.get("a"), equalTo(now.plusSeconds(1)));
+
+    underTest.persisted(underTest.snapshot());
+    assertThat(underTest.record("d", now), is(true));
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.proxy;
+
+import java.io.IOException;
+import java.util.Map;
+
+import javax.annotation.Nonnull;
+
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.httpclient.HttpClientFacet;
+import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.Context;
+import org.sonatype.sisu.goodies.eventbus.EventBus;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMap;
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mock;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link ProxyFacetSupport} batched last verified bookkeeping.
+ */
+public class ProxyFacetSupportTest
+    extends TestSupport
+{
+  private final DateTime now = new DateTime();
+
+  @Mock
+  Repository repository;
+
+  @Mock
+  HttpClientFacet httpClientFacet;
+
+  @Mock
+  EventBus eventBus;
+
+  @Mock
+  BatchedLastVerified batched;
+
+  private TestProxyFacet underTest;
+
+  @Before
+  public void before() throws Exception {
+    when(repository.getName()).thenReturn("proxy");
+    when(repository.facet(HttpClientFacet.class)).thenReturn(httpClientFacet);
+
+    underTest = new TestProxyFacet();
+    underTest.installDependencies(eventBus);
+    underTest.installMetricRegistry(new MetricRegistry());
+    underTest.installLastVerifiedFlusher(new LastVerifiedFlusher(3600));
+    underTest.attach(repository);
+  }
+
+  @Test
+  public void failedFlushIsRetried() throws Exception {
+    underTest.lastVerified.record("a", now);
+    underTest.lastVerified.record("b", now);
+    doThrow(new IOException("failure")).doNothing()
+        .when(batched).indicateUpToDate(Matchers.<Map<String, DateTime>>any());
+
+    underTest.flushLastVerified();
+    assertThat(underTest.lastVerified.size(), equalTo(2));
+
+    underTest.flushLastVerified();
+    assertThat(underTest.lastVerified.size(), equalTo(0));
+    verify(batched, times(2)).indicateUpToDate(ImmutableMap.of("a", now, "b", now));
+
+    underTest.flushLastVerified();
+    verify(batched, times(2)).indicateUpToDate(Matchers.<Map<String, DateTime>>any());
+  }
+
+  @Test
+  public void stopFlushesPending() throws Exception {
+    underTest.start();
+    underTest.lastVerified.record("a", now);
+    verify(batched, never()).indicateUpToDate(Matchers.<Map<String, DateTime>>any());
+
+    underTest.stop();
+    verify(batched).indicateUpToDate(ImmutableMap.of("a", now));
+    assertThat(underTest.lastVerified.size(), equalTo(0));
+  }
+
+  private class TestProxyFacet
+      extends ProxyFacetSupport
+      implements BatchedLastVerified
+  {
+    @Override
+    protected Content getCachedPayload(final Context context) throws IOException {
+      return null;
+    }
+
+    @Override
+    protected void store(final Context context, final Content content) throws IOException {
+      // no-op
+    }
+
+    @Override
+    protected DateTime getCachedPayloadLastUpdatedDate(final Context context) throws IOException {
+      return null;
+    }
+
+    @Override
+    protected void indicateUpToDate(final Context context) throws IOException {
+      // no-op
+    }
+
+    @Override
+    protected String getUrl(@Nonnull final Context context) {
+      return context.getRequest().getPath();
+    }
+
+    @Override
+    public String getLastVerifiedKey(final Context context) {
+      return batched.getLastVerifiedKey(context);
+    }
+
+    @Override
+    public void indicateUpToDate(final Map<String, DateTime> lastVerified) throws IOException {
+      batched.indicateUpToDate(lastVerified);
+    }
+  }
+}
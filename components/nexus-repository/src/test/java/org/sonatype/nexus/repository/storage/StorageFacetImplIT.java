@@ -31,6 +31,7 @@ import org.sonatype.nexus.repository.search.SearchFacet;
 import org.sonatype.sisu.goodies.eventbus.EventBus;
 import org.sonatype.sisu.litmus.testsupport.TestSupport;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterators;
@@ -40,12 +41,14 @@ import com.orientechnologies.orient.core.exception.OConcurrentModificationExcept
 import com.orientechnologies.orient.core.record.impl.ODocument;
 import com.orientechnologies.orient.core.sql.OCommandSQL;
 import com.orientechnologies.orient.core.storage.ORecordDuplicatedException;
+import org.joda.time.DateTime;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
@@ -595,6 +598,203 @@ public class StorageFacetImplIT
     createAsset(null, "name");
   }
 
+  @Test
+  public void browsePagesByCursor() {
+    try (StorageTx tx = underTest.openTx()) {
+      Bucket bucket = tx.getBucket();
+      for (int i = 0; i < 5; i++) {
+        Asset asset = tx.createAsset(bucket, testFormat);
+        asset.name("asset" + i);
+        tx.saveAsset(asset);
+      }
+      tx.commit();
+    }
+
+    try (StorageTx tx = underTest.openTx()) {
+      Bucket bucket = tx.getBucket();
+      Map<String, Object> parameters = ImmutableMap.of("skip", (Object) "asset2");
+
+      List<String> names = Lists.newArrayList();
+      List<Integer> pageSizes = Lists.newArrayList();
+      String cursor = null;
+      do {
+        BrowsePage<Asset> page = tx.browseAssets(bucket, "name <> :skip", parameters, cursor, 2);
+        pageSizes.add(page.getItems().size());
+        for (Asset asset : page) {
+          names.add(asset.name());
+        }
+        cursor = page.getNext();
+      }
+      while (cursor != null);
+
+      assertThat(names, equalTo((List<String>) Lists.newArrayList("asset0", "asset1", "asset3", "asset4")));
+      assertThat(pageSizes, equalTo((List<Integer>) Lists.newArrayList(2, 2)));
+
+      // unfiltered browse of all assets pages internally
+      checkSize(tx.browseAssets(bucket), 5);
+    }
+  }
+
+  @Test
+  public void browseComponentAssetsByCursor() {
+    try (StorageTx tx = underTest.openTx()) {
+      Bucket bucket = tx.getBucket();
+      Component component = tx.createComponent(bucket, testFormat).name("component");
+      tx.saveComponent(component);
+      for (int i = 0; i < 3; i++) {
+        tx.saveAsset(tx.createAsset(bucket, component).name("asset" + i));
+      }
+      tx.saveAsset(tx.createAsset(bucket, testFormat).name("other"));
+      tx.commit();
+    }
+
+    try (StorageTx tx = underTest.openTx()) {
+      Component component = tx.findComponentWithProperty(P_NAME, "component", tx.getBucket());
+      BrowsePage<Asset> first = tx.browseAssets(component, null, 2);
+      assertThat(first.getItems().size(), is(2));
+      BrowsePage<Asset> second = tx.browseAssets(component, first.getNext(), 2);
+      assertThat(second.getItems().size(), is(1));
+      assertThat(second.getItems().get(0).name(), is("asset2"));
+      assertThat(second.getNext(), nullValue());
+    }
+  }
+
+  @Test
+  public void browseKeepsAssetsOfSameNameOnOnePage() {
+    try (StorageTx tx = underTest.openTx()) {
+      Bucket bucket = tx.getBucket();
+      for (String name : new String[]{"a", "b", "c"}) {
+        Component component = tx.createComponent(bucket, testFormat).name(name);
+        tx.saveComponent(component);
+        tx.saveAsset(tx.createAsset(bucket, component).name("same"));
+      }
+      tx.saveAsset(tx.createAsset(bucket, testFormat).name("alpha"));
+      tx.saveAsset(tx.createAsset(bucket, testFormat).name("zulu"));
+      tx.commit();
+    }
+
+    try (StorageTx tx = underTest.openTx()) {
+      // page exceeds limit to keep all assets of same name together, so the name is a stable cursor
+      BrowsePage<Asset> first = tx.browseAssets(tx.getBucket(), null, null, null, 2);
+      assertThat(first.getItems().size(), is(4));
+      assertThat(first.getItems().get(0).name(), is("alpha"));
+
+      BrowsePage<Asset> second = tx.browseAssets(tx.getBucket(), null, null, first.getNext(), 2);
+      assertThat(second.getItems().size(), is(1));
+      assertThat(second.getItems().get(0).name(), is("zulu"));
+      assertThat(second.getNext(), nullValue());
+    }
+  }
+
+  @Test
+  public void browseAssetsUpdatedSince() throws Exception {
+    try (StorageTx tx = underTest.openTx()) {
+      Bucket bucket = tx.getBucket();
+      tx.saveAsset(tx.createAsset(bucket, testFormat).name("old"));
+      tx.commit();
+    }
+    DateTime since;
+    try (StorageTx tx = underTest.openTx()) {
+      since = tx.findAssetWithProperty(P_NAME, "old", tx.getBucket()).requireLastUpdated();
+    }
+    Thread.sleep(10);
+    try (StorageTx tx = underTest.openTx()) {
+      Bucket bucket = tx.getBucket();
+      tx.saveAsset(tx.createAsset(bucket, testFormat).name("new"));
+      tx.commit();
+    }
+
+    try (StorageTx tx = underTest.openTx()) {
+      List<String> names = Lists.newArrayList();
+      for (Asset asset : tx.browseAssetsUpdatedSince(tx.getBucket(), since)) {
+        names.add(asset.name());
+      }
+      assertThat(names, contains("new"));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void browseRejectsInvalidCursor() {
+    try (StorageTx tx = underTest.openTx()) {
+      tx.browseAssets(tx.getBucket(), null, null, "not a cursor!", 10);
+    }
+  }
+
+  @Test
+  public void browseComponentsByCoordinates() throws Exception {
+    createComponent("org.b", "b", "1");
+    createComponent("org.a", "b", "2");
+    createComponent("org.a", "a", "2");
+    createComponent("org.a", "b", "1");
+    createComponent("org.a", "a", "1");
+    createComponent("org.a", "a", null);
+
+    try (StorageTx tx = underTest.openTx()) {
+      List<String> coordinates = Lists.newArrayList();
+      for (Component component : tx.browseComponentsByCoordinates(tx.getBucket())) {
+        coordinates.add(component.group() + ":" + component.name() + ":" + component.version());
+      }
+      assertThat(coordinates, equalTo((List<String>) Lists.newArrayList(
+          "org.a:a:1", "org.a:a:2", "org.a:b:1", "org.a:b:2", "org.b:b:1")));
+
+      coordinates.clear();
+      for (Component component : tx.browseComponentsByCoordinates(tx.getBucket(), "org.a", "b")) {
+        coordinates.add(component.group() + ":" + component.name() + ":" + component.version());
+      }
+      assertThat(coordinates, equalTo((List<String>) Lists.newArrayList("org.a:b:1", "org.a:b:2")));
+    }
+  }
+
+  @Test
+  public void browseComponentsByCoordinatesAcrossPages() throws Exception {
+    // more than one page, so following pages start at the last index key of the previous one
+    try (StorageTx tx = underTest.openTx()) {
+      for (int i = 0; i < 2500; i++) {
+        tx.saveComponent(tx.createComponent(tx.getBucket(), testFormat)
+            .group("org.a").name(String.format("n%04d", i % 1250)).version(String.valueOf(i / 1250)));
+      }
+      tx.commit();
+    }
+
+    try (StorageTx tx = underTest.openTx()) {
+      String previous = "";
+      int count = 0;
+      for (Component component : tx.browseComponentsByCoordinates(tx.getBucket())) {
+        String coordinates = component.name() + ":" + component.version();
+        assertThat(coordinates.compareTo(previous) > 0, is(true));
+        previous = coordinates;
+        count++;
+      }
+      assertThat(count, is(2500));
+    }
+  }
+
+  @Test
+  public void browseAssetsOfComponentsAndFindAssetsByNames() throws Exception {
+    EntityId first;
+    EntityId second;
+    try (StorageTx tx = underTest.openTx()) {
+      Component component1 = tx.createComponent(tx.getBucket(), testFormat).name("c1");
+      tx.saveComponent(component1);
+      Component component2 = tx.createComponent(tx.getBucket(), testFormat).name("c2");
+      tx.saveComponent(component2);
+      Component component3 = tx.createComponent(tx.getBucket(), testFormat).name("c3");
+      tx.saveComponent(component3);
+      tx.saveAsset(tx.createAsset(tx.getBucket(), component1).name("a1"));
+      tx.saveAsset(tx.createAsset(tx.getBucket(), component1).name("a2"));
+      tx.saveAsset(tx.createAsset(tx.getBucket(), component2).name("a3"));
+      tx.saveAsset(tx.createAsset(tx.getBucket(), component3).name("a4"));
+      tx.commit();
+      first = id(component1);
+      second = id(component2);
+    }
+
+    try (StorageTx tx = underTest.openTx()) {
+      checkSize(tx.browseAssets(ImmutableList.of(first, second)), 3);
+      checkSize(tx.findAssetsWithProperty(P_NAME, ImmutableList.of("a1", "a4", "missing"), tx.getBucket()), 2);
+    }
+  }
+
   private void checkSize(Iterable iterable, int expectedSize) {
     assertThat(Iterators.size(iterable.iterator()), is(expectedSize));
   }
@@ -0,0 +1,115 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.view.handlers
+
+import javax.annotation.Nonnull
+
+import org.junit.Before
+import org.junit.Test
+import org.sonatype.nexus.repository.Format
+import org.sonatype.nexus.repository.Repository
+import org.sonatype.nexus.repository.http.HttpHandlers
+import org.sonatype.nexus.repository.http.HttpResponses
+import org.sonatype.nexus.repository.manager.RepositoryDeletedEvent
+import org.sonatype.nexus.repository.view.Context
+import org.sonatype.nexus.repository.view.Handler
+import org.sonatype.nexus.repository.view.Request
+import org.sonatype.nexus.repository.view.Response
+import org.sonatype.nexus.repository.view.Route
+import org.sonatype.nexus.repository.view.Router
+import org.sonatype.nexus.repository.view.matchers.AlwaysMatcher
+import org.sonatype.sisu.goodies.eventbus.EventBus
+import org.sonatype.sisu.litmus.testsupport.TestSupport
+
+import com.codahale.metrics.MetricRegistry
+
+import static org.mockito.Mockito.mock
+import static org.mockito.Mockito.when
+
+/**
+ * Tests for {@link TimingHandler}.
+ */
+class TimingHandlerTest
+    extends TestSupport
+{
+  private static final String PREFIX = TimingHandler.class.name
+
+  private MetricRegistry metricRegistry
+
+  private Repository repository
+
+  private TimingHandler underTest
+
+  private Router router
+
+  @Before
+  void setUp() {
+    metricRegistry = new MetricRegistry()
+    repository = mock(Repository)
+    when(repository.name).thenReturn('test')
+    when(repository.format).thenReturn(new Format('raw') {})
+
+    underTest = new TimingHandler(metricRegistry, mock(EventBus))
+    router = newRouter()
+  }
+
+  /**
+   * Routes are created per repository, like the routers of repository view facets.
+   */
+  private Router newRouter() {
+    return new Router.Builder()
+        .route(new Route.Builder()
+            .name('content')
+            .matcher(new AlwaysMatcher())
+            .handler(underTest)
+            .handler(new Handler() {
+              @Override
+              Response handle(@Nonnull final Context context) throws Exception {
+                return context.request.path == '/missing' ? HttpResponses.notFound() : HttpResponses.ok()
+              }
+            })
+            .create())
+        .defaultHandlers(HttpHandlers.badRequest())
+        .create()
+  }
+
+  @Test
+  void 'records per route, repository and format'() {
+    router.dispatch(repository, new Request('/found'))
+    router.dispatch(repository, new Request('/missing'))
+
+    assert metricRegistry.timer("${PREFIX}.repository.test.route.content.requests").count == 2
+    assert metricRegistry.meter("${PREFIX}.repository.test.route.content.2xx").count == 1
+    assert metricRegistry.meter("${PREFIX}.repository.test.route.content.4xx").count == 1
+    assert metricRegistry.timer("${PREFIX}.repository.test.requests").count == 2
+    assert metricRegistry.timer("${PREFIX}.format.raw.requests").count == 2
+  }
+
+  @Test
+  void 'removes metrics of deleted repository only'() {
+    def format = repository.format
+    def other = mock(Repository)
+    when(other.name).thenReturn('test.other')
+    when(other.format).thenReturn(format)
+
+    router.dispatch(repository, new Request('/found'))
+    newRouter().dispatch(other, new Request('/found'))
+    underTest.on(new RepositoryDeletedEvent(repository))
+
+    assert !metricRegistry.names.any { it.startsWith("${PREFIX}.repository.test.route.") }
+    assert !metricRegistry.names.contains("${PREFIX}.repository.test.requests".toString())
+    assert metricRegistry.names.contains("${PREFIX}.repository.test.other.requests".toString())
+    assert metricRegistry.names.contains("${PREFIX}.repository.test.other.route.content.requests".toString())
+    assert metricRegistry.names.contains("${PREFIX}.format.raw.requests".toString())
+  }
+}
@@ -29,6 +29,11 @@ import com.google.common.base.Predicate;
  */
 public interface TaskDescriptor<T extends Task>
 {
+  /**
+   * Default task priority, same as Quartz default trigger priority.
+   */
+  int DEFAULT_PRIORITY = 5;
+
   /**
    * The "type ID" of task. This ID is used in UI solely.
    */
@@ -70,4 +75,16 @@ public interface TaskDescriptor<T extends Task>
    * elements.
    */
   List<TaskInfo> filter(List<TaskInfo> tasks);
+
+  /**
+   * Returns the resource locks a task configured with given configuration holds while running. Tasks holding
+   * conflicting locks are not run in parallel, the later one is queued until the locks are released.
+   */
+  List<TaskLock> locks(TaskConfiguration configuration);
+
+  /**
+   * Returns the priority of task instances, when multiple tasks wait for same resources or threads the one with higher
+   * priority runs first.
+   */
+  int getPriority();
 }
@@ -136,6 +136,19 @@ public abstract class TaskDescriptorSupport<T extends Task>
     return predicate;
   }
 
+  /**
+   * Returns no locks, subclasses should override to declare resources the task works on.
+   */
+  @Override
+  public List<TaskLock> locks(final TaskConfiguration configuration) {
+    return ImmutableList.of();
+  }
+
+  @Override
+  public int getPriority() {
+    return DEFAULT_PRIORITY;
+  }
+
   @Override
   public final List<TaskInfo> filter(final List<TaskInfo> tasks) {
     return newArrayList(Iterables.filter(tasks, predicate()));
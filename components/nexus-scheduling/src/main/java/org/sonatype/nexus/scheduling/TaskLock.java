@@ -0,0 +1,95 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.scheduling;
+
+import java.util.Collection;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A lock on a named resource held by a task while it runs, see {@link TaskDescriptor#locks(TaskConfiguration)}.
+ * Resource names are free form, by convention {@code "repository:<name>"} or {@code "blobstore:<name>"}. Any number of
+ * tasks may hold a shared lock on same resource, while an exclusive lock excludes any other lock on it.
+ *
+ * @since 3.0
+ */
+public final class TaskLock
+{
+  private final String resource;
+
+  private final boolean exclusive;
+
+  private TaskLock(final String resource, final boolean exclusive) {
+    this.resource = checkNotNull(resource);
+    this.exclusive = exclusive;
+  }
+
+  public static TaskLock exclusive(final String resource) {
+    return new TaskLock(resource, true);
+  }
+
+  public static TaskLock shared(final String resource) {
+    return new TaskLock(resource, false);
+  }
+
+  public String getResource() {
+    return resource;
+  }
+
+  public boolean isExclusive() {
+    return exclusive;
+  }
+
+  /**
+   * Returns {@code true} if this lock can not be held at same time as the other lock.
+   */
+  public boolean conflictsWith(final TaskLock other) {
+    return resource.equals(other.resource) && (exclusive || other.exclusive);
+  }
+
+  /**
+   * Returns {@code true} if any of the locks conflicts with any of the other locks.
+   */
+  public static boolean conflicts(final Collection<TaskLock> locks, final Collection<TaskLock> others) {
+    for (TaskLock lock : locks) {
+      for (TaskLock other : others) {
+        if (lock.conflictsWith(other)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    TaskLock that = (TaskLock) o;
+    return exclusive == that.exclusive && resource.equals(that.resource);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * resource.hashCode() + (exclusive ? 1 : 0);
+  }
+
+  @Override
+  public String toString() {
+    return (exclusive ? "exclusive:" : "shared:") + resource;
+  }
+}
@@ -12,13 +12,19 @@
  */
 package org.sonatype.nexus.scheduling.internal;
 
+import java.util.Comparator;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
@@ -27,13 +33,17 @@ import javax.inject.Singleton;
 
 import org.sonatype.nexus.scheduling.Task;
 import org.sonatype.nexus.scheduling.TaskConfiguration;
+import org.sonatype.nexus.scheduling.TaskDescriptor;
 import org.sonatype.nexus.scheduling.TaskFactory;
 import org.sonatype.nexus.scheduling.TaskInfo;
+import org.sonatype.nexus.scheduling.TaskLock;
 import org.sonatype.nexus.scheduling.schedule.Now;
 import org.sonatype.nexus.scheduling.schedule.Schedule;
 import org.sonatype.nexus.scheduling.spi.TaskExecutorSPI;
+import org.sonatype.nexus.scheduling.spi.TaskLockManager;
 import org.sonatype.sisu.goodies.common.ComponentSupport;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.eclipse.sisu.Priority;
@@ -43,6 +53,8 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Simple SPI using ThreadPoolExecutor that supports only simple execution of background tasks, but not scheduling.
+ * Submitted tasks are queued by priority and handed to the pool once their {@link TaskLock}s are acquired, so tasks
+ * working on distinct resources run in parallel while conflicting ones run one after another.
  *
  * @since 3.0
  */
@@ -54,21 +66,56 @@ public class ThreadPoolTaskExecutorSPI
     extends ComponentSupport
     implements TaskExecutorSPI
 {
+  /**
+   * Orders queued tasks by descending priority, then by submission order.
+   */
+  private static final Comparator<ThreadPoolTaskInfo> QUEUE_ORDER = new Comparator<ThreadPoolTaskInfo>()
+  {
+    @Override
+    public int compare(final ThreadPoolTaskInfo o1, final ThreadPoolTaskInfo o2) {
+      if (o1.priority != o2.priority) {
+        return o1.priority > o2.priority ? -1 : 1;
+      }
+      return o1.sequence < o2.sequence ? -1 : (o1.sequence == o2.sequence ? 0 : 1);
+    }
+  };
+
   private final TaskFactory taskFactory;
 
+  private final TaskLockManager taskLockManager;
+
   private final ThreadPoolExecutor executorService;
 
   private final ConcurrentMap<String, ThreadPoolTaskInfo> tasks;
 
   private final ConcurrentMap<String, Future<?>> taskFutures;
 
+  /**
+   * Tasks submitted but not yet handed to the pool, guarded by {@code this}.
+   */
+  private final NavigableSet<ThreadPoolTaskInfo> queued;
+
+  private long sequence;
+
   @Inject
-  public ThreadPoolTaskExecutorSPI(final TaskFactory taskFactory)
+  public ThreadPoolTaskExecutorSPI(final TaskFactory taskFactory,
+                                   final TaskLockManager taskLockManager,
+                                   @Named("${nexus.scheduling.threadPoolSize:-15}") final int threadPoolSize)
   {
+    checkArgument(threadPoolSize > 0, "Pool size must be greater than zero");
     this.taskFactory = checkNotNull(taskFactory);
-    this.executorService = (ThreadPoolExecutor) Executors.newFixedThreadPool(15);
+    this.taskLockManager = checkNotNull(taskLockManager);
+    this.executorService = (ThreadPoolExecutor) Executors.newFixedThreadPool(threadPoolSize);
     this.tasks = Maps.newConcurrentMap();
     this.taskFutures = Maps.newConcurrentMap();
+    this.queued = new TreeSet<>(QUEUE_ORDER);
+    taskLockManager.addReleaseListener(new Runnable()
+    {
+      @Override
+      public void run() {
+        dispatch();
+      }
+    });
   }
 
   private class ThreadPoolTaskInfo
@@ -78,15 +125,47 @@ public class ThreadPoolTaskExecutorSPI
 
     private final Schedule schedule;
 
+    private final List<TaskLock> locks;
+
+    private final int priority;
+
+    private final long sequence;
+
+    private final FutureTask<Object> future;
+
+    private final AtomicBoolean started;
+
     private final Date runStarted;
 
+    private volatile boolean dispatched;
+
     private long runDuration;
 
     private volatile EndState endState;
 
-    public ThreadPoolTaskInfo(final Task task, final Schedule schedule) {
+    public ThreadPoolTaskInfo(final Task task,
+                              final Schedule schedule,
+                              final List<TaskLock> locks,
+                              final int priority,
+                              final long sequence)
+    {
       this.task = task;
       this.schedule = schedule;
+      this.locks = locks;
+      this.priority = priority;
+      this.sequence = sequence;
+      this.started = new AtomicBoolean();
+      this.future = new FutureTask<Object>(this)
+      {
+        @Override
+        protected void done() {
+          // canceled before it could run: call() will not clean up
+          if (isCancelled() && started.compareAndSet(false, true)) {
+            ThreadPoolTaskInfo.this.endState = EndState.CANCELED;
+            finish();
+          }
+        }
+      };
       this.runStarted = new Date();
       this.runDuration = 0;
       this.endState = null;
@@ -154,6 +233,9 @@ public class ThreadPoolTaskExecutorSPI
           if (endState != null) {
             return null;
           }
+          else if (!dispatched) {
+            return RunState.BLOCKED;
+          }
           else {
             return RunState.RUNNING;
           }
@@ -199,15 +281,14 @@ public class ThreadPoolTaskExecutorSPI
 
     @Override
     public boolean remove() {
-      final Future<?> future = taskFutures.get(getId());
-      if (future != null) {
-        return future.cancel(true);
-      }
-      return false;
+      return future.cancel(true);
     }
 
     @Override
     public Object call() throws Exception {
+      if (!started.compareAndSet(false, true)) {
+        return null;
+      }
       final long now = System.currentTimeMillis();
       EndState endState = null;
       log.info("Task started: {} : {}", getConfiguration().getTypeName(), getName());
@@ -223,10 +304,46 @@ public class ThreadPoolTaskExecutorSPI
         throw e;
       }
       finally {
-        taskFutures.remove(getId());
-        tasks.remove(getId());
         this.runDuration = System.currentTimeMillis() - now;
         this.endState = endState;
+        finish();
+      }
+    }
+
+    /**
+     * Forgets this task and releases its locks, letting queued tasks waiting for them proceed.
+     */
+    private void finish() {
+      boolean wasQueued;
+      synchronized (ThreadPoolTaskExecutorSPI.this) {
+        wasQueued = queued.remove(this);
+      }
+      taskFutures.remove(getId(), future);
+      tasks.remove(getId(), this);
+      taskLockManager.release(getId());
+      if (wasQueued) {
+        dispatch();
+      }
+    }
+  }
+
+  /**
+   * Hands queued tasks to the pool in priority order, as long as their locks can be acquired. A task is held back
+   * while it conflicts with a higher ranked queued task, so lower priority tasks can not overtake it indefinitely.
+   */
+  private synchronized void dispatch() {
+    final List<TaskLock> heldBack = Lists.newArrayList();
+    for (Iterator<ThreadPoolTaskInfo> iterator = queued.iterator(); iterator.hasNext(); ) {
+      final ThreadPoolTaskInfo taskInfo = iterator.next();
+      if (!TaskLock.conflicts(taskInfo.locks, heldBack)
+          && taskLockManager.tryAcquire(taskInfo.getId(), taskInfo.locks, taskInfo.priority)) {
+        iterator.remove();
+        taskInfo.dispatched = true;
+        executorService.execute(taskInfo.future);
+      }
+      else {
+        log.debug("Task {} queued, waiting for locks {}", taskInfo.getName(), taskInfo.locks);
+        heldBack.addAll(taskInfo.locks);
       }
     }
   }
@@ -246,19 +363,26 @@ public class ThreadPoolTaskExecutorSPI
     checkNotNull(taskConfiguration);
     checkArgument(schedule instanceof Now, "Only 'now' schedule is supported");
     final Task task = taskFactory.createTaskInstance(taskConfiguration);
-    if (tasks.containsKey(taskConfiguration.getId())) {
-      final ThreadPoolTaskInfo oldTaskInfo = tasks.get(taskConfiguration.getId());
-      if (oldTaskInfo != null) {
-        final Future<?> oldTaskFuture = oldTaskInfo.getCurrentState().getFuture();
-        if (oldTaskFuture != null) {
-          oldTaskFuture.cancel(true);
-        }
-      }
+    final ThreadPoolTaskInfo oldTaskInfo = tasks.get(taskConfiguration.getId());
+    if (oldTaskInfo != null) {
+      oldTaskInfo.remove();
+    }
+    final TaskDescriptor<?> descriptor = taskFactory.resolveTaskDescriptorByTypeId(taskConfiguration.getTypeId());
+    final List<TaskLock> locks;
+    final int priority;
+    if (descriptor != null) {
+      locks = ImmutableList.copyOf(descriptor.locks(taskConfiguration));
+      priority = descriptor.getPriority();
+    }
+    else {
+      locks = ImmutableList.of();
+      priority = TaskDescriptor.DEFAULT_PRIORITY;
     }
-    final ThreadPoolTaskInfo taskInfo = new ThreadPoolTaskInfo(task, schedule);
-    final Future<?> future = executorService.submit(taskInfo);
+    final ThreadPoolTaskInfo taskInfo = new ThreadPoolTaskInfo(task, schedule, locks, priority, sequence++);
     tasks.put(task.getId(), taskInfo);
-    taskFutures.put(task.getId(), future);
+    taskFutures.put(task.getId(), taskInfo.future);
+    queued.add(taskInfo);
+    dispatch();
     return taskInfo;
   }
 
@@ -0,0 +1,172 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.scheduling.spi;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.nexus.scheduling.TaskLock;
+import org.sonatype.sisu.goodies.common.ComponentSupport;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Keeps track of {@link TaskLock}s held by running tasks, shared by all {@link TaskExecutorSPI} implementations.
+ * Locks of one task are acquired all at once or not at all, so tasks never deadlock on each other. Waiting tasks are
+ * ranked by priority and arrival: a task may not take locks that conflict with a higher ranked waiting task, so a
+ * stream of shared lockers can not starve an exclusive one.
+ *
+ * @since 3.0
+ */
+@Named
+@Singleton
+public class TaskLockManager
+    extends ComponentSupport
+{
+  private final Map<String, List<TaskLock>> held = Maps.newHashMap();
+
+  private final List<Waiter> waiters = Lists.newArrayList();
+
+  private final List<Runnable> releaseListeners = new CopyOnWriteArrayList<>();
+
+  private long sequence;
+
+  private static class Waiter
+  {
+    private final List<TaskLock> locks;
+
+    private final int priority;
+
+    private final long sequence;
+
+    private Waiter(final List<TaskLock> locks, final int priority, final long sequence) {
+      this.locks = locks;
+      this.priority = priority;
+      this.sequence = sequence;
+    }
+
+    private boolean outranks(final int priority, final long sequence) {
+      return this.priority > priority || (this.priority == priority && this.sequence < sequence);
+    }
+  }
+
+  /**
+   * Registers a listener invoked whenever locks are released, so callers queueing tasks may retry them.
+   */
+  public void addReleaseListener(final Runnable listener) {
+    releaseListeners.add(checkNotNull(listener));
+  }
+
+  /**
+   * Acquires the locks for owner if none of them conflicts with held locks or locks of a higher ranked waiter,
+   * without waiting.
+   */
+  public synchronized boolean tryAcquire(final String owner, final List<TaskLock> locks, final int priority) {
+    return tryAcquire(owner, locks, priority, Long.MAX_VALUE);
+  }
+
+  /**
+   * Acquires the locks for owner, waiting at most the given time for conflicting locks to be released.
+   */
+  public synchronized boolean acquire(final String owner,
+                                      final List<TaskLock> locks,
+                                      final int priority,
+                                      final long timeout,
+                                      final TimeUnit unit) throws InterruptedException
+  {
+    if (tryAcquire(owner, locks, priority, Long.MAX_VALUE)) {
+      return true;
+    }
+    final Waiter waiter = new Waiter(ImmutableList.copyOf(locks), priority, sequence++);
+    waiters.add(waiter);
+    try {
+      long remaining = unit.toNanos(timeout);
+      final long deadline = System.nanoTime() + remaining;
+      while (remaining > 0) {
+        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        if (tryAcquire(owner, locks, priority, waiter.sequence)) {
+          return true;
+        }
+        remaining = deadline - System.nanoTime();
+      }
+      return false;
+    }
+    finally {
+      waiters.remove(waiter);
+      // lower ranked waiters may proceed now
+      notifyAll();
+    }
+  }
+
+  /**
+   * Releases all locks held by owner.
+   */
+  public void release(final String owner) {
+    synchronized (this) {
+      if (held.remove(owner) == null) {
+        return;
+      }
+      notifyAll();
+    }
+    for (Runnable listener : releaseListeners) {
+      try {
+        listener.run();
+      }
+      catch (Exception e) {
+        log.warn("Release listener {} failed", listener, e);
+      }
+    }
+  }
+
+  /**
+   * Returns the locks currently held by owner, empty if none.
+   */
+  public synchronized List<TaskLock> heldBy(final String owner) {
+    List<TaskLock> locks = held.get(owner);
+    return locks != null ? locks : ImmutableList.<TaskLock>of();
+  }
+
+  private boolean tryAcquire(final String owner, final List<TaskLock> locks, final int priority, final long sequence) {
+    checkNotNull(owner);
+    checkNotNull(locks);
+    if (locks.isEmpty()) {
+      return true;
+    }
+    if (held.containsKey(owner)) {
+      // previous run of same task still holds its locks
+      return false;
+    }
+    for (List<TaskLock> heldLocks : held.values()) {
+      if (TaskLock.conflicts(locks, heldLocks)) {
+        return false;
+      }
+    }
+    for (Waiter waiter : waiters) {
+      if (waiter.outranks(priority, sequence) && TaskLock.conflicts(locks, waiter.locks)) {
+        return false;
+      }
+    }
+    held.put(owner, ImmutableList.copyOf(locks));
+    log.debug("Task {} acquired locks {}", owner, locks);
+    return true;
+  }
+}
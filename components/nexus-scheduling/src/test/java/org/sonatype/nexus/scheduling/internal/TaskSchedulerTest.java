@@ -26,6 +26,7 @@ import org.sonatype.nexus.scheduling.TaskInfo.CurrentState;
 import org.sonatype.nexus.scheduling.TaskInfo.RunState;
 import org.sonatype.nexus.scheduling.TaskInfo.State;
 import org.sonatype.nexus.scheduling.spi.TaskExecutorSPI;
+import org.sonatype.nexus.scheduling.spi.TaskLockManager;
 import org.sonatype.sisu.litmus.testsupport.TestSupport;
 
 import com.google.common.collect.ImmutableList;
@@ -51,7 +52,7 @@ public class TaskSchedulerTest
     final DefaultTaskFactory nexusTaskFactory = new DefaultTaskFactory(
         ImmutableList.of(task), Lists.<TaskDescriptor<?>>newArrayList());
     nexusTaskScheduler = new DefaultTaskScheduler(nexusTaskFactory,
-        Providers.<TaskExecutorSPI>of(new ThreadPoolTaskExecutorSPI(nexusTaskFactory)));
+        Providers.<TaskExecutorSPI>of(new ThreadPoolTaskExecutorSPI(nexusTaskFactory, new TaskLockManager(), 15)));
   }
 
   @Test
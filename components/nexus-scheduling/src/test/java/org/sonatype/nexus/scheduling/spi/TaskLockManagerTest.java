@@ -0,0 +1,143 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.scheduling.spi;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.sonatype.nexus.scheduling.TaskLock;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for {@link TaskLockManager}.
+ */
+public class TaskLockManagerTest
+    extends TestSupport
+{
+  private static final List<TaskLock> SHARED_REPO = ImmutableList.of(TaskLock.shared("repository:central"));
+
+  private static final List<TaskLock> EXCLUSIVE_REPO = ImmutableList.of(TaskLock.exclusive("repository:central"));
+
+  private static final List<TaskLock> EXCLUSIVE_BLOBSTORE = ImmutableList.of(TaskLock.exclusive("blobstore:default"));
+
+  private TaskLockManager underTest;
+
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    underTest = new TaskLockManager();
+    executor = Executors.newSingleThreadExecutor();
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void sharedLocksAreCompatible() {
+    assertThat(underTest.tryAcquire("a", SHARED_REPO, 5), is(true));
+    assertThat(underTest.tryAcquire("b", SHARED_REPO, 5), is(true));
+    assertThat(underTest.tryAcquire("c", EXCLUSIVE_REPO, 5), is(false));
+  }
+
+  @Test
+  public void exclusiveLockExcludesOthersOnSameResourceOnly() {
+    assertThat(underTest.tryAcquire("a", EXCLUSIVE_REPO, 5), is(true));
+    assertThat(underTest.tryAcquire("b", SHARED_REPO, 5), is(false));
+    assertThat(underTest.tryAcquire("c", EXCLUSIVE_BLOBSTORE, 5), is(true));
+    underTest.release("a");
+    assertThat(underTest.tryAcquire("b", SHARED_REPO, 5), is(true));
+  }
+
+  @Test
+  public void locksAreAcquiredAllOrNothing() {
+    assertThat(underTest.tryAcquire("a", EXCLUSIVE_BLOBSTORE, 5), is(true));
+    List<TaskLock> both = ImmutableList.<TaskLock>builder().addAll(SHARED_REPO).addAll(EXCLUSIVE_BLOBSTORE).build();
+    assertThat(underTest.tryAcquire("b", both, 5), is(false));
+    assertThat(underTest.heldBy("b").isEmpty(), is(true));
+    assertThat(underTest.tryAcquire("c", EXCLUSIVE_REPO, 5), is(true));
+  }
+
+  @Test
+  public void waiterAcquiresOnRelease() throws Exception {
+    assertThat(underTest.tryAcquire("a", EXCLUSIVE_REPO, 5), is(true));
+    Future<Boolean> waiting = executor.submit(new Callable<Boolean>()
+    {
+      @Override
+      public Boolean call() throws Exception {
+        return underTest.acquire("b", EXCLUSIVE_REPO, 5, 10, TimeUnit.SECONDS);
+      }
+    });
+    underTest.release("a");
+    assertThat(waiting.get(10, TimeUnit.SECONDS), is(true));
+    assertThat(underTest.heldBy("b"), equalTo(EXCLUSIVE_REPO));
+  }
+
+  @Test
+  public void acquireTimesOut() throws Exception {
+    assertThat(underTest.tryAcquire("a", EXCLUSIVE_REPO, 5), is(true));
+    assertThat(underTest.acquire("b", SHARED_REPO, 5, 10, TimeUnit.MILLISECONDS), is(false));
+  }
+
+  @Test
+  public void higherPriorityWaiterIsNotOvertaken() throws Exception {
+    assertThat(underTest.tryAcquire("a", SHARED_REPO, 5), is(true));
+    Future<Boolean> waiting = executor.submit(new Callable<Boolean>()
+    {
+      @Override
+      public Boolean call() throws Exception {
+        return underTest.acquire("b", EXCLUSIVE_REPO, 10, 10, TimeUnit.SECONDS);
+      }
+    });
+    // wait for the exclusive waiter to register
+    while (underTest.tryAcquire("probe", SHARED_REPO, 1)) {
+      underTest.release("probe");
+      Thread.sleep(10);
+    }
+    assertThat(underTest.tryAcquire("c", SHARED_REPO, 5), is(false));
+    underTest.release("a");
+    assertThat(waiting.get(10, TimeUnit.SECONDS), is(true));
+  }
+
+  @Test
+  public void releaseNotifiesListeners() {
+    final AtomicInteger released = new AtomicInteger();
+    underTest.addReleaseListener(new Runnable()
+    {
+      @Override
+      public void run() {
+        released.incrementAndGet();
+      }
+    });
+    assertThat(underTest.tryAcquire("a", EXCLUSIVE_REPO, 5), is(true));
+    underTest.release("a");
+    underTest.release("a");
+    assertThat(released.get(), is(1));
+  }
+}
@@ -26,6 +26,7 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.sonatype.nexus.cache.CacheService;
 import org.sonatype.nexus.common.text.Strings2;
 import org.sonatype.nexus.common.throwables.ConfigurationException;
 import org.sonatype.nexus.security.SecuritySystem;
@@ -48,16 +49,15 @@ import org.sonatype.nexus.security.user.UserNotFoundException;
 import org.sonatype.nexus.security.user.UserSearchCriteria;
 import org.sonatype.nexus.security.user.UserStatus;
 import org.sonatype.sisu.goodies.common.ComponentSupport;
+import org.sonatype.sisu.goodies.common.Time;
 import org.sonatype.sisu.goodies.eventbus.EventBus;
 
-import net.sf.ehcache.CacheManager;
 import org.apache.shiro.SecurityUtils;
 import org.apache.shiro.authc.AuthenticationException;
 import org.apache.shiro.authc.AuthenticationInfo;
 import org.apache.shiro.authc.AuthenticationToken;
 import org.apache.shiro.authc.UsernamePasswordToken;
 import org.apache.shiro.authz.AuthorizationException;
-import org.apache.shiro.cache.ehcache.EhCacheManager;
 import org.apache.shiro.mgt.RealmSecurityManager;
 import org.apache.shiro.realm.Realm;
 import org.apache.shiro.subject.PrincipalCollection;
@@ -80,7 +80,11 @@ public class DefaultSecuritySystem
 
   private final EventBus eventBus;
 
-  private final CacheManager cacheManager;
+  private final CacheService cacheService;
+
+  private final int cacheSize;
+
+  private final Time cacheTimeToLive;
 
   private final RealmSecurityManager realmSecurityManager;
 
@@ -96,15 +100,19 @@ public class DefaultSecuritySystem
 
   @Inject
   public DefaultSecuritySystem(final EventBus eventBus,
-                               final CacheManager cacheManager,
+                               final CacheService cacheService,
                                final RealmSecurityManager realmSecurityManager,
                                final RealmManager realmManager,
                                final AnonymousManager anonymousManager,
                                final Map<String, AuthorizationManager> authorizationManagers,
-                               final Map<String, UserManager> userManagers)
+                               final Map<String, UserManager> userManagers,
+                               @Named("${nexus.security.cache.size:-1000}") final int cacheSize,
+                               @Named("${nexus.security.cache.timeToLive:-120s}") final Time cacheTimeToLive)
   {
     this.eventBus = checkNotNull(eventBus);
-    this.cacheManager = checkNotNull(cacheManager);
+    this.cacheService = checkNotNull(cacheService);
+    this.cacheSize = cacheSize;
+    this.cacheTimeToLive = checkNotNull(cacheTimeToLive);
     this.realmSecurityManager = checkNotNull(realmSecurityManager);
     this.realmManager = checkNotNull(realmManager);
     this.anonymousManager = checkNotNull(anonymousManager);
@@ -143,9 +151,7 @@ public class DefaultSecuritySystem
     }
 
     // prepare shiro cache
-    EhCacheManager shiroCacheManager = new EhCacheManager();
-    shiroCacheManager.setCacheManager(cacheManager);
-    realmSecurityManager.setCacheManager(shiroCacheManager);
+    realmSecurityManager.setCacheManager(new ShiroCacheManager(cacheService, cacheSize, cacheTimeToLive));
 
     // TODO: Sort out better means to invoke lifecycle here, realm-manager is only here for start/stop now
     realmManager.start();
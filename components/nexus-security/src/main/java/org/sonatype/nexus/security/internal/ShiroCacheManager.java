@@ -0,0 +1,104 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.security.internal;
+
+import java.util.Collection;
+import java.util.Set;
+
+import org.sonatype.nexus.cache.CacheConfig;
+import org.sonatype.nexus.cache.CacheService;
+import org.sonatype.sisu.goodies.common.Time;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.apache.shiro.cache.Cache;
+import org.apache.shiro.cache.CacheManager;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Shiro {@link CacheManager} backed by {@link CacheService} caches.
+ *
+ * @since 3.0
+ */
+class ShiroCacheManager
+    implements CacheManager
+{
+  private final CacheService cacheService;
+
+  private final long maximumEntries;
+
+  private final Time timeToLive;
+
+  ShiroCacheManager(final CacheService cacheService, final long maximumEntries, final Time timeToLive) {
+    this.cacheService = checkNotNull(cacheService);
+    this.maximumEntries = maximumEntries;
+    this.timeToLive = checkNotNull(timeToLive);
+  }
+
+  @Override
+  public <K, V> Cache<K, V> getCache(final String name) {
+    com.google.common.cache.Cache<K, V> cache = cacheService.getOrCreateCache(name, new CacheConfig<K, V>()
+        .maximumEntries(maximumEntries)
+        .expireAfterWrite(timeToLive)
+        .expireAfterAccess(timeToLive));
+    return new ShiroCache<>(cache);
+  }
+
+  private static class ShiroCache<K, V>
+      implements Cache<K, V>
+  {
+    private final com.google.common.cache.Cache<K, V> cache;
+
+    private ShiroCache(final com.google.common.cache.Cache<K, V> cache) {
+      this.cache = cache;
+    }
+
+    @Override
+    public V get(final K key) {
+      return cache.getIfPresent(key);
+    }
+
+    @Override
+    public V put(final K key, final V value) {
+      V previous = cache.getIfPresent(key);
+      cache.put(key, value);
+      return previous;
+    }
+
+    @Override
+    public V remove(final K key) {
+      return cache.asMap().remove(key);
+    }
+
+    @Override
+    public void clear() {
+      cache.invalidateAll();
+    }
+
+    @Override
+    public int size() {
+      return (int) cache.size();
+    }
+
+    @Override
+    public Set<K> keys() {
+      return ImmutableSet.copyOf(cache.asMap().keySet());
+    }
+
+    @Override
+    public Collection<V> values() {
+      return ImmutableList.copyOf(cache.asMap().values());
+    }
+  }
+}
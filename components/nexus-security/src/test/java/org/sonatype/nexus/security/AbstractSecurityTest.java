@@ -31,7 +31,6 @@ import com.google.inject.Guice;
 import com.google.inject.Key;
 import com.google.inject.Module;
 import com.google.inject.name.Names;
-import net.sf.ehcache.CacheManager;
 import org.apache.shiro.util.ThreadContext;
 import org.eclipse.sisu.inject.BeanLocator;
 import org.eclipse.sisu.space.BeanScanning;
@@ -105,13 +104,6 @@ public abstract class AbstractSecurityTest
       util.getLog().warn("Failed to stop security-system", e);
     }
 
-    try {
-      lookup(CacheManager.class).shutdown();
-    }
-    catch (Exception e) {
-      util.getLog().warn("Failed to shutdown cache-manager", e);
-    }
-
     ThreadContext.remove();
   }
 
@@ -13,6 +13,8 @@
 package org.sonatype.nexus.supportzip;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * Generates a support ZIP file.
@@ -203,4 +205,15 @@ public interface SupportZipGenerator
    * Generate a support ZIP for the given request.
    */
   Result generate(Request request);
+
+  /**
+   * Generate a support ZIP for the given request, streaming it directly to the given output stream.
+   *
+   * The stream is not closed and the returned result has no {@link Result#getFile() file}.
+   *
+   * @param prefix  Name of the top-level directory of all ZIP entries.
+   *
+   * @since 3.0
+   */
+  Result generate(Request request, String prefix, OutputStream output) throws IOException;
 }
\ No newline at end of file
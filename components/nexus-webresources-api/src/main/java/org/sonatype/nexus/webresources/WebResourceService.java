@@ -40,4 +40,12 @@ public interface WebResourceService
    */
   @Nullable
   WebResource getResource(String path);
+
+  /**
+   * Returns the path including a fingerprint of the content for a bound cacheable web-resource, which clients may
+   * cache forever, or the given path if the resource is not fingerprinted.
+   *
+   * @since 3.0
+   */
+  String getFingerprintedPath(String path);
 }
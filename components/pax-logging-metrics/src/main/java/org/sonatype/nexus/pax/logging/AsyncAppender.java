@@ -0,0 +1,342 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.pax.logging;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.sonatype.nexus.common.concurrent.RingBuffer;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.UnsynchronizedAppenderBase;
+import ch.qos.logback.core.spi.AppenderAttachable;
+import ch.qos.logback.core.spi.AppenderAttachableImpl;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricFilter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+
+/**
+ * Appender handing events to its attached appenders on a background thread, through a bounded lock-free ring buffer.
+ *
+ * When the buffer is full, events at or above {@code blockingLevel} (default WARN) wait for space while others are
+ * dropped. Events at or below {@code discardingLevel} (default DEBUG) are already dropped once the buffer is more than
+ * {@code discardingThreshold} percent (default 80) full, keeping room for more important events. Buffered events are
+ * flushed to the attached appenders on stop, waiting at most {@code maxFlushTime} milliseconds.
+ *
+ * Publishes under {@code org.sonatype.nexus.pax.logging.AsyncAppender.<name>} dropped event meters, overall and per
+ * level, and the current depth of the buffer.
+ *
+ * @since 3.0
+ */
+public class AsyncAppender
+    extends UnsynchronizedAppenderBase<ILoggingEvent>
+    implements AppenderAttachable<ILoggingEvent>
+{
+  private static final int DEFAULT_QUEUE_SIZE = 8192;
+
+  private static final int DEFAULT_MAX_FLUSH_TIME = 1000;
+
+  private static final long BLOCKED_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+  private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private final AppenderAttachableImpl<ILoggingEvent> appenders = new AppenderAttachableImpl<>();
+
+  private final MetricRegistry metricRegistry = SharedMetricRegistries.getOrCreate("nexus");
+
+  private int queueSize = DEFAULT_QUEUE_SIZE;
+
+  private Level blockingLevel = Level.WARN;
+
+  private Level discardingLevel = Level.DEBUG;
+
+  private int discardingThreshold = 80;
+
+  private int maxFlushTime = DEFAULT_MAX_FLUSH_TIME;
+
+  private boolean includeCallerData;
+
+  private RingBuffer<ILoggingEvent> buffer;
+
+  private int discardingSize;
+
+  private String metricPrefix;
+
+  private Meter dropped;
+
+  private Meter[] droppedByLevel;
+
+  private Worker worker;
+
+  private volatile boolean running;
+
+  private volatile boolean workerWaiting;
+
+  public void setQueueSize(final int queueSize) {
+    this.queueSize = queueSize;
+  }
+
+  public int getQueueSize() {
+    return queueSize;
+  }
+
+  public void setBlockingLevel(final String level) {
+    this.blockingLevel = Level.toLevel(level, Level.WARN);
+  }
+
+  public String getBlockingLevel() {
+    return blockingLevel.toString();
+  }
+
+  public void setDiscardingLevel(final String level) {
+    this.discardingLevel = Level.toLevel(level, Level.DEBUG);
+  }
+
+  public String getDiscardingLevel() {
+    return discardingLevel.toString();
+  }
+
+  /**
+   * @param discardingThreshold percentage of the buffer filled before discarding events at or below discarding level
+   */
+  public void setDiscardingThreshold(final int discardingThreshold) {
+    this.discardingThreshold = discardingThreshold;
+  }
+
+  public int getDiscardingThreshold() {
+    return discardingThreshold;
+  }
+
+  /**
+   * @param maxFlushTime milliseconds to wait on stop for buffered events to be appended, 0 to wait indefinitely
+   */
+  public void setMaxFlushTime(final int maxFlushTime) {
+    this.maxFlushTime = maxFlushTime;
+  }
+
+  public int getMaxFlushTime() {
+    return maxFlushTime;
+  }
+
+  public void setIncludeCallerData(final boolean includeCallerData) {
+    this.includeCallerData = includeCallerData;
+  }
+
+  public boolean isIncludeCallerData() {
+    return includeCallerData;
+  }
+
+  @Override
+  public void start() {
+    if (isStarted()) {
+      return;
+    }
+    if (queueSize < 1) {
+      addError("Invalid queue size: " + queueSize);
+      return;
+    }
+    if (!appenders.iteratorForAppenders().hasNext()) {
+      addWarn("No appenders attached to " + getName());
+    }
+
+    buffer = new RingBuffer<>(queueSize);
+    discardingSize = (int) (buffer.capacity() * Math.min(Math.max(discardingThreshold, 0), 100) / 100L);
+
+    metricPrefix = MetricRegistry.name(AsyncAppender.class, getName());
+    dropped = metricRegistry.meter(MetricRegistry.name(metricPrefix, "dropped"));
+    droppedByLevel = new Meter[] {
+        metricRegistry.meter(MetricRegistry.name(metricPrefix, "dropped", "trace")),
+        metricRegistry.meter(MetricRegistry.name(metricPrefix, "dropped", "debug")),
+        metricRegistry.meter(MetricRegistry.name(metricPrefix, "dropped", "info")),
+        metricRegistry.meter(MetricRegistry.name(metricPrefix, "dropped", "warn")),
+        metricRegistry.meter(MetricRegistry.name(metricPrefix, "dropped", "error"))
+    };
+    String depthName = MetricRegistry.name(metricPrefix, "depth");
+    metricRegistry.remove(depthName);
+    metricRegistry.register(depthName, new Gauge<Integer>()
+    {
+      @Override
+      public Integer getValue() {
+        return buffer.size();
+      }
+    });
+
+    running = true;
+    worker = new Worker();
+    worker.start();
+    super.start();
+  }
+
+  @Override
+  public void stop() {
+    if (!isStarted()) {
+      return;
+    }
+    super.stop();
+
+    // let the worker drain what is buffered, then stop
+    running = false;
+    LockSupport.unpark(worker);
+    try {
+      worker.join(maxFlushTime);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (worker.isAlive()) {
+      addWarn("Stopped " + getName() + " with " + buffer.size() + " events not yet appended");
+      worker.interrupt();
+    }
+    appenders.detachAndStopAllAppenders();
+
+    metricRegistry.removeMatching(new MetricFilter()
+    {
+      @Override
+      public boolean matches(final String name, final Metric metric) {
+        return name.startsWith(metricPrefix + '.');
+      }
+    });
+  }
+
+  @Override
+  protected void append(final ILoggingEvent event) {
+    Level level = event.getLevel();
+    if (!level.isGreaterOrEqual(blockingLevel) && level.toInt() <= discardingLevel.toInt()
+        && buffer.size() >= discardingSize) {
+      drop(level);
+      return;
+    }
+
+    // capture thread bound details before handing over
+    event.prepareForDeferredProcessing();
+    if (includeCallerData) {
+      event.getCallerData();
+    }
+
+    while (!buffer.offer(event)) {
+      if (!level.isGreaterOrEqual(blockingLevel) || !running) {
+        drop(level);
+        return;
+      }
+      LockSupport.parkNanos(this, BLOCKED_PARK_NANOS);
+    }
+
+    if (workerWaiting) {
+      LockSupport.unpark(worker);
+    }
+  }
+
+  private void drop(final Level level) {
+    dropped.mark();
+    switch (level.toInt()) {
+      case Level.ERROR_INT:
+        droppedByLevel[4].mark();
+        break;
+      case Level.WARN_INT:
+        droppedByLevel[3].mark();
+        break;
+      case Level.INFO_INT:
+        droppedByLevel[2].mark();
+        break;
+      case Level.DEBUG_INT:
+        droppedByLevel[1].mark();
+        break;
+      default:
+        droppedByLevel[0].mark();
+    }
+  }
+
+  /**
+   * Single consumer of the buffer, appending events to attached appenders.
+   */
+  private class Worker
+      extends Thread
+  {
+    private Worker() {
+      super("logback-async-" + AsyncAppender.this.getName());
+      setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+      while (true) {
+        ILoggingEvent event = buffer.poll();
+        if (event != null) {
+          appenders.appendLoopOnAppenders(event);
+          continue;
+        }
+        if (!running || isInterrupted()) {
+          // drained after stop
+          return;
+        }
+
+        // announce waiting before the final check, so producers do not miss to unpark us
+        workerWaiting = true;
+        event = buffer.poll();
+        if (event != null) {
+          workerWaiting = false;
+          appenders.appendLoopOnAppenders(event);
+          continue;
+        }
+        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        workerWaiting = false;
+      }
+    }
+  }
+
+  //
+  // AppenderAttachable
+  //
+
+  @Override
+  public void addAppender(final Appender<ILoggingEvent> newAppender) {
+    addInfo("Attaching appender " + newAppender.getName() + " to " + getName());
+    appenders.addAppender(newAppender);
+  }
+
+  @Override
+  public Iterator<Appender<ILoggingEvent>> iteratorForAppenders() {
+    return appenders.iteratorForAppenders();
+  }
+
+  @Override
+  public Appender<ILoggingEvent> getAppender(final String name) {
+    return appenders.getAppender(name);
+  }
+
+  @Override
+  public boolean isAttached(final Appender<ILoggingEvent> appender) {
+    return appenders.isAttached(appender);
+  }
+
+  @Override
+  public void detachAndStopAllAppenders() {
+    appenders.detachAndStopAllAppenders();
+  }
+
+  @Override
+  public boolean detachAppender(final Appender<ILoggingEvent> appender) {
+    return appenders.detachAppender(appender);
+  }
+
+  @Override
+  public boolean detachAppender(final String name) {
+    return appenders.detachAppender(name);
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.pax.logging;
+
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.codahale.metrics.SharedMetricRegistries;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for {@link AsyncAppender}.
+ */
+public class AsyncAppenderTest
+    extends TestSupport
+{
+  private LoggerContext context;
+
+  private ListAppender<ILoggingEvent> target;
+
+  private AsyncAppender underTest;
+
+  @Before
+  public void setUp() {
+    context = new LoggerContext();
+
+    target = new ListAppender<>();
+    target.setContext(context);
+    target.setName("target");
+    target.start();
+
+    underTest = new AsyncAppender();
+    underTest.setContext(context);
+    underTest.setName("test");
+    underTest.addAppender(target);
+  }
+
+  private ILoggingEvent event(final Level level, final String message) {
+    return new LoggingEvent(getClass().getName(), context.getLogger("test"), level, message, null, null);
+  }
+
+  @Test
+  public void eventsFlushedOnStop() {
+    underTest.start();
+    for (int i = 0; i < 1000; i++) {
+      underTest.doAppend(event(Level.INFO, "message " + i));
+    }
+    underTest.stop();
+
+    assertThat(target.list.size(), is(1000));
+    assertThat(target.list.get(999).getMessage(), is("message 999"));
+    assertThat(target.isStarted(), is(false));
+  }
+
+  @Test
+  public void lowLevelEventsDiscardedWhenFilling() {
+    underTest.setQueueSize(4);
+    underTest.setDiscardingThreshold(0);
+    underTest.start();
+
+    underTest.doAppend(event(Level.DEBUG, "debug"));
+    underTest.doAppend(event(Level.ERROR, "error"));
+    assertThat(SharedMetricRegistries.getOrCreate("nexus")
+        .meter("org.sonatype.nexus.pax.logging.AsyncAppender.test.dropped.debug").getCount(), is(1L));
+    underTest.stop();
+
+    assertThat(target.list.size(), is(1));
+    assertThat(target.list.get(0).getMessage(), is("error"));
+  }
+}
@@ -13,10 +13,10 @@
 package org.sonatype.nexus.quartz.internal;
 
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.Semaphore;
-import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor.AbortPolicy;
@@ -34,6 +34,10 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 /**
  * Nexus specific implementation of {@link ThreadPool} that is integrated with Shiro.
+ * <p/>
+ * A semaphore with one permit per thread gates submission: a permit is taken before a job is handed to the executor
+ * and returned once the job completes. Submission hence waits for a free thread instead of being rejected, as Quartz
+ * puts the trigger into error state when {@link #runInThread(Runnable)} fails.
  *
  * @since 3.0
  */
@@ -55,7 +59,7 @@ public class QuartzThreadPool
     checkArgument(poolSize > 0, "Pool size must be greater than zero");
     this.threadPoolExecutor = new NexusThreadPoolExecutor(poolSize, poolSize,
         0L, TimeUnit.MILLISECONDS,
-        new SynchronousQueue<Runnable>(), // no queuing
+        new LinkedBlockingQueue<Runnable>(), // bounded by semaphore permits
         new NexusThreadFactory("qz", "nx-tasks"),
         new AbortPolicy());
     // wrapper for Shiro integration
@@ -66,13 +70,20 @@ public class QuartzThreadPool
   @Override
   public boolean runInThread(final Runnable runnable) {
     try {
-      // this below is true as we do not use queue on executor
-      // combined with abort policy. Meaning, if no exception,
-      // the task is accepted for execution
+      threadPoolExecutor.getSemaphore().acquire();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+    try {
+      // permit is held, so a thread is free or about to be: the job never waits behind another one
       nexusExecutorService.submit(runnable);
       return true;
     }
     catch (RejectedExecutionException e) {
+      // shut down
+      threadPoolExecutor.getSemaphore().release();
       return false;
     }
   }
@@ -130,7 +141,8 @@ public class QuartzThreadPool
 
   /**
    * Nexus specific thread pool executor that helps implementing the blocking logic using a Semaphore and using
-   * the "hooks" on {@link ThreadPoolExecutor} class.
+   * the "hooks" on {@link ThreadPoolExecutor} class. Permits are acquired by {@link #runInThread(Runnable)} and released
+   * after execution.
    */
   public static class NexusThreadPoolExecutor
       extends ThreadPoolExecutor
@@ -152,16 +164,6 @@ public class QuartzThreadPool
       return semaphore;
     }
 
-    @Override
-    protected void beforeExecute(Thread t, Runnable r) {
-      try {
-        semaphore.tryAcquire();
-      }
-      finally {
-        super.beforeExecute(t, r);
-      }
-    }
-
     @Override
     protected void afterExecute(Runnable r, Throwable t) {
       try {
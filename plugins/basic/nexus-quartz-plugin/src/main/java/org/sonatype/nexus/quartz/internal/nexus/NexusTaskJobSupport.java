@@ -14,6 +14,7 @@ package org.sonatype.nexus.quartz.internal.nexus;
 
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -23,12 +24,15 @@ import org.sonatype.nexus.quartz.JobSupport;
 import org.sonatype.nexus.scheduling.Cancelable;
 import org.sonatype.nexus.scheduling.Task;
 import org.sonatype.nexus.scheduling.TaskConfiguration;
+import org.sonatype.nexus.scheduling.TaskDescriptor;
 import org.sonatype.nexus.scheduling.TaskFactory;
 import org.sonatype.nexus.scheduling.TaskInfo;
+import org.sonatype.nexus.scheduling.TaskLock;
 import org.sonatype.nexus.scheduling.TaskInfo.RunState;
 import org.sonatype.nexus.scheduling.TaskInfo.State;
 import org.sonatype.nexus.scheduling.TaskInterruptedException;
 import org.sonatype.nexus.scheduling.events.TaskEventCanceled;
+import org.sonatype.nexus.scheduling.spi.TaskLockManager;
 import org.sonatype.nexus.web.BaseUrlDetector;
 import org.sonatype.sisu.goodies.eventbus.EventBus;
 
@@ -81,6 +85,8 @@ public class NexusTaskJobSupport
 
   private final BaseUrlDetector baseUrlDetector;
 
+  private final TaskLockManager taskLockManager;
+
   private NexusTaskInfo nexusTaskInfo;
 
   private NexusTaskFuture future;
@@ -91,12 +97,14 @@ public class NexusTaskJobSupport
   public NexusTaskJobSupport(final EventBus eventBus,
                              final Provider<QuartzTaskExecutorSPI> quartzNexusSchedulerSPIProvider,
                              final TaskFactory taskFactory,
-                             final BaseUrlDetector baseUrlDetector)
+                             final BaseUrlDetector baseUrlDetector,
+                             final TaskLockManager taskLockManager)
   {
     this.eventBus = checkNotNull(eventBus);
     this.quartzNexusSchedulerSPIProvider = checkNotNull(quartzNexusSchedulerSPIProvider);
     this.taskFactory = checkNotNull(taskFactory);
     this.baseUrlDetector = checkNotNull(baseUrlDetector);
+    this.taskLockManager = checkNotNull(taskLockManager);
   }
 
   @Override
@@ -121,13 +129,14 @@ public class NexusTaskJobSupport
       try {
         if (!future.isCancelled()) {
           mayBlock();
-          if (!future.isCancelled()) {
-            future.setRunState(RunState.RUNNING);
+          if (!future.isCancelled() && acquireLocks(taskConfiguration)) {
             try {
+              future.setRunState(RunState.RUNNING);
               final Object result = nexusTask.call();
               context.setResult(result);
             }
             finally {
+              taskLockManager.release(nexusTask.getId());
               // put back any state task modified to have it persisted
               context.getJobDetail().getJobDataMap().putAll(nexusTask.taskConfiguration().asMap());
             }
@@ -195,6 +204,41 @@ public class NexusTaskJobSupport
     while (!blockedBy.isEmpty());
   }
 
+  /**
+   * Waits for the resource locks declared by task descriptor, in blocked run-state. Returns {@code false} if the task
+   * got canceled while waiting.
+   */
+  private boolean acquireLocks(final TaskConfiguration taskConfiguration) throws InterruptedException {
+    final TaskDescriptor<?> descriptor = taskFactory.resolveTaskDescriptorByTypeId(taskConfiguration.getTypeId());
+    if (descriptor == null) {
+      return true;
+    }
+    final List<TaskLock> locks = descriptor.locks(taskConfiguration);
+    final int priority = descriptor.getPriority();
+    if (taskLockManager.tryAcquire(nexusTask.getId(), locks, priority)) {
+      return true;
+    }
+    log.debug("Task {} : {} waiting for locks {}", taskConfiguration.getId(), taskConfiguration.getTaskLogName(), locks);
+    try {
+      future.setRunState(RunState.BLOCKED);
+    }
+    catch (IllegalStateException e) {
+      // task got canceled: setRunState threw ISEx
+      return false;
+    }
+    // re-check cancellation periodically, as canceling a blocked task does not interrupt the thread
+    while (!taskLockManager.acquire(nexusTask.getId(), locks, priority, 1, TimeUnit.SECONDS)) {
+      if (future.isCancelled()) {
+        return false;
+      }
+    }
+    if (future.isCancelled()) {
+      taskLockManager.release(nexusTask.getId());
+      return false;
+    }
+    return true;
+  }
+
   @Override
   public void interrupt() throws UnableToInterruptJobException {
     if (nexusTask instanceof Cancelable) {
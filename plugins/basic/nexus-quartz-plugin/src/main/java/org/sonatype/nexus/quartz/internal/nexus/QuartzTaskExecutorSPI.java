@@ -24,6 +24,8 @@ import javax.inject.Singleton;
 
 import org.sonatype.nexus.quartz.QuartzSupport;
 import org.sonatype.nexus.scheduling.TaskConfiguration;
+import org.sonatype.nexus.scheduling.TaskDescriptor;
+import org.sonatype.nexus.scheduling.TaskFactory;
 import org.sonatype.nexus.scheduling.TaskInfo;
 import org.sonatype.nexus.scheduling.TaskInfo.State;
 import org.sonatype.nexus.scheduling.TaskRemovedException;
@@ -76,14 +78,27 @@ public class QuartzTaskExecutorSPI
 
   private final NexusScheduleConverter nexusScheduleConverter;
 
+  private final TaskFactory taskFactory;
+
   @Inject
   public QuartzTaskExecutorSPI(final EventBus eventBus,
                                final QuartzSupport quartzSupport,
-                               final NexusScheduleConverter nexusScheduleConverter)
+                               final NexusScheduleConverter nexusScheduleConverter,
+                               final TaskFactory taskFactory)
   {
     this.eventBus = checkNotNull(eventBus);
     this.quartzSupport = checkNotNull(quartzSupport);
     this.nexusScheduleConverter = checkNotNull(nexusScheduleConverter);
+    this.taskFactory = checkNotNull(taskFactory);
+  }
+
+  /**
+   * Returns the priority declared by task descriptor, used as trigger priority so Quartz fires higher priority tasks
+   * first when more triggers are due than there are threads.
+   */
+  private int priorityOf(final TaskConfiguration taskConfiguration) {
+    final TaskDescriptor<?> descriptor = taskFactory.resolveTaskDescriptorByTypeId(taskConfiguration.getTypeId());
+    return descriptor != null ? descriptor.getPriority() : TaskDescriptor.DEFAULT_PRIORITY;
   }
 
   @Override
@@ -133,7 +148,7 @@ public class QuartzTaskExecutorSPI
       // This is only for simplicity, as is not a requirement: NX job:triggers are 1:1 so tying them as this is ok
       // ! create the trigger before eventual TaskInfo remove bellow to avoid task removal in case of an invalid trigger
       final Trigger trigger = nexusScheduleConverter.toTrigger(schedule)
-          .withIdentity(jobKey.getName(), jobKey.getGroup()).build();
+          .withIdentity(jobKey.getName(), jobKey.getGroup()).withPriority(priorityOf(taskConfiguration)).build();
 
       final NexusTaskInfo old = taskByNxTaskId(taskConfiguration.getId());
       if (old != null && !old.remove()) {
@@ -179,7 +194,8 @@ public class QuartzTaskExecutorSPI
           task.getConfiguration().getTaskLogName(),
           task.getSchedule(), schedule);
       final Trigger trigger = nexusScheduleConverter.toTrigger(schedule)
-          .withIdentity(task.getJobKey().getName(), task.getJobKey().getGroup()).forJob(task.getJobKey()).build();
+          .withIdentity(task.getJobKey().getName(), task.getJobKey().getGroup()).forJob(task.getJobKey())
+          .withPriority(priorityOf(task.getConfiguration())).build();
       quartzSupport.getScheduler().rescheduleJob(trigger.getKey(), trigger);
       // update TaskInfo, but only if it's WAITING, as running one will pick up the change by job listener when done
       task.setNexusTaskStateIfInState(
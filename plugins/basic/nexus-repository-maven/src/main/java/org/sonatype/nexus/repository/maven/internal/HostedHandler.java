@@ -12,18 +12,26 @@
  */
 package org.sonatype.nexus.repository.maven.internal;
 
+import java.io.IOException;
+import java.util.Map;
+
 import javax.annotation.Nonnull;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.sonatype.nexus.common.hash.HashAlgorithm;
 import org.sonatype.nexus.repository.InvalidContentException;
 import org.sonatype.nexus.repository.http.HttpResponses;
 import org.sonatype.nexus.repository.view.Content;
 import org.sonatype.nexus.repository.view.Context;
 import org.sonatype.nexus.repository.view.Handler;
+import org.sonatype.nexus.repository.view.Payload;
 import org.sonatype.nexus.repository.view.Response;
 import org.sonatype.sisu.goodies.common.ComponentSupport;
 
+import com.google.common.hash.HashCode;
+import com.google.common.reflect.TypeToken;
+
 import static org.sonatype.nexus.repository.http.HttpMethods.DELETE;
 import static org.sonatype.nexus.repository.http.HttpMethods.GET;
 import static org.sonatype.nexus.repository.http.HttpMethods.HEAD;
@@ -58,6 +66,12 @@ public class HostedHandler
 
       case PUT: {
         try {
+          if (path.isHash()) {
+            final Content subordinateOf = mavenFacet.get(path.subordinateOf());
+            if (subordinateOf != null) {
+              return validateHash(path, subordinateOf, context.getRequest().getPayload());
+            }
+          }
           mavenFacet.put(path, context.getRequest().getPayload());
           return HttpResponses.created();
         }
@@ -78,4 +92,22 @@ public class HostedHandler
         return HttpResponses.methodNotAllowed(context.getRequest().getAction(), GET, HEAD, PUT, DELETE);
     }
   }
+
+  /**
+   * Hashes of present content are not stored, as they are served from hashes stored with the content. The uploaded
+   * hash is just validated against those instead.
+   */
+  private Response validateHash(final MavenPath path, final Content subordinateOf, final Payload payload)
+      throws IOException
+  {
+    final Map<HashAlgorithm, HashCode> hashCodes = subordinateOf.getAttributes()
+        .require(Content.CONTENT_HASH_CODES_MAP, new TypeToken<Map<HashAlgorithm, HashCode>>() {});
+    final HashCode expected = hashCodes.get(path.getHashType().getHashAlgorithm());
+    final String actual = DigestExtractor.extract(payload.openInputStream());
+    if (expected == null || !expected.toString().equals(actual)) {
+      log.debug("Rejected hash {}: expected {}, got {}", path, expected, actual);
+      return HttpResponses.badRequest("Hash does not match content of " + path.subordinateOf().getPath());
+    }
+    return HttpResponses.created();
+  }
 }
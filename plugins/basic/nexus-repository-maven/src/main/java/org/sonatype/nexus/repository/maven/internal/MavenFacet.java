@@ -13,6 +13,7 @@
 package org.sonatype.nexus.repository.maven.internal;
 
 import java.io.IOException;
+import java.util.Map;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -46,14 +47,34 @@ public interface MavenFacet
   @Nonnull
   VersionPolicy getVersionPolicy();
 
+  /**
+   * Returns content of passed in path, or {@code null} if not present. Hashes of present content are served from the
+   * hashes stored with it, regardless whether hash content was stored or not.
+   */
   @Nullable
   Content get(MavenPath path) throws IOException;
 
   void put(MavenPath path, Payload payload) throws IOException, InvalidContentException;
 
+  /**
+   * Stores all passed in payloads in single storage transaction, either all of them are stored or none.
+   */
+  void putAll(Map<MavenPath, ? extends Payload> payloads) throws IOException, InvalidContentException;
+
   boolean delete(MavenPath... paths) throws IOException;
 
+  /**
+   * Returns {@code true} if content of passed in path is stored, without touching its blob.
+   */
+  boolean exists(MavenPath path) throws IOException;
+
   DateTime getLastVerified(MavenPath path) throws IOException;
 
   boolean setLastVerified(MavenPath path, DateTime verified) throws IOException;
+
+  /**
+   * Sets last verified dates of all passed in paths in single storage transaction, skipping paths not present.
+   * Returns the count of updated paths.
+   */
+  int setLastVerified(Map<MavenPath, DateTime> verified) throws IOException;
 }
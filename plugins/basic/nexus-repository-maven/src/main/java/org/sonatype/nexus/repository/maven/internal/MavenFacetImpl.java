@@ -29,7 +29,7 @@ import org.sonatype.nexus.blobstore.api.Blob;
 import org.sonatype.nexus.blobstore.api.BlobStore;
 import org.sonatype.nexus.common.collect.NestedAttributesMap;
 import org.sonatype.nexus.common.hash.HashAlgorithm;
-import org.sonatype.nexus.common.io.TempStreamSupplier;
+import org.sonatype.nexus.common.io.LookAheadInputStream;
 import org.sonatype.nexus.mime.MimeSupport;
 import org.sonatype.nexus.repository.FacetSupport;
 import org.sonatype.nexus.repository.InvalidContentException;
@@ -41,6 +41,10 @@ import org.sonatype.nexus.repository.maven.internal.policy.VersionPolicy;
 import org.sonatype.nexus.repository.search.SearchFacet;
 import org.sonatype.nexus.repository.search.SearchItemId;
 import org.sonatype.nexus.repository.storage.Asset;
+import org.sonatype.nexus.repository.storage.AssetCreatedEvent;
+import org.sonatype.nexus.repository.storage.AssetDeletedEvent;
+import org.sonatype.nexus.repository.storage.AssetEvent;
+import org.sonatype.nexus.repository.storage.AssetUpdatedEvent;
 import org.sonatype.nexus.repository.storage.Bucket;
 import org.sonatype.nexus.repository.storage.Component;
 import org.sonatype.nexus.repository.storage.StorageFacet;
@@ -48,12 +52,14 @@ import org.sonatype.nexus.repository.storage.StorageTx;
 import org.sonatype.nexus.repository.types.HostedType;
 import org.sonatype.nexus.repository.types.ProxyType;
 import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.ContentTypes;
 import org.sonatype.nexus.repository.view.Payload;
 import org.sonatype.nexus.repository.view.payloads.BlobPayload;
+import org.sonatype.nexus.repository.view.payloads.StringPayload;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.hash.HashCode;
 import org.joda.time.DateTime;
@@ -73,7 +79,8 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * <ul>
  * <li>CMA assets: keyed by path</li>
  * </ul>
- * In both cases, "external" hashes are stored as separate asset, as their path differs too.
+ * In both cases, "external" hashes are not stored as separate assets, but are served from the hashes stored with the
+ * asset they are subordinate of. Only hashes uploaded or fetched without their asset present are stored separately.
  *
  * @since 3.0
  */
@@ -104,7 +111,7 @@ public class MavenFacetImpl
 
   private static final String P_ASSET_KEY = "key";
 
-  private static final String P_CONTENT_LAST_MODIFIED = "contentLastModified";
+  public static final String P_CONTENT_LAST_MODIFIED = "contentLastModified";
 
   private static final String P_CONTENT_ETAG = "etag";
 
@@ -184,6 +191,12 @@ public class MavenFacetImpl
   @Override
   public Content get(final MavenPath path) throws IOException {
     try (StorageTx tx = getStorage().openTx()) {
+      if (path.isHash()) {
+        final Asset subordinateOf = findAsset(tx, tx.getBucket(), path.subordinateOf());
+        if (subordinateOf != null) {
+          return getHashContent(subordinateOf, path.getHashType());
+        }
+      }
       final Asset asset = findAsset(tx, tx.getBucket(), path);
       if (asset == null) {
         return null;
@@ -209,22 +222,46 @@ public class MavenFacetImpl
     }
   }
 
+  /**
+   * Returns content of a hash computed when the blob of passed in asset was stored.
+   */
+  private Content getHashContent(final Asset asset, final HashType hashType) {
+    final String hash = asset.attributes().child(StorageFacet.P_CHECKSUM)
+        .require(hashType.getHashAlgorithm().name(), String.class);
+    final Date lastModifiedDate = asset.formatAttributes().get(P_CONTENT_LAST_MODIFIED, Date.class);
+    final Content result = new Content(new StringPayload(hash, ContentTypes.TEXT_PLAIN));
+    result.getAttributes()
+        .set(Content.CONTENT_LAST_MODIFIED, lastModifiedDate == null ? null : new DateTime(lastModifiedDate));
+    return result;
+  }
+
   @Override
   public void put(final MavenPath path, final Payload payload)
       throws IOException, InvalidContentException
   {
+    putAll(ImmutableMap.of(path, payload));
+  }
+
+  @Override
+  public void putAll(final Map<MavenPath, ? extends Payload> payloads)
+      throws IOException, InvalidContentException
+  {
+    final List<AssetEvent> events = Lists.newArrayList();
     try (StorageTx tx = getStorage().openTx()) {
-      if (path.getCoordinates() != null) {
-        putArtifact(path, payload, tx);
-      }
-      else {
-        putFile(path, payload, tx);
+      for (Map.Entry<MavenPath, ? extends Payload> entry : payloads.entrySet()) {
+        if (entry.getKey().getCoordinates() != null) {
+          events.add(putArtifact(entry.getKey(), entry.getValue(), tx));
+        }
+        else {
+          events.add(putFile(entry.getKey(), entry.getValue(), tx));
+        }
       }
       tx.commit();
     }
+    post(events);
   }
 
-  private void putArtifact(final MavenPath path, final Payload payload, final StorageTx tx)
+  private AssetEvent putArtifact(final MavenPath path, final Payload payload, final StorageTx tx)
       throws IOException, InvalidContentException
   {
     final Coordinates coordinates = checkNotNull(path.getCoordinates());
@@ -249,7 +286,8 @@ public class MavenFacetImpl
     }
 
     Asset asset = selectComponentAsset(tx, component, path);
-    if (asset == null) {
+    final boolean created = asset == null;
+    if (created) {
       asset = tx.createAsset(tx.getBucket(), component);
 
       asset.name(path.getPath());
@@ -272,13 +310,15 @@ public class MavenFacetImpl
     putAssetPayload(path, tx, asset, payload);
     tx.saveAsset(asset);
     getRepository().facet(SearchFacet.class).put(component);
+    return created ? new AssetCreatedEvent(asset, getRepository()) : new AssetUpdatedEvent(asset, getRepository());
   }
 
-  private void putFile(final MavenPath path, final Payload payload, final StorageTx tx)
+  private AssetEvent putFile(final MavenPath path, final Payload payload, final StorageTx tx)
       throws IOException, InvalidContentException
   {
     Asset asset = findAsset(tx, tx.getBucket(), path);
-    if (asset == null) {
+    final boolean created = asset == null;
+    if (created) {
       asset = tx.createAsset(tx.getBucket(), getRepository().getFormat());
       asset.name(path.getPath());
       asset.formatAttributes().set(StorageFacet.P_PATH, path.getPath());
@@ -291,6 +331,7 @@ public class MavenFacetImpl
 
     putAssetPayload(path, tx, asset, payload);
     tx.saveAsset(asset);
+    return created ? new AssetCreatedEvent(asset, getRepository()) : new AssetUpdatedEvent(asset, getRepository());
   }
 
   private void putAssetPayload(final MavenPath path,
@@ -304,13 +345,9 @@ public class MavenFacetImpl
         BlobStore.CREATED_BY_HEADER, "unknown"
     );
 
-    try (InputStream inputStream = payload.openInputStream()) {
-      try (TempStreamSupplier supplier = new TempStreamSupplier(inputStream)) {
-        final String contentType = determineContentType(path, supplier, payload.getContentType());
-        try (InputStream is = supplier.get()) {
-          tx.setBlob(is, headers, asset, HashType.ALGORITHMS, contentType);
-        }
-      }
+    try (LookAheadInputStream inputStream = new LookAheadInputStream(payload.openInputStream())) {
+      final String contentType = determineContentType(path, inputStream, payload.getContentType());
+      tx.setBlob(inputStream, headers, asset, HashType.ALGORITHMS, contentType);
     }
 
     final NestedAttributesMap formatAttributes = asset.formatAttributes();
@@ -329,28 +366,41 @@ public class MavenFacetImpl
 
   @Override
   public boolean delete(final MavenPath... paths) throws IOException {
-    boolean result = false;
+    final List<AssetEvent> events = Lists.newArrayList();
     try (StorageTx tx = getStorage().openTx()) {
       for (MavenPath path : paths) {
         if (path.getCoordinates() != null) {
-          result = deleteArtifact(path, tx) || result;
+          deleteArtifact(path, tx, events);
         }
         else {
-          result = deleteFile(path, tx) || result;
+          deleteFile(path, tx, events);
         }
       }
+      if (!events.isEmpty()) {
+        tx.commit();
+      }
     }
-    return result;
+    post(events);
+    return !events.isEmpty();
   }
 
-  private boolean deleteArtifact(final MavenPath path, final StorageTx tx) throws IOException {
+  @Override
+  public boolean exists(final MavenPath path) throws IOException {
+    try (StorageTx tx = getStorage().openTx()) {
+      return findAsset(tx, tx.getBucket(), path) != null;
+    }
+  }
+
+  private void deleteArtifact(final MavenPath path, final StorageTx tx, final List<AssetEvent> events)
+      throws IOException
+  {
     final Component component = findComponent(tx, tx.getBucket(), path);
     if (component == null) {
-      return false;
+      return;
     }
     final Asset asset = selectComponentAsset(tx, component, path);
     if (asset == null) {
-      return false;
+      return;
     }
     tx.deleteAsset(asset);
     if (!tx.browseAssets(component).iterator().hasNext()) {
@@ -362,18 +412,28 @@ public class MavenFacetImpl
     else {
       getRepository().facet(SearchFacet.class).put(component);
     }
-    tx.commit();
-    return true;
+    events.add(new AssetDeletedEvent(asset, getRepository()));
   }
 
-  private boolean deleteFile(final MavenPath path, final StorageTx tx) throws IOException {
+  private void deleteFile(final MavenPath path, final StorageTx tx, final List<AssetEvent> events)
+      throws IOException
+  {
     final Asset asset = findAsset(tx, tx.getBucket(), path);
     if (asset == null) {
-      return false;
+      return;
     }
     tx.deleteAsset(asset);
-    tx.commit();
-    return true;
+    events.add(new AssetDeletedEvent(asset, getRepository()));
+  }
+
+  /**
+   * Posts asset events of committed changes, so interested parties (like groups this repository is member of) can
+   * react on them.
+   */
+  private void post(final List<AssetEvent> events) {
+    for (AssetEvent event : events) {
+      getEventBus().post(event);
+    }
   }
 
   @Override
@@ -394,17 +454,27 @@ public class MavenFacetImpl
 
   @Override
   public boolean setLastVerified(final MavenPath path, final DateTime verified) throws IOException {
+    return setLastVerified(ImmutableMap.of(path, verified)) > 0;
+  }
+
+  @Override
+  public int setLastVerified(final Map<MavenPath, DateTime> verified) throws IOException {
+    int updated = 0;
     try (StorageTx tx = getStorage().openTx()) {
-      final Asset asset = findAsset(tx, tx.getBucket(), path);
-      if (asset == null) {
-        return false;
+      for (Map.Entry<MavenPath, DateTime> entry : verified.entrySet()) {
+        final Asset asset = findAsset(tx, tx.getBucket(), entry.getKey());
+        if (asset != null) {
+          final NestedAttributesMap attributes = asset.formatAttributes();
+          attributes.set(P_LAST_VERIFIED, entry.getValue().toDate());
+          tx.saveAsset(asset);
+          updated++;
+        }
+      }
+      if (updated > 0) {
+        tx.commit();
       }
-      final NestedAttributesMap attributes = asset.formatAttributes();
-      attributes.set(P_LAST_VERIFIED, verified.toDate());
-      tx.saveAsset(asset);
-      tx.commit();
-      return true;
     }
+    return updated;
   }
 
   /**
@@ -471,10 +541,11 @@ public class MavenFacetImpl
 
   /**
    * Determines or confirms the content type for the content, or throws {@link InvalidContentException} if it cannot.
+   * Only the buffered prefix of the content is inspected, the stream itself is left untouched.
    */
   @Nonnull
   private String determineContentType(final MavenPath mavenPath,
-                                      final Supplier<InputStream> inputStreamSupplier,
+                                      final LookAheadInputStream inputStream,
                                       final String declaredContentType)
       throws IOException
   {
@@ -482,7 +553,7 @@ public class MavenFacetImpl
 
     if (contentType == null) {
       log.trace("Content PUT to {} has no content type.", mavenPath);
-      try (InputStream is = inputStreamSupplier.get()) {
+      try (InputStream is = inputStream.getPrefix()) {
         contentType = mimeSupport.detectMimeType(is, mavenPath.getPath());
       }
       log.trace("Mime support implies content type {}", contentType);
@@ -492,7 +563,7 @@ public class MavenFacetImpl
       }
     }
     else {
-      try (InputStream is = inputStreamSupplier.get()) {
+      try (InputStream is = inputStream.getPrefix()) {
         final List<String> types = mimeSupport.detectMimeTypes(is, mavenPath.getPath());
         if (!types.isEmpty() && !types.contains(contentType)) {
           log.debug("Discovered content type {} ", types.get(0));
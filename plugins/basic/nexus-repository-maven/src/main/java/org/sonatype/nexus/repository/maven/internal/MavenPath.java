@@ -168,15 +168,29 @@ public class MavenPath
   {
     this.path = checkNotNull(path);
     this.fileName = this.path.substring(path.lastIndexOf('/') + 1);
-    HashType ht = null;
+    this.hashType = hashTypeOf(fileName);
+    this.coordinates = coordinates;
+  }
+
+  /**
+   * Constructor for paths derived from this path, where file name is known and no parsing is needed.
+   */
+  private MavenPath(final String path, final String fileName, final Coordinates coordinates) {
+    this.path = path;
+    this.fileName = fileName;
+    this.hashType = hashTypeOf(fileName);
+    this.coordinates = coordinates;
+  }
+
+  @Nullable
+  private static HashType hashTypeOf(final String fileName) {
     for (HashType v : HashType.values()) {
-      if (this.fileName.endsWith("." + v.getExt())) {
-        ht = v;
-        break;
+      final int dotPos = fileName.length() - v.getExt().length() - 1;
+      if (dotPos >= 0 && fileName.charAt(dotPos) == '.' && fileName.endsWith(v.getExt())) {
+        return v;
       }
     }
-    this.hashType = ht;
-    this.coordinates = coordinates;
+    return null;
   }
 
   @Nonnull
@@ -251,8 +265,8 @@ public class MavenPath
             coordinates.isSnapshot(),
             coordinates.getGroupId(),
             coordinates.getArtifactId(),
-            coordinates.getBaseVersion(),
             coordinates.getVersion(),
+            coordinates.getBaseVersion(),
             coordinates.getClassifier(),
             coordinates.getExtension().substring(0, coordinates.getExtension().length() - hashSuffixLen),
             coordinates.getSignatureType()
@@ -260,6 +274,7 @@ public class MavenPath
       }
       return new MavenPath(
           path.substring(0, path.length() - hashSuffixLen),
+          fileName.substring(0, fileName.length() - hashSuffixLen),
           mainCoordinates
       );
     }
@@ -277,6 +292,7 @@ public class MavenPath
       );
       return new MavenPath(
           path.substring(0, path.length() - signatureSuffixLen),
+          fileName.substring(0, fileName.length() - signatureSuffixLen),
           mainCoordinates
       );
     }
@@ -305,6 +321,7 @@ public class MavenPath
     }
     return new MavenPath(
         path + "." + hashType.getExt(),
+        fileName + "." + hashType.getExt(),
         hashCoordinates
     );
   }
@@ -331,6 +348,7 @@ public class MavenPath
     );
     return new MavenPath(
         path + "." + signatureType.getExt(),
+        fileName + "." + signatureType.getExt(),
         signatureCoordinates
     );
   }
@@ -31,4 +31,9 @@ public interface MavenPathParser
    * Returns {@code true} if passed in path represent repository metadata path.
    */
   boolean isRepositoryMetadata(MavenPath path);
+
+  /**
+   * Returns {@code true} if passed in path represent repository index path.
+   */
+  boolean isRepositoryIndex(MavenPath path);
 }
@@ -13,33 +13,201 @@
 package org.sonatype.nexus.repository.maven.internal;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nonnull;
+import javax.inject.Inject;
 import javax.inject.Named;
 
-import org.sonatype.nexus.repository.config.Configuration;
 import org.sonatype.nexus.repository.InvalidContentException;
+import org.sonatype.nexus.repository.proxy.BatchedLastVerified;
 import org.sonatype.nexus.repository.proxy.ProxyFacetSupport;
 import org.sonatype.nexus.repository.view.Content;
 import org.sonatype.nexus.repository.view.Context;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.joda.time.DateTime;
 
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
 /**
  * Maven specific implementation of {@link ProxyFacetSupport}.
  *
+ * Hashes are not proxied as separate assets: when the content they are subordinate of is cached, they are served
+ * from hashes stored with it, and the upstream hash is fetched and compared in background only. A mismatch is logged
+ * and counted in the {@code hash-mismatches} metric of the repository, but the cached content is kept: it is what
+ * clients were served so far, and an upstream hash changing is no proof the cached content is broken. Validated
+ * hashes are remembered, hence upstream is asked only once for each cached content. Hashes stored on their own by
+ * earlier versions are deleted when found without their content, as nothing would ever check them for staleness.
+ *
+ * The validated hashes cache is small and bounded by entry count, so it is not taken from the heap budget of the
+ * {@link org.sonatype.nexus.cache.CacheService}: a budget already used up by other caches would otherwise leave it
+ * with less capacity than configured.
+ *
  * @since 3.0
  */
 @Named
 public class MavenProxyFacet
     extends ProxyFacetSupport
+    implements BatchedLastVerified
 {
+  private final MetricRegistry metricRegistry;
+
+  private final int validatorThreads;
+
+  private final int validatedCacheSize;
+
   private MavenFacet mavenFacet;
 
+  /**
+   * Validated hashes, keyed by hash path.
+   */
+  private Cache<String, String> validatedCache;
+
+  private ExecutorService validator;
+
+  private Counter mismatches;
+
+  @Inject
+  public MavenProxyFacet(final MetricRegistry metricRegistry,
+                         @Named("${nexus.maven.proxy.hashValidator.threads:-2}") final int validatorThreads,
+                         @Named("${nexus.maven.proxy.hashValidator.size:-10000}") final int validatedCacheSize)
+  {
+    this.metricRegistry = checkNotNull(metricRegistry);
+    checkArgument(validatorThreads > 0, "Invalid hash validator threads: %s", validatorThreads);
+    this.validatorThreads = validatorThreads;
+    checkArgument(validatedCacheSize > 0, "Invalid validated hashes cache size: %s", validatedCacheSize);
+    this.validatedCacheSize = validatedCacheSize;
+  }
+
   @Override
-  protected void doInit(final Configuration configuration) throws Exception {
-    super.doInit(configuration);
+  protected void doStart() throws Exception {
+    super.doStart();
     this.mavenFacet = facet(MavenFacet.class);
+    validatedCache = CacheBuilder.newBuilder().maximumSize(validatedCacheSize).build();
+    validator = createValidator();
+    mismatches = metricRegistry.counter(mismatchesName());
+  }
+
+  private String mismatchesName() {
+    return MetricRegistry.name(MavenProxyFacet.class, "repository", getRepository().getName(), "hash-mismatches");
+  }
+
+  /**
+   * Creates the executor hashes are validated with. Validation is best effort: when the queue is full, hashes are left
+   * unvalidated until they are requested again.
+   */
+  @VisibleForTesting
+  ExecutorService createValidator() {
+    final ThreadPoolExecutor executor = new ThreadPoolExecutor(validatorThreads, validatorThreads, 60L,
+        TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(validatorThreads * 100),
+        new ThreadFactoryBuilder().setNameFormat("maven-hash-validator-" + getRepository().getName() + "-%d")
+            .setDaemon(true).build());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  @Override
+  protected void doStop() throws Exception {
+    validator.shutdownNow();
+    validator = null;
+    validatedCache = null;
+    mismatches = null;
+    super.doStop();
+  }
+
+  @Override
+  protected void doDelete() throws Exception {
+    metricRegistry.remove(mismatchesName());
+    super.doDelete();
+  }
+
+  @Override
+  public Content get(final Context context) throws IOException {
+    checkNotNull(context);
+    final MavenPath mavenPath = mavenPath(context);
+    if (!mavenPath.isHash()) {
+      return super.get(context);
+    }
+
+    Content content = mavenFacet.get(mavenPath);
+    if (content != null && !mavenFacet.exists(mavenPath.subordinateOf())) {
+      log.debug("Deleting hash {} stored without its content", mavenPath);
+      mavenFacet.delete(mavenPath);
+      content = null;
+    }
+    if (content != null) {
+      maybeValidate(getUrl(context), mavenPath, content);
+      return content;
+    }
+
+    // subordinate content is not cached: just pass the upstream hash through, it is not worth storing on its own
+    try {
+      return fetch(context, null);
+    }
+    catch (IOException e) {
+      log.warn("Failed to fetch: {}", getUrl(context), e);
+      throw e;
+    }
+  }
+
+  /**
+   * Schedules validation of hash against upstream, unless the same hash of the path was validated already.
+   */
+  private void maybeValidate(final String url, final MavenPath mavenPath, final Content content) throws IOException {
+    final String hash = DigestExtractor.extract(content.openInputStream());
+    if (hash == null || hash.equals(validatedCache.asMap().put(mavenPath.getPath(), hash))) {
+      return;
+    }
+    try {
+      validator.execute(new Runnable()
+      {
+        @Override
+        public void run() {
+          validate(url, mavenPath, hash);
+        }
+      });
+    }
+    catch (RejectedExecutionException e) {
+      log.debug("Validation of {} postponed, too many pending validations", mavenPath);
+      validatedCache.invalidate(mavenPath.getPath());
+    }
+  }
+
+  private void validate(final String url, final MavenPath mavenPath, final String hash) {
+    try {
+      final Content remote = fetch(url, null, null);
+      if (remote == null) {
+        log.debug("Upstream has no hash {} to validate against", mavenPath);
+        return;
+      }
+      final String upstreamHash = DigestExtractor.extract(remote.openInputStream());
+      if (upstreamHash == null) {
+        log.debug("Upstream hash {} is not parseable", mavenPath);
+        return;
+      }
+      if (!upstreamHash.equals(hash)) {
+        // kept as validated, so the mismatch is reported once per cached content
+        log.warn("Hash {} mismatch: local {}, upstream {}", mavenPath, hash, upstreamHash);
+        mismatches.inc();
+      }
+    }
+    catch (Exception e) {
+      log.warn("Failed to validate hash {}: {}", mavenPath, e.toString());
+      validatedCache.invalidate(mavenPath.getPath());
+    }
   }
 
   @Override
@@ -62,6 +230,20 @@ public class MavenProxyFacet
     mavenFacet.setLastVerified(mavenPath(context), new DateTime());
   }
 
+  @Override
+  public String getLastVerifiedKey(final Context context) {
+    return mavenPath(context).getPath();
+  }
+
+  @Override
+  public void indicateUpToDate(final Map<String, DateTime> lastVerified) throws IOException {
+    final Map<MavenPath, DateTime> verified = Maps.newHashMapWithExpectedSize(lastVerified.size());
+    for (Map.Entry<String, DateTime> entry : lastVerified.entrySet()) {
+      verified.put(mavenFacet.getMavenPathParser().parsePath(entry.getKey()), entry.getValue());
+    }
+    mavenFacet.setLastVerified(verified);
+  }
+
   @Override
   protected String getUrl(final @Nonnull Context context) {
     return context.getRequest().getPath().substring(1); // omit leading slash
@@ -0,0 +1,111 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal.maven2;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UTFDataFormatException;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.Maps;
+import org.joda.time.DateTime;
+
+/**
+ * Reads Maven2 repository index in transfer format of Maven Indexer, as written by {@link IndexDataWriter}.
+ *
+ * @since 3.0
+ */
+class IndexDataReader
+    implements Closeable
+{
+  private final DataInputStream input;
+
+  IndexDataReader(final InputStream inputStream) throws IOException {
+    this.input = new DataInputStream(new BufferedInputStream(new GZIPInputStream(inputStream), 8192));
+  }
+
+  /**
+   * Reads the header, returning the timestamp of index, or {@code null} if index has no timestamp.
+   */
+  @Nullable
+  DateTime readHeader() throws IOException {
+    final int version = input.readByte();
+    if (version != IndexDataWriter.VERSION) {
+      throw new IOException("Unsupported index version: " + version);
+    }
+    final long timestamp = input.readLong();
+    return timestamp == -1 ? null : new DateTime(timestamp);
+  }
+
+  /**
+   * Reads next document as map of field names to their values, or returns {@code null} if there are no more
+   * documents.
+   */
+  @Nullable
+  Map<String, String> readDocument() throws IOException {
+    final int fieldCount;
+    try {
+      fieldCount = input.readInt();
+    }
+    catch (EOFException e) {
+      return null;
+    }
+    final Map<String, String> document = Maps.newHashMapWithExpectedSize(fieldCount);
+    for (int i = 0; i < fieldCount; i++) {
+      input.readByte(); // flags
+      final String name = input.readUTF();
+      document.put(name, readString());
+    }
+    return document;
+  }
+
+  private String readString() throws IOException {
+    final int utflen = input.readInt();
+    final byte[] bytes = new byte[utflen];
+    input.readFully(bytes);
+    final char[] chars = new char[utflen];
+    int count = 0;
+    int pos = 0;
+    while (pos < utflen) {
+      final int c = bytes[pos] & 0xFF;
+      if (c < 0x80) {
+        chars[count++] = (char) c;
+        pos++;
+      }
+      else if ((c & 0xE0) == 0xC0 && pos + 1 < utflen) {
+        chars[count++] = (char) (((c & 0x1F) << 6) | (bytes[pos + 1] & 0x3F));
+        pos += 2;
+      }
+      else if ((c & 0xF0) == 0xE0 && pos + 2 < utflen) {
+        chars[count++] = (char) (((c & 0x0F) << 12) | ((bytes[pos + 1] & 0x3F) << 6) | (bytes[pos + 2] & 0x3F));
+        pos += 3;
+      }
+      else {
+        throw new UTFDataFormatException("Malformed input around byte " + pos);
+      }
+    }
+    return new String(chars, 0, count);
+  }
+
+  @Override
+  public void close() throws IOException {
+    input.close();
+  }
+}
@@ -0,0 +1,194 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal.maven2;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.zip.GZIPOutputStream;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Joiner;
+import org.joda.time.DateTime;
+
+/**
+ * Writes Maven2 repository index in transfer format of Maven Indexer, as published in
+ * {@code .index/nexus-maven-repository-index.gz} and its incremental chunks. The format is a gzipped stream of
+ * documents, each document being a list of fields, and is readable by any Maven Indexer based client, that creates
+ * its own Lucene index out of it.
+ *
+ * @since 3.0
+ * @see IndexDataReader
+ */
+class IndexDataWriter
+    implements Closeable
+{
+  static final int VERSION = 1;
+
+  static final int F_INDEXED = 1;
+
+  static final int F_TOKENIZED = 2;
+
+  static final int F_STORED = 4;
+
+  static final String FS = "|";
+
+  static final String NA = "NA";
+
+  static final String DESCRIPTOR = "DESCRIPTOR";
+
+  static final String DESCRIPTOR_VALUE = "NexusIndex";
+
+  static final String IDXINFO = "IDXINFO";
+
+  static final String UINFO = "u";
+
+  static final String INFO = "i";
+
+  static final String SHA1 = "1";
+
+  static final String LAST_MODIFIED = "m";
+
+  static final String DELETED = "del";
+
+  static final String ALL_GROUPS = "allGroups";
+
+  static final String ALL_GROUPS_LIST = "allGroupsList";
+
+  static final String ROOT_GROUPS = "rootGroups";
+
+  static final String ROOT_GROUPS_LIST = "rootGroupsList";
+
+  private final DataOutputStream output;
+
+  private int documents;
+
+  IndexDataWriter(final OutputStream outputStream) throws IOException {
+    this.output = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(outputStream), 8192));
+  }
+
+  /**
+   * Writes the header, must be written first.
+   */
+  void writeHeader(final DateTime timestamp) throws IOException {
+    output.writeByte(VERSION);
+    output.writeLong(timestamp.getMillis());
+  }
+
+  /**
+   * Writes the index descriptor document, identifying the repository the index belongs to.
+   */
+  void writeDescriptor(final String repositoryId) throws IOException {
+    output.writeInt(2);
+    writeField(DESCRIPTOR, DESCRIPTOR_VALUE, F_INDEXED | F_STORED);
+    writeField(IDXINFO, "1.0" + FS + repositoryId, F_STORED);
+    documents++;
+  }
+
+  /**
+   * Writes an artifact document.
+   */
+  void writeArtifact(final String uinfo, final String info, @Nullable final String sha1, final long recordModified)
+      throws IOException
+  {
+    output.writeInt(sha1 == null ? 3 : 4);
+    writeField(UINFO, uinfo, F_INDEXED | F_STORED);
+    writeField(LAST_MODIFIED, Long.toString(recordModified), F_STORED);
+    writeField(INFO, info, F_STORED);
+    if (sha1 != null) {
+      writeField(SHA1, sha1, F_INDEXED | F_STORED);
+    }
+    documents++;
+  }
+
+  /**
+   * Writes a document marking an artifact removed since previous index.
+   */
+  void writeDeleted(final String uinfo, final long recordModified) throws IOException {
+    output.writeInt(2);
+    writeField(DELETED, uinfo, F_STORED);
+    writeField(LAST_MODIFIED, Long.toString(recordModified), F_STORED);
+    documents++;
+  }
+
+  /**
+   * Writes the group list documents, must be written last.
+   */
+  void writeGroups(final Collection<String> allGroups, final Collection<String> rootGroups) throws IOException {
+    output.writeInt(2);
+    writeField(ALL_GROUPS, ALL_GROUPS, F_INDEXED | F_STORED);
+    writeField(ALL_GROUPS_LIST, Joiner.on(FS).join(allGroups), F_STORED);
+    output.writeInt(2);
+    writeField(ROOT_GROUPS, ROOT_GROUPS, F_INDEXED | F_STORED);
+    writeField(ROOT_GROUPS_LIST, Joiner.on(FS).join(rootGroups), F_STORED);
+  }
+
+  /**
+   * Returns the count of descriptor, artifact and deleted documents written so far.
+   */
+  int getDocuments() {
+    return documents;
+  }
+
+  private void writeField(final String name, final String value, final int flags) throws IOException {
+    output.writeByte(flags);
+    output.writeUTF(name);
+    writeString(value);
+  }
+
+  /**
+   * Writes string as modified UTF-8, like {@link DataOutputStream#writeUTF(String)} does, but prefixed with integer
+   * length, as values are not limited to 64KB.
+   */
+  private void writeString(final String str) throws IOException {
+    final int strlen = str.length();
+    int utflen = 0;
+    for (int i = 0; i < strlen; i++) {
+      final char c = str.charAt(i);
+      if (c >= 0x0001 && c <= 0x007F) {
+        utflen++;
+      }
+      else if (c > 0x07FF) {
+        utflen += 3;
+      }
+      else {
+        utflen += 2;
+      }
+    }
+    output.writeInt(utflen);
+    for (int i = 0; i < strlen; i++) {
+      final char c = str.charAt(i);
+      if (c >= 0x0001 && c <= 0x007F) {
+        output.write(c);
+      }
+      else if (c > 0x07FF) {
+        output.write(0xE0 | ((c >> 12) & 0x0F));
+        output.write(0x80 | ((c >> 6) & 0x3F));
+        output.write(0x80 | (c & 0x3F));
+      }
+      else {
+        output.write(0xC0 | ((c >> 6) & 0x1F));
+        output.write(0x80 | (c & 0x3F));
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    output.close();
+  }
+}
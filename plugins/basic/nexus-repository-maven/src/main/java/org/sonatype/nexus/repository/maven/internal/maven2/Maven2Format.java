@@ -45,6 +45,11 @@ public class Maven2Format
    */
   public static final String CHECKSUM_CONTENT_TYPE = ContentTypes.TEXT_PLAIN;
 
+  /**
+   * Path prefix of Maven2 repository index files, relative to repository root.
+   */
+  public static final String INDEX_PATH_PREFIX = ".index/";
+
   public Maven2Format() {
     super(NAME);
   }
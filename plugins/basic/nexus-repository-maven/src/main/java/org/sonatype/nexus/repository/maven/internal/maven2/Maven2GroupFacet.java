@@ -19,11 +19,14 @@ import java.io.InputStream;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import org.sonatype.nexus.cache.CacheConfig;
+import org.sonatype.nexus.cache.CacheService;
 import org.sonatype.nexus.common.hash.HashAlgorithm;
 import org.sonatype.nexus.common.hash.Hashes;
 import org.sonatype.nexus.repository.Facet;
@@ -35,32 +38,40 @@ import org.sonatype.nexus.repository.manager.RepositoryManager;
 import org.sonatype.nexus.repository.maven.internal.MavenFacet;
 import org.sonatype.nexus.repository.maven.internal.MavenPath;
 import org.sonatype.nexus.repository.maven.internal.MavenPath.HashType;
-import org.sonatype.nexus.repository.maven.internal.maven2.Maven2MetadataMerger.MetadataEnvelope;
+import org.sonatype.nexus.repository.storage.AssetDeletedEvent;
 import org.sonatype.nexus.repository.storage.AssetEvent;
 import org.sonatype.nexus.repository.storage.StorageFacet;
-import org.sonatype.nexus.repository.util.TypeTokens;
 import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.Payload;
 import org.sonatype.nexus.repository.view.PayloadResponse;
 import org.sonatype.nexus.repository.view.Response;
 import org.sonatype.nexus.repository.view.payloads.BytesPayload;
 import org.sonatype.nexus.repository.view.payloads.StringPayload;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.Weigher;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.eventbus.AllowConcurrentEvents;
 import com.google.common.eventbus.Subscribe;
 import com.google.common.hash.HashCode;
-import org.apache.maven.artifact.repository.metadata.Metadata;
-import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Reader;
-import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Writer;
-import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import com.google.common.io.ByteStreams;
 import org.joda.time.DateTime;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * Maven2 specific implementation of {@link GroupFacetImpl}: metadata merge is specific to Maven2 format.
  *
+ * Merged metadata is kept up to date incrementally: the contribution of each member to a merged metadata is retained
+ * in a {@link MetadataContributions} table, and when a member changes its metadata, only that member's contribution
+ * is patched and the merged metadata with its checksums re-rendered in single storage transaction. When the table is
+ * not available (ie. evicted, or some member could not be asked during merge), merged metadata is simply evicted,
+ * and it will be merged again on next request. Merges and patches of same metadata synchronize on the cached table,
+ * and a table is only cached if no other is, as a cached table is kept up to date by member events. Tables are weighed by the bytes of contributed metadata, so the cache
+ * is bounded by heap rather than by the number of merged metadata documents.
+ *
  * @since 3.0
  */
 @Named
@@ -70,12 +81,27 @@ public class Maven2GroupFacet
 {
   private final Maven2MetadataMerger metadataMerger;
 
+  private final CacheService cacheService;
+
+  private final long contributionsCacheWeight;
+
   private MavenFacet mavenFacet;
 
+  private String cacheName;
+
+  private Cache<String, MetadataContributions> contributionsCache;
+
   @Inject
-  public Maven2GroupFacet(final RepositoryManager repositoryManager) {
+  public Maven2GroupFacet(final RepositoryManager repositoryManager,
+                          final CacheService cacheService,
+                          @Named("${nexus.maven.group.metadataContributions.weight:-16777216}")
+                          final long contributionsCacheWeight)
+  {
     super(repositoryManager);
     this.metadataMerger = new Maven2MetadataMerger();
+    this.cacheService = checkNotNull(cacheService);
+    checkArgument(contributionsCacheWeight > 0, "Invalid contributions cache weight: %s", contributionsCacheWeight);
+    this.contributionsCacheWeight = contributionsCacheWeight;
   }
 
   @Override
@@ -84,6 +110,38 @@ public class Maven2GroupFacet
     this.mavenFacet = facet(MavenFacet.class);
   }
 
+  @Override
+  protected void doConfigure(final Configuration configuration) throws Exception {
+    super.doConfigure(configuration);
+
+    // re-create cache, members might have changed
+    maybeDestroyCache();
+    cacheName = "maven-group-metadata-" + getRepository().getName();
+    contributionsCache = cacheService.getOrCreateCache(cacheName, new CacheConfig<String, MetadataContributions>()
+        .maximumWeight(contributionsCacheWeight)
+        .weigher(new Weigher<String, MetadataContributions>()
+        {
+          @Override
+          public int weigh(final String key, final MetadataContributions value) {
+            return value.weight();
+          }
+        }));
+  }
+
+  @Override
+  protected void doDestroy() throws Exception {
+    maybeDestroyCache();
+    super.doDestroy();
+  }
+
+  private void maybeDestroyCache() {
+    if (contributionsCache != null) {
+      cacheService.removeCache(cacheName);
+      contributionsCache = null;
+      cacheName = null;
+    }
+  }
+
   /**
    * Fetches cached metadata if exists, or {@code null}.
    */
@@ -103,85 +161,101 @@ public class Maven2GroupFacet
     checkArgument(mavenFacet.getMavenPathParser().isRepositoryMetadata(mavenPath),
         "Only metadata can be merged and cached: %s", mavenPath);
     checkArgument(!mavenPath.isSubordinate(), "Only metadata XML can be merged and cached: %s", mavenPath);
-    final LinkedHashMap<Repository, Content> metadataContents = Maps.newLinkedHashMap();
+    final MetadataContributions contributions = new MetadataContributions(mavenPath.getPath());
+    boolean definitive = true;
     for (Map.Entry<Repository, Response> entry : responses.entrySet()) {
-      if (entry.getValue().getStatus().getCode() == HttpStatus.OK) {
-        final Response response = entry.getValue();
-        if (response instanceof PayloadResponse && ((PayloadResponse) response).getPayload() instanceof Content) {
-          metadataContents.put(entry.getKey(), (Content) ((PayloadResponse) response).getPayload());
-        }
+      final Response response = entry.getValue();
+      if (response.getStatus().getCode() == HttpStatus.OK
+          && response instanceof PayloadResponse && ((PayloadResponse) response).getPayload() instanceof Content) {
+        contributions.set(entry.getKey(), toByteArray((Content) ((PayloadResponse) response).getPayload()));
+      }
+      else if (response.getStatus().getCode() == HttpStatus.NOT_FOUND) {
+        contributions.set(entry.getKey(), null);
+      }
+      else {
+        definitive = false;
       }
     }
 
-    if (metadataContents.isEmpty()) {
-      return null;
+    final List<Repository> members = members();
+    final ConcurrentMap<String, MetadataContributions> tables = contributionsCache.asMap();
+    final MetadataContributions table;
+    if (definitive && contributions.isComplete(members)) {
+      final MetadataContributions cached = tables.putIfAbsent(mavenPath.getPath(), contributions);
+      table = cached != null ? cached : contributions;
     }
-    final Content content = mergeMetadata(mavenPath, metadataContents);
-    if (content == null) {
-      return null;
+    else {
+      table = tables.get(mavenPath.getPath());
+    }
+    if (table == null) {
+      // incomplete and not shared with anyone, merge it but do not cache it
+      return mergeAndCacheMetadata(mavenPath, contributions, members);
+    }
+    synchronized (table) {
+      return mergeAndCacheMetadata(mavenPath, table, members);
     }
-    return cacheMetadata(mavenPath, content);
   }
 
-  private Content mergeMetadata(final MavenPath mavenPath,
-                                final LinkedHashMap<Repository, Content> metadataContents) throws IOException
+  /**
+   * Merges existing contributions and caches the result along with its checksums in one go. Returns {@code null} if
+   * none of the members contributes usable metadata.
+   */
+  @Nullable
+  private Content mergeAndCacheMetadata(final MavenPath mavenPath,
+                                        final MetadataContributions contributions,
+                                        final List<Repository> members) throws IOException
   {
-    if (metadataContents.size() == 1) {
-      return metadataContents.get(metadataContents.keySet().iterator().next());
-    }
-    final MetadataXpp3Reader reader = new MetadataXpp3Reader();
-    List<MetadataEnvelope> metadatas = Lists.newArrayList();
-    for (Map.Entry<Repository, Content> entry : metadataContents.entrySet()) {
-      final String origin = entry.getKey().getName() + " @ " + mavenPath.getPath();
-      try (InputStream inputStream = entry.getValue().openInputStream()) {
-        final Metadata metadata = reader.read(inputStream);
-        metadatas.add(new MetadataEnvelope(origin, metadata));
-      }
-      catch (XmlPullParserException e) {
-        // skip it, log it
-        log.info("Unparseable repository metadata: {}", origin, e);
+    final LinkedHashMap<String, Payload> payloads = contributions.payloads(members);
+    if (payloads.isEmpty()) {
+      return null;
+    }
+    final byte[] byteArray;
+    if (payloads.size() == 1) {
+      byteArray = toByteArray(payloads.values().iterator().next());
+    }
+    else {
+      final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+      if (!metadataMerger.merge(payloads, byteArrayOutputStream)) {
+        return null;
       }
+      byteArray = byteArrayOutputStream.toByteArray();
     }
 
-    final Metadata mergedMetadata = metadataMerger.merge(metadatas);
-    if (mergedMetadata == null) {
-      return null;
-    }
-    final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-    new MetadataXpp3Writer().write(byteArrayOutputStream, mergedMetadata);
     // Metadata is rather small, so let's do it like this
-    final byte[] byteArray = byteArrayOutputStream.toByteArray();
     final Map<HashAlgorithm, HashCode> hashCodes = Hashes.hash(HashType.ALGORITHMS,
         new ByteArrayInputStream(byteArray));
+    final DateTime now = DateTime.now();
     final Content content = new Content(
         new BytesPayload(
             byteArray,
             Maven2Format.METADATA_CONTENT_TYPE
         ));
-    content.getAttributes().set(Content.CONTENT_LAST_MODIFIED, DateTime.now());
+    content.getAttributes().set(Content.CONTENT_LAST_MODIFIED, now);
     content.getAttributes().set(Content.CONTENT_ETAG, "{SHA1{" + hashCodes.get(HashAlgorithm.SHA1).toString() + "}}");
     content.getAttributes().set(Content.CONTENT_HASH_CODES_MAP, hashCodes);
-    return content;
-  }
 
-  private Content cacheMetadata(final MavenPath mavenPath, final Content content) throws IOException {
-    final Map<HashAlgorithm, HashCode> hashCodes = content.getAttributes().require(
-        Content.CONTENT_HASH_CODES_MAP, TypeTokens.HASH_CODES_MAP);
-    final DateTime now = content.getAttributes().require(Content.CONTENT_LAST_MODIFIED, DateTime.class);
     // cache the metadata and the hashes
-    mavenFacet.put(mavenPath, content);
+    final Map<MavenPath, Payload> payloadsToCache = Maps.newLinkedHashMap();
+    payloadsToCache.put(mavenPath, content);
     for (HashType hashType : HashType.values()) {
       final HashCode hashCode = hashCodes.get(hashType.getHashAlgorithm());
       if (hashCode != null) {
         final Content hashContent = new Content(new StringPayload(hashCode.toString(), Maven2Format.CHECKSUM_CONTENT_TYPE));
         hashContent.getAttributes().set(Content.CONTENT_LAST_MODIFIED, now);
-        mavenFacet.put(mavenPath.hash(hashType), hashContent);
+        payloadsToCache.put(mavenPath.hash(hashType), hashContent);
       }
     }
+    mavenFacet.putAll(payloadsToCache);
     // reload it from cache
     return mavenFacet.get(mavenPath);
   }
 
+  private byte[] toByteArray(final Payload payload) throws IOException {
+    try (InputStream inputStream = payload.openInputStream()) {
+      return ByteStreams.toByteArray(inputStream);
+    }
+  }
+
   @Subscribe
   @AllowConcurrentEvents
   public void onAssetEvent(final AssetEvent event) {
@@ -189,19 +263,77 @@ public class Maven2GroupFacet
       final String path = event.getAsset().formatAttributes().require(StorageFacet.P_PATH, String.class);
       final MavenPath mavenPath = mavenFacet.getMavenPathParser().parsePath(path);
       if (mavenFacet.getMavenPathParser().isRepositoryMetadata(mavenPath)) {
-        try {
-          final List<MavenPath> paths = Lists.newArrayList();
-          paths.add(mavenPath.main());
-          for (HashType hashType : HashType.values()) {
-            paths.add(mavenPath.main().hash(hashType));
-          }
-          mavenFacet.delete(paths.toArray(new MavenPath[paths.size()]));
+        final MavenPath metadataPath = mavenPath.main();
+        final MetadataContributions contributions = contributionsCache.getIfPresent(metadataPath.getPath());
+        if (contributions == null) {
+          evictMergedMetadata(metadataPath);
+        }
+        else if (!mavenPath.isSubordinate()) {
+          // checksums follow their metadata, so only metadata itself is of interest here
+          patchMergedMetadata(event, metadataPath, contributions);
+        }
+      }
+    }
+  }
+
+  /**
+   * Patches the contribution of member that emitted the event, and re-merges metadata without asking any other
+   * member.
+   */
+  private void patchMergedMetadata(final AssetEvent event,
+                                   final MavenPath metadataPath,
+                                   final MetadataContributions contributions)
+  {
+    final Repository member = event.getRepository();
+    final ConcurrentMap<String, MetadataContributions> tables = contributionsCache.asMap();
+    try {
+      synchronized (contributions) {
+        if (tables.get(metadataPath.getPath()) != contributions) {
+          // table was dropped meanwhile, patching it would be lost
+          evictMergedMetadata(metadataPath);
+          return;
+        }
+        if (event instanceof AssetDeletedEvent) {
+          contributions.set(member, null);
+        }
+        else {
+          final Content content = member.facet(MavenFacet.class).get(metadataPath);
+          contributions.set(member, content == null ? null : toByteArray(content));
+        }
+        final List<Repository> members = members();
+        if (!contributions.isComplete(members)) {
+          tables.remove(metadataPath.getPath(), contributions);
+          evictMergedMetadata(metadataPath);
         }
-        catch (IOException e) {
-          log.warn("Could not evict merged metadata from {} cache at {}", getRepository().getName(),
-              mavenPath.getPath(), e);
+        else if (mergeAndCacheMetadata(metadataPath, contributions, members) == null) {
+          evictMergedMetadata(metadataPath);
+        }
+        else {
+          // weight is taken on put only, so re-put patched contributions to have them re-weighed
+          tables.replace(metadataPath.getPath(), contributions, contributions);
         }
       }
     }
+    catch (IOException e) {
+      log.warn("Could not update merged metadata from {} cache at {}", getRepository().getName(),
+          metadataPath.getPath(), e);
+      tables.remove(metadataPath.getPath(), contributions);
+      evictMergedMetadata(metadataPath);
+    }
+  }
+
+  private void evictMergedMetadata(final MavenPath metadataPath) {
+    try {
+      final List<MavenPath> paths = Lists.newArrayList();
+      paths.add(metadataPath);
+      for (HashType hashType : HashType.values()) {
+        paths.add(metadataPath.hash(hashType));
+      }
+      mavenFacet.delete(paths.toArray(new MavenPath[paths.size()]));
+    }
+    catch (IOException e) {
+      log.warn("Could not evict merged metadata from {} cache at {}", getRepository().getName(),
+          metadataPath.getPath(), e);
+    }
   }
 }
@@ -22,9 +22,11 @@ import org.sonatype.nexus.repository.Format
 import org.sonatype.nexus.repository.RecipeSupport
 import org.sonatype.nexus.repository.Repository
 import org.sonatype.nexus.repository.Type
+import org.sonatype.nexus.repository.http.HttpMethods
 import org.sonatype.nexus.repository.maven.internal.HostedHandler
 import org.sonatype.nexus.repository.maven.internal.MavenArtifactMatcher
 import org.sonatype.nexus.repository.maven.internal.MavenHeadersHandler
+import org.sonatype.nexus.repository.maven.internal.MavenIndexMatcher
 import org.sonatype.nexus.repository.maven.internal.MavenMetadataMatcher
 import org.sonatype.nexus.repository.maven.internal.MavenFacetImpl
 import org.sonatype.nexus.repository.maven.internal.MavenPathParser
@@ -39,6 +41,8 @@ import org.sonatype.nexus.repository.view.Route
 import org.sonatype.nexus.repository.view.Router
 import org.sonatype.nexus.repository.view.ViewFacet
 import org.sonatype.nexus.repository.view.handlers.TimingHandler
+import org.sonatype.nexus.repository.view.matchers.ActionMatcher
+import org.sonatype.nexus.repository.view.matchers.logic.LogicMatchers
 
 import static org.sonatype.nexus.repository.http.HttpHandlers.notFound
 
@@ -78,6 +82,9 @@ class Maven2HostedRecipe
   @Inject
   Provider<MavenFacetImpl> mavenFacet
 
+  @Inject
+  Provider<Maven2IndexFacet> indexFacet
+
   @Inject
   VersionPolicyHandler versionPolicyHandler
 
@@ -104,6 +111,7 @@ class Maven2HostedRecipe
     repository.attach(storageFacet.get())
     repository.attach(searchFacet.get())
     repository.attach(mavenFacet.get())
+    repository.attach(indexFacet.get())
     repository.attach(configure(viewFacet.get()))
   }
 
@@ -129,6 +137,17 @@ class Maven2HostedRecipe
         .handler(hostedHandler)
         .create())
 
+    // Note: index is published by Maven2IndexFacet, hence read-only
+    builder.route(new Route.Builder()
+        .matcher(LogicMatchers.and(new ActionMatcher(HttpMethods.GET, HttpMethods.HEAD),
+            new MavenIndexMatcher(mavenPathParser)))
+        .handler(timingHandler)
+        .handler(securityHandler)
+        .handler(partialFetchHandler)
+        .handler(mavenHeadersHandler)
+        .handler(hostedHandler)
+        .create())
+
     builder.defaultHandlers(notFound())
 
     facet.configure(builder.create())
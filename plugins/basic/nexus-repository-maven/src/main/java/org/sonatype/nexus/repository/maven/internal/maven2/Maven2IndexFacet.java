@@ -0,0 +1,639 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal.maven2;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.Nullable;
+import javax.inject.Named;
+
+import org.sonatype.nexus.common.entity.EntityHelper;
+import org.sonatype.nexus.common.entity.EntityId;
+import org.sonatype.nexus.common.hash.HashAlgorithm;
+import org.sonatype.nexus.repository.Facet;
+import org.sonatype.nexus.repository.FacetSupport;
+import org.sonatype.nexus.repository.maven.internal.MavenFacet;
+import org.sonatype.nexus.repository.maven.internal.MavenFacetImpl;
+import org.sonatype.nexus.repository.maven.internal.MavenPath;
+import org.sonatype.nexus.repository.maven.internal.MavenPath.Coordinates;
+import org.sonatype.nexus.repository.maven.internal.MavenPath.SignatureType;
+import org.sonatype.nexus.repository.maven.internal.MavenPathParser;
+import org.sonatype.nexus.repository.storage.Asset;
+import org.sonatype.nexus.repository.storage.BrowsePage;
+import org.sonatype.nexus.repository.storage.Bucket;
+import org.sonatype.nexus.repository.storage.Component;
+import org.sonatype.nexus.repository.storage.StorageFacet;
+import org.sonatype.nexus.repository.storage.StorageTx;
+import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.Payload;
+import org.sonatype.nexus.repository.view.payloads.BytesPayload;
+import org.sonatype.nexus.repository.view.payloads.StreamPayload;
+import org.sonatype.nexus.scheduling.CancelableSupport;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Charsets;
+import com.google.common.base.Splitter;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.joda.time.DateTime;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
+import static org.sonatype.nexus.repository.storage.StorageFacet.P_NAME;
+
+/**
+ * Maven2 repository index facet, publishing the index of hosted repository in {@code .index} directory, in the
+ * format Maven Indexer based clients (IDEs, tools) download it.
+ *
+ * Published index consists of the full index, incremental chunks, and properties file describing them. First publish
+ * streams all components and assets. Later publishes process only the components having assets updated since previous
+ * publish, writing them to the incremental chunk, and build the full index from them and the previous full index, with
+ * artifacts of previous index no longer present written to the chunk as deleted. When nothing changed, nothing is
+ * published. All files are built aside and published in single storage transaction, and chunks advertised by the
+ * previous properties file are retained, so clients reading the previous index while new one is built always get a
+ * consistent set of files.
+ *
+ * @since 3.0
+ */
+@Named
+@Facet.Exposed
+public class Maven2IndexFacet
+    extends FacetSupport
+{
+  static final String INDEX_FILE = "/" + Maven2Format.INDEX_PATH_PREFIX + "nexus-maven-repository-index.gz";
+
+  static final String INDEX_PROPERTIES_FILE = "/" + Maven2Format.INDEX_PATH_PREFIX
+      + "nexus-maven-repository-index.properties";
+
+  static final String INDEX_ID = "nexus.index.id";
+
+  static final String INDEX_CHAIN_ID = "nexus.index.chain-id";
+
+  static final String INDEX_TIMESTAMP = "nexus.index.timestamp";
+
+  static final String INDEX_CHUNK_COUNTER = "nexus.index.last-incremental";
+
+  static final String INDEX_CHUNK_PREFIX = "nexus.index.incremental-";
+
+  /**
+   * Maximum number of incremental chunks advertised in properties.
+   */
+  static final int MAX_CHUNKS = 30;
+
+  private static final DateTimeFormatter INDEX_TIME_FORMAT = DateTimeFormat.forPattern("yyyyMMddHHmmss.SSS Z")
+      .withZoneUTC();
+
+  private static final HashFunction UINFO_HASH = Hashing.murmur3_128();
+
+  private static final String SOURCES = "sources";
+
+  private static final String JAVADOC = "javadoc";
+
+  private static final String POM = "pom";
+
+  /**
+   * Number of components, or documents of previous index, processed with single query.
+   */
+  private static final int BATCH_SIZE = 500;
+
+  /**
+   * Publishes the index of the repository, returning {@code true} if anything was published. Honors task
+   * cancellation of the calling thread.
+   */
+  public boolean publishIndex() throws IOException {
+    final Stopwatch stopwatch = Stopwatch.createStarted();
+    final DateTime now = DateTime.now();
+    final MavenFacet mavenFacet = facet(MavenFacet.class);
+    final MavenPathParser parser = mavenFacet.getMavenPathParser();
+    final String repositoryName = getRepository().getName();
+
+    final Properties previous = readProperties(mavenFacet.get(parser.parsePath(INDEX_PROPERTIES_FILE)));
+    final Content previousIndex = mavenFacet.get(parser.parsePath(INDEX_FILE));
+    final DateTime since = previousIndex == null ? null : timestamp(previous);
+    final int chunk = since == null ? 0 : Integer.parseInt(previous.getProperty(INDEX_CHUNK_COUNTER, "0")) + 1;
+
+    final File indexFile = File.createTempFile("maven-index-" + repositoryName, ".gz");
+    final File chunkFile = File.createTempFile("maven-index-" + repositoryName, "." + chunk + ".gz");
+    try {
+      final int artifacts;
+      final int changes;
+      try (IndexDataWriter index = new IndexDataWriter(new FileOutputStream(indexFile));
+           IndexDataWriter incremental = since == null ? null : new IndexDataWriter(new FileOutputStream(chunkFile))) {
+        index.writeHeader(now);
+        index.writeDescriptor(repositoryName);
+        if (incremental != null) {
+          incremental.writeHeader(now);
+          incremental.writeDescriptor(repositoryName);
+        }
+
+        final Set<String> allGroups = new TreeSet<>();
+        try (StorageTx tx = facet(StorageFacet.class).openTx()) {
+          if (incremental == null) {
+            writeAll(tx, parser, now, index, allGroups);
+          }
+          else {
+            writeChanges(tx, parser, since, now, previousIndex, index, incremental, allGroups);
+          }
+        }
+
+        final Set<String> rootGroups = rootGroups(allGroups);
+        index.writeGroups(allGroups, rootGroups);
+        artifacts = index.getDocuments() - 1;
+        if (incremental != null) {
+          incremental.writeGroups(allGroups, rootGroups);
+          changes = incremental.getDocuments() - 1;
+        }
+        else {
+          changes = artifacts;
+        }
+      }
+
+      if (since != null && changes == 0) {
+        log.info("Index of repository {} is up to date, {} artifacts checked in {}", repositoryName, artifacts,
+            stopwatch);
+        return false;
+      }
+
+      final Properties properties = new Properties();
+      properties.setProperty(INDEX_ID, repositoryName);
+      properties.setProperty(INDEX_TIMESTAMP, INDEX_TIME_FORMAT.print(now));
+      if (since == null) {
+        properties.setProperty(INDEX_CHAIN_ID, Long.toString(now.getMillis()));
+      }
+      else {
+        properties.setProperty(INDEX_CHAIN_ID, previous.getProperty(INDEX_CHAIN_ID));
+        properties.setProperty(INDEX_CHUNK_COUNTER, Integer.toString(chunk));
+        for (int i = 0; i < MAX_CHUNKS && chunk - i > 0; i++) {
+          properties.setProperty(INDEX_CHUNK_PREFIX + i, Integer.toString(chunk - i));
+        }
+      }
+      publish(mavenFacet, parser, indexFile, since == null ? null : chunkFile, chunk, properties);
+
+      // chunks advertised by previous properties are kept, only older ones are removed
+      if (chunk > MAX_CHUNKS) {
+        mavenFacet.delete(parser.parsePath(chunkPath(chunk - MAX_CHUNKS - 1)));
+      }
+      log.info("Published index of repository {}: {} artifacts, chunk {} with {} changes in {}", repositoryName,
+          artifacts, chunk, changes, stopwatch);
+      return true;
+    }
+    finally {
+      delete(indexFile);
+      delete(chunkFile);
+    }
+  }
+
+  /**
+   * Writes documents of every component to the full index, fetching a page of components and then all their assets
+   * in single query.
+   */
+  private void writeAll(final StorageTx tx,
+                        final MavenPathParser parser,
+                        final DateTime now,
+                        final IndexDataWriter index,
+                        final Set<String> allGroups) throws IOException
+  {
+    final Bucket bucket = tx.getBucket();
+    String after = null;
+    do {
+      CancelableSupport.checkCancellation();
+      final BrowsePage<Component> page = tx.browseComponents(bucket, null, null, after, BATCH_SIZE);
+      final List<EntityId> componentIds = Lists.newArrayListWithCapacity(page.getItems().size());
+      for (Component component : page) {
+        componentIds.add(EntityHelper.id(component));
+      }
+      writeComponents(tx, parser, componentIds, now, index, null, null, allGroups);
+      after = page.getNext();
+    }
+    while (after != null);
+  }
+
+  /**
+   * Writes documents of components having assets updated since previous publish to both the full index and the
+   * chunk, and copies the rest of previous index into the full index. Updated assets are read off an index of their
+   * update date, and documents of previous index are checked in batches for their artifact still being present, with
+   * those gone written to the chunk as deleted, so the bucket is never walked.
+   *
+   * Documents copied from previous index are not updated, thus sources, javadoc and signature flags of a document may
+   * be stale until its component gets updated, if only those subordinate artifacts were deleted meanwhile.
+   */
+  private void writeChanges(final StorageTx tx,
+                            final MavenPathParser parser,
+                            final DateTime since,
+                            final DateTime now,
+                            final Content previousIndex,
+                            final IndexDataWriter index,
+                            final IndexDataWriter incremental,
+                            final Set<String> allGroups) throws IOException
+  {
+    final Bucket bucket = tx.getBucket();
+    final Set<EntityId> changed = Sets.newLinkedHashSet();
+    for (Asset asset : tx.browseAssetsUpdatedSince(bucket, since)) {
+      if (asset.componentId() != null) {
+        changed.add(asset.componentId());
+      }
+    }
+
+    final UinfoSet written = new UinfoSet();
+    for (List<EntityId> componentIds : Iterables.partition(changed, BATCH_SIZE)) {
+      CancelableSupport.checkCancellation();
+      writeComponents(tx, parser, componentIds, now, index, incremental, written, allGroups);
+    }
+
+    final Map<String, Map<String, String>> unchanged = Maps.newLinkedHashMap();
+    try (IndexDataReader reader = new IndexDataReader(previousIndex.openInputStream())) {
+      reader.readHeader();
+      Map<String, String> document;
+      while ((document = reader.readDocument()) != null) {
+        final String uinfo = document.get(IndexDataWriter.UINFO);
+        if (uinfo == null || written.contains(uinfo)) {
+          continue;
+        }
+        final String path = artifactPath(uinfo, document.get(IndexDataWriter.INFO));
+        if (path == null) {
+          incremental.writeDeleted(uinfo, now.getMillis());
+          continue;
+        }
+        unchanged.put(path, document);
+        if (unchanged.size() == BATCH_SIZE) {
+          CancelableSupport.checkCancellation();
+          copyPresent(tx, bucket, unchanged, now, index, incremental, allGroups);
+        }
+      }
+    }
+    copyPresent(tx, bucket, unchanged, now, index, incremental, allGroups);
+  }
+
+  /**
+   * Copies documents of previous index, keyed by their artifact path, to the full index if artifact is still present,
+   * or writes them to the chunk as deleted otherwise. Passed in documents are cleared.
+   */
+  private void copyPresent(final StorageTx tx,
+                           final Bucket bucket,
+                           final Map<String, Map<String, String>> documents,
+                           final DateTime now,
+                           final IndexDataWriter index,
+                           final IndexDataWriter incremental,
+                           final Set<String> allGroups) throws IOException
+  {
+    if (documents.isEmpty()) {
+      return;
+    }
+    final Set<String> present = Sets.newHashSet();
+    for (Asset asset : tx.findAssetsWithProperty(P_NAME, documents.keySet(), bucket)) {
+      present.add(asset.name());
+    }
+    for (Map.Entry<String, Map<String, String>> entry : documents.entrySet()) {
+      final Map<String, String> document = entry.getValue();
+      final String uinfo = document.get(IndexDataWriter.UINFO);
+      if (present.contains(entry.getKey())) {
+        final String lastModified = document.get(IndexDataWriter.LAST_MODIFIED);
+        index.writeArtifact(uinfo, document.get(IndexDataWriter.INFO), document.get(IndexDataWriter.SHA1),
+            lastModified == null ? now.getMillis() : Long.parseLong(lastModified));
+        allGroups.add(uinfo.substring(0, uinfo.indexOf(IndexDataWriter.FS)));
+      }
+      else {
+        incremental.writeDeleted(uinfo, now.getMillis());
+      }
+    }
+    documents.clear();
+  }
+
+  /**
+   * Writes documents of main artifacts of passed in components, fetching their assets in single query, to the full
+   * index, and to the chunk too if there is one, recording their UINFOs in {@code written}.
+   */
+  private void writeComponents(final StorageTx tx,
+                               final MavenPathParser parser,
+                               final List<EntityId> componentIds,
+                               final DateTime now,
+                               final IndexDataWriter index,
+                               @Nullable final IndexDataWriter incremental,
+                               @Nullable final UinfoSet written,
+                               final Set<String> allGroups) throws IOException
+  {
+    if (componentIds.isEmpty()) {
+      return;
+    }
+    final ListMultimap<EntityId, Asset> assets = ArrayListMultimap.create();
+    for (Asset asset : tx.browseAssets(componentIds)) {
+      assets.put(asset.componentId(), asset);
+    }
+    for (EntityId componentId : componentIds) {
+      writeComponent(parser, assets.get(componentId), now, index, incremental, written, allGroups);
+    }
+  }
+
+  /**
+   * Writes documents of main artifacts of a component to the full index, and to the chunk too if there is one.
+   */
+  private void writeComponent(final MavenPathParser parser,
+                              final List<Asset> assets,
+                              final DateTime now,
+                              final IndexDataWriter index,
+                              @Nullable final IndexDataWriter incremental,
+                              @Nullable final UinfoSet written,
+                              final Set<String> allGroups) throws IOException
+  {
+    final Map<MavenPath, Asset> mains = Maps.newLinkedHashMap();
+    final Set<String> paths = Sets.newHashSet();
+    for (Asset asset : assets) {
+      final MavenPath mavenPath = parser.parsePath(asset.name());
+      if (mavenPath.getCoordinates() == null) {
+        continue;
+      }
+      paths.add(mavenPath.getPath());
+      if (!mavenPath.isSubordinate()) {
+        mains.put(mavenPath, asset);
+      }
+    }
+
+    final List<Coordinates> coordinates = Lists.newArrayList();
+    for (MavenPath mavenPath : mains.keySet()) {
+      coordinates.add(mavenPath.getCoordinates());
+    }
+    final String packaging = packaging(coordinates);
+    final boolean sources = hasClassifier(coordinates, SOURCES);
+    final boolean javadoc = hasClassifier(coordinates, JAVADOC);
+
+    for (Map.Entry<MavenPath, Asset> entry : mains.entrySet()) {
+      final Coordinates artifact = entry.getKey().getCoordinates();
+      if (!isIndexed(artifact, packaging)) {
+        continue;
+      }
+      final Asset asset = entry.getValue();
+      final Date contentLastModified = asset.formatAttributes()
+          .get(MavenFacetImpl.P_CONTENT_LAST_MODIFIED, Date.class);
+      final long lastModified = contentLastModified != null ? contentLastModified.getTime()
+          : asset.lastUpdated() != null ? asset.lastUpdated().getMillis() : now.getMillis();
+      final boolean signature = paths.contains(entry.getKey().signature(SignatureType.GPG).getPath());
+      final String uinfo = uinfo(artifact);
+      final String info = info(packaging, lastModified, asset.size() == null ? -1 : asset.size(), sources, javadoc,
+          signature, artifact.getExtension());
+      final String sha1 = asset.attributes().child(StorageFacet.P_CHECKSUM)
+          .get(HashAlgorithm.SHA1.name(), String.class);
+
+      index.writeArtifact(uinfo, info, sha1, now.getMillis());
+      if (incremental != null) {
+        incremental.writeArtifact(uinfo, info, sha1, now.getMillis());
+      }
+      if (written != null) {
+        written.add(uinfo);
+      }
+      allGroups.add(artifact.getGroupId());
+    }
+  }
+
+  /**
+   * Stores the index files in single transaction, properties file included, so clients see either previous or new
+   * index. Chunk is not published if {@code chunkFile} is {@code null}.
+   */
+  private void publish(final MavenFacet mavenFacet,
+                       final MavenPathParser parser,
+                       final File indexFile,
+                       @Nullable final File chunkFile,
+                       final int chunk,
+                       final Properties properties) throws IOException
+  {
+    final List<Closeable> streams = Lists.newArrayList();
+    try {
+      final Map<MavenPath, Payload> payloads = Maps.newLinkedHashMap();
+      payloads.put(parser.parsePath(INDEX_FILE), filePayload(indexFile, streams));
+      if (chunkFile != null) {
+        payloads.put(parser.parsePath(chunkPath(chunk)), filePayload(chunkFile, streams));
+      }
+      final ByteArrayOutputStream propertiesBytes = new ByteArrayOutputStream();
+      properties.store(propertiesBytes, null);
+      payloads.put(parser.parsePath(INDEX_PROPERTIES_FILE), new BytesPayload(propertiesBytes.toByteArray(), null));
+      mavenFacet.putAll(payloads);
+    }
+    finally {
+      for (Closeable stream : streams) {
+        stream.close();
+      }
+    }
+  }
+
+  private Payload filePayload(final File file, final List<Closeable> streams) throws IOException {
+    final InputStream inputStream = new FileInputStream(file);
+    streams.add(inputStream);
+    return new StreamPayload(inputStream, file.length(), null);
+  }
+
+  private void delete(final File file) {
+    if (!file.delete() && file.exists()) {
+      log.warn("Could not delete temporary file {}", file);
+    }
+  }
+
+  @VisibleForTesting
+  static String chunkPath(final int chunk) {
+    return "/" + Maven2Format.INDEX_PATH_PREFIX + "nexus-maven-repository-index." + chunk + ".gz";
+  }
+
+  /**
+   * Returns timestamp of previously published index, or {@code null} if there is no previous index incremental
+   * chunk could be built against.
+   */
+  @Nullable
+  @VisibleForTesting
+  static DateTime timestamp(@Nullable final Properties properties) {
+    if (properties == null || properties.getProperty(INDEX_CHAIN_ID) == null) {
+      return null;
+    }
+    final String timestamp = properties.getProperty(INDEX_TIMESTAMP);
+    try {
+      return timestamp == null ? null : INDEX_TIME_FORMAT.parseDateTime(timestamp);
+    }
+    catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  @Nullable
+  private Properties readProperties(@Nullable final Content content) throws IOException {
+    if (content == null) {
+      return null;
+    }
+    final Properties properties = new Properties();
+    try (InputStream inputStream = content.openInputStream()) {
+      properties.load(inputStream);
+    }
+    return properties;
+  }
+
+  /**
+   * Returns the packaging of a GAV, the extension of its main artifact without classifier, or "pom" if there is none.
+   */
+  @VisibleForTesting
+  static String packaging(final Collection<Coordinates> artifacts) {
+    for (Coordinates artifact : artifacts) {
+      if (artifact.getClassifier() == null && !POM.equals(artifact.getExtension())) {
+        return artifact.getExtension();
+      }
+    }
+    return POM;
+  }
+
+  /**
+   * Returns {@code true} if artifact gets its own document: every artifact but the POM of GAV with other packaging
+   * is indexed, as they would share the same UINFO.
+   */
+  @VisibleForTesting
+  static boolean isIndexed(final Coordinates artifact, final String packaging) {
+    return artifact.getClassifier() != null || !POM.equals(artifact.getExtension()) || POM.equals(packaging);
+  }
+
+  private static boolean hasClassifier(final Collection<Coordinates> artifacts, final String classifier) {
+    for (Coordinates artifact : artifacts) {
+      if (classifier.equals(artifact.getClassifier())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the unique identifier of artifact document: G|A|V|C, with extension appended for classified artifacts.
+   */
+  @VisibleForTesting
+  static String uinfo(final Coordinates artifact) {
+    final StringBuilder sb = new StringBuilder()
+        .append(artifact.getGroupId()).append(IndexDataWriter.FS)
+        .append(artifact.getArtifactId()).append(IndexDataWriter.FS)
+        .append(artifact.getVersion()).append(IndexDataWriter.FS);
+    if (artifact.getClassifier() == null) {
+      sb.append(IndexDataWriter.NA);
+    }
+    else {
+      sb.append(artifact.getClassifier()).append(IndexDataWriter.FS).append(artifact.getExtension());
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Returns the repository path of artifact of a document, rebuilt from its UINFO and the extension in its INFO, or
+   * {@code null} if document is malformed.
+   */
+  @Nullable
+  @VisibleForTesting
+  static String artifactPath(final String uinfo, @Nullable final String info) {
+    final List<String> fields = Splitter.on(IndexDataWriter.FS).splitToList(uinfo);
+    final String classifier;
+    final String extension;
+    if (fields.size() == 4 && IndexDataWriter.NA.equals(fields.get(3)) && info != null) {
+      classifier = null;
+      extension = info.substring(info.lastIndexOf(IndexDataWriter.FS) + 1);
+    }
+    else if (fields.size() == 5) {
+      classifier = fields.get(3);
+      extension = fields.get(4);
+    }
+    else {
+      return null;
+    }
+    final String artifactId = fields.get(1);
+    final String version = fields.get(2);
+    return "/" + fields.get(0).replace('.', '/') + "/" + artifactId + "/" + MetadataRebuilder.baseVersion(version)
+        + "/" + artifactId + "-" + version + (classifier == null ? "" : "-" + classifier) + "." + extension;
+  }
+
+  /**
+   * Returns the info of artifact document: packaging, last modified, size, sources, javadoc and signature presence
+   * and extension.
+   */
+  @VisibleForTesting
+  static String info(final String packaging,
+                     final long lastModified,
+                     final long size,
+                     final boolean sources,
+                     final boolean javadoc,
+                     final boolean signature,
+                     final String extension)
+  {
+    return packaging + IndexDataWriter.FS + lastModified + IndexDataWriter.FS + size + IndexDataWriter.FS
+        + (sources ? 1 : 0) + IndexDataWriter.FS + (javadoc ? 1 : 0) + IndexDataWriter.FS + (signature ? 1 : 0)
+        + IndexDataWriter.FS + extension;
+  }
+
+  /**
+   * Returns the first segments of passed in group IDs.
+   */
+  @VisibleForTesting
+  static Set<String> rootGroups(final Collection<String> groups) {
+    final Set<String> result = new TreeSet<>();
+    for (String group : groups) {
+      final int dotPos = group.indexOf('.');
+      result.add(dotPos == -1 ? group : group.substring(0, dotPos));
+    }
+    return result;
+  }
+
+  /**
+   * Set of UINFOs held as 64 bit hashes in a sorted array, compact enough to hold every artifact of a repository.
+   */
+  @VisibleForTesting
+  static class UinfoSet
+  {
+    private long[] hashes = new long[1024];
+
+    private int size;
+
+    private boolean sorted;
+
+    void add(final String uinfo) {
+      if (size == hashes.length) {
+        hashes = Arrays.copyOf(hashes, size * 2);
+      }
+      hashes[size++] = hash(uinfo);
+      sorted = false;
+    }
+
+    void sort() {
+      Arrays.sort(hashes, 0, size);
+      sorted = true;
+    }
+
+    boolean contains(final String uinfo) {
+      if (!sorted) {
+        sort();
+      }
+      return Arrays.binarySearch(hashes, 0, size, hash(uinfo)) >= 0;
+    }
+
+    private static long hash(final String uinfo) {
+      return UINFO_HASH.hashString(uinfo, Charsets.UTF_8).asLong();
+    }
+  }
+}
@@ -22,6 +22,8 @@ import org.sonatype.nexus.repository.maven.internal.MavenPath.HashType;
 import org.sonatype.nexus.repository.maven.internal.MavenPath.SignatureType;
 import org.sonatype.nexus.repository.maven.internal.MavenPathParser;
 
+import static com.google.common.base.Preconditions.checkArgument;
+
 /**
  * Maven 2 path parser.
  *
@@ -32,6 +34,33 @@ import org.sonatype.nexus.repository.maven.internal.MavenPathParser;
 public class Maven2MavenPathParser
     implements MavenPathParser
 {
+  private static final String SNAPSHOT = "SNAPSHOT";
+
+  /**
+   * Length of snapshot timestamp with separator, as in "20070504.160758-".
+   */
+  private static final int TIMESTAMP_LEN = 16;
+
+  private static final String[] HASH_SUFFIXES;
+
+  static {
+    HASH_SUFFIXES = new String[HashType.values().length];
+    for (HashType hashType : HashType.values()) {
+      HASH_SUFFIXES[hashType.ordinal()] = "." + hashType.getExt();
+    }
+  }
+
+  private static final String GPG_SUFFIX = "." + SignatureType.GPG.getExt();
+
+  private static final String TAR_GZ_SUFFIX = ".tar.gz";
+
+  /**
+   * Size of {@link #idCache}, enough to hold IDs of all artifacts being actively used.
+   */
+  private static final int ID_CACHE_SIZE = 8192;
+
+  private final StringCache idCache = new StringCache(ID_CACHE_SIZE);
+
   @Override
   public MavenPath parsePath(final String path) {
     final Coordinates coordinates = maven2LayoutedPathToCoordinates(path);
@@ -43,123 +72,208 @@ public class Maven2MavenPathParser
     return path.main().getFileName().equals(Maven2Format.METADATA_FILENAME);
   }
 
+  @Override
+  public boolean isRepositoryIndex(final MavenPath path) {
+    final String mainPath = path.main().getPath();
+    return mainPath.startsWith(Maven2Format.INDEX_PATH_PREFIX, mainPath.startsWith("/") ? 1 : 0);
+  }
+
   /**
    * Tries to parse a path according to Maven2 layout spec, and extract the {@link Coordinates} out of it, if possible.
    * If path does not obeys Maven2 layout or is not an artifact path, {@code null} is returned.
+   *
+   * The path is parsed in single pass over its characters using positions only, and strings are cut out of it only
+   * once it is known to be an artifact path. Group and artifact IDs are taken from cache, as they repeat across many
+   * paths.
    */
   @Nullable
-  private Coordinates maven2LayoutedPathToCoordinates(String str) {
-    try {
-      str = str.startsWith("/") ? str.substring(1) : str;
+  private Coordinates maven2LayoutedPathToCoordinates(final String str) {
+    final int start = str.startsWith("/") ? 1 : 0;
 
-      int vEndPos = str.lastIndexOf('/');
-      if (vEndPos == -1) {
-        return null;
-      }
+    final int vEndPos = str.lastIndexOf('/');
+    if (vEndPos < start) {
+      return null;
+    }
+    final int aEndPos = str.lastIndexOf('/', vEndPos - 1);
+    if (aEndPos < start) {
+      return null;
+    }
+    final int gEndPos = str.lastIndexOf('/', aEndPos - 1);
+    if (gEndPos < start) {
+      return null;
+    }
 
-      int aEndPos = str.lastIndexOf('/', vEndPos - 1);
-      if (aEndPos == -1) {
-        return null;
+    final int aLen = aEndPos - gEndPos - 1;
+    final int bvStart = aEndPos + 1;
+    final int bvLen = vEndPos - bvStart;
+    final boolean snapshot = endsWith(str, bvStart, vEndPos, SNAPSHOT);
+
+    // file name is [fStart, str.length()), with subordinate suffixes stripped it is [fStart, fEnd)
+    final int fStart = vEndPos + 1;
+    int fEnd = str.length();
+    for (String hashSuffix : HASH_SUFFIXES) {
+      if (endsWith(str, fStart, fEnd, hashSuffix)) {
+        fEnd -= hashSuffix.length();
+        break;
       }
+    }
+    SignatureType signatureType = null;
+    if (endsWith(str, fStart, fEnd, GPG_SUFFIX)) {
+      signatureType = SignatureType.GPG;
+      fEnd -= GPG_SUFFIX.length();
+    }
+    if (endsWith(str, fStart, fEnd, Maven2Format.METADATA_FILENAME)) {
+      return null;
+    }
+    final int fLen = fEnd - fStart;
 
-      int gEndPos = str.lastIndexOf('/', aEndPos - 1);
-      if (gEndPos == -1) {
+    final String version;
+    final int tailStart;
+    if (snapshot) {
+      final int vSnapshotStart = aLen + bvLen - SNAPSHOT.length() + 1;
+      if (vSnapshotStart + SNAPSHOT.length() > fLen) {
         return null;
       }
-
-      final String groupId = str.substring(0, gEndPos).replace('/', '.');
-      final String artifactId = str.substring(gEndPos + 1, aEndPos);
-      final String baseVersion = str.substring(aEndPos + 1, vEndPos);
-      final boolean snapshot = baseVersion.endsWith("SNAPSHOT");
-      final String fileName = str.substring(vEndPos + 1);
-      str = fileName;
-
-      StringBuilder extSuffix = new StringBuilder();
-      SignatureType signatureType = null;
-      if (str.endsWith("." + HashType.SHA1.getExt())) {
-        extSuffix.insert(0, "." + HashType.SHA1.getExt());
-        str = str.substring(0, str.length() - 5);
+      if (str.startsWith(SNAPSHOT, fStart + vSnapshotStart)) {
+        version = null; // same as base version
+        tailStart = aLen + bvLen + 1;
       }
-      else if (str.endsWith("." + HashType.MD5.getExt())) {
-        extSuffix.insert(0, "." + HashType.MD5.getExt());
-        str = str.substring(0, str.length() - 4);
+      else {
+        // timestamp is followed by build number
+        if (vSnapshotStart + TIMESTAMP_LEN > fLen) {
+          return null;
+        }
+        int buildNumberPos = vSnapshotStart + TIMESTAMP_LEN;
+        while (buildNumberPos < fLen && isDigit(str.charAt(fStart + buildNumberPos))) {
+          buildNumberPos++;
+        }
+        if (buildNumberPos == vSnapshotStart + TIMESTAMP_LEN || buildNumberPos == fLen) {
+          return null;
+        }
+        final int n = bvLen > SNAPSHOT.length() ? bvLen - SNAPSHOT.length() : 0;
+        tailStart = aLen + n + (buildNumberPos - vSnapshotStart) + 1;
+        version = str.substring(bvStart, vEndPos - SNAPSHOT.length())
+            .concat(str.substring(fStart + vSnapshotStart, fStart + buildNumberPos));
       }
-
-      if (str.endsWith("." + SignatureType.GPG.getExt())) {
-        extSuffix.insert(0, "." + SignatureType.GPG.getExt());
-        signatureType = SignatureType.GPG;
-        str = str.substring(0, str.length() - (signatureType.getExt().length() + 1));
+    }
+    else {
+      // file name must start with artifactId-version followed by classifier or extension
+      final int prefixLen = aLen + bvLen + 1;
+      if (str.length() - fStart <= prefixLen
+          || !str.regionMatches(fStart, str, gEndPos + 1, aLen)
+          || str.charAt(fStart + aLen) != '-'
+          || !str.regionMatches(fStart + aLen + 1, str, bvStart, bvLen)
+          || (str.charAt(fStart + prefixLen) != '.' && str.charAt(fStart + prefixLen) != '-')) {
+        return null;
       }
+      version = null; // same as base version
+      tailStart = prefixLen;
+    }
+    if (tailStart > fLen) {
+      return null;
+    }
 
-      if (str.endsWith(Maven2Format.METADATA_FILENAME)) {
+    // tail is [tStart, fEnd): optional classifier with extension
+    final int tStart = fStart + tailStart;
+    int extPos = str.lastIndexOf('.', fEnd - 1);
+    if (extPos < tStart) {
+      // NX-563: not allowing extensionless paths to be interpreted as artifact
+      return null;
+    }
+    if (endsWith(str, tStart, fEnd, TAR_GZ_SUFFIX)) {
+      extPos -= 4;
+    }
+    String classifier = null;
+    if (str.charAt(tStart) == '-') {
+      if (extPos < tStart + 1) {
         return null;
       }
+      classifier = str.substring(tStart + 1, extPos);
+    }
 
-      String version = baseVersion;
-      String tail;
-      if (snapshot) {
-        int vSnapshotStart = artifactId.length() + baseVersion.length() - 9 + 2;
-        version = str.substring(vSnapshotStart, vSnapshotStart + 8);
-        if ("SNAPSHOT".equals(version)) {
-          version = baseVersion; // reset it
-          int nTailPos = artifactId.length() + baseVersion.length() + 1;
-          tail = str.substring(nTailPos);
-        }
-        else {
-          StringBuilder snapshotBuildNumber = new StringBuilder(version);
-          snapshotBuildNumber
-              .append(str.substring(vSnapshotStart + version.length(), vSnapshotStart + version.length() + 8));
-
-          int buildNumberCount = 0;
-          int buildNumberPos = vSnapshotStart + snapshotBuildNumber.length();
-          while (str.charAt(buildNumberPos) >= '0' && str.charAt(buildNumberPos) <= '9') {
-            snapshotBuildNumber.append(str.charAt(buildNumberPos));
-            buildNumberPos++;
-            buildNumberCount++;
-          }
-          if (buildNumberCount == 0) {
-            return null;
-          }
-          int n = baseVersion.length() > 8 ? baseVersion.length() - 8 : 0;
-          tail = str.substring(artifactId.length() + n + snapshotBuildNumber.length() + 1);
-          version = baseVersion.substring(0, baseVersion.length() - 8) + snapshotBuildNumber;
-        }
+    final String baseVersion = str.substring(bvStart, vEndPos);
+    return new Coordinates(
+        snapshot,
+        idCache.get(str, start, gEndPos, true),
+        idCache.get(str, gEndPos + 1, aEndPos, false),
+        version == null ? baseVersion : version,
+        baseVersion,
+        classifier,
+        // extension with subordinate suffixes, as they are in the path
+        str.substring(extPos + 1),
+        signatureType
+    );
+  }
+
+  /**
+   * Returns {@code true} if region [start, end) of passed in string ends with passed in suffix.
+   */
+  private static boolean endsWith(final String str, final int start, final int end, final String suffix) {
+    final int suffixStart = end - suffix.length();
+    return suffixStart >= start && str.startsWith(suffix, suffixStart);
+  }
+
+  private static boolean isDigit(final char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  /**
+   * Lossy, lock free cache of strings cut out of paths, that interns them without creating them first: on hit the
+   * cached instance is returned and no string is created, on miss string is created and replaces whatever was cached
+   * in its slot. As strings are immutable, racing threads at worst see a stale slot, which is a miss.
+   */
+  private static class StringCache
+  {
+    private final String[] slots;
+
+    private final int mask;
+
+    StringCache(final int size) {
+      checkArgument(Integer.bitCount(size) == 1, "Size must be power of two: %s", size);
+      this.slots = new String[size];
+      this.mask = size - 1;
+    }
+
+    /**
+     * Returns string of region [start, end) of passed in string, optionally with slashes replaced by dots.
+     */
+    String get(final String str, final int start, final int end, final boolean slashToDot) {
+      int hash = 0;
+      for (int i = start; i < end; i++) {
+        hash = 31 * hash + map(str.charAt(i), slashToDot);
       }
-      else {
-        if (!fileName.startsWith(artifactId + "-" + baseVersion + ".")
-            && !fileName.startsWith(artifactId + "-" + baseVersion + "-")) {
-          // The path does not represents an artifact (filename does not match artifactId-version)!
-          return null;
-        }
-        int nTailPos = artifactId.length() + baseVersion.length() + 1;
-        tail = str.substring(nTailPos);
+      final int slot = (hash ^ (hash >>> 16)) & mask;
+      final String cached = slots[slot];
+      if (cached != null && matches(cached, str, start, end, slashToDot)) {
+        return cached;
       }
+      String result = str.substring(start, end);
+      if (slashToDot) {
+        result = result.replace('/', '.');
+      }
+      slots[slot] = result;
+      return result;
+    }
 
-      int nExtPos = tail.lastIndexOf('.');
-      if (nExtPos == -1) {
-        // NX-563: not allowing extensionless paths to be interpreted as artifact
-        return null;
+    private static boolean matches(final String cached,
+                                   final String str,
+                                   final int start,
+                                   final int end,
+                                   final boolean slashToDot)
+    {
+      if (cached.length() != end - start) {
+        return false;
       }
-      if (tail.endsWith(".tar.gz")) {
-        nExtPos = nExtPos - 4;
+      for (int i = start; i < end; i++) {
+        if (cached.charAt(i - start) != map(str.charAt(i), slashToDot)) {
+          return false;
+        }
       }
+      return true;
+    }
 
-      final String ext = tail.substring(nExtPos + 1);
-      final String classifier = tail.charAt(0) == '-' ? tail.substring(1, nExtPos) : null;
-
-      return new Coordinates(
-          snapshot,
-          groupId,
-          artifactId,
-          version,
-          baseVersion,
-          classifier,
-          ext + extSuffix,
-          signatureType
-      );
-    }
-    catch (StringIndexOutOfBoundsException e) {
-      return null;
+    private static char map(final char c, final boolean slashToDot) {
+      return slashToDot && c == '/' ? '.' : c;
     }
   }
 }
@@ -12,33 +12,55 @@
  */
 package org.sonatype.nexus.repository.maven.internal.maven2;
 
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
+import org.sonatype.nexus.repository.view.Payload;
 import org.sonatype.sisu.goodies.common.ComponentSupport;
 
 import com.google.common.base.Strings;
+import com.google.common.collect.Ordering;
 import org.apache.maven.artifact.repository.metadata.Metadata;
 import org.apache.maven.artifact.repository.metadata.Plugin;
+import org.apache.maven.artifact.repository.metadata.Snapshot;
 import org.apache.maven.artifact.repository.metadata.SnapshotVersion;
 import org.apache.maven.artifact.repository.metadata.Versioning;
+import org.codehaus.plexus.util.xml.pull.MXParser;
+import org.codehaus.plexus.util.xml.pull.MXSerializer;
+import org.codehaus.plexus.util.xml.pull.XmlPullParser;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.codehaus.plexus.util.xml.pull.XmlSerializer;
 import org.eclipse.aether.util.version.GenericVersionScheme;
 import org.eclipse.aether.version.InvalidVersionSpecificationException;
 import org.eclipse.aether.version.Version;
 import org.eclipse.aether.version.VersionScheme;
 
-import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static org.codehaus.plexus.util.xml.pull.XmlPullParser.END_TAG;
+import static org.codehaus.plexus.util.xml.pull.XmlPullParser.START_TAG;
 
 /**
  * Maven 2 repository metadata merge.
  *
+ * Merging is done in a single pass over the inputs: versions, plugins and snapshot versions are collected into hash
+ * maps and versions are sorted once at the end using Maven version ordering. Metadata can be merged either from
+ * {@link Metadata} instances, or streamed from XML where only the elements taking part in the merge are extracted
+ * with a pull parser and the result is written directly to an output stream.
+ *
  * @since 3.0
  */
 public class Maven2MetadataMerger
@@ -67,17 +89,6 @@ public class Maven2MetadataMerger
    */
   private final VersionScheme versionScheme = new GenericVersionScheme();
 
-  /**
-   * Version comparator that uses version scheme to sort version strings.
-   */
-  private final Comparator<String> versionStringComparator = new Comparator<String>()
-  {
-    @Override
-    public int compare(final String o1, final String o2) {
-      return version(o1).compareTo(version(o2));
-    }
-  };
-
   /**
    * Plugin comparator that uses artifactId to sort plugin elements.
    */
@@ -85,7 +96,7 @@ public class Maven2MetadataMerger
   {
     @Override
     public int compare(final Plugin p1, final Plugin p2) {
-      return p1.getArtifactId().compareTo(p2.getArtifactId());
+      return Ordering.natural().nullsFirst().compare(p1.getArtifactId(), p2.getArtifactId());
     }
   };
 
@@ -130,184 +141,561 @@ public class Maven2MetadataMerger
   @Nullable
   public Metadata merge(final Iterable<MetadataEnvelope> metadatas) {
     checkNotNull(metadatas);
-    Metadata result = null;
+    final Merge merge = new Merge();
     for (MetadataEnvelope metadataEnvelope : metadatas) {
-      if (result == null) {
-        result = metadataEnvelope.getMetadata().clone();
+      merge.add(metadataEnvelope.getOrigin(), part(metadataEnvelope.getMetadata()));
+    }
+    if (merge.isEmpty()) {
+      return null;
+    }
+    return merge.toMetadata();
+  }
+
+  /**
+   * Merges Maven2 repository metadata XML payloads keyed by their origin in iteration order, and writes the merged
+   * metadata XML to the output stream, which is not closed. Unparseable payloads are left out. Returns {@code false}
+   * and writes nothing if there was no usable payload.
+   */
+  public boolean merge(final Map<String, ? extends Payload> payloads, final OutputStream outputStream)
+      throws IOException
+  {
+    checkNotNull(payloads);
+    checkNotNull(outputStream);
+    final Merge merge = new Merge();
+    for (Entry<String, ? extends Payload> entry : payloads.entrySet()) {
+      try (InputStream inputStream = entry.getValue().openInputStream()) {
+        merge.add(entry.getKey(), read(inputStream));
+      }
+      catch (XmlPullParserException | EOFException e) {
+        // skip it, log it
+        log.info("Unparseable repository metadata: {}", entry.getKey(), e);
+      }
+    }
+    if (merge.isEmpty()) {
+      return false;
+    }
+    merge.write(outputStream);
+    return true;
+  }
+
+  /**
+   * The elements of a single metadata taking part in the merge.
+   */
+  private static class Part
+  {
+    private String groupId;
+
+    private String artifactId;
+
+    private String version;
+
+    private boolean versioning;
+
+    private String latest;
+
+    private String release;
+
+    private String lastUpdated;
+
+    private Snapshot snapshot;
+
+    private final List<String> versions = new ArrayList<>();
+
+    private final List<SnapshotVersion> snapshotVersions = new ArrayList<>();
+
+    private final List<Plugin> plugins = new ArrayList<>();
+  }
+
+  /**
+   * Accumulates merged metadata, the {@link Part}s added are not mutated.
+   */
+  private class Merge
+  {
+    private int parts;
+
+    private String groupId;
+
+    private String artifactId;
+
+    private String version;
+
+    private boolean versioning;
+
+    private String latest;
+
+    private String release;
+
+    private String lastUpdated;
+
+    private Snapshot snapshot;
+
+    /**
+     * Version strings with their parsed versions, parsed only once.
+     */
+    private final Map<String, Version> versions = new LinkedHashMap<>();
+
+    /**
+     * Snapshot versions keyed by extension and classifier.
+     */
+    private final Map<List<String>, SnapshotVersion> snapshotVersions = new LinkedHashMap<>();
+
+    /**
+     * Plugins keyed by artifactId and prefix.
+     */
+    private final Map<List<String>, Plugin> plugins = new LinkedHashMap<>();
+
+    public boolean isEmpty() {
+      return parts == 0;
+    }
+
+    /**
+     * Merges the part on top of the already merged ones, or leaves it out if it is for different coordinates.
+     */
+    public void add(final String origin, final Part part) {
+      if (parts == 0) {
+        groupId = part.groupId;
+        artifactId = part.artifactId;
+        version = part.version;
+        latest = part.latest;
+        release = part.release;
       }
       else {
-        try {
-          result = merge(result, metadataEnvelope.getMetadata().clone());
+        // sanity checks, version differs: we do it "both ways" if set at all
+        final String rightGroupId = Strings.isNullOrEmpty(part.groupId) ? groupId : part.groupId;
+        final String rightArtifactId = Strings.isNullOrEmpty(part.artifactId) ? artifactId : part.artifactId;
+        final String rightVersion = Strings.isNullOrEmpty(part.version) ? version : part.version;
+        if (mismatch(origin, "GroupId", groupId, rightGroupId)
+            || mismatch(origin, "ArtifactId", artifactId, rightArtifactId)
+            || (!Strings.isNullOrEmpty(version) && mismatch(origin, "Version", version, rightVersion))) {
+          // leave out
+          return;
         }
-        catch (IllegalArgumentException e) {
-          // leave out, log it
-          log.warn("Bad metadata {}", metadataEnvelope.getOrigin(), e);
+        if (Strings.isNullOrEmpty(version)) {
+          version = part.version;
         }
       }
+      parts++;
+
+      mergePlugins(part);
+      if (part.versioning) {
+        mergeVersioning(part);
+      }
     }
-    if (result == null) {
-      return null;
+
+    private boolean mismatch(final String origin, final String name, final String left, final String right) {
+      if (Objects.equals(nullOrEmptyStringFilter(left), nullOrEmptyStringFilter(right))) {
+        return false;
+      }
+      log.warn("Bad metadata {}: {} mismatch: {} vs {}", origin, name, left, right);
+      return true;
     }
-    if (result.getVersioning() != null && !result.getVersioning().getVersions().isEmpty()) {
-      Collections.sort(result.getVersioning().getVersions(), versionStringComparator);
-      // the last in ordered list
-      String latest = result.getVersioning().getVersions().get(result.getVersioning().getVersions().size() - 1);
-      // the last non-snapshot in ordered list, may be null
-      String release = null;
-      for (int i = result.getVersioning().getVersions().size() - 1; i >= 0; i--) {
-        if (!result.getVersioning().getVersions().get(i).endsWith("SNAPSHOT")) {
-          release = result.getVersioning().getVersions().get(i);
-          break;
+
+    private void mergePlugins(final Part part) {
+      for (Plugin plugin : part.plugins) {
+        final List<String> key = Arrays.asList(plugin.getArtifactId(), plugin.getPrefix());
+        final Plugin preExisting = plugins.get(key);
+        if (preExisting != null) {
+          preExisting.setName(plugin.getName());
+        }
+        else {
+          final Plugin newPlugin = new Plugin();
+          newPlugin.setArtifactId(plugin.getArtifactId());
+          newPlugin.setPrefix(plugin.getPrefix());
+          newPlugin.setName(plugin.getName());
+          plugins.put(key, newPlugin);
+        }
+      }
+    }
+
+    private void mergeVersioning(final Part part) {
+      versioning = true;
+
+      // lastUpdated: if left not set, set from right, otherwise newer
+      if (part.lastUpdated != null && (lastUpdated == null || ts(part.lastUpdated) > ts(lastUpdated))) {
+        lastUpdated = part.lastUpdated;
+      }
+
+      // versions: just add strings not yet present
+      for (String partVersion : part.versions) {
+        if (!versions.containsKey(partVersion)) {
+          versions.put(partVersion, version(partVersion));
+        }
+      }
+
+      // snapshot: add if right has it, and left does not have it, or left is older
+      if (part.snapshot != null
+          && (snapshot == null || ts(part.snapshot.getTimestamp()) > ts(snapshot.getTimestamp()))) {
+        snapshot = new Snapshot();
+        snapshot.setTimestamp(part.snapshot.getTimestamp());
+        snapshot.setBuildNumber(part.snapshot.getBuildNumber());
+        snapshot.setLocalCopy(part.snapshot.isLocalCopy());
+      }
+
+      // snapshotVersions: add ext+classifier combos, if not exist, or are older version
+      for (SnapshotVersion snapshotVersion : part.snapshotVersions) {
+        final List<String> key = Arrays.asList(snapshotVersion.getExtension(),
+            nullOrEmptyStringFilter(snapshotVersion.getClassifier()));
+        final SnapshotVersion preExisting = snapshotVersions.get(key);
+        if (preExisting != null) {
+          if (version(snapshotVersion.getVersion()).compareTo(version(preExisting.getVersion())) > 0) {
+            preExisting.setClassifier(nullOrEmptyStringFilter(snapshotVersion.getClassifier()));
+            preExisting.setVersion(snapshotVersion.getVersion());
+            preExisting.setUpdated(snapshotVersion.getUpdated());
+          }
+        }
+        else {
+          final SnapshotVersion newSnapshotVersion = new SnapshotVersion();
+          newSnapshotVersion.setExtension(snapshotVersion.getExtension());
+          newSnapshotVersion.setClassifier(snapshotVersion.getClassifier());
+          newSnapshotVersion.setVersion(snapshotVersion.getVersion());
+          newSnapshotVersion.setUpdated(snapshotVersion.getUpdated());
+          snapshotVersions.put(key, newSnapshotVersion);
+        }
+      }
+    }
+
+    /**
+     * Returns the merged version strings in Maven version order, and sets latest and release from them.
+     */
+    private List<String> sortedVersions() {
+      final List<Entry<String, Version>> entries = new ArrayList<>(versions.entrySet());
+      Collections.sort(entries, new Comparator<Entry<String, Version>>()
+      {
+        @Override
+        public int compare(final Entry<String, Version> e1, final Entry<String, Version> e2) {
+          return e1.getValue().compareTo(e2.getValue());
+        }
+      });
+      final List<String> result = new ArrayList<>(entries.size());
+      for (Entry<String, Version> entry : entries) {
+        result.add(entry.getKey());
+      }
+      if (!result.isEmpty()) {
+        // the last in ordered list
+        latest = result.get(result.size() - 1);
+        // the last non-snapshot in ordered list, may be null
+        release = null;
+        for (int i = result.size() - 1; i >= 0; i--) {
+          if (!result.get(i).endsWith("SNAPSHOT")) {
+            release = result.get(i);
+            break;
+          }
         }
       }
-      result.getVersioning().setLatest(latest);
-      result.getVersioning().setRelease(release);
+      return result;
     }
-    if (!result.getPlugins().isEmpty()) {
-      Collections.sort(result.getPlugins(), pluginComparator);
+
+    private List<Plugin> sortedPlugins() {
+      final List<Plugin> result = new ArrayList<>(plugins.values());
+      Collections.sort(result, pluginComparator);
+      return result;
     }
 
-    // model version, just set it to latest, we don't care about it now
-    result.setModelVersion(ModelVersion.V1_1_0.getVersionString());
+    public Metadata toMetadata() {
+      final Metadata result = new Metadata();
+      // model version, just set it to latest, we don't care about it now
+      result.setModelVersion(ModelVersion.V1_1_0.getVersionString());
+      result.setGroupId(groupId);
+      result.setArtifactId(artifactId);
+      result.setVersion(version);
+      if (versioning) {
+        final Versioning resultVersioning = new Versioning();
+        resultVersioning.setVersions(sortedVersions());
+        resultVersioning.setLatest(latest);
+        resultVersioning.setRelease(release);
+        resultVersioning.setLastUpdated(lastUpdated);
+        resultVersioning.setSnapshot(snapshot);
+        resultVersioning.setSnapshotVersions(new ArrayList<>(snapshotVersions.values()));
+        result.setVersioning(resultVersioning);
+      }
+      result.setPlugins(sortedPlugins());
+      return result;
+    }
 
-    return result;
-  }
+    /**
+     * Writes the merged metadata in the same layout as {@code MetadataXpp3Writer} does.
+     */
+    public void write(final OutputStream outputStream) throws IOException {
+      final XmlSerializer serializer = new MXSerializer();
+      serializer.setProperty("http://xmlpull.org/v1/doc/properties.html#serializer-indentation", "  ");
+      serializer.setProperty("http://xmlpull.org/v1/doc/properties.html#serializer-line-separator", "\n");
+      serializer.setOutput(outputStream, "UTF-8");
+      serializer.startDocument("UTF-8", null);
+      serializer.startTag(null, "metadata");
+      serializer.attribute(null, "modelVersion", ModelVersion.V1_1_0.getVersionString());
+      element(serializer, "groupId", groupId);
+      element(serializer, "artifactId", artifactId);
+      if (versioning) {
+        final List<String> sortedVersions = sortedVersions();
+        serializer.startTag(null, "versioning");
+        element(serializer, "latest", latest);
+        element(serializer, "release", release);
+        if (!sortedVersions.isEmpty()) {
+          serializer.startTag(null, "versions");
+          for (String sortedVersion : sortedVersions) {
+            element(serializer, "version", sortedVersion);
+          }
+          serializer.endTag(null, "versions");
+        }
+        element(serializer, "lastUpdated", lastUpdated);
+        if (snapshot != null) {
+          serializer.startTag(null, "snapshot");
+          element(serializer, "timestamp", snapshot.getTimestamp());
+          if (snapshot.getBuildNumber() != 0) {
+            element(serializer, "buildNumber", String.valueOf(snapshot.getBuildNumber()));
+          }
+          if (snapshot.isLocalCopy()) {
+            element(serializer, "localCopy", "true");
+          }
+          serializer.endTag(null, "snapshot");
+        }
+        if (!snapshotVersions.isEmpty()) {
+          serializer.startTag(null, "snapshotVersions");
+          for (SnapshotVersion snapshotVersion : snapshotVersions.values()) {
+            serializer.startTag(null, "snapshotVersion");
+            element(serializer, "classifier", Strings.emptyToNull(snapshotVersion.getClassifier()));
+            element(serializer, "extension", snapshotVersion.getExtension());
+            element(serializer, "value", snapshotVersion.getVersion());
+            element(serializer, "updated", snapshotVersion.getUpdated());
+            serializer.endTag(null, "snapshotVersion");
+          }
+          serializer.endTag(null, "snapshotVersions");
+        }
+        serializer.endTag(null, "versioning");
+      }
+      element(serializer, "version", version);
+      if (!plugins.isEmpty()) {
+        serializer.startTag(null, "plugins");
+        for (Plugin plugin : sortedPlugins()) {
+          serializer.startTag(null, "plugin");
+          element(serializer, "name", plugin.getName());
+          element(serializer, "prefix", plugin.getPrefix());
+          element(serializer, "artifactId", plugin.getArtifactId());
+          serializer.endTag(null, "plugin");
+        }
+        serializer.endTag(null, "plugins");
+      }
+      serializer.endTag(null, "metadata");
+      serializer.endDocument();
+    }
 
-  /**
-   * Merges the "right" on top of "left" and returns the result, the instances are mutated.
-   */
-  private Metadata merge(final Metadata left, final Metadata right) {
-    // sanity checks
-    if (Strings.isNullOrEmpty(right.getGroupId())) {
-      right.setGroupId(left.getGroupId());
-    }
-    if (Strings.isNullOrEmpty(right.getArtifactId())) {
-      right.setArtifactId(left.getArtifactId());
-    }
-
-    // version differs: we do it "both ways" if set at all
-    if (Strings.isNullOrEmpty(left.getVersion())) {
-      left.setVersion(right.getVersion());
-    }
-    if (Strings.isNullOrEmpty(right.getVersion())) {
-      right.setVersion(left.getVersion());
-    }
-    checkArgument(
-        Objects.equals(nullOrEmptyStringFilter(left.getGroupId()), nullOrEmptyStringFilter(right.getGroupId())),
-        "GroupId mismatch: %s vs %s", left.getGroupId(), right.getGroupId());
-    checkArgument(
-        Objects.equals(nullOrEmptyStringFilter(left.getArtifactId()), nullOrEmptyStringFilter(right.getArtifactId())),
-        "ArtifactId mismatch: %s vs %s", left.getArtifactId(), right.getArtifactId());
-    checkArgument(
-        Objects.equals(nullOrEmptyStringFilter(left.getVersion()), nullOrEmptyStringFilter(right.getVersion())),
-        "Version mismatch: %s vs %s", left.getVersion(), right.getVersion());
-
-    mergePlugins(left, right);
-    mergeVersioning(left, right);
-    return left;
+    private void element(final XmlSerializer serializer, final String name, @Nullable final String value)
+        throws IOException
+    {
+      if (value != null) {
+        serializer.startTag(null, name).text(value).endTag(null, name);
+      }
+    }
   }
 
   /**
-   * Merges "right" plugins into "left", the instances are mutated.
+   * Extracts the merged elements of a metadata instance, filtering out {@code null} (and "null" string) elements.
    */
-  private void mergePlugins(final Metadata left, final Metadata right) {
-    nullElementFilter(left.getPlugins());
-    nullElementFilter(right.getPlugins());
-    for (Plugin plugin : right.getPlugins()) {
-      boolean found = false;
-      for (Plugin preExisting : left.getPlugins()) {
-        if (Objects.equals(preExisting.getArtifactId(), plugin.getArtifactId())
-            && Objects.equals(preExisting.getPrefix(), plugin.getPrefix())) {
-          found = true;
-          preExisting.setName(plugin.getName());
-          break;
+  private Part part(final Metadata metadata) {
+    final Part part = new Part();
+    part.groupId = metadata.getGroupId();
+    part.artifactId = metadata.getArtifactId();
+    part.version = metadata.getVersion();
+    for (Plugin plugin : metadata.getPlugins()) {
+      if (plugin != null) {
+        part.plugins.add(plugin);
+      }
+    }
+    final Versioning versioning = metadata.getVersioning();
+    if (versioning != null) {
+      part.versioning = true;
+      part.latest = versioning.getLatest();
+      part.release = versioning.getRelease();
+      part.lastUpdated = versioning.getLastUpdated();
+      part.snapshot = versioning.getSnapshot();
+      for (String version : versioning.getVersions()) {
+        if (version != null && !"null".equals(version)) {
+          part.versions.add(version);
         }
       }
-      if (!found) {
-        Plugin newPlugin = new Plugin();
-        newPlugin.setArtifactId(plugin.getArtifactId());
-        newPlugin.setPrefix(plugin.getPrefix());
-        newPlugin.setName(plugin.getName());
-        left.addPlugin(newPlugin);
+      for (SnapshotVersion snapshotVersion : versioning.getSnapshotVersions()) {
+        if (snapshotVersion != null) {
+          part.snapshotVersions.add(snapshotVersion);
+        }
       }
     }
+    return part;
   }
 
   /**
-   * Merges "right" versioning into "left", the instances are mutated.
+   * Extracts the merged elements of a metadata XML document, unknown elements are skipped.
    */
-  private void mergeVersioning(final Metadata left, final Metadata right) {
-    if (right.getVersioning() == null) {
-      return; // nothing to do
-    }
-    if (left.getVersioning() == null) {
-      left.setVersioning(new Versioning());
+  private Part read(final InputStream inputStream) throws IOException, XmlPullParserException {
+    final XmlPullParser parser = new MXParser();
+    parser.setInput(inputStream, null);
+    parser.nextTag();
+    parser.require(START_TAG, null, "metadata");
+    final Part part = new Part();
+    while (parser.nextTag() == START_TAG) {
+      switch (parser.getName()) {
+        case "groupId":
+          part.groupId = text(parser);
+          break;
+        case "artifactId":
+          part.artifactId = text(parser);
+          break;
+        case "version":
+          part.version = text(parser);
+          break;
+        case "versioning":
+          part.versioning = true;
+          readVersioning(parser, part);
+          break;
+        case "plugins":
+          readPlugins(parser, part);
+          break;
+        default:
+          skip(parser);
+      }
     }
-    final Versioning rv = right.getVersioning();
-    final Versioning lv = left.getVersioning();
+    return part;
+  }
 
-    // lastUpdated: if left not set, set from right, otherwise newer
-    if (rv.getLastUpdated() != null) {
-      if (lv.getLastUpdated() == null) {
-        lv.setLastUpdated(rv.getLastUpdated());
+  private void readVersioning(final XmlPullParser parser, final Part part) throws IOException, XmlPullParserException {
+    while (parser.nextTag() == START_TAG) {
+      switch (parser.getName()) {
+        case "latest":
+          part.latest = text(parser);
+          break;
+        case "release":
+          part.release = text(parser);
+          break;
+        case "lastUpdated":
+          part.lastUpdated = text(parser);
+          break;
+        case "versions":
+          while (parser.nextTag() == START_TAG) {
+            if ("version".equals(parser.getName())) {
+              final String version = text(parser);
+              if (!Strings.isNullOrEmpty(version) && !"null".equals(version)) {
+                part.versions.add(version);
+              }
+            }
+            else {
+              skip(parser);
+            }
+          }
+          break;
+        case "snapshot":
+          part.snapshot = readSnapshot(parser);
+          break;
+        case "snapshotVersions":
+          while (parser.nextTag() == START_TAG) {
+            if ("snapshotVersion".equals(parser.getName())) {
+              part.snapshotVersions.add(readSnapshotVersion(parser));
+            }
+            else {
+              skip(parser);
+            }
+          }
+          break;
+        default:
+          skip(parser);
       }
-      else {
-        final long lts = ts(lv.getLastUpdated());
-        final long rts = ts(rv.getLastUpdated());
-        if (rts > lts) {
-          lv.setLastUpdated(rv.getLastUpdated());
-        }
+    }
+  }
+
+  private Snapshot readSnapshot(final XmlPullParser parser) throws IOException, XmlPullParserException {
+    final Snapshot snapshot = new Snapshot();
+    while (parser.nextTag() == START_TAG) {
+      switch (parser.getName()) {
+        case "timestamp":
+          snapshot.setTimestamp(text(parser));
+          break;
+        case "buildNumber":
+          try {
+            snapshot.setBuildNumber(Integer.parseInt(text(parser)));
+          }
+          catch (NumberFormatException e) {
+            throw new XmlPullParserException("Invalid buildNumber", parser, e);
+          }
+          break;
+        case "localCopy":
+          snapshot.setLocalCopy(Boolean.parseBoolean(text(parser)));
+          break;
+        default:
+          skip(parser);
       }
     }
+    return snapshot;
+  }
 
-    // versions: just add strings not in list
-    nullElementFilter(lv.getVersions());
-    nullElementFilter(rv.getVersions());
-    for (String version : rv.getVersions()) {
-      if (!lv.getVersions().contains(version)) {
-        lv.getVersions().add(version);
+  private SnapshotVersion readSnapshotVersion(final XmlPullParser parser) throws IOException, XmlPullParserException {
+    final SnapshotVersion snapshotVersion = new SnapshotVersion();
+    while (parser.nextTag() == START_TAG) {
+      switch (parser.getName()) {
+        case "classifier":
+          snapshotVersion.setClassifier(text(parser));
+          break;
+        case "extension":
+          snapshotVersion.setExtension(text(parser));
+          break;
+        case "value":
+          snapshotVersion.setVersion(text(parser));
+          break;
+        case "updated":
+          snapshotVersion.setUpdated(text(parser));
+          break;
+        default:
+          skip(parser);
       }
     }
+    return snapshotVersion;
+  }
 
-    // snapshot: add if right has it, and left does not have it, or left is older
-    if (rv.getSnapshot() != null) {
-      if (lv.getSnapshot() == null) {
-        lv.setSnapshot(rv.getSnapshot());
+  private void readPlugins(final XmlPullParser parser, final Part part) throws IOException, XmlPullParserException {
+    while (parser.nextTag() == START_TAG) {
+      if (!"plugin".equals(parser.getName())) {
+        skip(parser);
+        continue;
       }
-      else {
-        final long lts = ts(lv.getSnapshot().getTimestamp());
-        final long rts = ts(rv.getSnapshot().getTimestamp());
-        if (rts > lts) {
-          lv.setSnapshot(rv.getSnapshot());
+      final Plugin plugin = new Plugin();
+      while (parser.nextTag() == START_TAG) {
+        switch (parser.getName()) {
+          case "name":
+            plugin.setName(text(parser));
+            break;
+          case "prefix":
+            plugin.setPrefix(text(parser));
+            break;
+          case "artifactId":
+            plugin.setArtifactId(text(parser));
+            break;
+          default:
+            skip(parser);
         }
       }
+      part.plugins.add(plugin);
     }
+  }
 
-    // snapshotVersions: add ext+classifier combos, if not exist, or are older version
-    nullElementFilter(lv.getSnapshotVersions());
-    nullElementFilter(rv.getSnapshotVersions());
-    for (SnapshotVersion snapshotVersion : rv.getSnapshotVersions()) {
-      boolean found = false;
-      for (SnapshotVersion preExisting : lv.getSnapshotVersions()) {
-        if (Objects.equals(snapshotVersion.getExtension(), preExisting.getExtension())
-            && Objects.equals(nullOrEmptyStringFilter(snapshotVersion.getClassifier()),
-            nullOrEmptyStringFilter(preExisting.getClassifier()))) {
-          found = true;
-          if (version(snapshotVersion.getVersion()).compareTo(version(preExisting.getVersion())) > 0) {
-            preExisting.setClassifier(nullOrEmptyStringFilter(snapshotVersion.getClassifier()));
-            preExisting.setVersion(snapshotVersion.getVersion());
-            preExisting.setUpdated(snapshotVersion.getUpdated());
-          }
-          break;
-        }
+  /**
+   * Returns the trimmed text of current element, and positions the parser on its end tag.
+   */
+  private String text(final XmlPullParser parser) throws IOException, XmlPullParserException {
+    return parser.nextText().trim();
+  }
+
+  /**
+   * Skips the current element with all of its children, and positions the parser on its end tag.
+   */
+  private void skip(final XmlPullParser parser) throws IOException, XmlPullParserException {
+    int depth = 1;
+    while (depth > 0) {
+      final int event = parser.next();
+      if (event == START_TAG) {
+        depth++;
+      }
+      else if (event == END_TAG) {
+        depth--;
       }
-      if (!found) {
-        final SnapshotVersion newSnapshotVersion = new SnapshotVersion();
-        newSnapshotVersion.setExtension(snapshotVersion.getExtension());
-        newSnapshotVersion.setClassifier(snapshotVersion.getClassifier());
-        newSnapshotVersion.setVersion(snapshotVersion.getVersion());
-        newSnapshotVersion.setUpdated(snapshotVersion.getUpdated());
-        lv.getSnapshotVersions().add(newSnapshotVersion);
+      else if (event == XmlPullParser.END_DOCUMENT) {
+        throw new XmlPullParserException("Unexpected end of document", parser, null);
       }
     }
   }
@@ -323,23 +711,14 @@ public class Maven2MetadataMerger
     return str.trim();
   }
 
-  /**
-   * Filters a list for {@code null} (and "null" string) elements, removes them.
-   */
-  private <T> void nullElementFilter(final List<T> list) {
-    for (Iterator<T> i = list.iterator(); i.hasNext(); ) {
-      T element = i.next();
-      if (element == null || Objects.equals(element, "null")) {
-        i.remove();
-      }
-    }
-  }
-
   /**
    * Parses string into a long (accepts strings with dots too, like maven timestamp is, where dot is between date and
-   * time). If fails, returns -1.
+   * time). If fails or {@code null}, returns -1.
    */
-  private long ts(final String ts) {
+  private long ts(@Nullable final String ts) {
+    if (ts == null) {
+      return -1;
+    }
     try {
       return Long.parseLong(ts.replace(".", ""));
     }
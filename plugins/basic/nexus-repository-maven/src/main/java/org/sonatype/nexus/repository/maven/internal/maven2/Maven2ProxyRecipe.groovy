@@ -26,6 +26,7 @@ import org.sonatype.nexus.repository.httpclient.HttpClientFacet
 import org.sonatype.nexus.repository.maven.internal.MavenArtifactMatcher
 import org.sonatype.nexus.repository.maven.internal.MavenFacetImpl
 import org.sonatype.nexus.repository.maven.internal.MavenHeadersHandler
+import org.sonatype.nexus.repository.maven.internal.MavenIndexMatcher
 import org.sonatype.nexus.repository.maven.internal.MavenMetadataMatcher
 import org.sonatype.nexus.repository.maven.internal.MavenPathParser
 import org.sonatype.nexus.repository.maven.internal.MavenProxyFacet
@@ -150,6 +151,17 @@ class Maven2ProxyRecipe
         .handler(proxyHandler)
         .create())
 
+    // Note: index is proxied from remote as is
+    builder.route(new Route.Builder()
+        .matcher(new MavenIndexMatcher(mavenPathParser))
+        .handler(timingHandler)
+        .handler(securityHandler)
+        .handler(negativeCacheHandler)
+        .handler(partialFetchHandler)
+        .handler(mavenHeadersHandler)
+        .handler(proxyHandler)
+        .create())
+
     builder.defaultHandlers(notFound())
 
     facet.configure(builder.create())
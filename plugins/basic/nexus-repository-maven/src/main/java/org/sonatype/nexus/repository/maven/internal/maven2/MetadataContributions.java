@@ -0,0 +1,107 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal.maven2;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.view.Payload;
+import org.sonatype.nexus.repository.view.payloads.BytesPayload;
+
+import com.google.common.collect.Maps;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Contributions of group members to one merged metadata document of a Maven2 group. Every member maps to the bytes
+ * of its own metadata, or to {@code null} if member is known to not have the metadata at all. A member not present in
+ * table is unknown, and makes the table incomplete.
+ *
+ * Instances are thread safe, and callers may synchronize on instance to perform compound actions.
+ *
+ * @since 3.0
+ */
+class MetadataContributions
+{
+  /**
+   * Estimated heap weight in bytes of the table and of every entry, besides contributed bytes and strings.
+   */
+  private static final int OVERHEAD = 64;
+
+  private final String path;
+
+  private final Map<String, byte[]> contributions = Maps.newHashMap();
+
+  MetadataContributions(final String path) {
+    this.path = checkNotNull(path);
+  }
+
+  /**
+   * Sets the contribution of given member, {@code null} means member does not have this metadata.
+   */
+  synchronized void set(final Repository member, @Nullable final byte[] content) {
+    contributions.put(member.getName(), content);
+  }
+
+  /**
+   * Returns {@code true} if contribution of every passed in member is known.
+   */
+  synchronized boolean isComplete(final List<Repository> members) {
+    for (Repository member : members) {
+      if (!contributions.containsKey(member.getName())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the existing contributions of passed in members as payloads keyed by origin, in member order.
+   */
+  synchronized LinkedHashMap<String, Payload> payloads(final List<Repository> members) {
+    final LinkedHashMap<String, Payload> result = Maps.newLinkedHashMap();
+    for (Repository member : members) {
+      final byte[] content = contributions.get(member.getName());
+      if (content != null) {
+        result.put(member.getName() + " @ " + path, new BytesPayload(content, Maven2Format.METADATA_CONTENT_TYPE));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Estimates the heap weight in bytes of this table, dominated by the length of contributed metadata.
+   */
+  synchronized int weight() {
+    int weight = OVERHEAD + 2 * path.length();
+    for (Map.Entry<String, byte[]> entry : contributions.entrySet()) {
+      weight += OVERHEAD + 2 * entry.getKey().length();
+      if (entry.getValue() != null) {
+        weight += entry.getValue().length;
+      }
+    }
+    return weight;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return getClass().getSimpleName() + "{" +
+        "path='" + path + '\'' +
+        ", members=" + contributions.keySet() +
+        '}';
+  }
+}
@@ -0,0 +1,629 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal.maven2;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nullable;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.nexus.common.hash.HashAlgorithm;
+import org.sonatype.nexus.common.hash.Hashes;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.maven.internal.MavenFacet;
+import org.sonatype.nexus.repository.maven.internal.MavenPath;
+import org.sonatype.nexus.repository.maven.internal.MavenPath.Coordinates;
+import org.sonatype.nexus.repository.maven.internal.MavenPath.HashType;
+import org.sonatype.nexus.repository.maven.internal.MavenPathParser;
+import org.sonatype.nexus.repository.storage.Asset;
+import org.sonatype.nexus.repository.storage.BrowsePage;
+import org.sonatype.nexus.repository.storage.Component;
+import org.sonatype.nexus.repository.storage.StorageFacet;
+import org.sonatype.nexus.repository.storage.StorageTx;
+import org.sonatype.nexus.repository.types.HostedType;
+import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.Payload;
+import org.sonatype.nexus.repository.view.payloads.BytesPayload;
+import org.sonatype.nexus.repository.view.payloads.StringPayload;
+import org.sonatype.nexus.scheduling.CancelableSupport;
+import org.sonatype.sisu.goodies.common.ComponentSupport;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.hash.HashCode;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.maven.artifact.repository.metadata.Metadata;
+import org.apache.maven.artifact.repository.metadata.Snapshot;
+import org.apache.maven.artifact.repository.metadata.SnapshotVersion;
+import org.apache.maven.artifact.repository.metadata.Versioning;
+import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Reader;
+import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Writer;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+import org.eclipse.aether.util.version.GenericVersionScheme;
+import org.eclipse.aether.version.InvalidVersionSpecificationException;
+import org.eclipse.aether.version.Version;
+import org.eclipse.aether.version.VersionScheme;
+import org.joda.time.DateTime;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.sonatype.nexus.repository.storage.StorageFacet.P_NAME;
+
+/**
+ * Rebuilds Maven2 repository metadata of a hosted repository from the components and assets it actually contains.
+ *
+ * Components are streamed in group, name and version order, and every group and name (GA) is handed over to a pool
+ * of workers as soon as all of its components are seen. Workers regenerate the GA level metadata, and the GAV level
+ * metadata of every snapshot version, along with their checksums. Storage transactions are bounded: a GA writes its
+ * metadata files in batches, and the number of GAs held in memory is bounded by the number of workers. Finally, GA and
+ * snapshot GAV metadata left behind by GAs and snapshot versions without components, which the component walk never
+ * reaches, is deleted.
+ *
+ * @since 3.0
+ */
+@Named
+@Singleton
+public class MetadataRebuilder
+    extends ComponentSupport
+{
+  /**
+   * Number of processed GAs between two progress reports.
+   */
+  private static final int PROGRESS_INTERVAL = 1000;
+
+  private static final DateTimeFormatter LAST_UPDATED = DateTimeFormat.forPattern("yyyyMMddHHmmss").withZoneUTC();
+
+  private static final String SNAPSHOT = "SNAPSHOT";
+
+  static final Pattern TIMESTAMPED_VERSION = Pattern.compile("^(.*)-([0-9]{8}\\.[0-9]{6})-([0-9]+)$");
+
+  private static final VersionScheme VERSION_SCHEME = new GenericVersionScheme();
+
+  /**
+   * Number of assets fetched per query when looking for stale metadata.
+   */
+  private static final int METADATA_PAGE_SIZE = 1000;
+
+  /**
+   * Rebuilds all GA and snapshot GAV metadata of passed in hosted Maven2 repository, using given number of worker
+   * threads, and storing at most {@code batchSize} files in one transaction. Honors task cancellation of the calling
+   * thread.
+   */
+  public void rebuild(final Repository repository, final int threads, final int batchSize) throws Exception {
+    checkArgument(Maven2Format.NAME.equals(repository.getFormat().getValue()),
+        "Not a Maven2 repository: %s", repository);
+    checkArgument(HostedType.NAME.equals(repository.getType().getValue()),
+        "Not a hosted repository: %s", repository);
+    checkArgument(threads > 0, "Threads must be greater than zero");
+    checkArgument(batchSize > 0, "Batch size must be greater than zero");
+
+    final Stopwatch stopwatch = Stopwatch.createStarted();
+    final Progress progress = new Progress(repository.getName());
+    final Semaphore permits = new Semaphore(threads * 2);
+    final ExecutorService executor = Executors.newFixedThreadPool(threads,
+        new ThreadFactoryBuilder().setNameFormat("maven-metadata-rebuild-" + repository.getName() + "-%d")
+            .setDaemon(true).build());
+    try {
+      try (StorageTx tx = repository.facet(StorageFacet.class).openTx()) {
+        List<Component> components = Lists.newArrayList();
+        for (Component component : tx.browseComponentsByCoordinates(tx.getBucket())) {
+          if (!components.isEmpty() && !sameGa(components.get(0), component)) {
+            submit(executor, permits, new GaRebuild(repository, components, batchSize, progress));
+            components = Lists.newArrayList();
+          }
+          components.add(component);
+        }
+        if (!components.isEmpty()) {
+          submit(executor, permits, new GaRebuild(repository, components, batchSize, progress));
+        }
+      }
+      executor.shutdown();
+      while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+        CancelableSupport.checkCancellation();
+      }
+    }
+    finally {
+      executor.shutdownNow();
+    }
+    deleteStaleMetadata(repository, progress);
+    log.info("Rebuilt metadata of repository {}: {} GAs, {} files, {} stale files deleted, {} failures in {}",
+        repository.getName(), progress.gas.get(), progress.files.get(), progress.stale.get(), progress.failures.get(),
+        stopwatch);
+  }
+
+  /**
+   * Rebuilds metadata of one GA of passed in hosted Maven2 repository on the calling thread, out of the components
+   * the GA has when invoked. The GA level metadata is rebuilt, or deleted if the GA has no components. Of snapshot GAV
+   * level metadata, only the metadata of passed in base versions is rebuilt, or deleted if the GAV has no components.
+   */
+  public void rebuild(final Repository repository,
+                      final String groupId,
+                      final String artifactId,
+                      final Set<String> baseVersions,
+                      final int batchSize) throws IOException
+  {
+    checkNotNull(groupId);
+    checkNotNull(artifactId);
+    checkNotNull(baseVersions);
+    checkArgument(batchSize > 0, "Batch size must be greater than zero");
+
+    final Progress progress = new Progress(repository.getName());
+    new GaRebuild(repository, groupId, artifactId, null, baseVersions, batchSize, progress).rebuild();
+  }
+
+  private boolean sameGa(final Component c1, final Component c2) {
+    return c1.group().equals(c2.group()) && c1.name().equals(c2.name());
+  }
+
+  /**
+   * Deletes GA and snapshot GAV metadata, with checksums, of GAs and snapshot base versions not having any component.
+   * Group level metadata listing plugins is kept.
+   */
+  private void deleteStaleMetadata(final Repository repository, final Progress progress) throws IOException {
+    final MavenFacet mavenFacet = repository.facet(MavenFacet.class);
+    final Map<String, Object> parameters = Maps.newHashMap();
+    parameters.put("name", "%/" + Maven2Format.METADATA_FILENAME);
+    String after = null;
+    do {
+      CancelableSupport.checkCancellation();
+      final List<String> paths = Lists.newArrayList();
+      try (StorageTx tx = repository.facet(StorageFacet.class).openTx()) {
+        final BrowsePage<Asset> page = tx.browseAssets(tx.getBucket(), P_NAME + " like :name", parameters, after,
+            METADATA_PAGE_SIZE);
+        for (Asset asset : page) {
+          paths.add(asset.name());
+        }
+        after = page.getNext();
+      }
+      for (String path : paths) {
+        try {
+          final MavenPath mavenPath = mavenFacet.getMavenPathParser().parsePath(path);
+          if (isStale(repository, mavenPath)
+              && mavenFacet.delete(mavenPath, mavenPath.hash(HashType.SHA1), mavenPath.hash(HashType.MD5))) {
+            progress.stale.incrementAndGet();
+          }
+        }
+        catch (Exception e) {
+          progress.failures.incrementAndGet();
+          log.warn("Could not delete stale metadata {} in repository {}", path, repository.getName(), e);
+        }
+      }
+    }
+    while (after != null);
+  }
+
+  /**
+   * Returns {@code true} if passed in metadata is snapshot GAV metadata of a base version having no components, or GA
+   * metadata of a GA having no components.
+   */
+  private boolean isStale(final Repository repository, final MavenPath mavenPath) throws IOException {
+    final List<String> directories = Lists.newArrayList(
+        Splitter.on('/').omitEmptyStrings().split(mavenPath.getPath()));
+    directories.remove(directories.size() - 1);
+    final int size = directories.size();
+    if (size >= 3 && directories.get(size - 1).endsWith(SNAPSHOT)) {
+      final String baseVersion = directories.get(size - 1);
+      for (Component component : gaComponents(repository, directories.subList(0, size - 1))) {
+        if (baseVersion.equals(baseVersion(component.version()))) {
+          return false;
+        }
+      }
+      return true;
+    }
+    if (size >= 2 && Iterables.isEmpty(gaComponents(repository, directories))) {
+      // the path of group level metadata is also the path of GA metadata, tell them apart by content
+      final Content content = repository.facet(MavenFacet.class).get(mavenPath);
+      if (content == null) {
+        return false;
+      }
+      try (InputStream inputStream = content.openInputStream()) {
+        return new MetadataXpp3Reader().read(inputStream, false).getPlugins().isEmpty();
+      }
+      catch (XmlPullParserException e) {
+        log.debug("Not deleting unparseable metadata {} in repository {}", mavenPath, repository.getName(), e);
+        return false;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the components of the GA whose directories are passed in, the last one being the artifact ID.
+   */
+  private List<Component> gaComponents(final Repository repository, final List<String> directories) {
+    final String groupId = Joiner.on('.').join(directories.subList(0, directories.size() - 1));
+    final String artifactId = directories.get(directories.size() - 1);
+    try (StorageTx tx = repository.facet(StorageFacet.class).openTx()) {
+      return Lists.newArrayList(tx.browseComponentsByCoordinates(tx.getBucket(), groupId, artifactId));
+    }
+  }
+
+  /**
+   * Submits rebuild of a GA, blocking while too many GAs are already waiting for a worker.
+   */
+  private void submit(final ExecutorService executor, final Semaphore permits, final GaRebuild rebuild)
+      throws InterruptedException
+  {
+    CancelableSupport.checkCancellation();
+    permits.acquire();
+    executor.execute(new Runnable()
+    {
+      @Override
+      public void run() {
+        try {
+          rebuild.run();
+        }
+        finally {
+          permits.release();
+        }
+      }
+    });
+  }
+
+  private class Progress
+  {
+    private final String repositoryName;
+
+    private final AtomicLong gas = new AtomicLong();
+
+    private final AtomicLong files = new AtomicLong();
+
+    private final AtomicLong stale = new AtomicLong();
+
+    private final AtomicLong failures = new AtomicLong();
+
+    private Progress(final String repositoryName) {
+      this.repositoryName = repositoryName;
+    }
+
+    private void gaDone(final int filesWritten) {
+      files.addAndGet(filesWritten);
+      if (gas.incrementAndGet() % PROGRESS_INTERVAL == 0) {
+        log.info("Rebuilding metadata of repository {}: {} GAs, {} files, {} failures so far", repositoryName,
+            gas.get(), files.get(), failures.get());
+      }
+    }
+  }
+
+  /**
+   * Rebuilds the metadata of one GA, on a worker thread.
+   */
+  private class GaRebuild
+      implements Runnable
+  {
+    private final Repository repository;
+
+    private final String groupId;
+
+    private final String artifactId;
+
+    /**
+     * Components of the GA, or {@code null} to read them when rebuilding.
+     */
+    @Nullable
+    private final List<Component> components;
+
+    /**
+     * Base versions whose snapshot metadata is rebuilt, or {@code null} to rebuild all of them.
+     */
+    @Nullable
+    private final Set<String> baseVersionsToRebuild;
+
+    private final int batchSize;
+
+    private final Progress progress;
+
+    private final Map<MavenPath, Payload> batch = Maps.newLinkedHashMap();
+
+    private int written;
+
+    private GaRebuild(final Repository repository,
+                      final List<Component> components,
+                      final int batchSize,
+                      final Progress progress)
+    {
+      this(repository, components.get(0).group(), components.get(0).name(), components, null, batchSize, progress);
+    }
+
+    private GaRebuild(final Repository repository,
+                      final String groupId,
+                      final String artifactId,
+                      @Nullable final List<Component> components,
+                      @Nullable final Set<String> baseVersionsToRebuild,
+                      final int batchSize,
+                      final Progress progress)
+    {
+      this.repository = repository;
+      this.groupId = groupId;
+      this.artifactId = artifactId;
+      this.components = components;
+      this.baseVersionsToRebuild = baseVersionsToRebuild;
+      this.batchSize = batchSize;
+      this.progress = progress;
+    }
+
+    @Override
+    public void run() {
+      try {
+        rebuild();
+        progress.gaDone(written);
+      }
+      catch (Exception e) {
+        progress.failures.incrementAndGet();
+        log.warn("Could not rebuild metadata of {}:{} in repository {}", groupId, artifactId, repository.getName(), e);
+      }
+    }
+
+    private void rebuild() throws IOException {
+      final DateTime now = DateTime.now();
+      final Set<String> baseVersions = Sets.newHashSet();
+      final Map<String, List<Component>> snapshots = new TreeMap<>();
+      for (Component component : components != null ? components : readComponents()) {
+        final String baseVersion = baseVersion(component.version());
+        baseVersions.add(baseVersion);
+        if (baseVersion.endsWith(SNAPSHOT)) {
+          List<Component> snapshotComponents = snapshots.get(baseVersion);
+          if (snapshotComponents == null) {
+            snapshotComponents = Lists.newArrayList();
+            snapshots.put(baseVersion, snapshotComponents);
+          }
+          snapshotComponents.add(component);
+        }
+      }
+
+      final String gaPath = "/" + groupId.replace('.', '/') + "/" + artifactId + "/";
+      if (baseVersions.isEmpty()) {
+        delete(gaPath + Maven2Format.METADATA_FILENAME);
+      }
+      else {
+        add(gaPath + Maven2Format.METADATA_FILENAME, artifactMetadata(groupId, artifactId, baseVersions, now));
+      }
+      for (Map.Entry<String, List<Component>> entry : snapshots.entrySet()) {
+        if (baseVersionsToRebuild == null || baseVersionsToRebuild.contains(entry.getKey())) {
+          add(gaPath + entry.getKey() + "/" + Maven2Format.METADATA_FILENAME,
+              snapshotMetadata(groupId, artifactId, entry.getKey(), snapshotCoordinates(entry.getValue()), now));
+        }
+      }
+      if (baseVersionsToRebuild != null) {
+        for (String baseVersion : baseVersionsToRebuild) {
+          if (!snapshots.containsKey(baseVersion)) {
+            delete(gaPath + baseVersion + "/" + Maven2Format.METADATA_FILENAME);
+          }
+        }
+      }
+      flush();
+    }
+
+    /**
+     * Reads the components the GA currently has.
+     */
+    private List<Component> readComponents() {
+      try (StorageTx tx = repository.facet(StorageFacet.class).openTx()) {
+        return Lists.newArrayList(tx.browseComponentsByCoordinates(tx.getBucket(), groupId, artifactId));
+      }
+    }
+
+    /**
+     * Collects coordinates of main (non-subordinate) snapshot artifacts of passed in components.
+     */
+    private List<Coordinates> snapshotCoordinates(final List<Component> snapshotComponents) {
+      final MavenPathParser parser = repository.facet(MavenFacet.class).getMavenPathParser();
+      final List<Coordinates> result = Lists.newArrayList();
+      try (StorageTx tx = repository.facet(StorageFacet.class).openTx()) {
+        for (Component component : snapshotComponents) {
+          for (Asset asset : tx.browseAssets(component)) {
+            final MavenPath mavenPath = parser.parsePath(asset.name());
+            if (mavenPath.getCoordinates() != null && !mavenPath.isSubordinate()) {
+              result.add(mavenPath.getCoordinates());
+            }
+          }
+        }
+      }
+      return result;
+    }
+
+    private void add(final String path, final Metadata metadata) throws IOException {
+      final MavenPath mavenPath = repository.facet(MavenFacet.class).getMavenPathParser().parsePath(path);
+      final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+      new MetadataXpp3Writer().write(byteArrayOutputStream, metadata);
+      final byte[] byteArray = byteArrayOutputStream.toByteArray();
+      final Map<HashAlgorithm, HashCode> hashCodes = Hashes.hash(HashType.ALGORITHMS,
+          new ByteArrayInputStream(byteArray));
+      final DateTime now = DateTime.now();
+      final Content content = new Content(new BytesPayload(byteArray, Maven2Format.METADATA_CONTENT_TYPE));
+      content.getAttributes().set(Content.CONTENT_LAST_MODIFIED, now);
+      content.getAttributes().set(Content.CONTENT_ETAG, "{SHA1{" + hashCodes.get(HashAlgorithm.SHA1) + "}}");
+      final Map<MavenPath, Payload> files = Maps.newLinkedHashMap();
+      files.put(mavenPath, content);
+      for (HashType hashType : HashType.values()) {
+        final HashCode hashCode = hashCodes.get(hashType.getHashAlgorithm());
+        if (hashCode != null) {
+          final Content hashContent = new Content(
+              new StringPayload(hashCode.toString(), Maven2Format.CHECKSUM_CONTENT_TYPE));
+          hashContent.getAttributes().set(Content.CONTENT_LAST_MODIFIED, now);
+          files.put(mavenPath.hash(hashType), hashContent);
+        }
+      }
+      // metadata and its checksums are stored together, in a batch of their own if they don't fit the current one
+      if (batch.size() + files.size() > batchSize) {
+        flush();
+      }
+      batch.putAll(files);
+      if (batch.size() >= batchSize) {
+        flush();
+      }
+    }
+
+    private void delete(final String path) throws IOException {
+      final MavenPath mavenPath = repository.facet(MavenFacet.class).getMavenPathParser().parsePath(path);
+      if (repository.facet(MavenFacet.class).delete(mavenPath, mavenPath.hash(HashType.SHA1),
+          mavenPath.hash(HashType.MD5))) {
+        written++;
+      }
+    }
+
+    private void flush() throws IOException {
+      if (!batch.isEmpty()) {
+        repository.facet(MavenFacet.class).putAll(batch);
+        written += batch.size();
+        batch.clear();
+      }
+    }
+  }
+
+  /**
+   * Returns the base version of a version, that differs from version only for timestamped snapshots.
+   */
+  @VisibleForTesting
+  static String baseVersion(final String version) {
+    final Matcher matcher = TIMESTAMPED_VERSION.matcher(version);
+    if (matcher.matches()) {
+      return matcher.group(1) + "-" + SNAPSHOT;
+    }
+    return version;
+  }
+
+  /**
+   * Creates GA level metadata listing passed in base versions.
+   */
+  @VisibleForTesting
+  static Metadata artifactMetadata(final String groupId,
+                                   final String artifactId,
+                                   final Collection<String> baseVersions,
+                                   final DateTime now)
+  {
+    final List<Version> versions = Lists.newArrayList();
+    for (String baseVersion : baseVersions) {
+      versions.add(version(baseVersion));
+    }
+    Collections.sort(versions);
+
+    final Metadata metadata = new Metadata();
+    metadata.setGroupId(groupId);
+    metadata.setArtifactId(artifactId);
+    final Versioning versioning = new Versioning();
+    for (Version version : versions) {
+      versioning.addVersion(version.toString());
+      versioning.setLatest(version.toString());
+      if (!version.toString().endsWith(SNAPSHOT)) {
+        versioning.setRelease(version.toString());
+      }
+    }
+    versioning.setLastUpdated(LAST_UPDATED.print(now));
+    metadata.setVersioning(versioning);
+    return metadata;
+  }
+
+  /**
+   * Creates snapshot GAV level metadata out of coordinates of the snapshot artifacts present. Every classifier and
+   * extension is listed with its latest timestamped version, and the latest of all becomes the snapshot. If no
+   * artifact is timestamped, the metadata describes a non-unique snapshot.
+   */
+  @VisibleForTesting
+  static Metadata snapshotMetadata(final String groupId,
+                                   final String artifactId,
+                                   final String baseVersion,
+                                   final Iterable<Coordinates> artifacts,
+                                   final DateTime now)
+  {
+    final String versionPrefix = baseVersion.substring(0, baseVersion.length() - SNAPSHOT.length());
+    final Map<String, SnapshotVersion> snapshotVersions = new TreeMap<>();
+    Snapshot snapshot = null;
+    for (Coordinates coordinates : artifacts) {
+      final String key = coordinates.getClassifier() + ":" + coordinates.getExtension();
+      final SnapshotVersion candidate = new SnapshotVersion();
+      candidate.setClassifier(coordinates.getClassifier() == null ? "" : coordinates.getClassifier());
+      candidate.setExtension(coordinates.getExtension());
+      candidate.setVersion(coordinates.getVersion());
+
+      final Matcher matcher = TIMESTAMPED_VERSION.matcher(coordinates.getVersion());
+      if (matcher.matches() && coordinates.getVersion().startsWith(versionPrefix)) {
+        final String timestamp = matcher.group(2);
+        final int buildNumber = Integer.parseInt(matcher.group(3));
+        candidate.setUpdated(timestamp.replace(".", ""));
+        if (snapshot == null || isNewer(timestamp, buildNumber, snapshot)) {
+          snapshot = new Snapshot();
+          snapshot.setTimestamp(timestamp);
+          snapshot.setBuildNumber(buildNumber);
+        }
+      }
+      else {
+        candidate.setUpdated(LAST_UPDATED.print(now));
+      }
+
+      final SnapshotVersion existing = snapshotVersions.get(key);
+      if (existing == null || candidate.getUpdated().compareTo(existing.getUpdated()) > 0
+          || (candidate.getUpdated().equals(existing.getUpdated())
+          && version(candidate.getVersion()).compareTo(version(existing.getVersion())) > 0)) {
+        snapshotVersions.put(key, candidate);
+      }
+    }
+    if (snapshot == null) {
+      snapshot = new Snapshot();
+      snapshot.setLocalCopy(true);
+    }
+
+    final Metadata metadata = new Metadata();
+    metadata.setGroupId(groupId);
+    metadata.setArtifactId(artifactId);
+    metadata.setVersion(baseVersion);
+    final Versioning versioning = new Versioning();
+    versioning.setSnapshot(snapshot);
+    versioning.setLastUpdated(snapshot.getTimestamp() != null
+        ? snapshot.getTimestamp().replace(".", "")
+        : LAST_UPDATED.print(now));
+    versioning.getSnapshotVersions().addAll(snapshotVersions.values());
+    metadata.setVersioning(versioning);
+    return metadata;
+  }
+
+  private static boolean isNewer(final String timestamp, final int buildNumber, final Snapshot snapshot) {
+    final int diff = timestamp.compareTo(snapshot.getTimestamp());
+    return diff > 0 || (diff == 0 && buildNumber > snapshot.getBuildNumber());
+  }
+
+  private static Version version(final String version) {
+    try {
+      return VERSION_SCHEME.parseVersion(version);
+    }
+    catch (InvalidVersionSpecificationException e) {
+      // this never happens, see implementation
+      throw new IllegalArgumentException(e);
+    }
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal.maven2;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.manager.RepositoryManager;
+import org.sonatype.nexus.scheduling.Cancelable;
+import org.sonatype.nexus.scheduling.TaskSupport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Task publishing the index of a hosted Maven repository, see {@link Maven2IndexFacet}.
+ *
+ * @since 3.0
+ */
+@Named
+public class PublishIndexTask
+    extends TaskSupport
+    implements Cancelable
+{
+  private final RepositoryManager repositoryManager;
+
+  @Inject
+  public PublishIndexTask(final RepositoryManager repositoryManager) {
+    this.repositoryManager = checkNotNull(repositoryManager);
+  }
+
+  @Override
+  protected Void execute() throws Exception {
+    final String repositoryName = getConfiguration().getRepositoryId();
+    final Repository repository = repositoryManager.get(repositoryName);
+    checkArgument(repository != null, "Repository not found: %s", repositoryName);
+    repository.facet(Maven2IndexFacet.class).publishIndex();
+    return null;
+  }
+
+  @Override
+  public String getMessage() {
+    return "Publishing Maven index of " + getConfiguration().getRepositoryId();
+  }
+}
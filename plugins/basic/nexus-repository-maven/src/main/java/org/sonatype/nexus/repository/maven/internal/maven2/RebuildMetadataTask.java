@@ -0,0 +1,69 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal.maven2;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.manager.RepositoryManager;
+import org.sonatype.nexus.scheduling.Cancelable;
+import org.sonatype.nexus.scheduling.TaskSupport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Task rebuilding the metadata of a hosted Maven repository, see {@link MetadataRebuilder}.
+ *
+ * @since 3.0
+ */
+@Named
+public class RebuildMetadataTask
+    extends TaskSupport
+    implements Cancelable
+{
+  public static final int DEFAULT_THREADS = 4;
+
+  public static final int DEFAULT_BATCH_SIZE = 100;
+
+  private final RepositoryManager repositoryManager;
+
+  private final MetadataRebuilder metadataRebuilder;
+
+  @Inject
+  public RebuildMetadataTask(final RepositoryManager repositoryManager,
+                             final MetadataRebuilder metadataRebuilder)
+  {
+    this.repositoryManager = checkNotNull(repositoryManager);
+    this.metadataRebuilder = checkNotNull(metadataRebuilder);
+  }
+
+  @Override
+  protected Void execute() throws Exception {
+    final String repositoryName = getConfiguration().getRepositoryId();
+    final Repository repository = repositoryManager.get(repositoryName);
+    checkArgument(repository != null, "Repository not found: %s", repositoryName);
+    metadataRebuilder.rebuild(
+        repository,
+        getConfiguration().getInteger(RebuildMetadataTaskDescriptor.THREADS_FIELD_ID, DEFAULT_THREADS),
+        getConfiguration().getInteger(RebuildMetadataTaskDescriptor.BATCH_SIZE_FIELD_ID, DEFAULT_BATCH_SIZE)
+    );
+    return null;
+  }
+
+  @Override
+  public String getMessage() {
+    return "Rebuilding Maven metadata of " + getConfiguration().getRepositoryId();
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal.maven2;
+
+import java.util.List;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.nexus.formfields.FormField;
+import org.sonatype.nexus.formfields.NumberTextFormField;
+import org.sonatype.nexus.formfields.RepositoryCombobox;
+import org.sonatype.nexus.repository.types.HostedType;
+import org.sonatype.nexus.scheduling.TaskConfiguration;
+import org.sonatype.nexus.scheduling.TaskDescriptorSupport;
+import org.sonatype.nexus.scheduling.TaskLock;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Task descriptor for {@link RebuildMetadataTask}.
+ *
+ * @since 3.0
+ */
+@Named
+@Singleton
+public class RebuildMetadataTaskDescriptor
+    extends TaskDescriptorSupport<RebuildMetadataTask>
+{
+  public static final String REPOSITORY_FIELD_ID = TaskConfiguration.REPOSITORY_ID_KEY;
+
+  public static final String THREADS_FIELD_ID = "threads";
+
+  public static final String BATCH_SIZE_FIELD_ID = "batchSize";
+
+  public RebuildMetadataTaskDescriptor() {
+    super(RebuildMetadataTask.class, "Rebuild Maven metadata",
+        new RepositoryCombobox(
+            REPOSITORY_FIELD_ID,
+            "Repository",
+            "Hosted Maven repository to rebuild metadata of",
+            FormField.MANDATORY)
+            .includingAnyOfTypes(HostedType.NAME)
+            .includingAnyOfFormats(Maven2Format.NAME),
+        new NumberTextFormField(
+            THREADS_FIELD_ID,
+            "Threads",
+            "Number of artifacts processed in parallel, defaults to " + RebuildMetadataTask.DEFAULT_THREADS,
+            FormField.OPTIONAL),
+        new NumberTextFormField(
+            BATCH_SIZE_FIELD_ID,
+            "Batch size",
+            "Maximum number of files stored in one transaction, defaults to " + RebuildMetadataTask.DEFAULT_BATCH_SIZE,
+            FormField.OPTIONAL)
+    );
+  }
+
+  /**
+   * Rebuilds of the same repository would overwrite each other's metadata, no two should overlap.
+   */
+  @Override
+  public List<TaskLock> locks(final TaskConfiguration configuration) {
+    return ImmutableList.of(TaskLock.exclusive("repository:" + configuration.getRepositoryId()));
+  }
+}
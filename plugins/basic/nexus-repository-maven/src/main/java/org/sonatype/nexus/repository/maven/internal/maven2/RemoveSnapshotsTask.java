@@ -0,0 +1,73 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal.maven2;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.manager.RepositoryManager;
+import org.sonatype.nexus.scheduling.Cancelable;
+import org.sonatype.nexus.scheduling.TaskSupport;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Task removing old snapshot builds of a hosted Maven repository, see {@link SnapshotRemover}. The result of the task
+ * is the count of bytes reclaimed.
+ *
+ * @since 3.0
+ */
+@Named
+public class RemoveSnapshotsTask
+    extends TaskSupport
+    implements Cancelable
+{
+  public static final int DEFAULT_MINIMUM_COUNT = 1;
+
+  public static final int DEFAULT_RETENTION_DAYS = 30;
+
+  private final RepositoryManager repositoryManager;
+
+  private final SnapshotRemover snapshotRemover;
+
+  @Inject
+  public RemoveSnapshotsTask(final RepositoryManager repositoryManager,
+                             final SnapshotRemover snapshotRemover)
+  {
+    this.repositoryManager = checkNotNull(repositoryManager);
+    this.snapshotRemover = checkNotNull(snapshotRemover);
+  }
+
+  @Override
+  protected Long execute() throws Exception {
+    final String repositoryName = getConfiguration().getRepositoryId();
+    final Repository repository = repositoryManager.get(repositoryName);
+    checkArgument(repository != null, "Repository not found: %s", repositoryName);
+    return snapshotRemover.remove(
+        repository,
+        getConfiguration().getInteger(RemoveSnapshotsTaskDescriptor.MINIMUM_COUNT_FIELD_ID, DEFAULT_MINIMUM_COUNT),
+        getConfiguration().getInteger(RemoveSnapshotsTaskDescriptor.RETENTION_DAYS_FIELD_ID, DEFAULT_RETENTION_DAYS),
+        getConfiguration().getInteger(RemoveSnapshotsTaskDescriptor.THREADS_FIELD_ID,
+            RebuildMetadataTask.DEFAULT_THREADS),
+        getConfiguration().getInteger(RemoveSnapshotsTaskDescriptor.BATCH_SIZE_FIELD_ID,
+            RebuildMetadataTask.DEFAULT_BATCH_SIZE)
+    );
+  }
+
+  @Override
+  public String getMessage() {
+    return "Removing Maven snapshots of " + getConfiguration().getRepositoryId();
+  }
+}
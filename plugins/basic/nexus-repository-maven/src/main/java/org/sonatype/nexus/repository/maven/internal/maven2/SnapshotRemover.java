@@ -0,0 +1,387 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal.maven2;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.search.SearchFacet;
+import org.sonatype.nexus.repository.search.SearchItemId;
+import org.sonatype.nexus.repository.storage.Asset;
+import org.sonatype.nexus.repository.storage.AssetDeletedEvent;
+import org.sonatype.nexus.repository.storage.Component;
+import org.sonatype.nexus.repository.storage.StorageFacet;
+import org.sonatype.nexus.repository.storage.StorageTx;
+import org.sonatype.nexus.repository.types.HostedType;
+import org.sonatype.nexus.scheduling.CancelableSupport;
+import org.sonatype.sisu.goodies.common.ComponentSupport;
+import org.sonatype.sisu.goodies.eventbus.EventBus;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.joda.time.DateTime;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Removes old snapshot builds of a hosted Maven2 repository.
+ *
+ * Components are streamed in group, name and version order, and every GA is handed over to a pool of workers as soon
+ * as all of its components are seen. Workers select, per snapshot base version, the timestamped builds to remove:
+ * the newest builds up to minimum count, and builds newer than retention days, are kept. Selected components are
+ * deleted with their assets in batches, and then the metadata of the GA and of the affected snapshot GAVs is rebuilt,
+ * once per GA, using {@link MetadataRebuilder}. Deletions are reported like any other: the search index is updated and
+ * an {@link AssetDeletedEvent} is posted for every asset, once the batch is committed.
+ *
+ * @since 3.0
+ */
+@Named
+@Singleton
+public class SnapshotRemover
+    extends ComponentSupport
+{
+  /**
+   * Number of processed GAs between two progress reports.
+   */
+  private static final int PROGRESS_INTERVAL = 1000;
+
+  private static final DateTimeFormatter TIMESTAMP = DateTimeFormat.forPattern("yyyyMMdd.HHmmss").withZoneUTC();
+
+  private static final String SNAPSHOT = "SNAPSHOT";
+
+  private final EventBus eventBus;
+
+  private final MetadataRebuilder metadataRebuilder;
+
+  @Inject
+  public SnapshotRemover(final EventBus eventBus, final MetadataRebuilder metadataRebuilder) {
+    this.eventBus = checkNotNull(eventBus);
+    this.metadataRebuilder = checkNotNull(metadataRebuilder);
+  }
+
+  /**
+   * Removes snapshot builds of passed in hosted Maven2 repository, keeping at least {@code minimumCount} newest builds
+   * of every snapshot base version, and all builds newer than {@code retentionDays} days, if greater than zero. Uses
+   * given number of worker threads, and deletes at most {@code batchSize} components in one transaction. Honors task
+   * cancellation of the calling thread. Returns the reclaimed bytes.
+   */
+  public long remove(final Repository repository,
+                     final int minimumCount,
+                     final int retentionDays,
+                     final int threads,
+                     final int batchSize) throws Exception
+  {
+    checkArgument(Maven2Format.NAME.equals(repository.getFormat().getValue()),
+        "Not a Maven2 repository: %s", repository);
+    checkArgument(HostedType.NAME.equals(repository.getType().getValue()),
+        "Not a hosted repository: %s", repository);
+    checkArgument(minimumCount >= 0, "Minimum count must not be negative");
+    checkArgument(retentionDays >= 0, "Retention days must not be negative");
+    checkArgument(minimumCount > 0 || retentionDays > 0, "Either minimum count or retention days must be set");
+    checkArgument(threads > 0, "Threads must be greater than zero");
+    checkArgument(batchSize > 0, "Batch size must be greater than zero");
+
+    final Stopwatch stopwatch = Stopwatch.createStarted();
+    final DateTime cutoff = retentionDays > 0 ? DateTime.now().minusDays(retentionDays) : null;
+    final Progress progress = new Progress(repository.getName());
+    final Semaphore permits = new Semaphore(threads * 2);
+    final ExecutorService executor = Executors.newFixedThreadPool(threads,
+        new ThreadFactoryBuilder().setNameFormat("maven-snapshot-remover-" + repository.getName() + "-%d")
+            .setDaemon(true).build());
+    try {
+      try (StorageTx tx = repository.facet(StorageFacet.class).openTx()) {
+        List<Component> components = Lists.newArrayList();
+        for (Component component : tx.browseComponentsByCoordinates(tx.getBucket())) {
+          if (!components.isEmpty() && !sameGa(components.get(0), component)) {
+            submitIfSnapshots(executor, permits,
+                new GaRemoval(repository, components, minimumCount, cutoff, batchSize, progress));
+            components = Lists.newArrayList();
+          }
+          components.add(component);
+        }
+        if (!components.isEmpty()) {
+          submitIfSnapshots(executor, permits,
+              new GaRemoval(repository, components, minimumCount, cutoff, batchSize, progress));
+        }
+      }
+      executor.shutdown();
+      while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+        CancelableSupport.checkCancellation();
+      }
+    }
+    finally {
+      executor.shutdownNow();
+    }
+    log.info("Removed snapshots of repository {}: {} GAs, {} components, {} bytes reclaimed, {} failures in {}",
+        repository.getName(), progress.gas.get(), progress.components.get(), progress.bytes.get(),
+        progress.failures.get(), stopwatch);
+    return progress.bytes.get();
+  }
+
+  private boolean sameGa(final Component c1, final Component c2) {
+    return c1.group().equals(c2.group()) && c1.name().equals(c2.name());
+  }
+
+  /**
+   * Submits removal of a GA having any timestamped snapshot, blocking while too many GAs are already waiting for a
+   * worker.
+   */
+  private void submitIfSnapshots(final ExecutorService executor, final Semaphore permits, final GaRemoval removal)
+      throws InterruptedException
+  {
+    CancelableSupport.checkCancellation();
+    if (removal.snapshots.isEmpty()) {
+      return;
+    }
+    permits.acquire();
+    executor.execute(new Runnable()
+    {
+      @Override
+      public void run() {
+        try {
+          removal.run();
+        }
+        finally {
+          permits.release();
+        }
+      }
+    });
+  }
+
+  private class Progress
+  {
+    private final String repositoryName;
+
+    private final AtomicLong gas = new AtomicLong();
+
+    private final AtomicLong components = new AtomicLong();
+
+    private final AtomicLong bytes = new AtomicLong();
+
+    private final AtomicLong failures = new AtomicLong();
+
+    private Progress(final String repositoryName) {
+      this.repositoryName = repositoryName;
+    }
+
+    private void gaDone(final int componentsRemoved, final long bytesReclaimed) {
+      components.addAndGet(componentsRemoved);
+      bytes.addAndGet(bytesReclaimed);
+      if (gas.incrementAndGet() % PROGRESS_INTERVAL == 0) {
+        log.info("Removing snapshots of repository {}: {} GAs, {} components, {} bytes reclaimed, {} failures so far",
+            repositoryName, gas.get(), components.get(), bytes.get(), failures.get());
+      }
+    }
+  }
+
+  /**
+   * Removes old snapshot builds of one GA, on a worker thread.
+   */
+  private class GaRemoval
+      implements Runnable
+  {
+    private final Repository repository;
+
+    private final List<Component> components;
+
+    private final int minimumCount;
+
+    @Nullable
+    private final DateTime cutoff;
+
+    private final int batchSize;
+
+    private final Progress progress;
+
+    /**
+     * Timestamped snapshot components, keyed by base version.
+     */
+    private final Map<String, List<Component>> snapshots = Maps.newHashMap();
+
+    private GaRemoval(final Repository repository,
+                      final List<Component> components,
+                      final int minimumCount,
+                      @Nullable final DateTime cutoff,
+                      final int batchSize,
+                      final Progress progress)
+    {
+      this.repository = repository;
+      this.components = components;
+      this.minimumCount = minimumCount;
+      this.cutoff = cutoff;
+      this.batchSize = batchSize;
+      this.progress = progress;
+      for (Component component : components) {
+        final String baseVersion = MetadataRebuilder.baseVersion(component.version());
+        if (!baseVersion.equals(component.version()) && baseVersion.endsWith(SNAPSHOT)) {
+          List<Component> builds = snapshots.get(baseVersion);
+          if (builds == null) {
+            builds = Lists.newArrayList();
+            snapshots.put(baseVersion, builds);
+          }
+          builds.add(component);
+        }
+      }
+    }
+
+    @Override
+    public void run() {
+      final String groupId = components.get(0).group();
+      final String artifactId = components.get(0).name();
+      try {
+        final Set<String> affectedBaseVersions = Sets.newHashSet();
+        final Set<Component> removals = Sets.newIdentityHashSet();
+        for (Map.Entry<String, List<Component>> entry : snapshots.entrySet()) {
+          final List<Component> selected = selectRemovals(entry.getValue(), minimumCount, cutoff);
+          if (!selected.isEmpty()) {
+            affectedBaseVersions.add(entry.getKey());
+            removals.addAll(selected);
+          }
+        }
+        if (removals.isEmpty()) {
+          progress.gaDone(0, 0);
+          return;
+        }
+
+        long bytes = 0;
+        for (List<Component> batch : Lists.partition(Lists.newArrayList(removals), batchSize)) {
+          bytes += delete(batch);
+        }
+
+        // rebuilt out of the components present now, which includes any deployed meanwhile
+        metadataRebuilder.rebuild(repository, groupId, artifactId, affectedBaseVersions, batchSize);
+        progress.gaDone(removals.size(), bytes);
+      }
+      catch (Exception e) {
+        progress.failures.incrementAndGet();
+        log.warn("Could not remove snapshots of {}:{} in repository {}", groupId, artifactId, repository.getName(), e);
+      }
+    }
+
+    /**
+     * Deletes passed in components with their assets in single transaction, returning the bytes reclaimed. Search
+     * index and event subscribers are only told once the deletion is committed.
+     */
+    private long delete(final List<Component> batch) {
+      final SearchFacet searchFacet = repository.facet(SearchFacet.class);
+      final List<SearchItemId> searchIds = Lists.newArrayList();
+      final List<Asset> assets = Lists.newArrayList();
+      long bytes = 0;
+      try (StorageTx tx = repository.facet(StorageFacet.class).openTx()) {
+        for (Component component : batch) {
+          for (Asset asset : tx.browseAssets(component)) {
+            if (asset.size() != null) {
+              bytes += asset.size();
+            }
+            assets.add(asset);
+          }
+          searchIds.add(searchFacet.identifier(component));
+          tx.deleteComponent(component);
+        }
+        tx.commit();
+      }
+      for (SearchItemId searchId : searchIds) {
+        searchFacet.delete(searchId);
+      }
+      for (Asset asset : assets) {
+        eventBus.post(new AssetDeletedEvent(asset, repository));
+      }
+      return bytes;
+    }
+  }
+
+  /**
+   * Selects the timestamped builds of one snapshot base version to remove: builds are ordered newest first, and those
+   * beyond {@code minimumCount} and not newer than {@code cutoff} (if given) are selected.
+   */
+  @VisibleForTesting
+  static List<Component> selectRemovals(final Collection<Component> builds,
+                                        final int minimumCount,
+                                        @Nullable final DateTime cutoff)
+  {
+    final List<Component> sorted = Lists.newArrayList(builds);
+    Collections.sort(sorted, new Comparator<Component>()
+    {
+      @Override
+      public int compare(final Component c1, final Component c2) {
+        return compareBuilds(c2.version(), c1.version());
+      }
+    });
+    final List<Component> result = Lists.newArrayList();
+    for (int i = minimumCount; i < sorted.size(); i++) {
+      final DateTime built = buildTimestamp(sorted.get(i).version());
+      if (cutoff == null || (built != null && !built.isAfter(cutoff))) {
+        result.add(sorted.get(i));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Compares timestamped versions by their timestamp and build number.
+   */
+  @VisibleForTesting
+  static int compareBuilds(final String version1, final String version2) {
+    final Matcher m1 = MetadataRebuilder.TIMESTAMPED_VERSION.matcher(version1);
+    final Matcher m2 = MetadataRebuilder.TIMESTAMPED_VERSION.matcher(version2);
+    if (!m1.matches() || !m2.matches()) {
+      return version1.compareTo(version2);
+    }
+    final int diff = m1.group(2).compareTo(m2.group(2));
+    if (diff != 0) {
+      return diff;
+    }
+    return Long.compare(Long.parseLong(m1.group(3)), Long.parseLong(m2.group(3)));
+  }
+
+  /**
+   * Returns the time a timestamped version was built at, or {@code null} if version is not timestamped.
+   */
+  @Nullable
+  @VisibleForTesting
+  static DateTime buildTimestamp(final String version) {
+    final Matcher matcher = MetadataRebuilder.TIMESTAMPED_VERSION.matcher(version);
+    if (!matcher.matches()) {
+      return null;
+    }
+    try {
+      return TIMESTAMP.parseDateTime(matcher.group(2));
+    }
+    catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal;
+
+import java.util.Map;
+
+import org.sonatype.nexus.common.collect.AttributesMap;
+import org.sonatype.nexus.common.hash.HashAlgorithm;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.maven.internal.MavenPath.HashType;
+import org.sonatype.nexus.repository.maven.internal.maven2.Maven2MavenPathParser;
+import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.Context;
+import org.sonatype.nexus.repository.view.Payload;
+import org.sonatype.nexus.repository.view.Request;
+import org.sonatype.nexus.repository.view.Response;
+import org.sonatype.nexus.repository.view.payloads.StringPayload;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.sonatype.nexus.repository.http.HttpMethods.PUT;
+
+/**
+ * UT for {@link HostedHandler}.
+ *
+ * @since 3.0
+ */
+public class HostedHandlerTest
+    extends TestSupport
+{
+  private static final String SHA1 = "bbb603f9f7a32a10eb539c1067992dabab58d33a";
+
+  private final Maven2MavenPathParser pathParser = new Maven2MavenPathParser();
+
+  private final MavenPath jarPath = pathParser.parsePath("/org/foo/bar/1.0/bar-1.0.jar");
+
+  private final MavenPath sha1Path = jarPath.hash(HashType.SHA1);
+
+  private final HostedHandler subject = new HostedHandler();
+
+  private final AttributesMap attributes = new AttributesMap();
+
+  @Mock
+  Context context;
+
+  @Mock
+  Request request;
+
+  @Mock
+  Repository repository;
+
+  @Mock
+  MavenFacet mavenFacet;
+
+  @Before
+  public void before() throws Exception {
+    when(context.getAttributes()).thenReturn(attributes);
+    when(context.getRequest()).thenReturn(request);
+    when(context.getRepository()).thenReturn(repository);
+    when(repository.facet(MavenFacet.class)).thenReturn(mavenFacet);
+    when(request.getAction()).thenReturn(PUT);
+  }
+
+  private void put(final MavenPath path, final String payload) {
+    attributes.set(MavenPath.class, path);
+    when(request.getPayload()).thenReturn(new StringPayload(payload, "text/plain"));
+  }
+
+  private void jarPresent() throws Exception {
+    final Map<HashAlgorithm, HashCode> hashCodes = ImmutableMap.of(
+        HashAlgorithm.SHA1, HashCode.fromString(SHA1),
+        HashAlgorithm.MD5, HashCode.fromString("68da13206e9dcce2db9ec45a9f7acd52")
+    );
+    final Content jar = new Content(new StringPayload("jar", "application/java-archive"));
+    jar.getAttributes().set(Content.CONTENT_HASH_CODES_MAP, hashCodes);
+    when(mavenFacet.get(jarPath)).thenReturn(jar);
+  }
+
+  @Test
+  public void putArtifact() throws Exception {
+    put(jarPath, "jar");
+    final Response response = subject.handle(context);
+    assertThat(response.getStatus().getCode(), equalTo(201));
+    verify(mavenFacet).put(any(MavenPath.class), any(Payload.class));
+  }
+
+  @Test
+  public void putHashMatching() throws Exception {
+    jarPresent();
+    put(sha1Path, SHA1 + "  bar-1.0.jar");
+    final Response response = subject.handle(context);
+    assertThat(response.getStatus().getCode(), equalTo(201));
+    verify(mavenFacet, never()).put(any(MavenPath.class), any(Payload.class));
+  }
+
+  @Test
+  public void putHashMismatching() throws Exception {
+    jarPresent();
+    put(sha1Path, "68da13206e9dcce2db9ec45a9f7acd52");
+    final Response response = subject.handle(context);
+    assertThat(response.getStatus().getCode(), equalTo(400));
+    verify(mavenFacet, never()).put(any(MavenPath.class), any(Payload.class));
+  }
+
+  @Test
+  public void putHashWithoutArtifact() throws Exception {
+    put(sha1Path, SHA1);
+    final Response response = subject.handle(context);
+    assertThat(response.getStatus().getCode(), equalTo(201));
+    verify(mavenFacet).put(any(MavenPath.class), any(Payload.class));
+  }
+}
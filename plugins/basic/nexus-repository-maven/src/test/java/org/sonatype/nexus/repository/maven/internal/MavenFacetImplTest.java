@@ -0,0 +1,151 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+import org.sonatype.nexus.blobstore.api.Blob;
+import org.sonatype.nexus.blobstore.api.BlobRef;
+import org.sonatype.nexus.common.collect.NestedAttributesMap;
+import org.sonatype.nexus.mime.MimeSupport;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.config.ConfigurationFacet;
+import org.sonatype.nexus.repository.maven.internal.MavenPath.HashType;
+import org.sonatype.nexus.repository.maven.internal.maven2.Maven2Format;
+import org.sonatype.nexus.repository.maven.internal.maven2.Maven2MavenPathParser;
+import org.sonatype.nexus.repository.storage.Asset;
+import org.sonatype.nexus.repository.storage.Bucket;
+import org.sonatype.nexus.repository.storage.StorageFacet;
+import org.sonatype.nexus.repository.storage.StorageTx;
+import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.io.CharStreams;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * UT for {@link MavenFacetImpl} serving of hashes.
+ *
+ * @since 3.0
+ */
+public class MavenFacetImplTest
+    extends TestSupport
+{
+  private static final String SHA1 = "bbb603f9f7a32a10eb539c1067992dabab58d33a";
+
+  private static final String MD5 = "68da13206e9dcce2db9ec45a9f7acd52";
+
+  private final Maven2MavenPathParser pathParser = new Maven2MavenPathParser();
+
+  private final MavenPath jarPath = pathParser.parsePath("/org/foo/bar/1.0/bar-1.0.jar");
+
+  private MavenFacetImpl underTest;
+
+  @Mock
+  MimeSupport mimeSupport;
+
+  @Mock
+  Repository repository;
+
+  @Mock
+  ConfigurationFacet configurationFacet;
+
+  @Mock
+  StorageFacet storageFacet;
+
+  @Mock
+  StorageTx tx;
+
+  @Mock
+  Bucket bucket;
+
+  @Before
+  public void before() throws Exception {
+    when(repository.getFormat()).thenReturn(new Maven2Format());
+    when(repository.facet(ConfigurationFacet.class)).thenReturn(configurationFacet);
+    when(repository.facet(StorageFacet.class)).thenReturn(storageFacet);
+    when(storageFacet.openTx()).thenReturn(tx);
+    when(tx.getBucket()).thenReturn(bucket);
+
+    underTest = new MavenFacetImpl(mimeSupport,
+        ImmutableMap.<String, MavenPathParser>of(Maven2Format.NAME, pathParser));
+    underTest.attach(repository);
+    underTest.init();
+  }
+
+  private Asset asset(final MavenPath mavenPath, final String sha1, final String md5) {
+    final NestedAttributesMap attributes = new NestedAttributesMap("attributes", Maps.<String, Object>newHashMap());
+    attributes.child("checksum").set(HashType.SHA1.getHashAlgorithm().name(), sha1);
+    attributes.child("checksum").set(HashType.MD5.getHashAlgorithm().name(), md5);
+    final Asset asset = mock(Asset.class);
+    when(asset.attributes()).thenReturn(attributes);
+    when(asset.formatAttributes()).thenReturn(attributes.child(Maven2Format.NAME));
+    when(tx.findAssetWithProperty(anyString(), eq(mavenPath.getPath()), eq(bucket))).thenReturn(asset);
+    return asset;
+  }
+
+  private static String read(final Content content) throws IOException {
+    try (InputStream inputStream = content.openInputStream()) {
+      return CharStreams.toString(new InputStreamReader(inputStream, Charsets.UTF_8));
+    }
+  }
+
+  @Test
+  public void hashesOfStoredAssetAreServedFromItsChecksums() throws Exception {
+    asset(jarPath, SHA1, MD5);
+
+    assertThat(read(underTest.get(jarPath.hash(HashType.SHA1))), equalTo(SHA1));
+    assertThat(read(underTest.get(jarPath.hash(HashType.MD5))), equalTo(MD5));
+
+    verify(tx, never()).findAssetWithProperty(anyString(), eq(jarPath.hash(HashType.SHA1).getPath()), eq(bucket));
+    verify(tx, never()).findAssetWithProperty(anyString(), eq(jarPath.hash(HashType.MD5).getPath()), eq(bucket));
+  }
+
+  @Test
+  public void hashWithoutStoredAssetIsServedFromHashAsset() throws Exception {
+    final MavenPath sha1Path = jarPath.hash(HashType.SHA1);
+    final Asset sha1Asset = asset(sha1Path, "da39a3ee5e6b4b0d3255bfef95601890afd80709",
+        "d41d8cd98f00b204e9800998ecf8427e");
+    final BlobRef blobRef = new BlobRef("node", "default", "blob");
+    final Blob blob = mock(Blob.class);
+    when(sha1Asset.requireBlobRef()).thenReturn(blobRef);
+    when(sha1Asset.contentType()).thenReturn("text/plain");
+    when(tx.requireBlob(blobRef)).thenReturn(blob);
+    when(blob.getInputStream()).thenReturn(new ByteArrayInputStream(SHA1.getBytes(Charsets.UTF_8)));
+
+    assertThat(read(underTest.get(sha1Path)), equalTo(SHA1));
+  }
+
+  @Test
+  public void hashWithoutAnyAssetIsNotFound() throws Exception {
+    assertThat(underTest.get(jarPath.hash(HashType.SHA1)), nullValue());
+  }
+}
@@ -97,6 +97,8 @@ public class MavenPathTest
     MavenPath pathSha1 = mavenPath.hash(HashType.SHA1);
     assertThat(pathSha1.isSubordinate(), is(true));
     assertThat(pathSha1.subordinateOf(), equalTo(mavenPath));
+    assertThat(pathSha1.subordinateOf().getCoordinates().getVersion(), equalTo("8.1.16-20140903.180000-1"));
+    assertThat(pathSha1.subordinateOf().getCoordinates().getBaseVersion(), equalTo("8.1.16-SNAPSHOT"));
     assertThat(pathSha1.main(), equalTo(mavenPath));
 
     MavenPath coordinatesAscSha1 = mavenPath.signature(SignatureType.GPG).hash(HashType.SHA1);
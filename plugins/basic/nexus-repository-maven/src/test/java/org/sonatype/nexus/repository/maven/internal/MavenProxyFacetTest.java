@@ -0,0 +1,257 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+
+import org.sonatype.nexus.common.collect.AttributesMap;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.httpclient.HttpClientFacet;
+import org.sonatype.nexus.repository.maven.internal.MavenPath.HashType;
+import org.sonatype.nexus.repository.maven.internal.maven2.Maven2MavenPathParser;
+import org.sonatype.nexus.repository.proxy.LastVerifiedFlusher;
+import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.Context;
+import org.sonatype.nexus.repository.view.Payload;
+import org.sonatype.nexus.repository.view.Request;
+import org.sonatype.nexus.repository.view.payloads.StringPayload;
+import org.sonatype.sisu.goodies.eventbus.EventBus;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * UT for {@link MavenProxyFacet} hash handling.
+ *
+ * @since 3.0
+ */
+public class MavenProxyFacetTest
+    extends TestSupport
+{
+  private static final String SHA1 = "bbb603f9f7a32a10eb539c1067992dabab58d33a";
+
+  private static final String OTHER_SHA1 = "6a8a5bb3e4b1d8ac3a68a2a3bd7b4a1fa8ca8f05";
+
+  private final Maven2MavenPathParser pathParser = new Maven2MavenPathParser();
+
+  private final MavenPath sha1Path = pathParser.parsePath("/org/foo/bar/1.0/bar-1.0.jar").hash(HashType.SHA1);
+
+  private final MavenPath otherSha1Path = pathParser.parsePath("/org/foo/baz/1.0/baz-1.0.jar").hash(HashType.SHA1);
+
+  private final MetricRegistry metricRegistry = new MetricRegistry();
+
+  private MavenProxyFacet underTest;
+
+  @Mock
+  Repository repository;
+
+  @Mock
+  MavenFacet mavenFacet;
+
+  @Mock
+  HttpClientFacet httpClientFacet;
+
+  @Mock
+  EventBus eventBus;
+
+  @Mock
+  Upstream upstream;
+
+  /**
+   * Remote content, as fetched by the facet under test.
+   */
+  interface Upstream
+  {
+    Content fetch(String url) throws IOException;
+  }
+
+  @Before
+  public void before() throws Exception {
+    when(repository.getName()).thenReturn("maven-central");
+    when(repository.facet(MavenFacet.class)).thenReturn(mavenFacet);
+    when(repository.facet(HttpClientFacet.class)).thenReturn(httpClientFacet);
+    when(mavenFacet.exists(sha1Path.subordinateOf())).thenReturn(true);
+    when(mavenFacet.exists(otherSha1Path.subordinateOf())).thenReturn(true);
+    start(10);
+  }
+
+  @After
+  public void after() throws Exception {
+    underTest.stop();
+  }
+
+  private void start(final int validatedCacheSize) throws Exception {
+    underTest = new MavenProxyFacet(metricRegistry, 1, validatedCacheSize)
+    {
+      @Override
+      ExecutorService createValidator() {
+        return MoreExecutors.newDirectExecutorService();
+      }
+
+      @Override
+      protected Content fetch(final String url, final Context context, final Content stale) throws IOException {
+        return upstream.fetch(url);
+      }
+    };
+    underTest.installDependencies(eventBus);
+    underTest.installMetricRegistry(metricRegistry);
+    underTest.installLastVerifiedFlusher(new LastVerifiedFlusher(10));
+    underTest.attach(repository);
+    underTest.start();
+  }
+
+  private Context context(final MavenPath mavenPath) {
+    final AttributesMap attributes = new AttributesMap();
+    attributes.set(MavenPath.class, mavenPath);
+    final Request request = mock(Request.class);
+    when(request.getPath()).thenReturn(mavenPath.getPath());
+    final Context context = mock(Context.class);
+    when(context.getAttributes()).thenReturn(attributes);
+    when(context.getRequest()).thenReturn(request);
+    when(context.getRepository()).thenReturn(repository);
+    return context;
+  }
+
+  private static Answer<Content> hash(final String hash) {
+    return new Answer<Content>()
+    {
+      @Override
+      public Content answer(final InvocationOnMock invocation) {
+        return new Content(new StringPayload(hash, "text/plain"));
+      }
+    };
+  }
+
+  private long mismatches() {
+    return metricRegistry.counter(
+        MetricRegistry.name(MavenProxyFacet.class, "repository", "maven-central", "hash-mismatches")).getCount();
+  }
+
+  @Test
+  public void cachedHashIsServedLocallyAndValidatedOnce() throws Exception {
+    final Content local = new Content(new StringPayload(SHA1, "text/plain"));
+    when(mavenFacet.get(sha1Path)).thenReturn(local);
+    when(upstream.fetch(sha1Path.getPath())).thenAnswer(hash(SHA1));
+
+    assertThat(underTest.get(context(sha1Path)), sameInstance(local));
+    assertThat(underTest.get(context(sha1Path)), sameInstance(local));
+
+    verify(upstream, times(1)).fetch(sha1Path.getPath());
+    assertThat(mismatches(), equalTo(0L));
+  }
+
+  @Test
+  public void mismatchIsCountedOnceAndCachedContentKept() throws Exception {
+    when(mavenFacet.get(sha1Path)).thenAnswer(hash(SHA1));
+    when(upstream.fetch(sha1Path.getPath())).thenAnswer(hash(OTHER_SHA1));
+
+    underTest.get(context(sha1Path));
+    underTest.get(context(sha1Path));
+
+    verify(upstream, times(1)).fetch(sha1Path.getPath());
+    verify(mavenFacet, never()).delete(Matchers.<MavenPath>anyVararg());
+    assertThat(mismatches(), equalTo(1L));
+  }
+
+  @Test
+  public void failedValidationIsRetried() throws Exception {
+    when(mavenFacet.get(sha1Path)).thenAnswer(hash(SHA1));
+    when(upstream.fetch(sha1Path.getPath())).thenThrow(new IOException("upstream down")).thenAnswer(hash(SHA1));
+
+    underTest.get(context(sha1Path));
+    underTest.get(context(sha1Path));
+    underTest.get(context(sha1Path));
+
+    verify(upstream, times(2)).fetch(sha1Path.getPath());
+  }
+
+  @Test
+  public void changedHashIsValidatedAgain() throws Exception {
+    when(mavenFacet.get(sha1Path)).thenAnswer(hash(SHA1)).thenAnswer(hash(OTHER_SHA1));
+    when(upstream.fetch(sha1Path.getPath())).thenAnswer(hash(OTHER_SHA1));
+
+    underTest.get(context(sha1Path));
+    underTest.get(context(sha1Path));
+
+    verify(upstream, times(2)).fetch(sha1Path.getPath());
+    assertThat(mismatches(), equalTo(1L));
+  }
+
+  @Test
+  public void evictedHashIsValidatedAgain() throws Exception {
+    underTest.stop();
+    start(1);
+    when(mavenFacet.get(sha1Path)).thenAnswer(hash(SHA1));
+    when(mavenFacet.get(otherSha1Path)).thenAnswer(hash(OTHER_SHA1));
+    when(upstream.fetch(sha1Path.getPath())).thenAnswer(hash(SHA1));
+    when(upstream.fetch(otherSha1Path.getPath())).thenAnswer(hash(OTHER_SHA1));
+
+    underTest.get(context(sha1Path));
+    underTest.get(context(otherSha1Path));
+    underTest.get(context(sha1Path));
+
+    verify(upstream, times(2)).fetch(sha1Path.getPath());
+  }
+
+  @Test
+  public void hashWithoutCachedContentIsPassedThrough() throws Exception {
+    final Content remote = new Content(new StringPayload(SHA1, "text/plain"));
+    when(upstream.fetch(sha1Path.getPath())).thenReturn(remote);
+
+    assertThat(underTest.get(context(sha1Path)), sameInstance(remote));
+
+    verify(mavenFacet, never()).put(any(MavenPath.class), any(Payload.class));
+  }
+
+  @Test
+  public void hashStoredWithoutContentIsDeletedAndPassedThrough() throws Exception {
+    final Content remote = new Content(new StringPayload(SHA1, "text/plain"));
+    when(mavenFacet.get(sha1Path)).thenAnswer(hash(OTHER_SHA1));
+    when(mavenFacet.exists(sha1Path.subordinateOf())).thenReturn(false);
+    when(upstream.fetch(sha1Path.getPath())).thenReturn(remote);
+
+    assertThat(underTest.get(context(sha1Path)), sameInstance(remote));
+
+    verify(mavenFacet).delete(sha1Path);
+    assertThat(mismatches(), equalTo(0L));
+  }
+
+  @Test
+  public void deleteRemovesMetrics() throws Exception {
+    underTest.stop();
+    underTest.delete();
+
+    assertThat(metricRegistry.getMetrics().keySet(), empty());
+    start(10);
+  }
+}
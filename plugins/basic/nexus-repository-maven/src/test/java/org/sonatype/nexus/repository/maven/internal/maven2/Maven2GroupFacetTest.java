@@ -0,0 +1,220 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal.maven2;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.sonatype.nexus.cache.CacheConfig;
+import org.sonatype.nexus.cache.CacheService;
+import org.sonatype.nexus.common.collect.NestedAttributesMap;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.config.ConfigurationFacet;
+import org.sonatype.nexus.repository.http.HttpResponses;
+import org.sonatype.nexus.repository.manager.RepositoryManager;
+import org.sonatype.nexus.repository.maven.internal.MavenFacet;
+import org.sonatype.nexus.repository.maven.internal.MavenPath;
+import org.sonatype.nexus.repository.storage.Asset;
+import org.sonatype.nexus.repository.storage.AssetDeletedEvent;
+import org.sonatype.nexus.repository.storage.AssetUpdatedEvent;
+import org.sonatype.nexus.repository.storage.StorageFacet;
+import org.sonatype.nexus.repository.view.Content;
+import org.sonatype.nexus.repository.view.Payload;
+import org.sonatype.nexus.repository.view.Response;
+import org.sonatype.nexus.repository.view.payloads.StringPayload;
+import org.sonatype.sisu.goodies.eventbus.EventBus;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * UT for {@link Maven2GroupFacet} incremental metadata maintenance.
+ *
+ * @since 3.0
+ */
+public class Maven2GroupFacetTest
+    extends TestSupport
+{
+  private final Maven2MavenPathParser pathParser = new Maven2MavenPathParser();
+
+  private final MavenPath metadataPath = pathParser.parsePath("/org/foo/bar/maven-metadata.xml");
+
+  private final Cache<String, MetadataContributions> cache = CacheBuilder.newBuilder().build();
+
+  private Maven2GroupFacet underTest;
+
+  private String merged;
+
+  @Mock
+  Repository group;
+
+  @Mock
+  MavenFacet groupFacet;
+
+  @Mock
+  Repository memberA;
+
+  @Mock
+  MavenFacet memberFacetA;
+
+  @Mock
+  Repository memberB;
+
+  @Mock
+  CacheService cacheService;
+
+  @Before
+  public void before() throws Exception {
+    when(group.getName()).thenReturn("maven-public");
+    when(group.facet(MavenFacet.class)).thenReturn(groupFacet);
+    when(group.facet(ConfigurationFacet.class)).thenReturn(mock(ConfigurationFacet.class));
+    when(groupFacet.getMavenPathParser()).thenReturn(pathParser);
+    when(memberA.getName()).thenReturn("maven-releases");
+    when(memberA.facet(MavenFacet.class)).thenReturn(memberFacetA);
+    when(memberB.getName()).thenReturn("maven-central");
+    when(cacheService.getOrCreateCache(anyString(), any(CacheConfig.class))).thenReturn((Cache) cache);
+    doAnswer(new Answer<Void>()
+    {
+      @Override
+      public Void answer(final InvocationOnMock invocation) throws Throwable {
+        final Map<MavenPath, Payload> payloads = (Map<MavenPath, Payload>) invocation.getArguments()[0];
+        try (InputStream inputStream = payloads.get(metadataPath).openInputStream()) {
+          merged = new String(ByteStreams.toByteArray(inputStream), Charsets.UTF_8);
+        }
+        return null;
+      }
+    }).when(groupFacet).putAll(anyMapOf(MavenPath.class, Payload.class));
+
+    final List<Repository> members = ImmutableList.of(memberA, memberB);
+    underTest = new Maven2GroupFacet(mock(RepositoryManager.class), cacheService, 1024 * 1024)
+    {
+      @Override
+      public boolean member(final Repository repository) {
+        return members.contains(repository);
+      }
+
+      @Override
+      public List<Repository> members() {
+        return members;
+      }
+    };
+    underTest.installDependencies(mock(EventBus.class));
+    underTest.attach(group);
+    underTest.init();
+    underTest.start();
+  }
+
+  private static String metadata(final String version) {
+    return "<metadata><groupId>org.foo</groupId><artifactId>bar</artifactId><versioning><versions><version>" + version
+        + "</version></versions></versioning></metadata>";
+  }
+
+  private static Content content(final String string) {
+    return new Content(new StringPayload(string, Maven2Format.METADATA_CONTENT_TYPE));
+  }
+
+  private void merge(final Response responseA, final Response responseB) throws IOException {
+    final LinkedHashMap<Repository, Response> responses = Maps.newLinkedHashMap();
+    responses.put(memberA, responseA);
+    responses.put(memberB, responseB);
+    underTest.mergeAndCacheMetadata(metadataPath, responses);
+  }
+
+  private Asset asset(final String path) {
+    final NestedAttributesMap attributes = new NestedAttributesMap(Maven2Format.NAME, Maps.<String, Object>newHashMap());
+    attributes.set(StorageFacet.P_PATH, path);
+    final Asset asset = mock(Asset.class);
+    when(asset.formatAttributes()).thenReturn(attributes);
+    return asset;
+  }
+
+  @Test
+  public void memberUpdatePatchesMergedMetadata() throws Exception {
+    merge(HttpResponses.ok(content(metadata("1.0"))), HttpResponses.ok(content(metadata("2.0"))));
+    assertThat(merged, containsString("<version>1.0</version>"));
+    assertThat(merged, containsString("<version>2.0</version>"));
+    final MetadataContributions cached = cache.getIfPresent(metadataPath.getPath());
+    assertThat(cached, notNullValue());
+
+    when(memberFacetA.get(metadataPath)).thenReturn(content(metadata("1.1")));
+    underTest.onAssetEvent(new AssetUpdatedEvent(asset(metadataPath.getPath()), memberA));
+
+    assertThat(merged, containsString("<version>1.1</version>"));
+    assertThat(merged, containsString("<version>2.0</version>"));
+    assertThat(merged, not(containsString("<version>1.0</version>")));
+    assertThat(cache.getIfPresent(metadataPath.getPath()), sameInstance(cached));
+    verify(groupFacet, never()).delete(Matchers.<MavenPath>anyVararg());
+  }
+
+  @Test
+  public void deletingLastContributionEvictsMergedMetadata() throws Exception {
+    merge(HttpResponses.ok(content(metadata("1.0"))), HttpResponses.notFound());
+    assertThat(cache.getIfPresent(metadataPath.getPath()), notNullValue());
+
+    underTest.onAssetEvent(new AssetDeletedEvent(asset(metadataPath.getPath()), memberA));
+
+    verify(groupFacet).delete(Matchers.<MavenPath>anyVararg());
+  }
+
+  @Test
+  public void incompleteMergeIsNotCachedAndEvictedOnChange() throws Exception {
+    merge(HttpResponses.ok(content(metadata("1.0"))), HttpResponses.serviceUnavailable());
+    assertThat(merged, containsString("<version>1.0</version>"));
+    assertThat(cache.getIfPresent(metadataPath.getPath()), nullValue());
+
+    underTest.onAssetEvent(new AssetUpdatedEvent(asset(metadataPath.getPath()), memberA));
+
+    verify(groupFacet).delete(Matchers.<MavenPath>anyVararg());
+    verify(memberFacetA, never()).get(metadataPath);
+  }
+
+  @Test
+  public void cachedContributionsWinOverConcurrentMerge() throws Exception {
+    merge(HttpResponses.ok(content(metadata("1.0"))), HttpResponses.notFound());
+    final MetadataContributions cached = cache.getIfPresent(metadataPath.getPath());
+
+    merge(HttpResponses.ok(content(metadata("0.9"))), HttpResponses.notFound());
+
+    assertThat(cache.getIfPresent(metadataPath.getPath()), sameInstance(cached));
+    assertThat(merged, containsString("<version>1.0</version>"));
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal.maven2;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.sonatype.nexus.repository.maven.internal.MavenPath.Coordinates;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * UT for {@link Maven2IndexFacet}, {@link IndexDataWriter} and {@link IndexDataReader}.
+ *
+ * @since 3.0
+ */
+public class Maven2IndexFacetTest
+    extends TestSupport
+{
+  private final DateTime now = new DateTime(2015, 3, 24, 12, 15, 0, DateTimeZone.UTC);
+
+  private final Maven2MavenPathParser parser = new Maven2MavenPathParser();
+
+  private Coordinates coordinates(final String path) {
+    return parser.parsePath(path).getCoordinates();
+  }
+
+  @Test
+  public void uinfo() {
+    assertThat(Maven2IndexFacet.uinfo(coordinates("/org/foo/bar/1.0/bar-1.0.jar")),
+        equalTo("org.foo|bar|1.0|NA"));
+    assertThat(Maven2IndexFacet.uinfo(coordinates("/org/foo/bar/1.0/bar-1.0-sources.jar")),
+        equalTo("org.foo|bar|1.0|sources|jar"));
+    assertThat(Maven2IndexFacet.uinfo(coordinates("/org/foo/bar/1.0-SNAPSHOT/bar-1.0-20150324.121500-3.jar")),
+        equalTo("org.foo|bar|1.0-20150324.121500-3|NA"));
+  }
+
+  @Test
+  public void artifactPath() {
+    for (String path : ImmutableList.of("/org/foo/bar/1.0/bar-1.0.jar", "/org/foo/bar/1.0/bar-1.0-sources.jar",
+        "/org/foo/bar/1.0-SNAPSHOT/bar-1.0-20150324.121500-3.jar", "/org/foo/bar/1.0/bar-1.0.pom")) {
+      final Coordinates artifact = coordinates(path);
+      final String info = Maven2IndexFacet.info("jar", 0, 0, false, false, false, artifact.getExtension());
+      assertThat(Maven2IndexFacet.artifactPath(Maven2IndexFacet.uinfo(artifact), info), equalTo(path));
+    }
+    assertThat(Maven2IndexFacet.artifactPath("org.foo|bar|1.0|NA", null), nullValue());
+    assertThat(Maven2IndexFacet.artifactPath("org.foo|bar", "jar|0|0|0|0|0|jar"), nullValue());
+  }
+
+  @Test
+  public void info() {
+    assertThat(Maven2IndexFacet.info("jar", 1427199300000L, 1234L, true, false, true, "jar"),
+        equalTo("jar|1427199300000|1234|1|0|1|jar"));
+  }
+
+  @Test
+  public void packagingAndIndexed() {
+    final Coordinates pom = coordinates("/org/foo/bar/1.0/bar-1.0.pom");
+    final Coordinates jar = coordinates("/org/foo/bar/1.0/bar-1.0.jar");
+    final Coordinates sources = coordinates("/org/foo/bar/1.0/bar-1.0-sources.jar");
+
+    assertThat(Maven2IndexFacet.packaging(ImmutableList.of(pom, jar, sources)), equalTo("jar"));
+    assertThat(Maven2IndexFacet.isIndexed(pom, "jar"), equalTo(false));
+    assertThat(Maven2IndexFacet.isIndexed(jar, "jar"), equalTo(true));
+    assertThat(Maven2IndexFacet.isIndexed(sources, "jar"), equalTo(true));
+
+    assertThat(Maven2IndexFacet.packaging(ImmutableList.of(pom)), equalTo("pom"));
+    assertThat(Maven2IndexFacet.isIndexed(pom, "pom"), equalTo(true));
+  }
+
+  @Test
+  public void rootGroups() {
+    assertThat(Maven2IndexFacet.rootGroups(ImmutableList.of("org.foo", "org.bar", "com.baz", "junit")),
+        contains("com", "junit", "org"));
+  }
+
+  @Test
+  public void timestamp() {
+    final Properties properties = new Properties();
+    assertThat(Maven2IndexFacet.timestamp(null), nullValue());
+    properties.setProperty(Maven2IndexFacet.INDEX_TIMESTAMP, "20150324121500.000 +0000");
+    assertThat(Maven2IndexFacet.timestamp(properties), nullValue()); // no chain
+    properties.setProperty(Maven2IndexFacet.INDEX_CHAIN_ID, "1427199300000");
+    assertThat(Maven2IndexFacet.timestamp(properties).getMillis(), equalTo(now.getMillis()));
+    properties.setProperty(Maven2IndexFacet.INDEX_TIMESTAMP, "garbage");
+    assertThat(Maven2IndexFacet.timestamp(properties), nullValue());
+  }
+
+  @Test
+  public void chunkPath() {
+    assertThat(Maven2IndexFacet.chunkPath(3), equalTo("/.index/nexus-maven-repository-index.3.gz"));
+  }
+
+  @Test
+  public void uinfoSet() {
+    final Maven2IndexFacet.UinfoSet set = new Maven2IndexFacet.UinfoSet();
+    for (int i = 0; i < 5000; i++) {
+      set.add("org.foo|bar|" + i + "|NA");
+    }
+    set.sort();
+    assertThat(set.contains("org.foo|bar|0|NA"), equalTo(true));
+    assertThat(set.contains("org.foo|bar|4999|NA"), equalTo(true));
+    assertThat(set.contains("org.foo|bar|5000|NA"), equalTo(false));
+  }
+
+  @Test
+  public void writeAndRead() throws Exception {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (IndexDataWriter writer = new IndexDataWriter(out)) {
+      writer.writeHeader(now);
+      writer.writeDescriptor("releases");
+      writer.writeArtifact("org.foo|bar|1.0|NA", "jar|1427199300000|1234|1|0|0|jar", "abcdef", 1L);
+      writer.writeArtifact("org.foo|bar|1.0|sources|jar", "jar|1427199300000|12|1|0|0|jar", null, 1L);
+      writer.writeDeleted("org.foo|bar|0.9|NA", 2L);
+      writer.writeGroups(ImmutableList.of("org.foo", "\u017elu\u0165ou\u010dk\u00fd"), ImmutableList.of("org"));
+      assertThat(writer.getDocuments(), equalTo(4));
+    }
+
+    final List<Map<String, String>> documents = Lists.newArrayList();
+    try (IndexDataReader reader = new IndexDataReader(new ByteArrayInputStream(out.toByteArray()))) {
+      assertThat(reader.readHeader().getMillis(), equalTo(now.getMillis()));
+      Map<String, String> document;
+      while ((document = reader.readDocument()) != null) {
+        documents.add(document);
+      }
+    }
+
+    assertThat(documents, hasSize(6));
+    assertThat(documents.get(0).get(IndexDataWriter.DESCRIPTOR), equalTo("NexusIndex"));
+    assertThat(documents.get(0).get(IndexDataWriter.IDXINFO), equalTo("1.0|releases"));
+    assertThat(documents.get(1).get(IndexDataWriter.UINFO), equalTo("org.foo|bar|1.0|NA"));
+    assertThat(documents.get(1).get(IndexDataWriter.INFO), equalTo("jar|1427199300000|1234|1|0|0|jar"));
+    assertThat(documents.get(1).get(IndexDataWriter.SHA1), equalTo("abcdef"));
+    assertThat(documents.get(1).get(IndexDataWriter.LAST_MODIFIED), equalTo("1"));
+    assertThat(documents.get(2).get(IndexDataWriter.SHA1), nullValue());
+    assertThat(documents.get(3).get(IndexDataWriter.DELETED), equalTo("org.foo|bar|0.9|NA"));
+    assertThat(documents.get(4).get(IndexDataWriter.ALL_GROUPS_LIST),
+        equalTo("org.foo|\u017elu\u0165ou\u010dk\u00fd"));
+    assertThat(documents.get(5).get(IndexDataWriter.ROOT_GROUPS_LIST), equalTo("org"));
+  }
+}
@@ -0,0 +1,297 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal.maven2;
+
+import java.util.List;
+import java.util.Random;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.nexus.repository.maven.internal.MavenPath;
+import org.sonatype.nexus.repository.maven.internal.MavenPath.Coordinates;
+import org.sonatype.nexus.repository.maven.internal.MavenPath.HashType;
+import org.sonatype.nexus.repository.maven.internal.MavenPath.SignatureType;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * Property based UT for {@link Maven2MavenPathParser}: randomly generated, and randomly mangled paths are parsed and
+ * the result is compared to {@link #referenceParse(String) reference parser}, the original straightforward
+ * implementation, and paths derived from parsed paths are compared to parsed derived paths.
+ */
+public class Maven2MavenPathParserFuzzTest
+    extends TestSupport
+{
+  private static final int ITERATIONS = 20000;
+
+  private static final List<String> GROUP_SEGMENTS = ImmutableList.of("org", "com", "sonatype", "a", "x-y", "1",
+      "SNAPSHOT");
+
+  private static final List<String> ARTIFACT_IDS = ImmutableList.of("foo", "foo-bar", "a", "jetty-io", "x.y", "1");
+
+  private static final List<String> BASE_VERSIONS = ImmutableList.of("1.0", "1", "8.1.16.v20140903", "1.0-SNAPSHOT",
+      "2.4.2-64-SNAPSHOT", "SNAPSHOT", "1.0RC1-SNAPSHOT", "1.0-alpha-1");
+
+  private static final List<String> CLASSIFIERS = ImmutableList.of("", "-sources", "-javadoc", "-tests", "-", "-a.b");
+
+  private static final List<String> EXTENSIONS = ImmutableList.of(".jar", ".pom", ".tar.gz", ".zip", ".", "",
+      ".xml", ".asc");
+
+  private static final List<String> SUFFIXES = ImmutableList.of("", "", ".sha1", ".md5", ".asc", ".asc.sha1",
+      ".asc.md5", ".sha1.md5");
+
+  private static final String CHARS = "/.-aSNAPSHOT0123456789";
+
+  private final Maven2MavenPathParser underTest = new Maven2MavenPathParser();
+
+  private final Random random = new Random(1L);
+
+  @Test
+  public void sameAsReference() {
+    for (int i = 0; i < ITERATIONS; i++) {
+      final String path = mangle(randomPath());
+      assertSame(path, underTest.parsePath(path).getCoordinates(), referenceParse(path));
+    }
+  }
+
+  @Test
+  public void derivedSameAsParsed() {
+    for (int i = 0; i < ITERATIONS; i++) {
+      final MavenPath mavenPath = underTest.parsePath(randomPath());
+      if (mavenPath.isHash()) {
+        // hash of hash is not parsed as subordinate of an artifact, coordinates of such path are ambiguous
+        if (!mavenPath.subordinateOf().isHash()) {
+          assertDerived(mavenPath.subordinateOf());
+        }
+      }
+      else if (mavenPath.getCoordinates() != null && !mavenPath.isSignature()) {
+        for (HashType hashType : HashType.values()) {
+          assertDerived(mavenPath.hash(hashType));
+        }
+        assertDerived(mavenPath.signature(SignatureType.GPG));
+        assertDerived(mavenPath.signature(SignatureType.GPG).hash(HashType.SHA1));
+      }
+    }
+  }
+
+  @Test
+  public void idsInterned() {
+    final MavenPath jar = underTest.parsePath("/org/foo/bar/1.0/bar-1.0.jar");
+    final MavenPath pom = underTest.parsePath(new String("/org/foo/bar/1.0/bar-1.0.pom"));
+    assertThat(pom.getCoordinates().getGroupId(), sameInstance(jar.getCoordinates().getGroupId()));
+    assertThat(pom.getCoordinates().getArtifactId(), sameInstance(jar.getCoordinates().getArtifactId()));
+  }
+
+  private void assertDerived(final MavenPath derived) {
+    final MavenPath parsed = underTest.parsePath(derived.getPath());
+    assertThat(derived.getPath(), derived.getFileName(), equalTo(parsed.getFileName()));
+    assertThat(derived.getPath(), derived.getHashType(), equalTo(parsed.getHashType()));
+    assertSame(derived.getPath(), derived.getCoordinates(), parsed.getCoordinates());
+  }
+
+  private void assertSame(final String path, @Nullable final Coordinates actual, @Nullable final Coordinates expected) {
+    if (expected == null) {
+      assertThat(path, actual, nullValue());
+      return;
+    }
+    assertThat(path, actual, notNullValue());
+    assertThat(path, actual.isSnapshot(), equalTo(expected.isSnapshot()));
+    assertThat(path, actual.getGroupId(), equalTo(expected.getGroupId()));
+    assertThat(path, actual.getArtifactId(), equalTo(expected.getArtifactId()));
+    assertThat(path, actual.getVersion(), equalTo(expected.getVersion()));
+    assertThat(path, actual.getBaseVersion(), equalTo(expected.getBaseVersion()));
+    assertThat(path, actual.getClassifier(), equalTo(expected.getClassifier()));
+    assertThat(path, actual.getExtension(), equalTo(expected.getExtension()));
+    assertThat(path, actual.getSignatureType(), equalTo(expected.getSignatureType()));
+  }
+
+  private String randomPath() {
+    final StringBuilder path = new StringBuilder();
+    if (random.nextInt(4) != 0) {
+      path.append('/');
+    }
+    final int groupSegments = random.nextInt(4);
+    for (int i = 0; i < groupSegments; i++) {
+      path.append(pick(GROUP_SEGMENTS)).append('/');
+    }
+    final String artifactId = pick(ARTIFACT_IDS);
+    final String baseVersion = pick(BASE_VERSIONS);
+    path.append(artifactId).append('/').append(baseVersion).append('/');
+    if (random.nextInt(10) == 0) {
+      path.append(Maven2Format.METADATA_FILENAME);
+    }
+    else {
+      String version = baseVersion;
+      if (baseVersion.endsWith("SNAPSHOT") && random.nextBoolean()) {
+        version = baseVersion.substring(0, baseVersion.length() - "SNAPSHOT".length())
+            + "20150311.160242-" + (random.nextInt(3) == 0 ? "" : random.nextInt(1000));
+      }
+      path.append(random.nextInt(10) == 0 ? pick(ARTIFACT_IDS) : artifactId).append('-').append(version);
+    }
+    return path.append(pick(CLASSIFIERS)).append(pick(EXTENSIONS)).append(pick(SUFFIXES)).toString();
+  }
+
+  /**
+   * Randomly deletes, inserts or replaces few characters of passed in path.
+   */
+  private String mangle(final String path) {
+    final StringBuilder result = new StringBuilder(path);
+    final int edits = random.nextInt(3);
+    for (int i = 0; i < edits && result.length() > 0; i++) {
+      final int pos = random.nextInt(result.length());
+      final char c = CHARS.charAt(random.nextInt(CHARS.length()));
+      switch (random.nextInt(3)) {
+        case 0:
+          result.deleteCharAt(pos);
+          break;
+        case 1:
+          result.insert(pos, c);
+          break;
+        default:
+          result.setCharAt(pos, c);
+      }
+    }
+    return result.toString();
+  }
+
+  private <T> T pick(final List<T> list) {
+    return list.get(random.nextInt(list.size()));
+  }
+
+  /**
+   * The original implementation of {@link Maven2MavenPathParser}, kept as reference.
+   */
+  @Nullable
+  private static Coordinates referenceParse(String str) {
+    try {
+      str = str.startsWith("/") ? str.substring(1) : str;
+
+      int vEndPos = str.lastIndexOf('/');
+      if (vEndPos == -1) {
+        return null;
+      }
+
+      int aEndPos = str.lastIndexOf('/', vEndPos - 1);
+      if (aEndPos == -1) {
+        return null;
+      }
+
+      int gEndPos = str.lastIndexOf('/', aEndPos - 1);
+      if (gEndPos == -1) {
+        return null;
+      }
+
+      final String groupId = str.substring(0, gEndPos).replace('/', '.');
+      final String artifactId = str.substring(gEndPos + 1, aEndPos);
+      final String baseVersion = str.substring(aEndPos + 1, vEndPos);
+      final boolean snapshot = baseVersion.endsWith("SNAPSHOT");
+      final String fileName = str.substring(vEndPos + 1);
+      str = fileName;
+
+      StringBuilder extSuffix = new StringBuilder();
+      SignatureType signatureType = null;
+      if (str.endsWith("." + HashType.SHA1.getExt())) {
+        extSuffix.insert(0, "." + HashType.SHA1.getExt());
+        str = str.substring(0, str.length() - 5);
+      }
+      else if (str.endsWith("." + HashType.MD5.getExt())) {
+        extSuffix.insert(0, "." + HashType.MD5.getExt());
+        str = str.substring(0, str.length() - 4);
+      }
+
+      if (str.endsWith("." + SignatureType.GPG.getExt())) {
+        extSuffix.insert(0, "." + SignatureType.GPG.getExt());
+        signatureType = SignatureType.GPG;
+        str = str.substring(0, str.length() - (signatureType.getExt().length() + 1));
+      }
+
+      if (str.endsWith(Maven2Format.METADATA_FILENAME)) {
+        return null;
+      }
+
+      String version = baseVersion;
+      String tail;
+      if (snapshot) {
+        int vSnapshotStart = artifactId.length() + baseVersion.length() - 9 + 2;
+        version = str.substring(vSnapshotStart, vSnapshotStart + 8);
+        if ("SNAPSHOT".equals(version)) {
+          version = baseVersion; // reset it
+          int nTailPos = artifactId.length() + baseVersion.length() + 1;
+          tail = str.substring(nTailPos);
+        }
+        else {
+          StringBuilder snapshotBuildNumber = new StringBuilder(version);
+          snapshotBuildNumber
+              .append(str.substring(vSnapshotStart + version.length(), vSnapshotStart + version.length() + 8));
+
+          int buildNumberCount = 0;
+          int buildNumberPos = vSnapshotStart + snapshotBuildNumber.length();
+          while (str.charAt(buildNumberPos) >= '0' && str.charAt(buildNumberPos) <= '9') {
+            snapshotBuildNumber.append(str.charAt(buildNumberPos));
+            buildNumberPos++;
+            buildNumberCount++;
+          }
+          if (buildNumberCount == 0) {
+            return null;
+          }
+          int n = baseVersion.length() > 8 ? baseVersion.length() - 8 : 0;
+          tail = str.substring(artifactId.length() + n + snapshotBuildNumber.length() + 1);
+          version = baseVersion.substring(0, baseVersion.length() - 8) + snapshotBuildNumber;
+        }
+      }
+      else {
+        if (!fileName.startsWith(artifactId + "-" + baseVersion + ".")
+            && !fileName.startsWith(artifactId + "-" + baseVersion + "-")) {
+          // The path does not represents an artifact (filename does not match artifactId-version)!
+          return null;
+        }
+        int nTailPos = artifactId.length() + baseVersion.length() + 1;
+        tail = str.substring(nTailPos);
+      }
+
+      int nExtPos = tail.lastIndexOf('.');
+      if (nExtPos == -1) {
+        // NX-563: not allowing extensionless paths to be interpreted as artifact
+        return null;
+      }
+      if (tail.endsWith(".tar.gz")) {
+        nExtPos = nExtPos - 4;
+      }
+
+      final String ext = tail.substring(nExtPos + 1);
+      final String classifier = tail.charAt(0) == '-' ? tail.substring(1, nExtPos) : null;
+
+      return new Coordinates(
+          snapshot,
+          groupId,
+          artifactId,
+          version,
+          baseVersion,
+          classifier,
+          ext + extSuffix,
+          signatureType
+      );
+    }
+    catch (StringIndexOutOfBoundsException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal.maven2;
+
+import java.util.List;
+
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+import org.sonatype.sisu.litmus.testsupport.group.Perf;
+
+import com.google.common.collect.Lists;
+import org.databene.contiperf.PerfTest;
+import org.databene.contiperf.Required;
+import org.databene.contiperf.junit.ContiPerfRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Performance tests for {@link Maven2MavenPathParser}.
+ *
+ * Each invocation parses {@link #PATHS} distinct paths {@link #ROUNDS} times, a mix of release and snapshot
+ * artifacts, their hashes and signatures and metadata, as seen in requests of a busy repository.
+ */
+@Category(Perf.class)
+public class Maven2MavenPathParserPerf
+    extends TestSupport
+{
+  private static final int PATHS = 1000;
+
+  private static final int ROUNDS = 200;
+
+  @Rule
+  public ContiPerfRule perfRule = new ContiPerfRule();
+
+  private final Maven2MavenPathParser underTest = new Maven2MavenPathParser();
+
+  private List<String> paths;
+
+  @Before
+  public void setUp() throws Exception {
+    paths = Lists.newArrayList();
+    for (int i = 0; i < PATHS; i++) {
+      final String prefix = "/org/group" + (i % 20) + "/sub/artifact-" + (i % 50) + "/";
+      final String artifactId = "artifact-" + (i % 50);
+      switch (i % 5) {
+        case 0:
+          paths.add(prefix + "1." + i + "/" + artifactId + "-1." + i + ".jar");
+          break;
+        case 1:
+          paths.add(prefix + "1." + i + "/" + artifactId + "-1." + i + "-sources.jar.sha1");
+          break;
+        case 2:
+          paths.add(prefix + "1." + i + "-SNAPSHOT/" + artifactId + "-1." + i + "-20150311.160242-" + i + ".pom");
+          break;
+        case 3:
+          paths.add(prefix + "1." + i + "/" + artifactId + "-1." + i + ".pom.asc.md5");
+          break;
+        default:
+          paths.add(prefix + Maven2Format.METADATA_FILENAME);
+      }
+    }
+
+    // prime jvm byte code optimization (maybe, we hope)
+    for (int i = 0; i < 10; i++) {
+      parse();
+    }
+  }
+
+  @Test
+  @PerfTest(invocations = 100, threads = 1)
+  @Required(average = 30)
+  public void parse() {
+    int artifacts = 0;
+    for (int round = 0; round < ROUNDS; round++) {
+      for (String path : paths) {
+        if (underTest.parsePath(path).getCoordinates() != null) {
+          artifacts++;
+        }
+      }
+    }
+    assertThat(artifacts, equalTo(ROUNDS * PATHS * 4 / 5));
+  }
+}
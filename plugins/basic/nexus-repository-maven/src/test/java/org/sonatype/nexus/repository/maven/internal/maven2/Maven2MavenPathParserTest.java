@@ -335,6 +335,29 @@ public class Maven2MavenPathParserTest
     assertThat(pathParser.isRepositoryMetadata(mavenPath), equalTo(true));
   }
 
+  @Test
+  public void index() throws Exception
+  {
+    MavenPath mavenPath;
+
+    mavenPath = pathParser.parsePath("/.index/nexus-maven-repository-index.gz");
+    assertThat(mavenPath.getCoordinates(), nullValue());
+    assertThat(pathParser.isRepositoryIndex(mavenPath), equalTo(true));
+    assertThat(pathParser.isRepositoryMetadata(mavenPath), equalTo(false));
+
+    mavenPath = pathParser.parsePath("/.index/nexus-maven-repository-index.12.gz.sha1");
+    assertThat(pathParser.isRepositoryIndex(mavenPath), equalTo(true));
+
+    mavenPath = pathParser.parsePath(".index/nexus-maven-repository-index.properties");
+    assertThat(pathParser.isRepositoryIndex(mavenPath), equalTo(true));
+
+    mavenPath = pathParser.parsePath("/org/.index/nexus-maven-repository-index.gz");
+    assertThat(pathParser.isRepositoryIndex(mavenPath), equalTo(false));
+
+    mavenPath = pathParser.parsePath("/org/apache/maven/maven-metadata.xml");
+    assertThat(pathParser.isRepositoryIndex(mavenPath), equalTo(false));
+  }
+
   @Test
   public void other() throws Exception
   {
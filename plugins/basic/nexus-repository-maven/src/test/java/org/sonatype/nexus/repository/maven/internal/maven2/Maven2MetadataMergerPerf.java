@@ -0,0 +1,98 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal.maven2;
+
+import java.io.ByteArrayOutputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.sonatype.nexus.repository.view.Payload;
+import org.sonatype.nexus.repository.view.payloads.BytesPayload;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+import org.sonatype.sisu.litmus.testsupport.group.Perf;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.maven.artifact.repository.metadata.Metadata;
+import org.apache.maven.artifact.repository.metadata.Versioning;
+import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Writer;
+import org.databene.contiperf.PerfTest;
+import org.databene.contiperf.Required;
+import org.databene.contiperf.junit.ContiPerfRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Performance tests for {@link Maven2MetadataMerger}.
+ *
+ * Each invocation merges artifact level metadata of {@link #MEMBERS} group members, each listing {@link #VERSIONS}
+ * partially overlapping versions, which resembles a group of large proxies of popular artifacts.
+ */
+@Category(Perf.class)
+public class Maven2MetadataMergerPerf
+    extends TestSupport
+{
+  private static final int MEMBERS = 12;
+
+  private static final int VERSIONS = 3000;
+
+  @Rule
+  public ContiPerfRule perfRule = new ContiPerfRule();
+
+  private final Maven2MetadataMerger underTest = new Maven2MetadataMerger();
+
+  private List<byte[]> metadatas;
+
+  @Before
+  public void setUp() throws Exception {
+    final Random random = new Random(1L);
+    metadatas = Lists.newArrayList();
+    for (int member = 0; member < MEMBERS; member++) {
+      final Metadata metadata = new Metadata();
+      metadata.setGroupId("org.foo");
+      metadata.setArtifactId("some-project");
+      metadata.setVersioning(new Versioning());
+      metadata.getVersioning().setLastUpdated("2015032412" + (1000 + member));
+      for (int i = 0; i < VERSIONS; i++) {
+        final int v = random.nextInt(VERSIONS * 2);
+        metadata.getVersioning().addVersion(
+            (v / 100) + "." + (v % 100 / 10) + "." + (v % 10) + (v % 7 == 0 ? "-SNAPSHOT" : ""));
+      }
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      new MetadataXpp3Writer().write(out, metadata);
+      metadatas.add(out.toByteArray());
+    }
+
+    // prime jvm byte code optimization (maybe, we hope)
+    for (int i = 0; i < 10; i++) {
+      merge();
+    }
+  }
+
+  @Test
+  @PerfTest(invocations = 100, threads = 1)
+  @Required(average = 100)
+  public void merge() throws Exception {
+    final LinkedHashMap<String, Payload> payloads = Maps.newLinkedHashMap();
+    for (int i = 0; i < metadatas.size(); i++) {
+      payloads.put("member-" + i, new BytesPayload(metadatas.get(i), Maven2Format.METADATA_CONTENT_TYPE));
+    }
+    assertThat(underTest.merge(payloads, new ByteArrayOutputStream()), is(true));
+  }
+}
@@ -12,21 +12,29 @@
  */
 package org.sonatype.nexus.repository.maven.internal.maven2;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 
 import org.sonatype.nexus.repository.maven.internal.maven2.Maven2MetadataMerger.MetadataEnvelope;
+import org.sonatype.nexus.repository.view.Payload;
+import org.sonatype.nexus.repository.view.payloads.StringPayload;
 import org.sonatype.sisu.litmus.testsupport.TestSupport;
 
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import org.apache.maven.artifact.repository.metadata.Metadata;
 import org.apache.maven.artifact.repository.metadata.Plugin;
 import org.apache.maven.artifact.repository.metadata.Snapshot;
 import org.apache.maven.artifact.repository.metadata.SnapshotVersion;
 import org.apache.maven.artifact.repository.metadata.Versioning;
+import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Reader;
+import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Writer;
 import org.fest.util.Strings;
 import org.hamcrest.Matchers;
 import org.junit.Test;
@@ -37,6 +45,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 
 /**
@@ -222,4 +231,66 @@ public class Maven2MetadataMergerTest
     }));
     assertThat(prefixes, containsInAnyOrder("foo-maven-plugin", "bar-maven-plugin"));
   }
+
+  private Payload payload(final Metadata metadata) throws Exception {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new MetadataXpp3Writer().write(out, metadata);
+    return new StringPayload(new String(out.toByteArray(), "UTF-8"), Maven2Format.METADATA_CONTENT_TYPE);
+  }
+
+  private String xml(final Metadata metadata) throws Exception {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new MetadataXpp3Writer().write(out, metadata);
+    return new String(out.toByteArray(), "UTF-8");
+  }
+
+  private String streamingMerge(final Metadata... metadatas) throws Exception {
+    final LinkedHashMap<String, Payload> payloads = Maps.newLinkedHashMap();
+    for (int i = 0; i < metadatas.length; i++) {
+      payloads.put(String.valueOf(i), payload(metadatas[i]));
+    }
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertThat(merger.merge(payloads, out), is(true));
+    return new String(out.toByteArray(), "UTF-8");
+  }
+
+  @Test
+  public void streamingMergeSameAsModelMerge() throws Exception {
+    final Metadata m1 = a("org.foo", "some-project", "20150324121500", "1.0.1", "1.0.1", "1.0.0", "1.0.1");
+    final Metadata m2 = g("foo", "bar");
+    final Metadata m3 = v("org.foo", "some-project", "1.1.0", "20150322.121500", 3);
+    final Metadata m4 = a("org.foo", "some-project", "20150324121700", "1.0.10", "1.0.10", "1.0.10", "1.0.2");
+
+    final Metadata m = merger.merge(ImmutableList.of(new MetadataEnvelope("1", m1), new MetadataEnvelope("2", m2),
+        new MetadataEnvelope("3", m3), new MetadataEnvelope("4", m4)));
+    final String streamed = streamingMerge(m1, m2, m3, m4);
+    assertThat(streamed, equalTo(xml(m)));
+
+    final Metadata parsed = new MetadataXpp3Reader().read(new ByteArrayInputStream(streamed.getBytes("UTF-8")));
+    assertThat(parsed.getVersioning().getVersions(), contains("1.0.0", "1.0.1", "1.0.2", "1.0.10"));
+    assertThat(parsed.getVersioning().getRelease(), equalTo("1.0.10"));
+    assertThat(parsed.getVersioning().getSnapshotVersions(), hasSize(3));
+  }
+
+  @Test
+  public void streamingMergeSkipsUnparseable() throws Exception {
+    final LinkedHashMap<String, Payload> payloads = Maps.newLinkedHashMap();
+    payloads.put("broken", new StringPayload("<metadata><groupId>org.foo", Maven2Format.METADATA_CONTENT_TYPE));
+    payloads.put("good", payload(a("org.foo", "some-project", "20150324121500", "1.0.1", "1.0.1", "1.0.0", "1.0.1")));
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertThat(merger.merge(payloads, out), is(true));
+
+    final Metadata parsed = new MetadataXpp3Reader().read(new ByteArrayInputStream(out.toByteArray()));
+    assertThat(parsed.getGroupId(), equalTo("org.foo"));
+    assertThat(parsed.getVersioning().getVersions(), contains("1.0.0", "1.0.1"));
+  }
+
+  @Test
+  public void streamingMergeNothingUsable() throws Exception {
+    final LinkedHashMap<String, Payload> payloads = Maps.newLinkedHashMap();
+    payloads.put("broken", new StringPayload("not xml at all", Maven2Format.METADATA_CONTENT_TYPE));
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertThat(merger.merge(payloads, out), is(false));
+    assertThat(out.size(), equalTo(0));
+  }
 }
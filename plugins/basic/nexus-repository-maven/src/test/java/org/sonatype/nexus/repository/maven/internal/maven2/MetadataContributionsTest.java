@@ -0,0 +1,104 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal.maven2;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.view.Payload;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * UT for {@link MetadataContributions}
+ *
+ * @since 3.0
+ */
+public class MetadataContributionsTest
+    extends TestSupport
+{
+  private Repository r1;
+
+  private Repository r2;
+
+  private Repository r3;
+
+  private List<Repository> members;
+
+  private MetadataContributions underTest;
+
+  private Repository repository(final String name) {
+    final Repository repository = mock(Repository.class);
+    when(repository.getName()).thenReturn(name);
+    return repository;
+  }
+
+  @Before
+  public void prepare() {
+    r1 = repository("r1");
+    r2 = repository("r2");
+    r3 = repository("r3");
+    members = ImmutableList.of(r1, r2, r3);
+    underTest = new MetadataContributions("/org/foo/maven-metadata.xml");
+  }
+
+  @Test
+  public void completeness() {
+    assertThat(underTest.isComplete(members), is(false));
+    underTest.set(r1, "r1".getBytes());
+    underTest.set(r2, null);
+    assertThat(underTest.isComplete(members), is(false));
+    underTest.set(r3, "r3".getBytes());
+    assertThat(underTest.isComplete(members), is(true));
+  }
+
+  @Test
+  public void weightFollowsContributedBytes() {
+    final int empty = underTest.weight();
+    underTest.set(r1, new byte[1000]);
+    final int one = underTest.weight();
+    assertThat(one - empty > 1000, is(true));
+
+    underTest.set(r2, null);
+    underTest.set(r1, new byte[10]);
+    assertThat(underTest.weight() < one, is(true));
+  }
+
+  @Test
+  public void payloadsInMemberOrder() {
+    underTest.set(r3, "r3".getBytes());
+    underTest.set(r2, null);
+    underTest.set(r1, "r1".getBytes());
+
+    LinkedHashMap<String, Payload> payloads = underTest.payloads(members);
+    assertThat(payloads.keySet(),
+        contains("r1 @ /org/foo/maven-metadata.xml", "r3 @ /org/foo/maven-metadata.xml"));
+
+    // patch single member
+    underTest.set(r1, null);
+    underTest.set(r2, "r2".getBytes());
+    payloads = underTest.payloads(members);
+    assertThat(payloads.keySet(),
+        contains("r2 @ /org/foo/maven-metadata.xml", "r3 @ /org/foo/maven-metadata.xml"));
+  }
+}
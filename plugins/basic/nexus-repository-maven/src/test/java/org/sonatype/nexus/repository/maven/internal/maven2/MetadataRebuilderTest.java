@@ -0,0 +1,105 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal.maven2;
+
+import java.util.List;
+
+import org.sonatype.nexus.repository.maven.internal.MavenPath.Coordinates;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.apache.maven.artifact.repository.metadata.Metadata;
+import org.apache.maven.artifact.repository.metadata.SnapshotVersion;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * UT for {@link MetadataRebuilder}
+ *
+ * @since 3.0
+ */
+public class MetadataRebuilderTest
+    extends TestSupport
+{
+  private final DateTime now = new DateTime(2015, 3, 24, 12, 15, 0, DateTimeZone.UTC);
+
+  private final Maven2MavenPathParser parser = new Maven2MavenPathParser();
+
+  private Coordinates coordinates(final String path) {
+    return parser.parsePath(path).getCoordinates();
+  }
+
+  @Test
+  public void baseVersion() {
+    assertThat(MetadataRebuilder.baseVersion("1.0"), equalTo("1.0"));
+    assertThat(MetadataRebuilder.baseVersion("1.0-SNAPSHOT"), equalTo("1.0-SNAPSHOT"));
+    assertThat(MetadataRebuilder.baseVersion("1.0-20150324.121500-3"), equalTo("1.0-SNAPSHOT"));
+  }
+
+  @Test
+  public void artifactMetadata() {
+    final Metadata metadata = MetadataRebuilder.artifactMetadata("org.foo", "bar",
+        ImmutableList.of("1.0.10", "1.1-SNAPSHOT", "1.0.2", "1.0"), now);
+    assertThat(metadata.getGroupId(), equalTo("org.foo"));
+    assertThat(metadata.getArtifactId(), equalTo("bar"));
+    assertThat(metadata.getVersioning().getVersions(), contains("1.0", "1.0.2", "1.0.10", "1.1-SNAPSHOT"));
+    assertThat(metadata.getVersioning().getLatest(), equalTo("1.1-SNAPSHOT"));
+    assertThat(metadata.getVersioning().getRelease(), equalTo("1.0.10"));
+    assertThat(metadata.getVersioning().getLastUpdated(), equalTo("20150324121500"));
+  }
+
+  @Test
+  public void snapshotMetadata() {
+    final List<Coordinates> artifacts = ImmutableList.of(
+        coordinates("/org/foo/bar/1.0-SNAPSHOT/bar-1.0-20150323.101500-1.jar"),
+        coordinates("/org/foo/bar/1.0-SNAPSHOT/bar-1.0-20150323.101500-1.pom"),
+        coordinates("/org/foo/bar/1.0-SNAPSHOT/bar-1.0-20150324.101500-2.jar"),
+        coordinates("/org/foo/bar/1.0-SNAPSHOT/bar-1.0-20150324.101500-2.pom"),
+        coordinates("/org/foo/bar/1.0-SNAPSHOT/bar-1.0-20150323.101500-1-sources.jar")
+    );
+    final Metadata metadata = MetadataRebuilder.snapshotMetadata("org.foo", "bar", "1.0-SNAPSHOT", artifacts, now);
+    assertThat(metadata.getVersion(), equalTo("1.0-SNAPSHOT"));
+    assertThat(metadata.getVersioning().getSnapshot().getTimestamp(), equalTo("20150324.101500"));
+    assertThat(metadata.getVersioning().getSnapshot().getBuildNumber(), equalTo(2));
+    assertThat(metadata.getVersioning().getLastUpdated(), equalTo("20150324101500"));
+
+    final List<String> snapshotVersions = Lists.newArrayList();
+    for (SnapshotVersion snapshotVersion : metadata.getVersioning().getSnapshotVersions()) {
+      snapshotVersions.add(snapshotVersion.getClassifier() + ":" + snapshotVersion.getExtension() + ":"
+          + snapshotVersion.getVersion() + ":" + snapshotVersion.getUpdated());
+    }
+    assertThat(snapshotVersions, contains(
+        ":jar:1.0-20150324.101500-2:20150324101500",
+        ":pom:1.0-20150324.101500-2:20150324101500",
+        "sources:jar:1.0-20150323.101500-1:20150323101500"
+    ));
+  }
+
+  @Test
+  public void nonUniqueSnapshotMetadata() {
+    final Metadata metadata = MetadataRebuilder.snapshotMetadata("org.foo", "bar", "1.0-SNAPSHOT",
+        ImmutableList.of(coordinates("/org/foo/bar/1.0-SNAPSHOT/bar-1.0-SNAPSHOT.jar")), now);
+    assertThat(metadata.getVersioning().getSnapshot().isLocalCopy(), is(true));
+    assertThat(metadata.getVersioning().getSnapshot().getTimestamp(), nullValue());
+    assertThat(metadata.getVersioning().getSnapshotVersions().get(0).getVersion(), equalTo("1.0-SNAPSHOT"));
+    assertThat(metadata.getVersioning().getLastUpdated(), equalTo("20150324121500"));
+  }
+}
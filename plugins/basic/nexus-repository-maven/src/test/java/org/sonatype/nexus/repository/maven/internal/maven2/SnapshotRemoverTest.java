@@ -0,0 +1,215 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal.maven2;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.search.SearchFacet;
+import org.sonatype.nexus.repository.search.SearchItemId;
+import org.sonatype.nexus.repository.storage.Asset;
+import org.sonatype.nexus.repository.storage.AssetDeletedEvent;
+import org.sonatype.nexus.repository.storage.Bucket;
+import org.sonatype.nexus.repository.storage.Component;
+import org.sonatype.nexus.repository.storage.StorageFacet;
+import org.sonatype.nexus.repository.storage.StorageTx;
+import org.sonatype.nexus.repository.types.HostedType;
+import org.sonatype.nexus.repository.types.ProxyType;
+import org.sonatype.sisu.goodies.eventbus.EventBus;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * UT for {@link SnapshotRemover}
+ *
+ * @since 3.0
+ */
+public class SnapshotRemoverTest
+    extends TestSupport
+{
+  private final DateTime cutoff = new DateTime(2015, 3, 20, 0, 0, 0, DateTimeZone.UTC);
+
+  private final List<Component> builds = Lists.newArrayList(
+      component("1.0-20150318.100000-1"),
+      component("1.0-20150324.121500-4"),
+      component("1.0-20150319.100000-2"),
+      component("1.0-20150321.100000-3")
+  );
+
+  private Component component(final String version) {
+    return new Component().group("org.foo").name("bar").version(version);
+  }
+
+  private List<String> versions(final List<Component> components) {
+    final List<String> result = Lists.newArrayList();
+    for (Component component : components) {
+      result.add(component.version());
+    }
+    return result;
+  }
+
+  @Test
+  public void compareBuilds() {
+    assertThat(SnapshotRemover.compareBuilds("1.0-20150324.121500-3", "1.0-20150324.121500-10"), lessThan(0));
+    assertThat(SnapshotRemover.compareBuilds("1.0-20150325.000000-1", "1.0-20150324.121500-10"), greaterThan(0));
+    assertThat(SnapshotRemover.compareBuilds("1.0-20150324.121500-3", "1.0-20150324.121500-3"), equalTo(0));
+  }
+
+  @Test
+  public void buildTimestamp() {
+    assertThat(SnapshotRemover.buildTimestamp("1.0-20150324.121500-3").getMillis(),
+        equalTo(new DateTime(2015, 3, 24, 12, 15, 0, DateTimeZone.UTC).getMillis()));
+    assertThat(SnapshotRemover.buildTimestamp("1.0-SNAPSHOT"), nullValue());
+    assertThat(SnapshotRemover.buildTimestamp("1.0-20151399.999999-3"), nullValue());
+  }
+
+  @Test
+  public void minimumCountOnly() {
+    assertThat(versions(SnapshotRemover.selectRemovals(builds, 2, null)),
+        contains("1.0-20150319.100000-2", "1.0-20150318.100000-1"));
+    assertThat(SnapshotRemover.selectRemovals(builds, 4, null), empty());
+  }
+
+  @Test
+  public void retentionOnly() {
+    assertThat(versions(SnapshotRemover.selectRemovals(builds, 0, cutoff)),
+        contains("1.0-20150319.100000-2", "1.0-20150318.100000-1"));
+  }
+
+  @Test
+  public void minimumCountAndRetention() {
+    // newer than cutoff are kept even beyond minimum count
+    assertThat(versions(SnapshotRemover.selectRemovals(builds, 1, cutoff)),
+        contains("1.0-20150319.100000-2", "1.0-20150318.100000-1"));
+    // minimum count is kept even if older than cutoff
+    assertThat(versions(SnapshotRemover.selectRemovals(builds, 3, cutoff)),
+        contains("1.0-20150318.100000-1"));
+  }
+
+  private Repository repository;
+
+  private StorageTx tx;
+
+  private SearchFacet searchFacet;
+
+  private EventBus eventBus;
+
+  private MetadataRebuilder metadataRebuilder;
+
+  private SnapshotRemover underTest;
+
+  /**
+   * Prepares a hosted repository holding passed in components, each having a single asset of 10 bytes.
+   */
+  private void prepare(final List<Component> components) {
+    repository = mock(Repository.class);
+    when(repository.getName()).thenReturn("snapshots");
+    when(repository.getFormat()).thenReturn(new Maven2Format());
+    when(repository.getType()).thenReturn(new HostedType());
+    final StorageFacet storageFacet = mock(StorageFacet.class);
+    when(repository.facet(StorageFacet.class)).thenReturn(storageFacet);
+    searchFacet = mock(SearchFacet.class);
+    when(repository.facet(SearchFacet.class)).thenReturn(searchFacet);
+    tx = mock(StorageTx.class);
+    when(storageFacet.openTx()).thenReturn(tx);
+    final Bucket bucket = new Bucket();
+    when(tx.getBucket()).thenReturn(bucket);
+    when(tx.browseComponentsByCoordinates(bucket)).thenReturn(components);
+    for (Component component : components) {
+      when(tx.browseAssets(component)).thenReturn(Collections.singletonList(new Asset().size(10L)));
+      when(searchFacet.identifier(component)).thenReturn(new SearchItemId(component.version()));
+    }
+    eventBus = mock(EventBus.class);
+    metadataRebuilder = mock(MetadataRebuilder.class);
+    underTest = new SnapshotRemover(eventBus, metadataRebuilder);
+  }
+
+  @Test
+  public void removeDeletesSelectedBuildsAndRebuildsMetadata() throws Exception {
+    final Component release = component("1.0");
+    final Component other = new Component().group("org.foo").name("baz").version("2.0");
+    final List<Component> components = Lists.newArrayList(release);
+    components.addAll(builds);
+    components.add(other);
+    prepare(components);
+
+    assertThat(underTest.remove(repository, 2, 0, 2, 1), equalTo(20L));
+
+    // each selected build is deleted in its own batch, and reported only once committed
+    final InOrder inOrder = inOrder(tx, searchFacet, eventBus);
+    inOrder.verify(tx).deleteComponent(builds.get(0));
+    inOrder.verify(tx).commit();
+    inOrder.verify(searchFacet).delete(new SearchItemId("1.0-20150318.100000-1"));
+    inOrder.verify(eventBus).post(any(AssetDeletedEvent.class));
+    verify(tx).deleteComponent(builds.get(2));
+    verify(tx, never()).deleteComponent(builds.get(1));
+    verify(tx, never()).deleteComponent(builds.get(3));
+    verify(tx, never()).deleteComponent(release);
+    verify(tx, times(2)).commit();
+
+    final ArgumentCaptor<AssetDeletedEvent> events = ArgumentCaptor.forClass(AssetDeletedEvent.class);
+    verify(eventBus, times(2)).post(events.capture());
+    assertThat(events.getValue().getRepository(), equalTo(repository));
+
+    verify(metadataRebuilder).rebuild(repository, "org.foo", "bar", Collections.singleton("1.0-SNAPSHOT"), 1);
+    verifyNoMoreInteractions(metadataRebuilder);
+  }
+
+  @Test
+  public void failedGaDoesNotStopRemoval() throws Exception {
+    final Component failing = new Component().group("org.foo").name("baz").version("2.0-20150318.100000-1");
+    final List<Component> components = Lists.newArrayList(builds);
+    components.add(failing);
+    components.add(new Component().group("org.foo").name("baz").version("2.0-20150319.100000-2"));
+    prepare(components);
+    doThrow(new IllegalStateException("failure")).when(tx).deleteComponent(failing);
+
+    assertThat(underTest.remove(repository, 1, 0, 1, 10), equalTo(30L));
+
+    verify(searchFacet, never()).delete(new SearchItemId(failing.version()));
+    verify(metadataRebuilder).rebuild(repository, "org.foo", "bar", Collections.singleton("1.0-SNAPSHOT"), 10);
+    verifyNoMoreInteractions(metadataRebuilder);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void removeRequiresHostedRepository() throws Exception {
+    prepare(ImmutableList.<Component>of());
+    when(repository.getType()).thenReturn(new ProxyType());
+    underTest.remove(repository, 1, 0, 1, 1);
+  }
+}
@@ -22,7 +22,6 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 import javax.annotation.Nullable;
@@ -35,6 +34,8 @@ import com.sonatype.nexus.repository.nuget.internal.NugetGalleryFacetImpl;
 import com.sonatype.nexus.repository.nuget.odata.ODataConsumer;
 import com.sonatype.nexus.repository.nuget.odata.ODataUtils;
 
+import org.sonatype.nexus.cache.CacheConfig;
+import org.sonatype.nexus.cache.CacheService;
 import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.config.Configuration;
 import org.sonatype.nexus.repository.config.ConfigurationFacet;
@@ -44,7 +45,6 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.base.Throwables;
 import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.UncheckedExecutionException;
@@ -94,11 +94,16 @@ public class NugetProxyGalleryFacet
 
   private Config config;
 
+  private final CacheService cacheService;
+
+  private String cacheName;
+
   private Cache<QueryCacheKey, Integer> cache;
 
   @Inject
-  public NugetProxyGalleryFacet(final NugetFeedFetcher fetcher) {
+  public NugetProxyGalleryFacet(final NugetFeedFetcher fetcher, final CacheService cacheService) {
     this.fetcher = checkNotNull(fetcher);
+    this.cacheService = checkNotNull(cacheService);
   }
 
   @Override
@@ -111,18 +116,28 @@ public class NugetProxyGalleryFacet
     config = facet(ConfigurationFacet.class).readSection(configuration, CONFIG_KEY, Config.class);
     log.debug("Config: {}", config);
 
-    cache = CacheBuilder.newBuilder()
-        .maximumSize(config.queryCacheSize)
-        .expireAfterWrite(config.queryCacheItemMaxAge, TimeUnit.SECONDS)
-        .build();
+    // re-create cache, settings might have changed
+    maybeDestroyCache();
+    cacheName = "nuget-query-cache-" + getRepository().getName();
+    cache = cacheService.getOrCreateCache(cacheName, new CacheConfig<QueryCacheKey, Integer>()
+        .maximumEntries(config.queryCacheSize)
+        .expireAfterWrite(Time.seconds(config.queryCacheItemMaxAge)));
   }
 
   @Override
   protected void doDestroy() throws Exception {
-    cache = null;
+    maybeDestroyCache();
     config = null;
   }
 
+  private void maybeDestroyCache() {
+    if (cache != null) {
+      cacheService.removeCache(cacheName);
+      cache = null;
+      cacheName = null;
+    }
+  }
+
   @Override
   public int count(final String operation, final Map<String, String> parameters) {
     final List<Integer> remoteCounts = passQueryToRemoteRepos(nugetQuery(operation, parameters),
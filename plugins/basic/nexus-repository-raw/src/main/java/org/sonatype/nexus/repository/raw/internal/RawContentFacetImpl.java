@@ -23,7 +23,7 @@ import javax.inject.Inject;
 import org.sonatype.nexus.blobstore.api.Blob;
 import org.sonatype.nexus.blobstore.api.BlobStore;
 import org.sonatype.nexus.common.hash.HashAlgorithm;
-import org.sonatype.nexus.common.io.TempStreamSupplier;
+import org.sonatype.nexus.common.io.LookAheadInputStream;
 import org.sonatype.nexus.mime.MimeSupport;
 import org.sonatype.nexus.repository.FacetSupport;
 import org.sonatype.nexus.repository.config.Configuration;
@@ -146,10 +146,9 @@ public class RawContentFacetImpl
       final ImmutableMap<String, String> headers = ImmutableMap
           .of(BlobStore.BLOB_NAME_HEADER, path, BlobStore.CREATED_BY_HEADER, "unknown");
 
-      try (TempStreamSupplier supplier = new TempStreamSupplier(content.openInputStream())) {
-        try (InputStream is1 = supplier.get(); InputStream is2 = supplier.get()) {
-          tx.setBlob(is1, headers, asset, hashAlgorithms, determineContentType(path, is2, content.getContentType()));
-        }
+      try (LookAheadInputStream is = new LookAheadInputStream(content.openInputStream())) {
+        final String contentType = determineContentType(path, is.getPrefix(), content.getContentType());
+        tx.setBlob(is, headers, asset, hashAlgorithms, contentType);
       }
 
       tx.saveAsset(asset);
@@ -161,6 +160,7 @@ public class RawContentFacetImpl
 
   /**
    * Determines or confirms the content type for the content, or throws {@link InvalidContentException} if it cannot.
+   * The passed in stream is expected to be the buffered head of the content, which is sufficient for detection.
    */
   @Nonnull
   private String determineContentType(final String path, final InputStream is, final String declaredContentType)
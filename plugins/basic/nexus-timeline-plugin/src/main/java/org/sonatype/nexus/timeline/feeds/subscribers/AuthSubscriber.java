@@ -19,6 +19,7 @@ import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.sonatype.nexus.events.Asynchronous;
+import org.sonatype.nexus.events.DeliverWhenFull;
 import org.sonatype.nexus.events.EventSubscriber;
 import org.sonatype.nexus.security.ClientInfo;
 import org.sonatype.nexus.security.anonymous.AnonymousManager;
@@ -40,6 +41,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
  */
 @Named
 @Singleton
+@DeliverWhenFull
 public class AuthSubscriber
     extends AbstractFeedEventSubscriber
     implements EventSubscriber, Asynchronous
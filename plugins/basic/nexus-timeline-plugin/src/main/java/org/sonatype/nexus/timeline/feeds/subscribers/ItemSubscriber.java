@@ -17,6 +17,7 @@ import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.sonatype.nexus.events.Asynchronous;
+import org.sonatype.nexus.events.DeliverWhenFull;
 import org.sonatype.nexus.events.EventSubscriber;
 import org.sonatype.nexus.timeline.feeds.FeedRecorder;
 
@@ -25,6 +26,7 @@ import org.sonatype.nexus.timeline.feeds.FeedRecorder;
  */
 @Named
 @Singleton
+@DeliverWhenFull
 public class ItemSubscriber
     extends AbstractFeedEventSubscriber
     implements EventSubscriber, Asynchronous
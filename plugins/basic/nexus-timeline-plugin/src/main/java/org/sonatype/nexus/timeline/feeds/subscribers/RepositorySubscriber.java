@@ -19,6 +19,7 @@ import javax.inject.Singleton;
 
 import org.sonatype.nexus.SystemStatus;
 import org.sonatype.nexus.events.Asynchronous;
+import org.sonatype.nexus.events.DeliverWhenFull;
 import org.sonatype.nexus.events.EventSubscriber;
 import org.sonatype.nexus.timeline.feeds.FeedRecorder;
 
@@ -29,6 +30,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
  */
 @Named
 @Singleton
+@DeliverWhenFull
 public class RepositorySubscriber
     extends AbstractFeedEventSubscriber
     implements EventSubscriber, Asynchronous
@@ -12,12 +12,18 @@
  */
 package org.sonatype.nexus.timeline.tasks;
 
+import java.util.List;
+
 import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.sonatype.nexus.formfields.FormField;
 import org.sonatype.nexus.formfields.NumberTextFormField;
+import org.sonatype.nexus.scheduling.TaskConfiguration;
 import org.sonatype.nexus.scheduling.TaskDescriptorSupport;
+import org.sonatype.nexus.scheduling.TaskLock;
+
+import com.google.common.collect.ImmutableList;
 
 /**
  * Task descriptor for {@link PurgeTimelineTask}.
@@ -40,4 +46,12 @@ public class PurgeTimelineTaskDescriptor
             FormField.MANDATORY)
     );
   }
+
+  /**
+   * Purging rewrites the timeline storage, no two purges should overlap.
+   */
+  @Override
+  public List<TaskLock> locks(final TaskConfiguration configuration) {
+    return ImmutableList.of(TaskLock.exclusive("timeline"));
+  }
 }
@@ -0,0 +1,175 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.webresources.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.nexus.webresources.DelegatingWebResource;
+import org.sonatype.nexus.webresources.WebResource;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Cacheable {@link WebResource} with a strong entity tag and a gzip encoded variant computed up front.
+ *
+ * Resources are also published under a path including a fingerprint of their content, see
+ * {@link #getFingerprintedPath()}, which clients may cache forever.
+ *
+ * @since 3.0
+ */
+class PrecompressedWebResource
+    extends DelegatingWebResource
+{
+  /**
+   * Smaller content is not worth compressing.
+   */
+  private static final int MIN_COMPRESS_SIZE = 256;
+
+  private final String etag;
+
+  private final String fingerprint;
+
+  @Nullable
+  private final byte[] gzipContent;
+
+  private final boolean immutable;
+
+  private PrecompressedWebResource(final WebResource delegate,
+                                   final String etag,
+                                   final String fingerprint,
+                                   @Nullable final byte[] gzipContent,
+                                   final boolean immutable)
+  {
+    super(delegate);
+    this.etag = checkNotNull(etag);
+    this.fingerprint = checkNotNull(fingerprint);
+    this.gzipContent = gzipContent;
+    this.immutable = immutable;
+  }
+
+  /**
+   * Reads given resource fully to digest and compress its content.
+   */
+  public static PrecompressedWebResource create(final WebResource resource) throws IOException {
+    byte[] content;
+    try (InputStream in = resource.getInputStream()) {
+      content = ByteStreams.toByteArray(in);
+    }
+
+    String hash = Hashing.sha1().hashBytes(content).toString();
+
+    byte[] gzipContent = null;
+    if (content.length >= MIN_COMPRESS_SIZE && isCompressible(resource.getContentType())) {
+      gzipContent = gzip(content);
+      // keep only if it pays off
+      if (gzipContent.length >= content.length) {
+        gzipContent = null;
+      }
+    }
+
+    return new PrecompressedWebResource(resource, '"' + hash + '"', hash.substring(0, 16), gzipContent, false);
+  }
+
+  private static boolean isCompressible(@Nullable final String contentType) {
+    if (contentType == null) {
+      return false;
+    }
+    return contentType.startsWith("text/")
+        || contentType.contains("javascript")
+        || contentType.contains("json")
+        || contentType.contains("xml")
+        || contentType.contains("svg");
+  }
+
+  private static byte[] gzip(final byte[] content) throws IOException {
+    ByteArrayOutputStream buff = new ByteArrayOutputStream(content.length / 4);
+    try (GZIPOutputStream out = new GZIPOutputStream(buff)) {
+      out.write(content);
+    }
+    return buff.toByteArray();
+  }
+
+  /**
+   * Returns this resource, marked as {@link #isImmutable() immutable}, to be served from its fingerprinted path.
+   */
+  public PrecompressedWebResource asImmutable() {
+    return new PrecompressedWebResource(this, etag, fingerprint, gzipContent, true);
+  }
+
+  /**
+   * Strong entity tag of the identity encoded content, quoted.
+   */
+  public String getEtag() {
+    return etag;
+  }
+
+  /**
+   * Strong entity tag of the gzip encoded content, quoted.
+   */
+  public String getGzipEtag() {
+    return etag.substring(0, etag.length() - 1) + "-gzip\"";
+  }
+
+  /**
+   * Path of the resource with the content fingerprint inserted before the extension, ie.
+   * {@code /static/app.js} becomes {@code /static/app.0123456789abcdef.js}.
+   */
+  public String getFingerprintedPath() {
+    String path = getPath();
+    int slash = path.lastIndexOf('/');
+    int dot = path.lastIndexOf('.');
+    if (dot <= slash + 1) {
+      return path + '.' + fingerprint;
+    }
+    return path.substring(0, dot) + '.' + fingerprint + path.substring(dot);
+  }
+
+  /**
+   * True if the content will never change for the requested path.
+   */
+  public boolean isImmutable() {
+    return immutable;
+  }
+
+  public boolean hasGzipContent() {
+    return gzipContent != null;
+  }
+
+  public long getGzipSize() {
+    return gzipContent != null ? gzipContent.length : UNKNOWN_SIZE;
+  }
+
+  @Nullable
+  public InputStream getGzipInputStream() {
+    return gzipContent != null ? new ByteArrayInputStream(gzipContent) : null;
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "{" +
+        "path='" + getPath() + '\'' +
+        ", etag=" + etag +
+        ", gzipSize=" + getGzipSize() +
+        ", immutable=" + immutable +
+        '}';
+  }
+}
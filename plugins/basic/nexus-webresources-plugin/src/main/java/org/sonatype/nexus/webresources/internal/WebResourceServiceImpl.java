@@ -19,6 +19,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -29,10 +30,12 @@ import org.sonatype.nexus.mime.MimeSupport;
 import org.sonatype.nexus.webresources.FileWebResource;
 import org.sonatype.nexus.webresources.UrlWebResource;
 import org.sonatype.nexus.webresources.WebResource;
+import org.sonatype.nexus.webresources.WebResource.Prepareable;
 import org.sonatype.nexus.webresources.WebResourceBundle;
 import org.sonatype.nexus.webresources.WebResourceService;
 import org.sonatype.sisu.goodies.common.ComponentSupport;
 
+import com.google.common.base.Stopwatch;
 import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -60,19 +63,31 @@ public class WebResourceServiceImpl
 
   private final Map<String, WebResource> resourcePaths;
 
+  private final Map<String, WebResource> fingerprintedPaths;
+
+  private final long precompressMaxSize;
+
   @Inject
   public WebResourceServiceImpl(final List<WebResourceBundle> bundles,
                                 final List<WebResource> resources,
                                 final ServletContext servletContext,
-                                final MimeSupport mimeSupport)
+                                final MimeSupport mimeSupport,
+                                final @Named("${nexus.webresources.precompress:-true}") boolean precompress,
+                                final @Named("${nexus.webresources.precompressMaxSize:-33554432}")
+                                long precompressMaxSize)
   {
     this.bundles = checkNotNull(bundles);
     this.resources = checkNotNull(resources);
     this.servletContext = checkNotNull(servletContext);
     this.mimeSupport = checkNotNull(mimeSupport);
+    this.precompressMaxSize = precompressMaxSize;
     this.resourcePaths = Maps.newHashMap();
+    this.fingerprintedPaths = Maps.newHashMap();
 
     discoverResources();
+    if (precompress) {
+      precompressResources();
+    }
   }
 
   private void discoverResources() {
@@ -121,6 +136,47 @@ public class WebResourceServiceImpl
     }
   }
 
+  /**
+   * Replaces bound cacheable resources by {@link PrecompressedWebResource}s, preparing them once if needed, and binds
+   * their fingerprinted paths.
+   */
+  private void precompressResources() {
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    long size = 0, gzipSize = 0;
+
+    for (Entry<String, WebResource> entry : resourcePaths.entrySet()) {
+      WebResource resource = entry.getValue();
+      if (!resource.isCacheable()) {
+        continue;
+      }
+      try {
+        if (resource instanceof Prepareable) {
+          resource = ((Prepareable) resource).prepare();
+          checkNotNull(resource, "Prepared resource is null");
+          entry.setValue(resource);
+        }
+        if (resource.getSize() < 0 || resource.getSize() > precompressMaxSize) {
+          continue;
+        }
+
+        PrecompressedWebResource precompressed = PrecompressedWebResource.create(resource);
+        entry.setValue(precompressed);
+        fingerprintedPaths.put(precompressed.getFingerprintedPath(), precompressed.asImmutable());
+
+        if (precompressed.hasGzipContent()) {
+          size += resource.getSize();
+          gzipSize += precompressed.getGzipSize();
+        }
+      }
+      catch (Exception e) {
+        log.warn("Failed to precompress resource: {}", entry.getKey(), e);
+      }
+    }
+
+    log.info("Precompressed {} resources in {}, {} bytes compressed to {} bytes", fingerprintedPaths.size(),
+        stopwatch, size, gzipSize);
+  }
+
   @Override
   public Collection<String> getPaths() {
     return Collections.unmodifiableCollection(resourcePaths.keySet());
@@ -152,6 +208,14 @@ public class WebResourceServiceImpl
       }
     }
 
+    // 2b) or its fingerprinted path
+    if (resource == null) {
+      resource = fingerprintedPaths.get(path);
+      if (resource != null) {
+        log.trace("Found fingerprinted resource: {}", resource);
+      }
+    }
+
     // 3) third, look into WAR embedded resources
     if (resource == null) {
       URL url;
@@ -169,4 +233,16 @@ public class WebResourceServiceImpl
 
     return resource;
   }
+
+  @Override
+  public String getFingerprintedPath(final String path) {
+    // dev-mode resources may change at any time
+    if (!DevModeResources.hasResourceLocations()) {
+      WebResource resource = resourcePaths.get(path);
+      if (resource instanceof PrecompressedWebResource) {
+        return ((PrecompressedWebResource) resource).getFingerprintedPath();
+      }
+    }
+    return path;
+  }
 }
@@ -14,7 +14,9 @@ package org.sonatype.nexus.webresources.internal;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.List;
 
+import javax.annotation.Nullable;
 import javax.annotation.Priority;
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -31,6 +33,7 @@ import org.sonatype.nexus.webresources.WebResource.Prepareable;
 import org.sonatype.nexus.webresources.WebResourceService;
 import org.sonatype.sisu.goodies.common.Time;
 
+import com.google.common.base.Splitter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -52,6 +55,11 @@ public class WebResourceServlet
 {
   private static final Logger log = LoggerFactory.getLogger(WebResourceServlet.class);
 
+  /**
+   * One year, the customary maximum, for fingerprinted resources.
+   */
+  private static final long IMMUTABLE_MAX_AGE_SECONDS = 365L * 24 * 60 * 60;
+
   private final WebResourceService webResources;
 
   private final WebUtils webUtils;
@@ -114,6 +122,11 @@ public class WebResourceServlet
     }
     assert resource != null;
 
+    PrecompressedWebResource precompressed = null;
+    if (resource instanceof PrecompressedWebResource) {
+      precompressed = (PrecompressedWebResource) resource;
+    }
+
     String contentType = resource.getContentType();
     if (contentType == null) {
       contentType = WebResource.UNKNOWN_CONTENT_TYPE;
@@ -121,35 +134,98 @@ public class WebResourceServlet
     response.setHeader("Content-Type", contentType);
     response.setDateHeader("Last-Modified", resource.getLastModified());
 
+    // negotiate content-encoding when there is a choice
+    boolean gzip = false;
+    if (precompressed != null) {
+      if (precompressed.hasGzipContent()) {
+        response.setHeader("Vary", "Accept-Encoding");
+        gzip = acceptsGzip(request);
+      }
+      response.setHeader("ETag", gzip ? precompressed.getGzipEtag() : precompressed.getEtag());
+    }
+
     // set content-length, complain if invalid
-    long size = resource.getSize();
+    long size = gzip ? precompressed.getGzipSize() : resource.getSize();
     if (size < 0) {
       log.warn("Resource {} has invalid size: {}", resource.getPath(), size);
     }
     response.setHeader("Content-Length", String.valueOf(size));
+    if (gzip) {
+      response.setHeader("Content-Encoding", "gzip");
+    }
 
-    // set max-age if cacheable
-    if (resource.isCacheable()) {
+    // set max-age if cacheable, content of fingerprinted paths never changes
+    if (precompressed != null && precompressed.isImmutable()) {
+      response.setHeader("Cache-Control", "public, max-age=" + IMMUTABLE_MAX_AGE_SECONDS + ", immutable");
+    }
+    else if (resource.isCacheable()) {
       response.setHeader("Cache-Control", "max-age=" + maxAgeSeconds);
     }
     else {
       webUtils.addNoCacheResponseHeaders(response);
     }
 
-    // honor if-modified-since GETs
-    long ifModifiedSince = request.getDateHeader("if-modified-since");
-    // handle conditional GETs
-    if (ifModifiedSince > -1 && resource.getLastModified() <= ifModifiedSince) {
-      // this is a conditional GET using time-stamp, and resource is not modified
+    // handle conditional GETs, if-none-match takes precedence over if-modified-since
+    if (isNotModified(precompressed, request, resource.getLastModified())) {
       response.setStatus(SC_NOT_MODIFIED);
     }
     else {
       // send the content only if needed (this method will be called for HEAD requests too)
       if ("GET".equalsIgnoreCase(request.getMethod())) {
-        try (InputStream in = resource.getInputStream()) {
+        try (InputStream in = gzip ? precompressed.getGzipInputStream() : resource.getInputStream()) {
           webUtils.sendContent(in, response);
         }
       }
     }
   }
+
+  private boolean isNotModified(@Nullable final PrecompressedWebResource precompressed,
+                                final HttpServletRequest request,
+                                final long lastModified)
+  {
+    String ifNoneMatch = request.getHeader("If-None-Match");
+    if (ifNoneMatch != null && precompressed != null) {
+      for (String tag : Splitter.on(',').trimResults().omitEmptyStrings().split(ifNoneMatch)) {
+        // weak comparison applies to if-none-match
+        if (tag.startsWith("W/")) {
+          tag = tag.substring(2);
+        }
+        if ("*".equals(tag) || tag.equals(precompressed.getEtag()) || tag.equals(precompressed.getGzipEtag())) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    // this is a conditional GET using time-stamp
+    long ifModifiedSince = request.getDateHeader("If-Modified-Since");
+    return ifModifiedSince > -1 && lastModified <= ifModifiedSince;
+  }
+
+  /**
+   * Checks whether gzip is an acceptable content-coding, and not explicitly refused with {@code q=0}.
+   */
+  private boolean acceptsGzip(final HttpServletRequest request) {
+    String acceptEncoding = request.getHeader("Accept-Encoding");
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String coding : Splitter.on(',').trimResults().omitEmptyStrings().split(acceptEncoding)) {
+      List<String> parts = Splitter.on(';').trimResults().splitToList(coding);
+      if ("gzip".equalsIgnoreCase(parts.get(0)) || "x-gzip".equalsIgnoreCase(parts.get(0))) {
+        for (String param : parts.subList(1, parts.size())) {
+          if (param.startsWith("q=")) {
+            try {
+              return Double.parseDouble(param.substring(2)) > 0;
+            }
+            catch (NumberFormatException e) {
+              return false;
+            }
+          }
+        }
+        return true;
+      }
+    }
+    return false;
+  }
 }
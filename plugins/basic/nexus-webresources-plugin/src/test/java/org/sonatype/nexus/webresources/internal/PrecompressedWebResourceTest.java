@@ -0,0 +1,94 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.webresources.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import org.sonatype.nexus.webresources.WebResource;
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.google.common.base.Strings;
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link PrecompressedWebResource}.
+ */
+public class PrecompressedWebResourceTest
+  extends TestSupport
+{
+  private WebResource resource(final String path, final String contentType, final byte[] content) throws Exception {
+    WebResource resource = mock(WebResource.class);
+    when(resource.getPath()).thenReturn(path);
+    when(resource.getContentType()).thenReturn(contentType);
+    when(resource.getSize()).thenReturn((long) content.length);
+    when(resource.isCacheable()).thenReturn(true);
+    when(resource.getInputStream()).thenReturn(new ByteArrayInputStream(content));
+    return resource;
+  }
+
+  @Test
+  public void compressibleContent() throws Exception {
+    byte[] content = Strings.repeat("Ext.define('NX.Foo', {});\n", 100).getBytes("UTF-8");
+    PrecompressedWebResource underTest = PrecompressedWebResource.create(
+        resource("/static/app.js", WebResource.JAVASCRIPT, content));
+
+    assertThat(underTest.hasGzipContent(), is(true));
+    assertThat(underTest.getGzipSize(), lessThan((long) content.length));
+    try (InputStream in = new GZIPInputStream(underTest.getGzipInputStream())) {
+      assertThat(ByteStreams.toByteArray(in), is(content));
+    }
+    assertThat(underTest.getEtag(), not(underTest.getGzipEtag()));
+    assertThat(underTest.isImmutable(), is(false));
+    assertThat(underTest.asImmutable().isImmutable(), is(true));
+  }
+
+  @Test
+  public void incompressibleContent() throws Exception {
+    PrecompressedWebResource underTest = PrecompressedWebResource.create(
+        resource("/static/logo.png", "image/png", new byte[1024]));
+
+    assertThat(underTest.hasGzipContent(), is(false));
+    assertThat(underTest.getGzipInputStream(), is(nullValue()));
+  }
+
+  @Test
+  public void fingerprintedPath() throws Exception {
+    byte[] content = "body {}".getBytes("UTF-8");
+    PrecompressedWebResource underTest = PrecompressedWebResource.create(
+        resource("/static/rapture/resources/baseapp-prod.css", WebResource.CSS, content));
+
+    assertThat(underTest.getFingerprintedPath().matches("/static/rapture/resources/baseapp-prod\\.[0-9a-f]{16}\\.css"),
+        is(true));
+
+    // same content, same fingerprint
+    PrecompressedWebResource other = PrecompressedWebResource.create(
+        resource("/static/rapture/resources/baseapp-prod.css", WebResource.CSS, content));
+    assertThat(other.getFingerprintedPath(), is(underTest.getFingerprintedPath()));
+    assertThat(other.getEtag(), is(underTest.getEtag()));
+
+    // no extension
+    assertThat(PrecompressedWebResource.create(resource("/static/LICENSE", WebResource.PLAIN, content))
+        .getFingerprintedPath().matches("/static/LICENSE\\.[0-9a-f]{16}"), is(true));
+  }
+}
@@ -12,7 +12,9 @@
  */
 package org.sonatype.nexus.atlas.internal
 
+import com.google.common.io.ByteStreams
 import com.google.common.io.CountingOutputStream
+import com.google.common.util.concurrent.ThreadFactoryBuilder
 import org.sonatype.nexus.supportzip.SupportBundle
 import org.sonatype.nexus.supportzip.SupportBundle.ContentSource
 import org.sonatype.nexus.supportzip.SupportBundle.ContentSource.Type
@@ -20,6 +22,7 @@ import org.sonatype.nexus.supportzip.SupportBundleCustomizer
 import org.sonatype.nexus.supportzip.SupportZipGenerator
 import org.sonatype.nexus.supportzip.SupportZipGenerator.Request
 import org.sonatype.nexus.supportzip.SupportZipGenerator.Result
+import org.sonatype.nexus.threads.NexusExecutorService
 import org.sonatype.nexus.wonderland.DownloadService
 import org.sonatype.sisu.goodies.common.ByteSize
 import org.sonatype.sisu.goodies.common.ComponentSupport
@@ -27,6 +30,11 @@ import org.sonatype.sisu.goodies.common.ComponentSupport
 import javax.inject.Inject
 import javax.inject.Named
 import javax.inject.Singleton
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.Future
+import java.util.concurrent.TimeUnit
 import java.util.zip.Deflater
 import java.util.zip.ZipEntry
 
@@ -64,11 +72,17 @@ class SupportZipGeneratorImpl
    */
   private final ByteSize maxZipFileSize
 
+  /**
+   * The maximum number of content sources prepared concurrently.
+   */
+  private final int prepareThreads
+
   @Inject
   SupportZipGeneratorImpl(final DownloadService downloadService,
                           final List<SupportBundleCustomizer> bundleCustomizers,
                           final @Named('${atlas.supportZipGenerator.maxFileSize:-30mb}') ByteSize maxFileSize,
-                          final @Named('${atlas.supportZipGenerator.maxZipFileSize:-20mb}') ByteSize maxZipFileSize)
+                          final @Named('${atlas.supportZipGenerator.maxZipFileSize:-20mb}') ByteSize maxZipFileSize,
+                          final @Named('${atlas.supportZipGenerator.prepareThreads:-4}') int prepareThreads)
   {
     assert downloadService
     this.bundleCustomizers = checkNotNull(bundleCustomizers)
@@ -80,6 +94,9 @@ class SupportZipGeneratorImpl
 
     this.maxZipFileSize = maxZipFileSize
     log.info 'Maximum ZIP file size: {}', maxZipFileSize
+
+    assert prepareThreads > 0
+    this.prepareThreads = prepareThreads
   }
 
   /**
@@ -130,6 +147,37 @@ class SupportZipGeneratorImpl
   Result generate(final Request request) {
     assert request
 
+    def prefix = downloadService.uniqueName('support-')
+
+    // Write zip to temporary file first
+    def file = File.createTempFile("${prefix}-", '.zip').canonicalFile
+    log.debug 'Writing ZIP file: {}', file
+
+    try {
+      Result result = null
+      file.withOutputStream { OutputStream output ->
+        result = generate(request, prefix, output)
+      }
+
+      // move the file into place
+      def target = downloadService.move(file, "${prefix}.zip")
+      log.info 'Created support ZIP file: {}', target
+
+      result.file = target
+      return result
+    }
+    catch (Exception e) {
+      log.error 'Failed to create support ZIP', e
+      file.delete()
+    }
+  }
+
+  @Override
+  Result generate(final Request request, final String prefix, final OutputStream output) {
+    assert request
+    assert prefix
+    assert output
+
     log.info 'Generating support ZIP: {}', request
 
     def bundle = new SupportBundle()
@@ -141,48 +189,89 @@ class SupportZipGeneratorImpl
     }
     assert !bundle.sources.isEmpty(): 'At least one bundle source must be configured'
 
-    // filter only sources which user requested
-    def sources = filterSources(request, bundle)
+    // filter only sources which user requested, sorted so highest priority are processed first
+    def sources = filterSources(request, bundle).sort()
     assert !sources.isEmpty(): 'At least one content source must be configured'
 
+    // prepare bundle sources in the background while the ZIP is being written, as the requesting subject and
+    // with the MDC and context class-loader of the requesting thread
+    def executor = NexusExecutorService.forCurrentSubject(Executors.newFixedThreadPool(
+        Math.min(prepareThreads, sources.size()),
+        new ThreadFactoryBuilder().setNameFormat('support-zip-prepare-%d').setDaemon(true).build()))
+    def classLoader = Thread.currentThread().contextClassLoader
+    Set<ContentSource> cleaned = []
     try {
-      // prepare bundle sources
-      sources.each {
-        log.debug 'Preparing bundle source: {}', it
-        it.prepare()
+      Map<ContentSource, Future<?>> prepared = [:]
+      sources.each { ContentSource source ->
+        prepared[source] = executor.submit({
+          def thread = Thread.currentThread()
+          def original = thread.contextClassLoader
+          thread.contextClassLoader = classLoader
+          try {
+            log.debug 'Preparing bundle source: {}', source
+            source.prepare()
+            return null
+          }
+          finally {
+            thread.contextClassLoader = original
+          }
+        } as Callable<Void>)
       }
+      executor.shutdown()
 
-      return createZip(request, sources)
-    }
-    catch (Exception e) {
-      log.error 'Failed to create support ZIP', e
+      return createZip(request, prefix, sources, prepared, cleaned, output)
     }
     finally {
-      // cleanup bundle sources
-      sources.each {
-        log.debug 'Cleaning bundle source: {}', it
-        try {
-          it.cleanup()
-        }
-        catch (Exception e) {
-          log.warn 'Bundle source cleanup failed', e
-        }
+      // stop any outstanding preparation before cleaning up
+      executor.shutdownNow()
+      if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+        log.warn 'Timed out waiting for bundle source preparation to stop'
       }
+
+      // cleanup remaining bundle sources
+      sources.findAll { !cleaned.contains(it) }.each { cleanup(it) }
     }
   }
 
   /**
-   * Create a ZIP file with content from given sources.
+   * Cleanup a content source, logging any failure.
    */
-  private Result createZip(final Request request, final List<ContentSource> sources) {
-    def prefix = downloadService.uniqueName('support-')
+  private void cleanup(final ContentSource source) {
+    log.debug 'Cleaning bundle source: {}', source
+    try {
+      source.cleanup()
+    }
+    catch (Exception e) {
+      log.warn 'Bundle source cleanup failed', e
+    }
+  }
 
-    // Write zip to temporary file first
-    def file = File.createTempFile("${prefix}-", '.zip').canonicalFile
-    log.debug 'Writing ZIP file: {}', file
+  /**
+   * Wait for content source to be prepared; returns false if preparation failed.
+   */
+  private boolean awaitPrepared(final ContentSource source, final Future<?> prepared) {
+    try {
+      prepared.get()
+      return true
+    }
+    catch (ExecutionException e) {
+      log.warn 'Failed to prepare bundle source: {}', source, e.cause
+      return false
+    }
+  }
 
+  /**
+   * Stream a ZIP with content from given sources, written in order as each source becomes prepared.
+   */
+  private Result createZip(final Request request,
+                           final String prefix,
+                           final List<ContentSource> sources,
+                           final Map<ContentSource, Future<?>> prepared,
+                           final Set<ContentSource> cleaned,
+                           final OutputStream output)
+  {
     // track total compressed and uncompressed size
-    def stream = new CountingOutputStream(file.newOutputStream())
+    def stream = new CountingOutputStream(output)
     long totalUncompressed = 0
 
     // setup zip too sync-flush so we can detect compressed size for partially written files
@@ -244,13 +333,13 @@ class SupportZipGeneratorImpl
     }
 
     // maximum size of included content
-    final int maxContentSize = this.maxFileSize.toBytes()
+    final long maxContentSize = this.maxFileSize.toBytes()
 
     // size of chunks for appending source content and detecting max ZIP size
     final int chunkSize = 4 * 1024
 
     // leave some fudge room so we can close the zip file and write marker tokens if needed
-    final int maxZipSize = maxZipFileSize.toBytes() - (chunkSize * 2)
+    final long maxZipSize = maxZipFileSize.toBytes() - (chunkSize * 2)
 
     // token added to files to indicate truncation has occurred
     final String TRUNCATED_TOKEN = '** TRUNCATED **'
@@ -258,72 +347,114 @@ class SupportZipGeneratorImpl
     // flag to indicate if any content was truncated
     boolean truncated = false
 
-    try {
-      // add directory entries
-      addDirectoryEntries()
+    // helper to estimate how many bytes of content will fit into the remaining ZIP budget
+    def remainingContentSize = {
+      long remaining = maxZipSize - stream.count
+      if (remaining <= 0) {
+        return 0L
+      }
+      // assume content compresses about as well as everything written so far
+      double ratio = totalUncompressed > 0 ? Math.min(1d, stream.count / (double) totalUncompressed) : 1d
+      return (long) (remaining / Math.max(ratio, 0.01d))
+    }
+
+    // helper to skip over leading content; input streams may skip less than requested
+    def skipFully = { InputStream input, long count ->
+      while (count > 0) {
+        long skipped = input.skip(count)
+        if (skipped <= 0) {
+          break
+        }
+        count -= skipped
+      }
+    }
 
-      // TODO: Sort out how to deal with obfuscation, if its specific or general
-      // TODO: ... this should be a detail of the content source
+    // add directory entries
+    addDirectoryEntries()
 
-      // add content entries, sorted so highest priority are processed first
-      sources.sort().each { source ->
-        log.debug 'Adding content entry: {} {} bytes', source, source.size
-        def entry = addEntry source.path
+    // TODO: Sort out how to deal with obfuscation, if its specific or general
+    // TODO: ... this should be a detail of the content source
+
+    // add content entries, in priority order as each becomes prepared
+    sources.each { source ->
+      if (!awaitPrepared(source, prepared[source])) {
+        return
+      }
 
-        source.content.withStream { InputStream input ->
-          // truncate content which is larger than maximum file size
-          if (request.limitFileSizes && source.size > maxContentSize) {
-            log.warn 'Truncating source contents; exceeds maximum included file size: {}', source.path
+      // content may still be growing (ie. logs); only include what was there when prepared
+      long size = source.size
+      long skip = 0
+
+      // truncate content which is larger than maximum file size, keeping the most recent content
+      if (request.limitFileSizes && size > maxContentSize) {
+        log.warn 'Truncating source contents; exceeds maximum included file size: {}', source.path
+        skip = size - maxContentSize
+      }
+
+      // truncate content which will not fit in the remaining ZIP size, keeping the most recent content
+      if (request.limitZipSize) {
+        long fits = remainingContentSize()
+        if (size - skip > fits) {
+          log.warn 'Truncating source contents; exceeds remaining ZIP size: {}', source.path
+          skip = size - fits
+        }
+      }
+
+      log.debug 'Adding content entry: {} {} bytes', source, size
+      def entry = addEntry source.path
+
+      source.content.withStream { InputStream input ->
+        if (skip > 0) {
+          zip << TRUNCATED_TOKEN
+          truncated = true
+          skipFully(input, skip)
+        }
+
+        // write source content to the zip stream in chunks
+        InputStream limited = ByteStreams.limit(input, size - skip)
+        byte[] buff = new byte[chunkSize]
+        int len
+        while ((len = limited.read(buff)) != -1) {
+          // truncate content if max ZIP size reached
+          if (request.limitZipSize && stream.count + len > maxZipSize) {
+            log.warn 'Truncating source contents; max ZIP size reached: {}', source.path
             zip << TRUNCATED_TOKEN
             truncated = true
-            input.skip(source.size - maxContentSize)
+            break
           }
 
-          // write source content to the zip stream in chunks
-          byte[] buff = new byte[chunkSize]
-          int len
-          while ((len = input.read(buff)) != -1) {
-            // truncate content if max ZIP size reached
-            if (request.limitZipSize && stream.count + len > maxZipSize) {
-              log.warn 'Truncating source contents; max ZIP size reached: {}', source.path
-              zip << TRUNCATED_TOKEN
-              truncated = true
-              break
-            }
-
-            zip.write buff, 0, len
-
-            // flush so we can detect compressed size for partially written files
-            zip.flush()
-          }
-        }
+          zip.write buff, 0, len
 
-        closeEntry entry
+          // flush so we can detect compressed size for partially written files
+          zip.flush()
+        }
       }
 
-      // add marker to top of file if we truncated anything
-      if (truncated) {
-        addEntry 'truncated'
-      }
+      closeEntry entry
+
+      // release any temporary resources as soon as the content has been written
+      cleanup(source)
+      cleaned << source
     }
-    finally {
-      zip.close()
+
+    // add marker to top of file if we truncated anything
+    if (truncated) {
+      addEntry 'truncated'
     }
 
+    // finish but do not close the stream, its owned by the caller
+    zip.finish()
+    zip.flush()
+
     if (log.debugEnabled) {
-      log.debug 'ZIP file (in={} out={}) bytes, compressed: {}%',
+      log.debug 'ZIP (in={} out={}) bytes, compressed: {}%',
           totalUncompressed,
           stream.count,
           percentCompressed(stream.count, totalUncompressed)
     }
 
-    // move the file into place
-    def target = downloadService.move(file, "${prefix}.zip")
-    log.info 'Created support ZIP file: {}', target
-
     return new Result(
-        file: target,
         truncated: truncated
     )
   }
-}
\ No newline at end of file
+}
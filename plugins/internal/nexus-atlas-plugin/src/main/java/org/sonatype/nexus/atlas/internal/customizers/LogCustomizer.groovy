@@ -55,14 +55,20 @@ class LogCustomizer
 
   @Override
   void customize(final SupportBundle supportBundle) {
-    // add source for nexus.log
-    supportBundle << new GeneratedContentSourceSupport(LOG, 'log/nexus.log', LOW) {
-      @Override
-      protected void generate(final File file) {
-        def log = logManager.getLogFileStream('nexus.log', 0, Long.MAX_VALUE)
-        log.withStream { input ->
-          file.withOutputStream { output ->
-            output << input
+    // add source for nexus.log, read in place when available; the generator bounds reads to the prepared size
+    def logFile = logManager.getLogFile('nexus.log')
+    if (logFile?.exists()) {
+      supportBundle << new FileContentSourceSupport(LOG, 'log/nexus.log', logFile, LOW)
+    }
+    else {
+      supportBundle << new GeneratedContentSourceSupport(LOG, 'log/nexus.log', LOW) {
+        @Override
+        protected void generate(final File file) {
+          def log = logManager.getLogFileStream('nexus.log', 0, Long.MAX_VALUE)
+          log.withStream { input ->
+            file.withOutputStream { output ->
+              output << input
+            }
           }
         }
       }
@@ -0,0 +1,96 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.atlas.rest
+
+import org.apache.shiro.authz.annotation.RequiresPermissions
+import org.sonatype.nexus.supportzip.SupportZipGenerator
+import org.sonatype.nexus.supportzip.SupportZipGenerator.Request
+import org.sonatype.nexus.wonderland.DownloadService
+import org.sonatype.sisu.goodies.common.ComponentSupport
+import org.sonatype.siesta.Resource
+
+import javax.inject.Inject
+import javax.inject.Named
+import javax.inject.Singleton
+import javax.ws.rs.DefaultValue
+import javax.ws.rs.GET
+import javax.ws.rs.Path
+import javax.ws.rs.Produces
+import javax.ws.rs.QueryParam
+import javax.ws.rs.core.Response
+import javax.ws.rs.core.StreamingOutput
+
+import static com.google.common.base.Preconditions.checkNotNull
+
+/**
+ * Streams a support ZIP directly in the response, without first writing it to a temporary file.
+ *
+ * @since 3.0
+ */
+@Named
+@Singleton
+@Path(SupportZipResource.RESOURCE_URI)
+class SupportZipResource
+    extends ComponentSupport
+    implements Resource
+{
+  static final String RESOURCE_URI = '/atlas/support-zip'
+
+  private final SupportZipGenerator supportZipGenerator
+
+  private final DownloadService downloadService
+
+  @Inject
+  SupportZipResource(final SupportZipGenerator supportZipGenerator,
+                     final DownloadService downloadService)
+  {
+    this.supportZipGenerator = checkNotNull(supportZipGenerator)
+    this.downloadService = checkNotNull(downloadService)
+  }
+
+  @GET
+  @Produces('application/zip')
+  @RequiresPermissions('nexus:atlas')
+  Response download(final @QueryParam('systemInformation') @DefaultValue('true') boolean systemInformation,
+                    final @QueryParam('threadDump') @DefaultValue('true') boolean threadDump,
+                    final @QueryParam('metrics') @DefaultValue('true') boolean metrics,
+                    final @QueryParam('configuration') @DefaultValue('true') boolean configuration,
+                    final @QueryParam('security') @DefaultValue('true') boolean security,
+                    final @QueryParam('log') @DefaultValue('true') boolean logFiles,
+                    final @QueryParam('jmx') @DefaultValue('true') boolean jmx,
+                    final @QueryParam('limitFileSizes') @DefaultValue('true') boolean limitFileSizes,
+                    final @QueryParam('limitZipSize') @DefaultValue('true') boolean limitZipSize)
+  {
+    def request = new Request(
+        systemInformation: systemInformation,
+        threadDump: threadDump,
+        metrics: metrics,
+        configuration: configuration,
+        security: security,
+        log: logFiles,
+        jmx: jmx,
+        limitFileSizes: limitFileSizes,
+        limitZipSize: limitZipSize
+    )
+    def prefix = downloadService.uniqueName('support-')
+
+    def body = { OutputStream output ->
+      def result = supportZipGenerator.generate(request, prefix, output)
+      log.info 'Streamed support ZIP: {} {}', prefix, result
+    } as StreamingOutput
+
+    return Response.ok(body)
+        .header('Content-Disposition', "attachment; filename=\"${prefix}.zip\"")
+        .build()
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.coreui
+
+import javax.inject.Inject
+import javax.inject.Named
+import javax.inject.Singleton
+import javax.ws.rs.GET
+import javax.ws.rs.Path
+import javax.ws.rs.PathParam
+import javax.ws.rs.Produces
+import javax.ws.rs.QueryParam
+import javax.ws.rs.WebApplicationException
+import javax.ws.rs.core.MediaType
+
+import org.sonatype.siesta.Resource
+import org.sonatype.sisu.goodies.common.ComponentSupport
+
+import org.apache.shiro.authz.annotation.RequiresPermissions
+
+import static com.google.common.base.Preconditions.checkNotNull
+import static javax.ws.rs.core.Response.Status.NOT_FOUND
+
+/**
+ * Cursor based browse of repository components and assets.
+ *
+ * Pages are requested with an optional {@code limit} and the {@code after} cursor returned as {@code next} with the
+ * previous page; a malformed cursor is rejected with 400. Assets may be narrowed to those of a {@code componentId}.
+ *
+ * @since 3.0
+ */
+@Named
+@Singleton
+@Path(BrowseResource.RESOURCE_URI)
+class BrowseResource
+    extends ComponentSupport
+    implements Resource
+{
+  static final String RESOURCE_URI = '/' + CoreUiPlugin.ID_PREFIX + '/browse'
+
+  private final ComponentBrowser componentBrowser
+
+  @Inject
+  BrowseResource(final ComponentBrowser componentBrowser) {
+    this.componentBrowser = checkNotNull(componentBrowser)
+  }
+
+  @GET
+  @Path('{repositoryName}/components')
+  @Produces(MediaType.APPLICATION_JSON)
+  @RequiresPermissions('nexus:repositories:read')
+  BrowsePageXO<ComponentXO> components(final @PathParam('repositoryName') String repositoryName,
+                                       final @QueryParam('after') String after,
+                                       final @QueryParam('limit') Integer limit)
+  {
+    return found(componentBrowser.browseComponents(repositoryName, after, limit), repositoryName)
+  }
+
+  @GET
+  @Path('{repositoryName}/assets')
+  @Produces(MediaType.APPLICATION_JSON)
+  @RequiresPermissions('nexus:repositories:read')
+  BrowsePageXO<AssetXO> assets(final @PathParam('repositoryName') String repositoryName,
+                               final @QueryParam('componentId') String componentId,
+                               final @QueryParam('after') String after,
+                               final @QueryParam('limit') Integer limit)
+  {
+    return found(componentBrowser.browseAssets(repositoryName, componentId, after, limit), repositoryName)
+  }
+
+  private <T> BrowsePageXO<T> found(final BrowsePageXO<T> page, final String repositoryName) {
+    if (page == null) {
+      log.debug('Repository or component not found, or repository offline: {}', repositoryName)
+      throw new WebApplicationException(NOT_FOUND)
+    }
+    return page
+  }
+}
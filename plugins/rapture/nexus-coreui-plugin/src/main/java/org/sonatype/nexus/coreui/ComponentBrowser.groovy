@@ -0,0 +1,156 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.coreui
+
+import javax.annotation.Nullable
+import javax.inject.Inject
+import javax.inject.Named
+import javax.inject.Singleton
+import javax.validation.constraints.NotNull
+
+import org.sonatype.nexus.common.entity.EntityId
+import org.sonatype.nexus.repository.Repository
+import org.sonatype.nexus.repository.manager.RepositoryManager
+import org.sonatype.nexus.repository.storage.Asset
+import org.sonatype.nexus.repository.storage.BrowsePage
+import org.sonatype.nexus.repository.storage.Component
+import org.sonatype.nexus.repository.storage.StorageFacet
+import org.sonatype.nexus.repository.storage.StorageTx
+import org.sonatype.nexus.validation.Validate
+import org.sonatype.nexus.validation.ValidationMessage
+import org.sonatype.nexus.validation.ValidationResponse
+import org.sonatype.nexus.validation.ValidationResponseException
+import org.sonatype.sisu.goodies.common.ComponentSupport
+
+/**
+ * Browses repository components and assets one page at a time, so listing a repository takes constant memory
+ * whatever its size. Used by {@link ComponentComponent} and {@link BrowseResource}.
+ *
+ * @since 3.0
+ */
+@Named
+@Singleton
+class ComponentBrowser
+extends ComponentSupport
+{
+  static final int DEFAULT_LIMIT = 100
+
+  static final int MAX_LIMIT = 1000
+
+  @Inject
+  RepositoryManager repositoryManager
+
+  /**
+   * Returns page of components after given cursor, or {@code null} if repository does not exist or is offline.
+   */
+  @Validate
+  @Nullable
+  BrowsePageXO<ComponentXO> browseComponents(
+      final @NotNull(message = '[repositoryName] may not be null') String repositoryName,
+      final @Nullable String after,
+      final @Nullable Integer limit)
+  {
+    Repository repository = repositoryManager.get(repositoryName)
+    if (!repository || !repository.configuration.online) {
+      return null
+    }
+    StorageTx storageTx = repository.facet(StorageFacet).openTx()
+    try {
+      BrowsePage<Component> page = browse(after) {
+        storageTx.browseComponents(storageTx.bucket, null, null, after, pageLimit(limit))
+      }
+      return new BrowsePageXO<ComponentXO>(
+          data: page.items.collect { component ->
+            new ComponentXO(
+                id: component.entityMetadata.id,
+                repositoryName: repository.name,
+                group: component.group(),
+                name: component.name(),
+                version: component.version(),
+                format: component.format()
+            )
+          },
+          next: page.next
+      )
+    }
+    finally {
+      storageTx.close()
+    }
+  }
+
+  /**
+   * Returns page of assets after given cursor, of the component if its id is given or of the whole repository
+   * otherwise, or {@code null} if repository or component does not exist or repository is offline.
+   */
+  @Validate
+  @Nullable
+  BrowsePageXO<AssetXO> browseAssets(
+      final @NotNull(message = '[repositoryName] may not be null') String repositoryName,
+      final @Nullable String componentId,
+      final @Nullable String after,
+      final @Nullable Integer limit)
+  {
+    Repository repository = repositoryManager.get(repositoryName)
+    if (!repository || !repository.configuration.online) {
+      return null
+    }
+    StorageTx storageTx = repository.facet(StorageFacet).openTx()
+    try {
+      Component component = null
+      if (componentId) {
+        component = storageTx.findComponent(new EntityId(componentId), storageTx.bucket)
+        if (component == null) {
+          return null
+        }
+      }
+      BrowsePage<Asset> page = browse(after) {
+        component ? storageTx.browseAssets(component, after, pageLimit(limit)) :
+            storageTx.browseAssets(storageTx.bucket, null, null, after, pageLimit(limit))
+      }
+      return new BrowsePageXO<AssetXO>(
+          data: page.items.collect { asset ->
+            new AssetXO(
+                id: asset.entityMetadata.id,
+                name: asset.name() ?: component?.name(),
+                contentType: asset.contentType()
+            )
+          },
+          next: page.next
+      )
+    }
+    finally {
+      storageTx.close()
+    }
+  }
+
+  /**
+   * Browses page after given cursor, rejecting a cursor not issued by a previous page as invalid.
+   */
+  private static <T> BrowsePage<T> browse(final @Nullable String after, final Closure<BrowsePage<T>> browse) {
+    try {
+      return browse.call()
+    }
+    catch (IllegalArgumentException e) {
+      ValidationResponse validations = new ValidationResponse()
+      validations.addError(new ValidationMessage('after', "Invalid cursor: $after"))
+      throw new ValidationResponseException(validations)
+    }
+  }
+
+  private static int pageLimit(final @Nullable Integer limit) {
+    if (!limit || limit < 1) {
+      return DEFAULT_LIMIT
+    }
+    return Math.min(limit, MAX_LIMIT)
+  }
+}
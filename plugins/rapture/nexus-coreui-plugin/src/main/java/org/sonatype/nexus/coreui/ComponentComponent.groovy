@@ -15,18 +15,10 @@ package org.sonatype.nexus.coreui
 import javax.inject.Inject
 import javax.inject.Named
 import javax.inject.Singleton
-import javax.validation.constraints.NotNull
 
-import org.sonatype.nexus.common.entity.EntityId
 import org.sonatype.nexus.extdirect.DirectComponent
 import org.sonatype.nexus.extdirect.DirectComponentSupport
 import org.sonatype.nexus.extdirect.model.StoreLoadParameters
-import org.sonatype.nexus.repository.Repository
-import org.sonatype.nexus.repository.manager.RepositoryManager
-import org.sonatype.nexus.repository.storage.Component
-import org.sonatype.nexus.repository.storage.StorageFacet
-import org.sonatype.nexus.repository.storage.StorageTx
-import org.sonatype.nexus.validation.Validate
 
 import com.softwarementors.extjs.djn.config.annotations.DirectAction
 import com.softwarementors.extjs.djn.config.annotations.DirectMethod
@@ -45,40 +37,34 @@ extends DirectComponentSupport
 {
 
   @Inject
-  RepositoryManager repositoryManager
+  ComponentBrowser componentBrowser
 
+  /**
+   * Reads components of repository one page at a time.
+   *
+   * @param parameters store parameters, filtered by 'repositoryName' and by 'after', the cursor returned with
+   * previous page
+   */
   @DirectMethod
   @RequiresPermissions('nexus:repositories:read')
-  List<AssetXO> readAssets(final StoreLoadParameters parameters) {
-    return readAssets(parameters.getFilter('repositoryName'), parameters.getFilter('componentId'))
+  BrowsePageXO<ComponentXO> read(final StoreLoadParameters parameters) {
+    return componentBrowser.browseComponents(
+        parameters.getFilter('repositoryName'), parameters.getFilter('after'), parameters.limit
+    )
   }
 
-  @Validate
-  List<AssetXO> readAssets(final @NotNull(message = '[repositoryName] may not be null') String repositoryName,
-                           final @NotNull(message = '[componentId] may not be null') String componentId)
-  {
-    Repository repository = repositoryManager.get(repositoryName)
-    if (!repository.configuration.online) {
-      return null
-    }
-    StorageTx storageTx = repository.facet(StorageFacet).openTx()
-    try {
-      Component component = storageTx.findComponent(new EntityId(componentId), storageTx.getBucket())
-      if (component == null) {
-        return null
-      }
-
-      return storageTx.browseAssets(component).collect { asset ->
-        new AssetXO(
-            id: asset.entityMetadata.id,
-            name: asset.name() ?: component.name(),
-            contentType: asset.contentType()
-        )
-      }
-    }
-    finally {
-      storageTx.close()
-    }
+  /**
+   * Reads assets of a component, or of whole repository if no component is given, one page at a time.
+   *
+   * @param parameters store parameters, filtered by 'repositoryName', optionally by 'componentId', and by 'after',
+   * the cursor returned with previous page
+   */
+  @DirectMethod
+  @RequiresPermissions('nexus:repositories:read')
+  BrowsePageXO<AssetXO> readAssets(final StoreLoadParameters parameters) {
+    return componentBrowser.browseAssets(
+        parameters.getFilter('repositoryName'), parameters.getFilter('componentId'), parameters.getFilter('after'),
+        parameters.limit
+    )
   }
-
 }
@@ -30,12 +30,28 @@ Ext.define('NX.coreui.store.Asset', {
 
     reader: {
       type: 'json',
-      root: 'data',
+      root: 'data.data',
       successProperty: 'success'
     }
   },
 
+  // assets of a component are read in pages of maximum size, following the cursor of each page until the last one
+  pageSize: 1000,
   remoteFilter: true,
-  sorters: { property: 'name', direction: 'ASC' }
+  sorters: { property: 'name', direction: 'ASC' },
+
+  listeners: {
+    load: function(store, records, successful) {
+      var rawData = store.getProxy().getReader().rawData,
+          next = successful && rawData && rawData.data ? rawData.data.next : undefined;
+
+      if (next) {
+        store.load({
+          addRecords: true,
+          filters: store.filters.getRange().concat(Ext.create('Ext.util.Filter', { property: 'after', value: next }))
+        });
+      }
+    }
+  }
 
 });
@@ -0,0 +1,236 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.extdirect.internal;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.Lists;
+import com.google.inject.Key;
+import com.google.inject.servlet.ServletScopes;
+import com.softwarementors.extjs.djn.servlet.ssm.WebContext;
+import com.softwarementors.extjs.djn.servlet.ssm.WebContextManager;
+import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.subject.support.SubjectThreadState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Processes requests of an Ext.Direct batch concurrently, on behalf of the subject and with the MDC of the calling
+ * thread, and streams their responses in order of completion; Ext.Direct matches them to requests by transaction id.
+ *
+ * Requests are executed within a {@link RequestContinuation} of the calling thread's request, by default continuing the
+ * servlet request scope and the DirectJNgine web context. When the executor rejects a request (it is shutting down),
+ * the request is executed on the calling thread instead, which already is in the request.
+ *
+ * @since 3.0
+ */
+class BatchProcessor
+{
+  private static final Logger log = LoggerFactory.getLogger(BatchProcessor.class);
+
+  /**
+   * Batch execution details of the request being processed by the current thread, for analytics.
+   */
+  private static final ThreadLocal<BatchRequest> currentBatchRequest = new ThreadLocal<>();
+
+  /**
+   * Processor of single (non-batched) request.
+   */
+  interface RequestProcessor
+  {
+    String process(String request) throws IOException;
+  }
+
+  /**
+   * Continues the request of the calling thread in a task executed by another thread.
+   */
+  interface RequestContinuation
+  {
+    <T> Callable<T> continueRequest(Callable<T> task);
+  }
+
+  /**
+   * Continues the servlet request scope and, if attached, the DirectJNgine web context of the calling thread.
+   */
+  static final RequestContinuation SERVLET_REQUEST = new RequestContinuation()
+  {
+    @Override
+    public <T> Callable<T> continueRequest(final Callable<T> task) {
+      final WebContext webContext =
+          WebContextManager.isWebContextAttachedToCurrentThread() ? WebContextManager.get() : null;
+      Callable<T> inWebContext = new Callable<T>()
+      {
+        @Override
+        public T call() throws Exception {
+          if (webContext == null || WebContextManager.isWebContextAttachedToCurrentThread()) {
+            return task.call();
+          }
+          WebContextManager.initializeWebContextForCurrentThread(webContext.getServlet(), webContext.getRequest(),
+              webContext.getResponse());
+          try {
+            return task.call();
+          }
+          finally {
+            WebContextManager.detachFromCurrentThread();
+          }
+        }
+      };
+      return ServletScopes.continueRequest(inWebContext, Collections.<Key<?>, Object>emptyMap());
+    }
+  };
+
+  static class BatchRequest
+  {
+    final int batchSize;
+
+    final long submitted;
+
+    final long started = System.nanoTime();
+
+    private BatchRequest(final int batchSize, final long submitted) {
+      this.batchSize = batchSize;
+      this.submitted = submitted;
+    }
+  }
+
+  private final ExecutorService executor;
+
+  private final RequestContinuation continuation;
+
+  BatchProcessor(final ExecutorService executor, final RequestContinuation continuation) {
+    this.executor = checkNotNull(executor);
+    this.continuation = checkNotNull(continuation);
+  }
+
+  /**
+   * Returns batch execution details of the request being processed by the current thread, or {@code null} if current
+   * thread is not processing a batched request.
+   */
+  @Nullable
+  static BatchRequest currentBatchRequest() {
+    return currentBatchRequest.get();
+  }
+
+  void process(final List<String> requests, final RequestProcessor processor, final Writer writer)
+      throws IOException
+  {
+    log.debug("Processing batch of {} requests", requests.size());
+
+    CompletionService<String> completionService = new ExecutorCompletionService<>(executor);
+    List<Future<String>> futures = Lists.newArrayListWithCapacity(requests.size());
+    List<Callable<String>> rejected = Lists.newArrayList();
+    try {
+      for (String request : requests) {
+        Callable<String> task = inContext(request, requests.size(), processor);
+        try {
+          futures.add(completionService.submit(continuation.continueRequest(task)));
+        }
+        catch (RejectedExecutionException e) {
+          rejected.add(task);
+        }
+      }
+
+      writer.write('[');
+      boolean first = true;
+      for (Callable<String> task : rejected) {
+        first = write(writer, task.call(), first);
+      }
+      for (int i = 0; i < futures.size(); i++) {
+        first = write(writer, completionService.take().get(), first);
+      }
+      writer.write(']');
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while processing batch", e);
+    }
+    catch (ExecutionException e) {
+      Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+      throw Throwables.propagate(e.getCause());
+    }
+    catch (Exception e) {
+      Throwables.propagateIfInstanceOf(e, IOException.class);
+      throw Throwables.propagate(e);
+    }
+    finally {
+      for (Future<String> future : futures) {
+        future.cancel(true);
+      }
+    }
+  }
+
+  private boolean write(final Writer writer, final String response, final boolean first) throws IOException {
+    if (!first) {
+      writer.write(',');
+    }
+    writer.write(response);
+    writer.flush();
+    return false;
+  }
+
+  /**
+   * Returns task processing given request on behalf of the current subject, with current MDC.
+   */
+  private Callable<String> inContext(final String request, final int batchSize, final RequestProcessor processor) {
+    final Subject subject = SecurityUtils.getSubject();
+    final Map<String, String> mdc = MDC.getCopyOfContextMap();
+    final long submitted = System.nanoTime();
+    return new Callable<String>()
+    {
+      @Override
+      public String call() throws Exception {
+        SubjectThreadState threadState = new SubjectThreadState(subject);
+        Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+        BatchRequest previousBatchRequest = currentBatchRequest.get();
+        threadState.bind();
+        setMdc(mdc);
+        currentBatchRequest.set(new BatchRequest(batchSize, submitted));
+        try {
+          return processor.process(request);
+        }
+        finally {
+          currentBatchRequest.set(previousBatchRequest);
+          setMdc(previousMdc);
+          threadState.restore();
+        }
+      }
+    };
+  }
+
+  private static void setMdc(@Nullable final Map<String, String> context) {
+    if (context != null) {
+      MDC.setContextMap(context);
+    }
+    else {
+      MDC.clear();
+    }
+  }
+}
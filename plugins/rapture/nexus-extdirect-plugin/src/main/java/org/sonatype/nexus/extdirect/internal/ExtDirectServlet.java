@@ -17,18 +17,24 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 import javax.servlet.ServletConfig;
+import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
@@ -50,6 +56,11 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Maps.EntryTransformer;
+import com.google.common.io.CharStreams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 import com.google.inject.Key;
 import com.softwarementors.extjs.djn.EncodingUtils;
 import com.softwarementors.extjs.djn.api.RegisteredMethod;
@@ -75,6 +86,9 @@ import static org.sonatype.nexus.extdirect.model.Responses.success;
 /**
  * Ext.Direct Servlet.
  *
+ * Requests of a batch are executed concurrently on a bounded pool of {@code nexus.extdirect.batchThreads} threads,
+ * bound to the Shiro subject and MDC of the servlet thread, and their responses are written as they complete.
+ *
  * @since 3.0
  */
 @Named
@@ -90,14 +104,44 @@ public class ExtDirectServlet
 
   private final EventRecorder eventRecorder;
 
+  private final int batchThreads;
+
+  private ThreadPoolExecutor batchExecutor;
+
+  private BatchProcessor batchProcessor;
+
   @Inject
   public ExtDirectServlet(final ApplicationDirectories directories,
                           final BeanLocator beanLocator,
-                          final @Nullable EventRecorder eventRecorder)
+                          final @Nullable EventRecorder eventRecorder,
+                          final @Named("${nexus.extdirect.batchThreads:-10}") int batchThreads)
   {
     this.directories = checkNotNull(directories);
     this.beanLocator = checkNotNull(beanLocator);
     this.eventRecorder = eventRecorder; // null okay
+    this.batchThreads = batchThreads;
+  }
+
+  @Override
+  public void init(final ServletConfig configuration) throws ServletException {
+    if (batchThreads > 1) {
+      batchExecutor = new ThreadPoolExecutor(batchThreads, batchThreads, 60L, TimeUnit.SECONDS,
+          new LinkedBlockingQueue<Runnable>(),
+          new ThreadFactoryBuilder().setNameFormat("extdirect-batch-%d").setDaemon(true).build());
+      batchExecutor.allowCoreThreadTimeOut(true);
+      batchProcessor = new BatchProcessor(batchExecutor, BatchProcessor.SERVLET_REQUEST);
+    }
+    super.init(configuration);
+  }
+
+  @Override
+  public void destroy() {
+    super.destroy();
+    if (batchExecutor != null) {
+      batchExecutor.shutdown();
+      batchExecutor = null;
+      batchProcessor = null;
+    }
   }
 
   @Override
@@ -196,6 +240,12 @@ public class ExtDirectServlet
               .set("type", method.getType().name())
               .set("name", method.getName())
               .set("action", method.getActionName());
+
+          BatchProcessor.BatchRequest batchRequest = BatchProcessor.currentBatchRequest();
+          if (batchRequest != null) {
+            builder.set("batchSize", batchRequest.batchSize)
+                .set("queueTime", TimeUnit.NANOSECONDS.toMillis(batchRequest.started - batchRequest.submitted));
+          }
         }
 
         MDC.put(getClass().getName(), method.getFullName());
@@ -278,6 +328,46 @@ public class ExtDirectServlet
     final Dispatcher dispatcher = createDispatcher(globalConfiguration.getDispatcherClass());
     return new RequestRouter(registry, globalConfiguration, dispatcher)
     {
+      @Override
+      public void processJsonRequest(final Reader reader, final Writer writer) throws IOException {
+        if (batchProcessor == null) {
+          super.processJsonRequest(reader, writer);
+          return;
+        }
+
+        String content = CharStreams.toString(reader);
+        JsonElement requests;
+        try {
+          requests = new JsonParser().parse(content);
+        }
+        catch (JsonParseException e) {
+          requests = null;
+        }
+        if (requests == null || !requests.isJsonArray() || requests.getAsJsonArray().size() < 2) {
+          // not a batch, or malformed and left to directjngine to report
+          super.processJsonRequest(new StringReader(content), writer);
+          return;
+        }
+
+        List<String> batch = Lists.newArrayListWithCapacity(requests.getAsJsonArray().size());
+        for (JsonElement request : requests.getAsJsonArray()) {
+          batch.add(request.toString());
+        }
+        batchProcessor.process(batch, new BatchProcessor.RequestProcessor()
+        {
+          @Override
+          public String process(final String request) throws IOException {
+            StringWriter response = new StringWriter();
+            processJsonRequestUnbatched(new StringReader(request), response);
+            return response.toString();
+          }
+        }, writer);
+      }
+
+      private void processJsonRequestUnbatched(final Reader reader, final Writer writer) throws IOException {
+        super.processJsonRequest(reader, writer);
+      }
+
       @Override
       public void processPollRequest(final Reader reader, final Writer writer, final String pathInfo)
           throws IOException
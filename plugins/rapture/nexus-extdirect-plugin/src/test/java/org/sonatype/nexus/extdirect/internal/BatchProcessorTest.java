@@ -0,0 +1,187 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.extdirect.internal;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.sonatype.sisu.litmus.testsupport.TestSupport;
+
+import com.google.common.base.Joiner;
+import com.google.common.collect.Lists;
+import org.apache.shiro.SecurityUtils;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.slf4j.MDC;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * UT for {@link BatchProcessor}.
+ */
+public class BatchProcessorTest
+    extends TestSupport
+{
+  @Mock
+  private Subject subject;
+
+  private ExecutorService executor;
+
+  private final AtomicInteger continued = new AtomicInteger();
+
+  // servlet request scope is not available outside of a servlet request, so requests are continued as they are
+  private final BatchProcessor.RequestContinuation continuation = new BatchProcessor.RequestContinuation()
+  {
+    @Override
+    public <T> Callable<T> continueRequest(final Callable<T> task) {
+      continued.incrementAndGet();
+      return task;
+    }
+  };
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(2);
+    ThreadContext.bind(subject);
+    MDC.put("user", "admin");
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+    ThreadContext.unbindSubject();
+    MDC.clear();
+  }
+
+  private List<String> requests(final int count) {
+    List<String> requests = Lists.newArrayList();
+    for (int i = 0; i < count; i++) {
+      requests.add("\"" + i + "\"");
+    }
+    return requests;
+  }
+
+  private List<String> responses(final StringWriter writer) {
+    String response = writer.toString();
+    assertThat(response.charAt(0), equalTo('['));
+    assertThat(response.charAt(response.length() - 1), equalTo(']'));
+    return Lists.newArrayList(response.substring(1, response.length() - 1).split(","));
+  }
+
+  @Test
+  public void requestsAreProcessedConcurrently() throws Exception {
+    final CountDownLatch bothRunning = new CountDownLatch(2);
+    StringWriter writer = new StringWriter();
+    new BatchProcessor(executor, continuation).process(requests(2), new BatchProcessor.RequestProcessor()
+    {
+      @Override
+      public String process(final String request) throws IOException {
+        bothRunning.countDown();
+        try {
+          // would time out if requests were processed one after another
+          assertThat(bothRunning.await(5, TimeUnit.SECONDS), equalTo(true));
+        }
+        catch (InterruptedException e) {
+          throw new IOException(e);
+        }
+        return request;
+      }
+    }, writer);
+
+    assertThat(responses(writer), containsInAnyOrder("\"0\"", "\"1\""));
+    assertThat(continued.get(), equalTo(2));
+  }
+
+  @Test
+  public void saturatedExecutorProcessesWholeBatch() throws Exception {
+    StringWriter writer = new StringWriter();
+    new BatchProcessor(executor, continuation).process(requests(50), new BatchProcessor.RequestProcessor()
+    {
+      @Override
+      public String process(final String request) throws IOException {
+        return request;
+      }
+    }, writer);
+
+    assertThat(responses(writer), containsInAnyOrder(requests(50).toArray(new String[50])));
+  }
+
+  @Test
+  public void shutdownExecutorProcessesOnCallingThread() throws Exception {
+    executor.shutdown();
+    final Thread caller = Thread.currentThread();
+    final List<Thread> threads = Lists.newArrayList();
+    StringWriter writer = new StringWriter();
+    new BatchProcessor(executor, continuation).process(requests(3), new BatchProcessor.RequestProcessor()
+    {
+      @Override
+      public String process(final String request) throws IOException {
+        threads.add(Thread.currentThread());
+        return request;
+      }
+    }, writer);
+
+    assertThat(writer.toString(), equalTo("[" + Joiner.on(',').join(requests(3)) + "]"));
+    for (Thread thread : threads) {
+      assertThat(thread, sameInstance(caller));
+    }
+    // calling thread context is left intact
+    assertThat(SecurityUtils.getSubject(), sameInstance(subject));
+    assertThat(MDC.get("user"), equalTo("admin"));
+    assertThat(BatchProcessor.currentBatchRequest(), nullValue());
+    // calling thread already is in the request
+    assertThat(continued.get(), equalTo(0));
+  }
+
+  @Test
+  public void subjectMdcAndBatchArePropagated() throws Exception {
+    StringWriter writer = new StringWriter();
+    new BatchProcessor(executor, continuation).process(requests(4), new BatchProcessor.RequestProcessor()
+    {
+      @Override
+      public String process(final String request) throws IOException {
+        assertThat(SecurityUtils.getSubject(), sameInstance(subject));
+        assertThat(BatchProcessor.currentBatchRequest().batchSize, equalTo(4));
+        return "\"" + MDC.get("user") + "\"";
+      }
+    }, writer);
+
+    assertThat(responses(writer), containsInAnyOrder("\"admin\"", "\"admin\"", "\"admin\"", "\"admin\""));
+  }
+
+  @Test(expected = IOException.class)
+  public void failurePropagates() throws Exception {
+    new BatchProcessor(executor, continuation).process(requests(2), new BatchProcessor.RequestProcessor()
+    {
+      @Override
+      public String process(final String request) throws IOException {
+        throw new IOException("boom");
+      }
+    }, new StringWriter());
+  }
+}
@@ -32,6 +32,7 @@ import org.sonatype.nexus.web.BaseUrlHolder;
 import org.sonatype.nexus.webresources.GeneratedWebResource;
 import org.sonatype.nexus.webresources.WebResource;
 import org.sonatype.nexus.webresources.WebResourceBundle;
+import org.sonatype.nexus.webresources.WebResourceService;
 import org.sonatype.sisu.goodies.common.ComponentSupport;
 import org.sonatype.sisu.goodies.template.TemplateAccessible;
 import org.sonatype.sisu.goodies.template.TemplateEngine;
@@ -71,6 +72,8 @@ public class RaptureWebResourceBundle
 
   private final Provider<StateComponent> stateComponentProvider;
 
+  private final Provider<WebResourceService> webResourceServiceProvider;
+
   private final TemplateEngine templateEngine;
 
   private final List<UiPluginDescriptor> pluginDescriptors;
@@ -81,12 +84,14 @@ public class RaptureWebResourceBundle
   public RaptureWebResourceBundle(final Provider<SystemStatus> systemStatusProvider,
                                   final Provider<HttpServletRequest> servletRequestProvider,
                                   final Provider<StateComponent> stateComponentProvider,
+                                  final Provider<WebResourceService> webResourceServiceProvider,
                                   final TemplateEngine templateEngine,
                                   final List<UiPluginDescriptor> pluginDescriptors)
   {
     this.systemStatusProvider = checkNotNull(systemStatusProvider);
     this.servletRequestProvider = checkNotNull(servletRequestProvider);
     this.stateComponentProvider = checkNotNull(stateComponentProvider);
+    this.webResourceServiceProvider = checkNotNull(webResourceServiceProvider);
     this.templateEngine = checkNotNull(templateEngine);
 
     this.pluginDescriptors = checkNotNull(pluginDescriptors);
@@ -314,11 +319,12 @@ public class RaptureWebResourceBundle
   }
 
   /**
-   * Generate a URI for the given path.
+   * Generate a URI for the given path, fingerprinted when possible so browsers can cache it forever.
    */
   private URI uri(String path) {
+    String resourcePath = webResourceServiceProvider.get().getFingerprintedPath("/static/rapture/" + path);
     try {
-      return new URI(String.format("%s/static/rapture/%s", BaseUrlHolder.get(), path));
+      return new URI(BaseUrlHolder.get() + resourcePath);
     }
     catch (URISyntaxException e) {
       throw Throwables.propagate(e);
@@ -15,22 +15,20 @@ package org.sonatype.nexus.ldap;
 import java.util.HashSet;
 import java.util.Set;
 
-import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 import javax.naming.NamingException;
 
+import org.sonatype.nexus.cache.CacheService;
 import org.sonatype.nexus.ldap.internal.connector.dao.LdapDAOException;
+import org.sonatype.nexus.cache.CacheService;
 import org.sonatype.nexus.ldap.internal.connector.dao.NoLdapUserRolesFoundException;
 import org.sonatype.nexus.ldap.internal.events.LdapClearCacheEvent;
 import org.sonatype.nexus.ldap.internal.realms.LdapManager;
 import org.sonatype.sisu.goodies.common.Loggers;
-import org.sonatype.sisu.goodies.eventbus.EventBus;
 
 import com.google.common.base.Strings;
-import com.google.common.eventbus.AllowConcurrentEvents;
-import com.google.common.eventbus.Subscribe;
 import org.apache.shiro.authc.AuthenticationException;
 import org.apache.shiro.authc.AuthenticationInfo;
 import org.apache.shiro.authc.AuthenticationToken;
@@ -39,7 +37,6 @@ import org.apache.shiro.authc.UsernamePasswordToken;
 import org.apache.shiro.authc.credential.SimpleCredentialsMatcher;
 import org.apache.shiro.authz.AuthorizationInfo;
 import org.apache.shiro.authz.SimpleAuthorizationInfo;
-import org.apache.shiro.cache.Cache;
 import org.apache.shiro.realm.ldap.AbstractLdapRealm;
 import org.apache.shiro.realm.ldap.LdapContextFactory;
 import org.apache.shiro.subject.PrincipalCollection;
@@ -59,7 +56,7 @@ public class LdapRealm
   private final LdapManager ldapManager;
 
   @Inject
-  public LdapRealm(final EventBus eventBus, final LdapManager ldapManager) {
+  public LdapRealm(final CacheService cacheService, final LdapManager ldapManager) {
     this.ldapManager = checkNotNull(ldapManager);
     setName(LdapPlugin.REALM_NAME);
     setAuthenticationCachingEnabled(true);
@@ -67,30 +64,8 @@ public class LdapRealm
     // using simple credentials matcher
     setCredentialsMatcher(new SimpleCredentialsMatcher());
 
-    eventBus.register(this);
-  }
-
-  /**
-   * Handler that clears caches when needed.
-   *
-   * @since 2.8
-   */
-  @AllowConcurrentEvents
-  @Subscribe
-  public void on(final LdapClearCacheEvent evt) {
-    clearIfNonNull(getAuthenticationCache());
-    clearIfNonNull(getAuthorizationCache());
-  }
-
-  /**
-   * Clears Shiro cache if passed instance is not {@code null}.
-   *
-   * @since 2.8
-   */
-  protected void clearIfNonNull(@Nullable final Cache cache) {
-    if (cache != null) {
-      cache.clear();
-    }
+    // clear caches when LDAP configuration changes
+    cacheService.invalidateOn(LdapClearCacheEvent.class, getAuthenticationCacheName(), getAuthorizationCacheName());
   }
 
   @Override
@@ -35,7 +35,6 @@ import org.sonatype.sisu.litmus.testsupport.port.PortRegistry;
 import com.google.common.collect.Maps;
 import com.google.inject.Binder;
 import com.google.inject.Module;
-import net.sf.ehcache.CacheManager;
 import org.junit.After;
 import org.junit.Before;
 
@@ -147,7 +146,6 @@ public abstract class LdapTestSupport
 
   @After
   public void stopLdap() throws Exception {
-    lookup(CacheManager.class).shutdown();
     stopLdapServers();
   }
 
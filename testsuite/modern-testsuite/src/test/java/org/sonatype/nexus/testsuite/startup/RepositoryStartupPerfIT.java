@@ -0,0 +1,79 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-2015 Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.testsuite.startup;
+
+import javax.inject.Inject;
+
+import com.sonatype.nexus.repository.nuget.internal.NugetHostedRecipe;
+
+import org.sonatype.nexus.repository.config.Configuration;
+import org.sonatype.nexus.repository.manager.RepositoryManager;
+import org.sonatype.nexus.repository.storage.WritePolicy;
+import org.sonatype.nexus.testsuite.NexusCoreITSupport;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.Iterables;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+/**
+ * Benchmark harness tracking how long the {@link RepositoryManager} takes to restore and start many repositories.
+ * The number of repositories is tunable with the {@code it.startup.repositories} system property. Only run with the
+ * {@code testsuite-perf} profile.
+ *
+ * @since 3.0
+ */
+public class RepositoryStartupPerfIT
+    extends NexusCoreITSupport
+{
+  private static final int REPOSITORY_COUNT = Integer.getInteger("it.startup.repositories", 200);
+
+  private static final int ROUNDS = Integer.getInteger("it.startup.rounds", 3);
+
+  private final Logger log = LoggerFactory.getLogger(getClass());
+
+  @Inject
+  private RepositoryManager repositoryManager;
+
+  @Test
+  public void restartManyRepositories() throws Exception {
+    for (int i = 0; i < REPOSITORY_COUNT; i++) {
+      repositoryManager.create(hostedConfig("startup-" + i));
+    }
+    int repositories = Iterables.size(repositoryManager.browse());
+
+    for (int round = 1; round <= ROUNDS; round++) {
+      repositoryManager.stop();
+
+      Stopwatch stopwatch = Stopwatch.createStarted();
+      repositoryManager.start();
+      stopwatch.stop();
+
+      log.info("Round {}: started {} repositories in {}", round, repositories, stopwatch);
+      assertThat(Iterables.size(repositoryManager.browse()), greaterThanOrEqualTo(repositories));
+    }
+  }
+
+  private Configuration hostedConfig(final String name) {
+    Configuration config = new Configuration();
+    config.setRepositoryName(name);
+    config.setRecipeName(NugetHostedRecipe.NAME);
+    config.setOnline(true);
+    config.attributes("storage").set("writePolicy", WritePolicy.ALLOW.toString());
+    return config;
+  }
+}